@@ -569,4 +569,47 @@ public class BasicBuildTests extends BuilderTests {
 			org.eclipse.jdt.internal.core.builder.AbstractImageBuilder.MAX_AT_ONCE = save;
 		}
 	}
+
+	// units are compiled in groups ordered by package when they cannot be compiled all at once
+	public void testCompileGroupsOrderedByPackage() throws JavaModelException {
+		int save = org.eclipse.jdt.internal.core.builder.AbstractImageBuilder.MAX_AT_ONCE;
+		try {
+			IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+			env.addExternalJars(projectPath, Util.getJavaClassLibs());
+			env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+			IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+			env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+			env.addClass(root, "p1", "A", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p1;\n" + //$NON-NLS-1$
+				"public class A { p2.B b; C c; }\n"); //$NON-NLS-1$
+			env.addClass(root, "p2", "B", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p2;\n" + //$NON-NLS-1$
+				"public class B { p1.C c; D d; }\n"); //$NON-NLS-1$
+			env.addClass(root, "p1", "C", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p1;\n" + //$NON-NLS-1$
+				"public class C { p2.D d; }\n"); //$NON-NLS-1$
+			env.addClass(root, "p2", "D", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p2;\n" + //$NON-NLS-1$
+				"public class D { p1.A a; }\n"); //$NON-NLS-1$
+
+			org.eclipse.jdt.internal.core.builder.AbstractImageBuilder.MAX_AT_ONCE = 2;
+			fullBuild(projectPath);
+			expectingNoProblems();
+			expectingPresenceOf(new IPath[] {
+				projectPath.append("bin/p1/A.class"), //$NON-NLS-1$
+				projectPath.append("bin/p1/C.class"), //$NON-NLS-1$
+				projectPath.append("bin/p2/B.class"), //$NON-NLS-1$
+				projectPath.append("bin/p2/D.class") //$NON-NLS-1$
+			});
+
+			env.addClass(root, "p2", "D", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p2;\n" + //$NON-NLS-1$
+				"public class D { p1.A a; public int i; }\n"); //$NON-NLS-1$
+			incrementalBuild(projectPath);
+			expectingNoProblems();
+		} finally {
+			org.eclipse.jdt.internal.core.builder.AbstractImageBuilder.MAX_AT_ONCE = save;
+		}
+	}
 }
@@ -10,10 +10,24 @@
  *******************************************************************************/
 package org.eclipse.jdt.core.tests.builder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
 import junit.framework.*;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.builder.BatchImageBuilder;
+import org.eclipse.jdt.internal.core.builder.CompiledUnitCache;
+import org.eclipse.jdt.internal.core.builder.JavaBuilder;
 
 /**
  * Basic efficiency tests of the image builder.
@@ -149,6 +163,197 @@ public class EfficiencyTests extends BuilderTests {
 		expectingCompilingOrder(new String[]{"p1.X", "p2.Y" }); //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
+	public void testMemberReferences() throws JavaModelException {
+		boolean save = JavaBuilder.TRACK_MEMBER_REFERENCES;
+		try {
+			JavaBuilder.TRACK_MEMBER_REFERENCES = true;
+			IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+			env.addExternalJars(projectPath, Util.getJavaClassLibs());
+
+			// remove old package fragment root so that names don't collide
+			env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+
+			IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+			env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+			env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p1;\n"+ //$NON-NLS-1$
+				"public class X {\n"+ //$NON-NLS-1$
+				"  public void foo() {}\n"+ //$NON-NLS-1$
+				"  public void bar() {}\n"+ //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+
+			env.addClass(root, "p2", "Y", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p2;\n"+ //$NON-NLS-1$
+				"public class Y {\n"+ //$NON-NLS-1$
+				"  void m(p1.X x) { x.foo(); }\n"+ //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+
+			env.addClass(root, "p2", "Z", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p2;\n"+ //$NON-NLS-1$
+				"public class Z {\n"+ //$NON-NLS-1$
+				"  void m(p1.X x) { x.bar(); }\n"+ //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+
+			env.addClass(root, "p2", "W", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p2;\n"+ //$NON-NLS-1$
+				"public class W extends p1.X {\n"+ //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+
+			fullBuild(projectPath);
+			expectingNoProblems();
+
+			env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p1;\n"+ //$NON-NLS-1$
+				"public class X {\n"+ //$NON-NLS-1$
+				"  public void foo() {}\n"+ //$NON-NLS-1$
+				"  public void bar(int i) {}\n"+ //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+
+			incrementalBuild(projectPath);
+
+			// Y does not use bar() thus is not recompiled, W is recompiled since it inherits bar()
+			expectingCompiledClasses(new String[]{"p1.X", "p2.W", "p2.Z"}); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			expectingOnlyProblemsFor(root.append("p2/Z.java")); //$NON-NLS-1$
+		} finally {
+			JavaBuilder.TRACK_MEMBER_REFERENCES = save;
+		}
+	}
+
+	// the dependents of a type are found using the references of a saved state
+	public void testSavedStateReferences() throws JavaModelException, IOException {
+		boolean save = JavaBuilder.TRACK_MEMBER_REFERENCES;
+		try {
+			JavaBuilder.TRACK_MEMBER_REFERENCES = true;
+			IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+			env.addExternalJars(projectPath, Util.getJavaClassLibs());
+
+			// remove old package fragment root so that names don't collide
+			env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+
+			IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+			env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+			env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p1;\n"+ //$NON-NLS-1$
+				"public class X {\n"+ //$NON-NLS-1$
+				"	public void foo() {}\n" + //$NON-NLS-1$
+				"	public void bar() {}\n" + //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+
+			env.addClass(root, "p2", "Y", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p2;\n"+ //$NON-NLS-1$
+				"public class Y {\n"+ //$NON-NLS-1$
+				"	void m(p1.X x) { x.foo(); }\n" + //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+
+			env.addClass(root, "p2", "Z", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p2;\n"+ //$NON-NLS-1$
+				"public class Z {\n"+ //$NON-NLS-1$
+				"	void m(p1.X x) { x.bar(); }\n" + //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+
+			env.addClass(root, "p3", "W", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p3;\n"+ //$NON-NLS-1$
+				"public class W {\n"+ //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+
+			fullBuild(projectPath);
+
+			// simulate a restart: the next build uses the state read from its saved form
+			IProject project = env.getProject(projectPath);
+			JavaModelManager manager = JavaModelManager.getJavaModelManager();
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			JavaBuilder.writeState(manager.getLastBuiltState(project, null), out);
+			out.close();
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+			Object state = JavaBuilder.readState(project, in);
+			in.close();
+			assertNotNull("Should read the saved state", state); //$NON-NLS-1$
+			manager.setLastBuiltState(project, state);
+
+			env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p1;\n"+ //$NON-NLS-1$
+				"public class X {\n"+ //$NON-NLS-1$
+				"	public void foo() {}\n" + //$NON-NLS-1$
+				"	public void bar(int i) {}\n" + //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+
+			incrementalBuild(projectPath);
+			expectingCompiledClasses(new String[]{"p1.X", "p2.Z"}); //$NON-NLS-1$ //$NON-NLS-2$
+			expectingOnlyProblemsFor(root.append("p2/Z.java")); //$NON-NLS-1$
+		} finally {
+			JavaBuilder.TRACK_MEMBER_REFERENCES = save;
+		}
+	}
+
+	// structural changes are detected using the hashes recorded when the class files were written
+	public void testClassFileHashes() throws JavaModelException {
+		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+
+		// remove old package fragment root so that names don't collide
+		env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+
+		IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+		env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+		env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p1;\n"+ //$NON-NLS-1$
+			"public class X {\n"+ //$NON-NLS-1$
+			"	public int foo() { return 0; }\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+
+		env.addClass(root, "p2", "Y", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p2;\n"+ //$NON-NLS-1$
+			"public class Y {\n"+ //$NON-NLS-1$
+			"	int m(p1.X x) { return x.foo(); }\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+
+		fullBuild(projectPath);
+
+		env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p1;\n"+ //$NON-NLS-1$
+			"public class X {\n"+ //$NON-NLS-1$
+			"	public int foo() { return 1; }\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+		incrementalBuild(projectPath);
+		expectingCompiledClasses(new String[]{"p1.X"}); //$NON-NLS-1$
+
+		env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p1;\n"+ //$NON-NLS-1$
+			"public class X {\n"+ //$NON-NLS-1$
+			"	public int foo() { return 2; }\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+		incrementalBuild(projectPath);
+		expectingCompiledClasses(new String[]{"p1.X"}); //$NON-NLS-1$
+
+		env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p1;\n"+ //$NON-NLS-1$
+			"public class X {\n"+ //$NON-NLS-1$
+			"	public long foo() { return 2; }\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+		incrementalBuild(projectPath);
+		expectingCompiledClasses(new String[]{"p1.X", "p2.Y"}); //$NON-NLS-1$ //$NON-NLS-2$
+		expectingOnlyProblemsFor(root.append("p2/Y.java")); //$NON-NLS-1$
+	}
+
 	public void testLocalTypeAddition() throws JavaModelException {
 
 		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
@@ -408,4 +613,165 @@ public class EfficiencyTests extends BuilderTests {
 		expectingCompiledClasses(new String[]{"p1.X", "p2.Y","p2.Z"}); //$NON-NLS-1$ //$NON-NLS-2$
 		expectingCompilingOrder(new String[]{"p2.Z", "p2.Y", "p1.X" }); //$NON-NLS-1$ //$NON-NLS-2$
 	}
+
+	// full builds restore the compiled units whose source and referenced types did not change
+	public void testCompiledUnitCache() throws JavaModelException {
+		CompiledUnitCache previousCache = BatchImageBuilder.UNIT_CACHE;
+		File cacheDirectory = new File(Util.getOutputDirectory(), "compiledUnitCache"); //$NON-NLS-1$
+		BatchImageBuilder.UNIT_CACHE = new CompiledUnitCache(cacheDirectory);
+		try {
+			IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+			env.addExternalJars(projectPath, Util.getJavaClassLibs());
+			env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+			IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+			env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+			env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p1;\n"+ //$NON-NLS-1$
+				"public class X {\n"+ //$NON-NLS-1$
+				"	public void foo() {}\n" + //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+			env.addClass(root, "p2", "Y", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p2;\n"+ //$NON-NLS-1$
+				"public class Y extends p1.X {\n"+ //$NON-NLS-1$
+				"	class M {}\n" + //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+			IPath zPath = env.addClass(root, "p2", "Z", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p2;\n"+ //$NON-NLS-1$
+				"import java.util.List;\n"+ //$NON-NLS-1$
+				"public class Z {\n"+ //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+			fullBuild(projectPath);
+			expectingCompiledClasses(new String[]{"p1.X", "p2.Y", "p2.Y$M", "p2.Z"}); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			expectingOnlyProblemsFor(zPath);
+
+			fullBuild(projectPath);
+			expectingCompiledClasses(new String[0]);
+			expectingPresenceOf(new IPath[] {
+				projectPath.append("bin/p1/X.class"), //$NON-NLS-1$
+				projectPath.append("bin/p2/Y.class"), //$NON-NLS-1$
+				projectPath.append("bin/p2/Y$M.class"), //$NON-NLS-1$
+				projectPath.append("bin/p2/Z.class") //$NON-NLS-1$
+			});
+			expectingOnlyProblemsFor(zPath);
+
+			env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p1;\n"+ //$NON-NLS-1$
+				"public class X {\n"+ //$NON-NLS-1$
+				"	public void foo() {}\n" + //$NON-NLS-1$
+				"	public void bar() {}\n" + //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+			fullBuild(projectPath);
+			expectingCompiledClasses(new String[]{"p1.X", "p2.Y", "p2.Y$M"}); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			expectingOnlyProblemsFor(zPath);
+		} finally {
+			BatchImageBuilder.UNIT_CACHE = previousCache;
+			Util.delete(cacheDirectory);
+		}
+	}
+
+	// a restored unit is compiled when a compiled source file defines a secondary type it references
+	public void testCompiledUnitCacheAddedSecondaryType() throws JavaModelException {
+		CompiledUnitCache previousCache = BatchImageBuilder.UNIT_CACHE;
+		File cacheDirectory = new File(Util.getOutputDirectory(), "compiledUnitCache"); //$NON-NLS-1$
+		BatchImageBuilder.UNIT_CACHE = new CompiledUnitCache(cacheDirectory);
+		try {
+			IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+			env.addExternalJars(projectPath, Util.getJavaClassLibs());
+			env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+			IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+			env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+			env.addClass(root, "p1", "A", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p1;\n"+ //$NON-NLS-1$
+				"import p2.*;\n"+ //$NON-NLS-1$
+				"public class A {\n"+ //$NON-NLS-1$
+				"	Helper helper;\n" + //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+			env.addClass(root, "p2", "Helper", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p2;\n"+ //$NON-NLS-1$
+				"public class Helper {\n"+ //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+			fullBuild(projectPath);
+			expectingCompiledClasses(new String[]{"p1.A", "p2.Helper"}); //$NON-NLS-1$ //$NON-NLS-2$
+
+			// p1.Helper hides p2.Helper in A
+			env.addClass(root, "p1", "B", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p1;\n"+ //$NON-NLS-1$
+				"public class B {\n"+ //$NON-NLS-1$
+				"}\n" + //$NON-NLS-1$
+				"class Helper {\n"+ //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+			fullBuild(projectPath);
+			expectingCompiledClasses(new String[]{"p1.A", "p1.B", "p1.Helper"}); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			expectingNoProblems();
+		} finally {
+			BatchImageBuilder.UNIT_CACHE = previousCache;
+			Util.delete(cacheDirectory);
+		}
+	}
+
+	// a corrupted unit of the cache is ignored and written again
+	public void testCompiledUnitCacheCorrupted() throws IOException, JavaModelException {
+		CompiledUnitCache previousCache = BatchImageBuilder.UNIT_CACHE;
+		File cacheDirectory = new File(Util.getOutputDirectory(), "compiledUnitCache"); //$NON-NLS-1$
+		BatchImageBuilder.UNIT_CACHE = new CompiledUnitCache(cacheDirectory);
+		try {
+			IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+			env.addExternalJars(projectPath, Util.getJavaClassLibs());
+			env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+			IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+			env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+			env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p1;\n"+ //$NON-NLS-1$
+				"public class X {\n"+ //$NON-NLS-1$
+				"}\n" //$NON-NLS-1$
+				);
+			fullBuild(projectPath);
+			expectingCompiledClasses(new String[]{"p1.X"}); //$NON-NLS-1$
+
+			// replace the unit by an invalid key length
+			File[] unitFiles = getFiles(cacheDirectory);
+			assertEquals("Unexpected number of units", 1, unitFiles.length); //$NON-NLS-1$
+			DataOutputStream out = new DataOutputStream(new FileOutputStream(unitFiles[0]));
+			try {
+				out.writeInt(Integer.MAX_VALUE);
+			} finally {
+				out.close();
+			}
+
+			fullBuild(projectPath);
+			expectingCompiledClasses(new String[]{"p1.X"}); //$NON-NLS-1$
+			expectingNoProblems();
+
+			fullBuild(projectPath);
+			expectingCompiledClasses(new String[0]);
+		} finally {
+			BatchImageBuilder.UNIT_CACHE = previousCache;
+			Util.delete(cacheDirectory);
+		}
+	}
+
+	private static File[] getFiles(File directory) {
+		ArrayList files = new ArrayList();
+		File[] children = directory.listFiles();
+		for (int i = 0; children != null && i < children.length; i++) {
+			if (children[i].isDirectory()) {
+				File[] descendants = getFiles(children[i]);
+				for (int j = 0; j < descendants.length; j++)
+					files.add(descendants[j]);
+			} else {
+				files.add(children[i]);
+			}
+		}
+		return (File[]) files.toArray(new File[files.size()]);
+	}
 }
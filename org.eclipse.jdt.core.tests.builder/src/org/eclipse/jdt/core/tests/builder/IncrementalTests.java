@@ -14,12 +14,15 @@ import java.util.Hashtable;
 
 import junit.framework.Test;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IJavaModelMarker;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
@@ -1202,4 +1205,53 @@ public class IncrementalTests extends BuilderTests {
 		incrementalBuild(projectPath);
 		expectingSpecificProblemFor(aPath, new Problem("A", "The import w.I cannot be resolved", aPath, 18, 21, CategorizedProblem.CAT_IMPORT, IMarker.SEVERITY_ERROR)); //$NON-NLS-1$ //$NON-NLS-2$
 	}
+
+	// the markers of the problems which did not change are kept by incremental and full builds
+	public void testUnchangedProblemMarkersAreKept() throws JavaModelException, CoreException {
+		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+		IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+		env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+		IPath xPath = env.addClass(root, "p", "X", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n"+ //$NON-NLS-1$
+			"public class X {\n"+ //$NON-NLS-1$
+			"	void X() {}\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+		fullBuild(projectPath);
+		expectingSpecificProblemFor(xPath, new Problem("X", "This method has a constructor name", xPath, 34, 37, CategorizedProblem.CAT_CODE_STYLE, IMarker.SEVERITY_WARNING)); //$NON-NLS-1$ //$NON-NLS-2$
+		IFile xFile = env.getWorkspace().getRoot().getFile(xPath);
+		IMarker[] markers = xFile.findMarkers(IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
+		assertEquals("Unexpected markers", 1, markers.length); //$NON-NLS-1$
+		long markerId = markers[0].getId();
+
+		env.addClass(root, "p", "X", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n"+ //$NON-NLS-1$
+			"public class X {\n"+ //$NON-NLS-1$
+			"	void X() {}\n" + //$NON-NLS-1$
+			"	void Y(String s) {}\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+		incrementalBuild(projectPath);
+		expectingSpecificProblemFor(xPath, new Problem("X", "This method has a constructor name", xPath, 34, 37, CategorizedProblem.CAT_CODE_STYLE, IMarker.SEVERITY_WARNING)); //$NON-NLS-1$ //$NON-NLS-2$
+		markers = xFile.findMarkers(IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
+		assertEquals("Unexpected markers", 1, markers.length); //$NON-NLS-1$
+		assertEquals("Marker should have been kept", markerId, markers[0].getId()); //$NON-NLS-1$
+
+		fullBuild(projectPath);
+		markers = xFile.findMarkers(IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
+		assertEquals("Unexpected markers", 1, markers.length); //$NON-NLS-1$
+		assertEquals("Marker should have been kept by the full build", markerId, markers[0].getId()); //$NON-NLS-1$
+
+		env.addClass(root, "p", "X", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p;\n"+ //$NON-NLS-1$
+			"public class X {\n"+ //$NON-NLS-1$
+			"	void Y(String s) {}\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+		incrementalBuild(projectPath);
+		expectingNoProblems();
+	}
 }
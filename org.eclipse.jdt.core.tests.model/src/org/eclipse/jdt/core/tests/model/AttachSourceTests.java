@@ -53,6 +53,9 @@ import org.eclipse.jdt.internal.core.ExternalFoldersManager;
 import org.eclipse.jdt.internal.core.JarPackageFragmentRoot;
 import org.eclipse.jdt.internal.core.JavaModelManager;
 import org.eclipse.jdt.internal.core.JavaProject;
+import org.eclipse.jdt.internal.core.SourceAttachmentIndex;
+import org.eclipse.jdt.internal.core.SourceMapper;
+import org.eclipse.jdt.internal.core.SourceRangeCache;
 import org.eclipse.jdt.internal.core.util.Util;
 
 /**
@@ -832,6 +835,27 @@ public void testGetNameRange04() throws JavaModelException {
 
 	attachSource(root, null, null); // detach source
 }
+/*
+ * Ensures that the ranges of a binary type are found in the source range cache
+ * once its root was closed and reopened.
+ */
+public void testGetNameRange05() throws JavaModelException {
+	SourceRangeCache rangeCache = SourceMapper.RANGE_CACHE;
+	try {
+		SourceMapper.RANGE_CACHE = new SourceRangeCache(1000000);
+		this.pkgFragmentRoot.close();
+		IClassFile classFile = this.pkgFragmentRoot.getPackageFragment("x.y").getClassFile("A.class");
+		IMethod method = classFile.getType().getMethod("foo", null);
+		assertSourceEquals("Unexpected name source", "foo", getNameSource(classFile.getSource(), method));
+		int hitCount = SourceMapper.RANGE_CACHE.getHitCount();
+
+		this.pkgFragmentRoot.close();
+		assertSourceEquals("Unexpected name source", "foo", getNameSource(classFile.getSource(), method));
+		assertEquals("Unexpected hit count", hitCount + 1, SourceMapper.RANGE_CACHE.getHitCount());
+	} finally {
+		SourceMapper.RANGE_CACHE = rangeCache;
+	}
+}
 /**
  * Retrieves the source attachment paths for jar root.
  */
@@ -1388,6 +1412,44 @@ public void testRootPath8() throws JavaModelException {
 
 	attachSource(root, null, null); // detach source
 }
+/**
+ * Attach a jar with a source attachment that contains the source folders,
+ * the sources being found in the index of the source attachment
+ */
+public void testRootPath8b() throws JavaModelException {
+	boolean enabled = SourceAttachmentIndex.ENABLED;
+	IJavaProject project = getJavaProject("/AttachSourceTests");
+	IPackageFragmentRoot root = project.getPackageFragmentRoot(getFile("/AttachSourceTests/full.jar"));
+	try {
+		SourceAttachmentIndex.ENABLED = true;
+		attachSource(root, "/AttachSourceTests/fullsrc.zip", null);
+
+		IClassFile cf = root.getPackageFragment("p1.p2").getClassFile("A.class");
+		assertSourceEquals(
+			"Unexpected source for class file",
+			"package p1.p2;\n" +
+			"\n" +
+			"public class A {}",
+			cf.getSource());
+
+		cf = root.getPackageFragment("").getClassFile("B.class");
+		assertSourceEquals(
+			"Unexpected source for class file",
+			"public class B {}",
+			cf.getSource());
+
+		cf = root.getPackageFragment("test1").getClassFile("Test.class");
+		assertSourceEquals(
+			"Unexpected source for class file",
+			"package test1;\n" +
+			"\n" +
+			"public class Test {}",
+			cf.getSource());
+	} finally {
+		SourceAttachmentIndex.ENABLED = enabled;
+		attachSource(root, null, null); // detach source
+	}
+}
 /**
  * Attach a jar with a source attachment that contains the source folders
  */
@@ -7460,4 +7460,95 @@ public void testBug396299() throws Exception {
 		deleteProject("P1");
 	}
 }
+/*
+ * Ensures that the libraries a jar chains to through its manifest are remembered,
+ * so that the manifest is read once for all the projects.
+ */
+public void testChainedLibrariesCache() throws Exception {
+	try {
+		IJavaProject p1 = createJavaProject("P1");
+		addLibrary(p1, "lib1.jar", null, new String[0],
+			new String[] {
+				"META-INF/MANIFEST.MF",
+				"Manifest-Version: 1.0\n" +
+				"Class-Path: lib2.jar lib3.jar\n",
+			},
+			JavaCore.VERSION_1_4);
+		createFile("/P1/lib2.jar", "");
+		createFile("/P1/lib3.jar", "");
+		IJavaProject p2 = createJavaProject("P2", new String[0], new String[] {"/P1/lib1.jar"}, "");
+
+		p1.getResolvedClasspath(true);
+		IPath[] calledJars = JavaModelManager.getJavaModelManager().getCalledJars(new Path("/P1/lib1.jar"));
+		assertNotNull("Chaining jar should be remembered", calledJars);
+		assertEquals("Unexpected called jars", "[/P1/lib2.jar, /P1/lib3.jar]", java.util.Arrays.asList(calledJars).toString());
+
+		assertClasspathEquals(p2.getResolvedClasspath(true),
+			"/P1/lib2.jar[CPE_LIBRARY][K_BINARY][isExported:false]\n" +
+			"/P1/lib3.jar[CPE_LIBRARY][K_BINARY][isExported:false]\n" +
+			"/P1/lib1.jar[CPE_LIBRARY][K_BINARY][isExported:false]");
+	} finally {
+		deleteProject("P1");
+		deleteProject("P2");
+	}
+}
+/*
+ * Ensures that the libraries a jar chains to are forgotten on restart if the jar was changed since the save.
+ */
+public void testChainedLibrariesCacheChangedJar() throws Exception {
+	try {
+		IJavaProject p1 = createJavaProject("P1");
+		addLibrary(p1, "lib1.jar", null, new String[0],
+			new String[] {
+				"META-INF/MANIFEST.MF",
+				"Manifest-Version: 1.0\n" +
+				"Class-Path: lib2.jar\n",
+			},
+			JavaCore.VERSION_1_4);
+		createFile("/P1/lib2.jar", "");
+		p1.getResolvedClasspath(true);
+		IPath jarPath = new Path("/P1/lib1.jar");
+		assertNotNull("Chaining jar should be remembered", JavaModelManager.getJavaModelManager().getCalledJars(jarPath));
+
+		simulateExitRestart();
+		assertNotNull("Chaining jar should be remembered after restart", JavaModelManager.getJavaModelManager().getCalledJars(jarPath));
+
+		simulateExit();
+		File jarFile = getFile("/P1/lib1.jar").getLocation().toFile();
+		FileOutputStream out = new FileOutputStream(jarFile, true/*append*/);
+		try {
+			out.write(0);
+		} finally {
+			out.close();
+		}
+		simulateRestart();
+		assertNull("Changed jar should be forgotten", JavaModelManager.getJavaModelManager().getCalledJars(jarPath));
+	} finally {
+		deleteProject("P1");
+	}
+}
+/*
+ * Ensures that the classpaths of several projects can be resolved concurrently.
+ */
+public void testResolveClasspathsInParallel() throws CoreException {
+	int parallelism = JavaModelManager.CLASSPATH_RESOLUTION_PARALLELISM;
+	try {
+		IJavaProject p1 = createJavaProject("P1", new String[] {"src"}, new String[] {"JCL_LIB"}, "bin");
+		IJavaProject p2 = createJavaProject("P2", new String[] {"src"}, new String[] {"JCL_LIB"}, new String[] {"/P1"}, "bin");
+		simulateExitRestart();
+		JavaModelManager.CLASSPATH_RESOLUTION_PARALLELISM = 2;
+		JavaModelManager.getJavaModelManager().resolveClasspaths(new IJavaProject[] {p1, p2}, null);
+		assertClasspathEquals(p1.getResolvedClasspath(true),
+			"/P1/src[CPE_SOURCE][K_SOURCE][isExported:false]\n" +
+			""+ getExternalJCLPathString() + "[CPE_LIBRARY][K_BINARY][isExported:false]");
+		assertClasspathEquals(p2.getResolvedClasspath(true),
+			"/P2/src[CPE_SOURCE][K_SOURCE][isExported:false]\n" +
+			""+ getExternalJCLPathString() + "[CPE_LIBRARY][K_BINARY][isExported:false]\n" +
+			"/P1[CPE_PROJECT][K_SOURCE][isExported:false]");
+	} finally {
+		JavaModelManager.CLASSPATH_RESOLUTION_PARALLELISM = parallelism;
+		deleteProject("P1");
+		deleteProject("P2");
+	}
+}
 }
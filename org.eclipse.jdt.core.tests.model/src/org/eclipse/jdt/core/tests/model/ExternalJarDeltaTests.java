@@ -24,6 +24,7 @@ import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.internal.core.ExternalArchiveWatcher;
 /**
  * These test ensure that modifications in external jar are correctly reported as
  * IJavaEllementDeltas after a JavaModel#refreshExternalArchives().
@@ -124,6 +125,88 @@ public void testExternalJarChanged1() throws CoreException, IOException {
 		stopDeltas();
 	}
 }
+/**
+ * Refresh a project after a modification of an external jar which is watched.
+ */
+public void testExternalJarChangedWatched() throws CoreException, IOException, InterruptedException {
+	File f = null;
+	int interval = ExternalArchiveWatcher.INTERVAL;
+	try {
+		ExternalArchiveWatcher.INTERVAL = 100;
+		IJavaProject project = this.createJavaProject("P", new String[] {""}, "");
+
+		String pPath = getExternalPath() + "p.jar";
+		setClasspath(project, new IClasspathEntry[]{JavaCore.newLibraryEntry(new Path(pPath), null, null)});
+
+		f = new File(pPath);
+		f.createNewFile();
+		getJavaModel().refreshExternalArchives(null,null);
+		waitUntilIndexesReady();
+		startDeltas();
+
+		refresh(project);
+		assertDeltas(
+			"Unexpected delta before modification",
+			""
+		);
+
+		touch(f);
+		for (int i = 0; i < 50 && this.deltaListener.toString().length() == 0; i++) {
+			Thread.sleep(100); // let the watcher poll the jar
+			refresh(project);
+		}
+		assertDeltas(
+			"Unexpected delta",
+			"P[*]: {CHILDREN}\n"+
+			"	"+f.getCanonicalPath()+"[*]: {CONTENT | ARCHIVE CONTENT CHANGED}"
+		);
+	} finally {
+		ExternalArchiveWatcher.INTERVAL = interval;
+		if(f != null) {
+			deleteResource(f);
+		}
+		this.deleteProject("P");
+		stopDeltas();
+	}
+}
+/**
+ * Refresh the JavaModel after a modification of an external jar which is watched:
+ * the jar must be checked even if the watcher did not poll it since the modification.
+ */
+public void testExternalJarChangedWatchedExplicitRefresh() throws CoreException, IOException, InterruptedException {
+	File f = null;
+	int interval = ExternalArchiveWatcher.INTERVAL;
+	try {
+		ExternalArchiveWatcher.INTERVAL = 100;
+		IJavaProject project = this.createJavaProject("P", new String[] {""}, "");
+
+		String pPath = getExternalPath() + "p.jar";
+		setClasspath(project, new IClasspathEntry[]{JavaCore.newLibraryEntry(new Path(pPath), null, null)});
+
+		f = new File(pPath);
+		f.createNewFile();
+		getJavaModel().refreshExternalArchives(null,null);
+		waitUntilIndexesReady();
+		refresh(project); // start the watcher
+		Thread.sleep(300); // let the watcher poll the jar
+		startDeltas();
+
+		touch(f);
+		getJavaModel().refreshExternalArchives(null,null);
+		assertDeltas(
+			"Unexpected delta",
+			"P[*]: {CHILDREN}\n"+
+			"	"+f.getCanonicalPath()+"[*]: {CONTENT | ARCHIVE CONTENT CHANGED}"
+		);
+	} finally {
+		ExternalArchiveWatcher.INTERVAL = interval;
+		if(f != null) {
+			deleteResource(f);
+		}
+		this.deleteProject("P");
+		stopDeltas();
+	}
+}
 /**
  * Refresh a JavaProject after a modification of an external jar.
  */
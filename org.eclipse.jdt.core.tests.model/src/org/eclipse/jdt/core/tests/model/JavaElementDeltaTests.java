@@ -3053,5 +3053,36 @@ public void testChangeExternalJar() throws CoreException {
 		deleteProject("P");
 	}
 }
+/*
+ * Ensures that the deltas of successive resource changes are fired as a single merged delta
+ * when they are coalesced.
+ */
+public void testCoalescedResourceChanges() throws CoreException, InterruptedException {
+	int window = DeltaProcessor.COALESCING_WINDOW;
+	try {
+		createJavaProject("P", new String[] {""}, "");
+		DeltaProcessor.COALESCING_WINDOW = 500;
+		startDeltas();
+		createFile("P/X.java",
+			"public class X {\n" +
+			"}");
+		createFile("P/Y.java",
+			"public class Y {\n" +
+			"}");
+		for (int i = 0; i < 100 && this.deltaListener.toString().length() == 0; i++)
+			Thread.sleep(50);
+		assertDeltas(
+			"Unexpected delta",
+			"P[*]: {CHILDREN}\n" +
+			"	<project root>[*]: {CHILDREN}\n" +
+			"		<default>[*]: {CHILDREN}\n" +
+			"			X.java[+]: {}\n" +
+			"			Y.java[+]: {}"
+		);
+	} finally {
+		DeltaProcessor.COALESCING_WINDOW = window;
+		stopDeltas();
+		deleteProject("P");
+	}
+}
 }
-
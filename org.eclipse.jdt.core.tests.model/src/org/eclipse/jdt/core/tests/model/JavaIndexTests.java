@@ -11,6 +11,7 @@
 package org.eclipse.jdt.core.tests.model;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
 
@@ -126,6 +127,76 @@ public class JavaIndexTests extends AbstractJavaSearchTests  {
 		}
 	}
 	
+	// Test that the index of a jar is generated in the store under the digest of the jar
+	public void testGenerateIndexInStore() throws IOException {
+		String storePath = getExternalResourcePath("IndexStore");
+		String jarFilePath = getExternalResourcePath("Test.jar");
+		String copyFilePath = getExternalResourcePath("TestCopy.jar");
+		try {
+			createJar(new String[] {
+					"pkg/Test.java",
+					"package pkg;\n" +
+					"public class Test {\n" +
+					"  protected Test(int i) {}\n" +
+					"}"}, jarFilePath);
+			String indexFilePath = JavaIndexer.generateIndexInStore(jarFilePath, storePath);
+			assertTrue("Index file should exist", new File(indexFilePath).exists());
+			assertTrue("Index file should be in the store", indexFilePath.startsWith(storePath));
+
+			// the same content at another location uses the same index
+			FileOutputStream copy = new FileOutputStream(copyFilePath);
+			try {
+				copy.write(org.eclipse.jdt.internal.compiler.util.Util.getFileByteContent(new File(jarFilePath)));
+			} finally {
+				copy.close();
+			}
+			long modified = new File(indexFilePath).lastModified();
+			assertEquals("Unexpected index file", indexFilePath, JavaIndexer.generateIndexInStore(copyFilePath, storePath));
+			assertEquals("Index file should not be regenerated", modified, new File(indexFilePath).lastModified());
+		} finally {
+			Util.delete(new File(storePath));
+			new File(jarFilePath).delete();
+			new File(copyFilePath).delete();
+		}
+	}
+
+	// Test that search uses the index of the store instead of indexing the jar
+	public void testUseIndexStore() throws CoreException, IOException {
+		String storePath = getExternalResourcePath("IndexStore");
+		String jarFilePath = getExternalResourcePath("Test.jar");
+		try {
+			createJar(new String[] {
+					"pkg/Test.java",
+					"package pkg;\n" +
+					"public class Test {\n" +
+					"  protected Test(int i) {}\n" +
+					"}"}, jarFilePath);
+			String indexFilePath = JavaIndexer.generateIndexInStore(jarFilePath, storePath);
+			long modified = new File(indexFilePath).lastModified();
+			JavaModelManager.getIndexManager().setIndexStore(storePath);
+
+			IJavaProject p = createJavaProject("P");
+			Path libPath = new Path(jarFilePath);
+			setClasspath(p, new IClasspathEntry[] {JavaCore.newLibraryEntry(libPath, null, null)});
+			waitUntilIndexesReady();
+
+			// Test that the stored index file is really used
+			java.io.File indexFile = JavaModelManager.getIndexManager().getIndex(libPath, false, false).getIndexFile();
+			assertEquals("Stored index file is not being used", new File(indexFilePath), indexFile);
+
+			search("Test", TYPE, DECLARATIONS, EXACT_RULE, SearchEngine.createJavaSearchScope(new IJavaElement[]{p}));
+			assertSearchResults(getExternalPath() + "Test.jar pkg.Test");
+
+			// Ensure that the stored index file is not modified
+			assertEquals(modified, new File(indexFilePath).lastModified());
+		} finally {
+			JavaModelManager.getIndexManager().setIndexStore(null);
+			deleteProject("P");
+			Util.delete(new File(storePath));
+			new File(jarFilePath).delete();
+		}
+	}
+
 	// Test that the same index file is used even after restarting
 	public void testUseIndexAfterRestart() throws IOException, CoreException {
 		String indexFilePath = getExternalResourcePath("Test.index");
@@ -11,6 +11,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.core.tests.model;
 
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -31,6 +32,8 @@ import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.core.JarEntryListingCache;
+import org.eclipse.jdt.internal.core.JarPackageFragmentRoot;
 import org.eclipse.jdt.internal.core.JavaModelManager;
 import org.eclipse.jdt.internal.core.PackageFragmentRoot;
 import org.eclipse.jdt.internal.core.util.Util;
@@ -1126,6 +1129,94 @@ public void testJarPackageFragmentCorrespondingResource() throws JavaModelExcept
 	IResource corr = element.getCorrespondingResource();
 	assertTrue("incorrect corresponding resource", corr == null);
 }
+/*
+ * Ensures that the packages of a jar are computed from the listing of its entries when it is cached,
+ * and that the listing is stored when the jar is first opened.
+ */
+public void testJarEntryListingCache() throws CoreException, IOException {
+	JarEntryListingCache listingCache = JarPackageFragmentRoot.LISTING_CACHE;
+	File directory = new File(getExternalPath(), "jarEntryListings");
+	try {
+		JarPackageFragmentRoot.LISTING_CACHE = new JarEntryListingCache(directory);
+		IJavaProject project = createJavaProject("P");
+		addLibrary(project, "lib.jar", null, new String[] {
+				"p/X.java",
+				"package p;\n" +
+				"public class X {}\n"},
+				JavaCore.VERSION_1_4);
+		IPackageFragmentRoot root = project.getPackageFragmentRoot(getFile("/P/lib.jar"));
+		assertSortedElementsEqual(
+			"Unexpected packages",
+			"<default> [in lib.jar [in P]]\n" +
+			"p [in lib.jar [in P]]",
+			root.getChildren());
+
+		// the listing is used instead of the jar as long as the jar does not change
+		File jarFile = getFile("/P/lib.jar").getLocation().toFile();
+		String[] entryNames = JarPackageFragmentRoot.LISTING_CACHE.read(root.getPath(), jarFile.lastModified(), jarFile.length());
+		assertNotNull("Listing should be stored", entryNames);
+		String[] newEntryNames = new String[entryNames.length + 1];
+		System.arraycopy(entryNames, 0, newEntryNames, 0, entryNames.length);
+		newEntryNames[entryNames.length] = "q/Y.class";
+		JarPackageFragmentRoot.LISTING_CACHE.write(root.getPath(), jarFile.lastModified(), jarFile.length(), newEntryNames);
+		root.close();
+		assertSortedElementsEqual(
+			"Unexpected packages after reopening",
+			"<default> [in lib.jar [in P]]\n" +
+			"p [in lib.jar [in P]]\n" +
+			"q [in lib.jar [in P]]",
+			root.getChildren());
+	} finally {
+		JarPackageFragmentRoot.LISTING_CACHE = listingCache;
+		deleteProject("P");
+		deleteResource(directory);
+	}
+}
+/*
+ * Ensures that a corrupted listing is ignored, and that the jar is listed again.
+ */
+public void testJarEntryListingCacheCorrupted() throws CoreException, IOException {
+	JarEntryListingCache listingCache = JarPackageFragmentRoot.LISTING_CACHE;
+	File directory = new File(getExternalPath(), "jarEntryListings");
+	try {
+		JarPackageFragmentRoot.LISTING_CACHE = new JarEntryListingCache(directory);
+		IJavaProject project = createJavaProject("P");
+		addLibrary(project, "lib.jar", null, new String[] {
+				"p/X.java",
+				"package p;\n" +
+				"public class X {}\n"},
+				JavaCore.VERSION_1_4);
+		IPackageFragmentRoot root = project.getPackageFragmentRoot(getFile("/P/lib.jar"));
+		root.getChildren();
+
+		// replace the listing by one with a negative number of entries
+		File jarFile = getFile("/P/lib.jar").getLocation().toFile();
+		File listingFile = directory;
+		while (listingFile.isDirectory())
+			listingFile = listingFile.listFiles()[0];
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(listingFile));
+		try {
+			out.writeUTF(root.getPath().toPortableString());
+			out.writeLong(jarFile.lastModified());
+			out.writeLong(jarFile.length());
+			out.writeInt(-1);
+		} finally {
+			out.close();
+		}
+		JarPackageFragmentRoot.LISTING_CACHE = new JarEntryListingCache(directory); // forget the listings read
+		root.close();
+		assertSortedElementsEqual(
+			"Unexpected packages after reopening",
+			"<default> [in lib.jar [in P]]\n" +
+			"p [in lib.jar [in P]]",
+			root.getChildren());
+		assertNotNull("Listing should be stored again", JarPackageFragmentRoot.LISTING_CACHE.read(root.getPath(), jarFile.lastModified(), jarFile.length()));
+	} finally {
+		JarPackageFragmentRoot.LISTING_CACHE = listingCache;
+		deleteProject("P");
+		deleteResource(directory);
+	}
+}
 /**
  * Test that an output location can't be set to a location inside a package fragment
  * root, except the root project folder.
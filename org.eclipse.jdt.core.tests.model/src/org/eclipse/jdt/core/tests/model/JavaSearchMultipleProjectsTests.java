@@ -23,6 +23,7 @@ import org.eclipse.jdt.core.*;
 import org.eclipse.jdt.core.search.*;
 import org.eclipse.jdt.core.tests.model.AbstractJavaSearchTests.JavaSearchResultCollector;
 import org.eclipse.jdt.core.tests.model.AbstractJavaSearchTests.TypeNameMatchCollector;
+import org.eclipse.jdt.internal.core.search.matching.MatchLocator;
 import org.eclipse.jdt.internal.core.search.matching.PatternLocator;
 
 /**
@@ -397,6 +398,110 @@ public void testMethodOccurences() throws CoreException {
 		deleteProject("P2");
 	}
 }
+/*
+ * Ensures that the references found in several projects concurrently are the same and in the same
+ * order as the ones found sequentially.
+ */
+public void testParallelMethodReferences() throws CoreException {
+	String parallelism = System.getProperty(MatchLocator.PARALLELISM_PROPERTY);
+	try {
+		createJavaProject("P1");
+		createFolder("/P1/p1");
+		createFile(
+			"/P1/p1/X.java",
+			"package p1;\n" +
+			"public class X {\n" +
+			"    public static void foo() {}\n" +
+			"}"
+		);
+		for (int i = 2; i <= 4; i++) {
+			createJavaProject("P" + i, new String[] {""}, new String[] {"JCL_LIB"}, new String[] {"/P1"}, "");
+			createFolder("/P" + i + "/p" + i);
+			createFile(
+				"/P" + i + "/p" + i + "/Y.java",
+				"package p" + i + ";\n" +
+				"public class Y {\n" +
+				"    void bar() {\n" +
+				"      p1.X.foo();\n" +
+				"    }\n" +
+				"}"
+			);
+		}
+		IMethod method = getCompilationUnit("/P1/p1/X.java").getType("X").getMethod("foo", new String[0]);
+		JavaSearchResultCollector sequentialCollector = new JavaSearchResultCollector();
+		search(method, REFERENCES, SearchEngine.createWorkspaceScope(), sequentialCollector);
+
+		System.setProperty(MatchLocator.PARALLELISM_PROPERTY, "2");
+		JavaSearchResultCollector parallelCollector = new JavaSearchResultCollector();
+		search(method, REFERENCES, SearchEngine.createWorkspaceScope(), parallelCollector);
+		assertSearchResults(
+			"p2/Y.java void p2.Y.bar() [foo()]\n" +
+			"p3/Y.java void p3.Y.bar() [foo()]\n" +
+			"p4/Y.java void p4.Y.bar() [foo()]",
+			parallelCollector);
+		assertEquals("Unexpected order of the matches", sequentialCollector.toString(), parallelCollector.toString());
+	} finally {
+		if (parallelism == null)
+			System.getProperties().remove(MatchLocator.PARALLELISM_PROPERTY);
+		else
+			System.setProperty(MatchLocator.PARALLELISM_PROPERTY, parallelism);
+		deleteProject("P1");
+		deleteProject("P2");
+		deleteProject("P3");
+		deleteProject("P4");
+	}
+}
+/*
+ * Ensures that a search limited to its first matches reports only these matches and completes normally.
+ */
+public void testFirstMatches() throws CoreException {
+	try {
+		createJavaProject("P1");
+		createFolder("/P1/p1");
+		createFile(
+			"/P1/p1/X.java",
+			"package p1;\n" +
+			"public class X {\n" +
+			"    public static void foo() {}\n" +
+			"    public static void unused() {}\n" +
+			"}"
+		);
+		for (int i = 2; i <= 4; i++) {
+			createJavaProject("P" + i, new String[] {""}, new String[] {"JCL_LIB"}, new String[] {"/P1"}, "");
+			createFolder("/P" + i + "/p" + i);
+			createFile(
+				"/P" + i + "/p" + i + "/Y.java",
+				"package p" + i + ";\n" +
+				"public class Y {\n" +
+				"    void bar() {\n" +
+				"      p1.X.foo();\n" +
+				"    }\n" +
+				"}"
+			);
+		}
+		IType type = getCompilationUnit("/P1/p1/X.java").getType("X");
+		SearchPattern pattern = SearchPattern.createPattern(type.getMethod("foo", new String[0]), REFERENCES);
+		SearchParticipant[] participants = new SearchParticipant[] {SearchEngine.getDefaultSearchParticipant()};
+		final boolean[] ended = new boolean[1];
+		JavaSearchResultCollector collector = new JavaSearchResultCollector() {
+			public void endReporting() {
+				ended[0] = true;
+			}
+		};
+		new SearchEngine().search(pattern, participants, SearchEngine.createWorkspaceScope(), collector, 2, null);
+		assertEquals("Unexpected number of matches", 2, collector.count);
+		assertTrue("Reporting should have ended", ended[0]);
+
+		assertTrue("Should have a match", new SearchEngine().hasMatch(pattern, participants, SearchEngine.createWorkspaceScope(), null));
+		SearchPattern unusedPattern = SearchPattern.createPattern(type.getMethod("unused", new String[0]), REFERENCES);
+		assertFalse("Should not have a match", new SearchEngine().hasMatch(unusedPattern, participants, SearchEngine.createWorkspaceScope(), null));
+	} finally {
+		deleteProject("P1");
+		deleteProject("P2");
+		deleteProject("P3");
+		deleteProject("P4");
+	}
+}
 /**
  * Package declaration with 2 unrelated projects that contain the same source.
  * (regression test for bug 46276 Search for package declarations incorrectly finds matches in clone project)
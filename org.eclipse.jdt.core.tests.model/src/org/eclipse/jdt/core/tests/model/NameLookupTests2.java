@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -250,6 +250,44 @@ public void testFindPackageFragmentWithWorkingCopy() throws CoreException {
 		deleteProject("P");
 	}
 }
+/*
+ * Ensure that the packages of working copies are found by a prefix, and that they are not added
+ * to the packages shared with the name lookups without these working copies.
+ */
+public void testFindPackageFragmentsWithPrefix() throws CoreException {
+	this.workingCopies = new ICompilationUnit[1];
+	try {
+		JavaProject project = (JavaProject)createJavaProject("P");
+		createFolder("/P/p1/q");
+		createFolder("/P/p2");
+		createFolder("/P/other");
+		this.workingCopies[0] = getWorkingCopy(
+			"/P/p3/r/X.java",
+			"package p3.r;\n" +
+			"public class X {\n" +
+			"}"
+		);
+		NameLookup nameLookup = project.newNameLookup(this.workingCopies);
+		assertElementsEqual(
+			"Unexpected packages with prefix p",
+			"p1 [in <project root> [in P]]\n" +
+			"p1.q [in <project root> [in P]]\n" +
+			"p2 [in <project root> [in P]]\n" +
+			"p3.r [in <project root> [in P]]",
+			nameLookup.findPackageFragments("p", true/*partial match*/));
+		assertElementsEqual(
+			"Unexpected packages with prefix P1.Q",
+			"p1.q [in <project root> [in P]]",
+			nameLookup.findPackageFragments("P1.Q", true/*partial match*/));
+		assertTrue("p3 should be a package", nameLookup.isPackage(new String[] {"p3"}));
+		assertElementsEqual(
+			"Unexpected packages with prefix p3 without working copies",
+			"<null>",
+			getNameLookup(project).findPackageFragments("p3", true/*partial match*/));
+	} finally {
+		deleteProject("P");
+	}
+}
 /*
  * Ensure that a package fragment with a path with a length equals to an external jar path length + 1
  * is not found
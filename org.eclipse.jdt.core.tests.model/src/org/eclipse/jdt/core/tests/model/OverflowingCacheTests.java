@@ -22,6 +22,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.*;
 import org.eclipse.jdt.internal.core.*;
+import org.eclipse.jdt.internal.core.util.ICacheEnumeration;
 import org.eclipse.jdt.internal.core.util.MementoTokenizer;
 
 import junit.framework.Test;
@@ -642,6 +643,35 @@ public class OverflowingCacheTests extends ModifyingResourceTests {
 		}
 	}
 
+	/**
+	 * Creates an empty ElementCache of size 500, inserts 1000 elements
+	 * and ensures that the hits, misses and evictions of the cache are counted.
+	 * (see testElementCacheUseNoOverflow() for the number of evicted elements)
+	 */
+	public void testElementCacheStatistics() {
+		int spaceLimit = 500;
+		int entryCount = 1000;
+		int predictedCurrent = 334;
+
+		OverflowingLRUCache cache = new ElementCache(spaceLimit);
+		OverflowingTestOpenable[] openables = new OverflowingTestOpenable[entryCount];
+		for(int i = 0; i < entryCount; i++) {
+			openables[i] = new OverflowingTestOpenable(new OverflowingTestBuffer(false, null), cache);
+			cache.put(openables[i], Integer.toString(i));
+		}
+		assertEquals("evictions incorrect ", entryCount - predictedCurrent, cache.getEvictionCount());
+
+		for(int i = 0; i < entryCount; i++) {
+			cache.get(openables[i]);
+		}
+		assertEquals("hits incorrect ", predictedCurrent, cache.getHitCount());
+		assertEquals("misses incorrect ", entryCount - predictedCurrent, cache.getMissCount());
+		assertEquals(
+			"statistics incorrect ",
+			"Element cache: 334 hits, 666 misses, 666 evictions",
+			cache.toStringStatistics("Element cache"));
+	}
+
 	/**
 	 * Creates an empty ElementCache of size 500, inserts 1000 elements.
 	 * Nine of every ten entries cannot be removed - there are 1000 entries,
@@ -688,4 +718,50 @@ public class OverflowingCacheTests extends ModifyingResourceTests {
 		assertEquals("overflow space incorrect (after flush)", 0, actualOverflow);
 	}
 
+	/**
+	 * Creates a JarTypeCache which can hold 10 small infos, inserts 20 infos
+	 * and ensures that the space of the cache is measured with the footprint of its infos.
+	 */
+	public void testJarTypeCacheFootprint() {
+		Object[] infos = new Object[20];
+		int footprint = JarTypeCache.footprint(new Object());
+		JarTypeCache cache = new JarTypeCache(10 * footprint);
+		for (int i = 0; i < infos.length; i++) {
+			infos[i] = new Object();
+			cache.put(Integer.toString(i), infos[i]);
+		}
+		assertEquals("current space incorrect ", 10 * footprint, cache.getCurrentSpace());
+		assertEquals("evictions incorrect ", 10, cache.getEvictionCount());
+		assertNull("entry should not be present", cache.get("0"));
+		assertSame("wrong value", infos[19], cache.get("19"));
+
+		Map footprints = JavaCore.getCacheFootprints();
+		assertTrue("missing jar type cache footprint", footprints.get("Jar type cache") instanceof Long);
+		assertTrue("missing openable cache footprint", footprints.get("Openable cache") instanceof Long);
+	}
+
+	/**
+	 * Ensures that the infos of a JarTypeCache and their keys, and not their references, are answered
+	 * when they are removed, enumerated or copied, or when the oldest element is asked.
+	 */
+	public void testJarTypeCacheInfos() {
+		Object info = new Object();
+		JarTypeCache cache = new JarTypeCache(10 * JarTypeCache.footprint(info));
+		cache.put("0", info);
+		cache.put("1", new Object());
+
+		ICacheEnumeration entries = cache.keysAndValues();
+		while (entries.hasMoreElements()) {
+			Object key = entries.nextElement();
+			assertSame("wrong value for " + key, cache.peek(key), entries.getValue());
+		}
+		assertEquals("wrong oldest element", "0", cache.getOldestElement());
+		JarTypeCache copy = (JarTypeCache) cache.clone();
+		assertSame("wrong value in copy", info, copy.get("0"));
+		assertEquals("wrong oldest element in copy", "1", copy.getOldestElement());
+		assertSame("wrong removed value", info, cache.removeKey("0"));
+		assertNull("entry should not be present", cache.get("0"));
+		assertNull("removed entry should not be answered", cache.removeKey("0"));
+		assertEquals("wrong oldest element after removal", "1", cache.getOldestElement());
+	}
 }
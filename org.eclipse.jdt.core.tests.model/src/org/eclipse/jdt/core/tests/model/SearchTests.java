@@ -26,7 +26,10 @@ import org.eclipse.jdt.core.tests.util.Util;
 import org.eclipse.jdt.internal.core.JavaElement;
 import org.eclipse.jdt.internal.core.JavaModelManager;
 import org.eclipse.jdt.internal.core.LocalVariable;
+import org.eclipse.jdt.internal.core.index.Index;
+import org.eclipse.jdt.internal.core.index.ResidentCategoryTable;
 import org.eclipse.jdt.internal.core.search.BasicSearchEngine;
+import org.eclipse.jdt.internal.core.search.indexing.IIndexConstants;
 import org.eclipse.jdt.internal.core.search.indexing.IndexManager;
 import org.eclipse.jdt.internal.core.search.processing.IJob;
 
@@ -524,6 +527,161 @@ public void testRemoveOuterFolder() throws CoreException {
 		deleteProject("P1");
 	}
 }
+/*
+ * Ensures that the type declarations kept resident in memory are consistent with the index
+ * when types are added and removed.
+ */
+public void testResidentTypeNames() throws CoreException {
+	long limit = ResidentCategoryTable.getFootprintLimit();
+	try {
+		ResidentCategoryTable.setFootprintLimit(1024 * 1024);
+		IJavaProject project = createJavaProject("P1");
+		createFile(
+			"/P1/X.java",
+			"public class X {\n" +
+			"  class Member {}\n" +
+			"}"
+		);
+		assertAllTypes(
+			"Unexpected all types after setup",
+			project,
+			"X\n" +
+			"X$Member"
+		);
+		IndexManager indexManager = JavaModelManager.getIndexManager();
+		indexManager.saveIndexes();
+		assertTrue("Type declarations should be resident", indexManager.getResidentCategoriesFootprint() > 0);
+
+		createFile(
+			"/P1/Y.java",
+			"public class Y {\n" +
+			"}"
+		);
+		deleteFile("/P1/X.java");
+		assertAllTypes(
+			"Unexpected all types before saving the index",
+			project,
+			"Y"
+		);
+		indexManager.saveIndexes();
+		assertAllTypes(
+			"Unexpected all types after saving the index",
+			project,
+			"Y"
+		);
+	} finally {
+		deleteProject("P1");
+		ResidentCategoryTable.setFootprintLimit(limit);
+	}
+}
+/*
+ * Ensures that the subtypes found using the super type references kept resident in memory
+ * are consistent with the index when subtypes are added and removed.
+ */
+public void testResidentSuperTypeReferences() throws CoreException {
+	long limit = ResidentCategoryTable.getFootprintLimit();
+	try {
+		ResidentCategoryTable.setFootprintLimit(1024 * 1024);
+		createJavaProject("P1");
+		createFile(
+			"/P1/X.java",
+			"public class X {\n" +
+			"}"
+		);
+		createFile(
+			"/P1/Y.java",
+			"public class Y extends X {\n" +
+			"}"
+		);
+		IType type = getCompilationUnit("/P1/X.java").getType("X");
+		assertTypesEqual(
+			"Unexpected subtypes after setup",
+			"Y\n",
+			type.newTypeHierarchy(null).getAllSubtypes(type)
+		);
+		IndexManager indexManager = JavaModelManager.getIndexManager();
+		indexManager.saveIndexes();
+		assertTypesEqual(
+			"Unexpected subtypes after saving the index",
+			"Y\n",
+			type.newTypeHierarchy(null).getAllSubtypes(type)
+		);
+		assertTrue("Super type references should be resident", indexManager.getResidentCategoriesFootprint() > 0);
+
+		createFile(
+			"/P1/Z.java",
+			"public class Z extends Y {\n" +
+			"}"
+		);
+		deleteFile("/P1/Y.java");
+		createFile(
+			"/P1/W.java",
+			"public class W extends X {\n" +
+			"}"
+		);
+		assertTypesEqual(
+			"Unexpected subtypes before saving the index",
+			"W\n",
+			type.newTypeHierarchy(null).getAllSubtypes(type)
+		);
+		indexManager.saveIndexes();
+		assertTypesEqual(
+			"Unexpected subtypes after saving the changes",
+			"W\n",
+			type.newTypeHierarchy(null).getAllSubtypes(type)
+		);
+	} finally {
+		deleteProject("P1");
+		ResidentCategoryTable.setFootprintLimit(limit);
+	}
+}
+/*
+ * Ensures that the word filters stored in the header of an index reject only the queries that have no results.
+ */
+public void testIndexWordFilters() throws CoreException, IOException {
+	try {
+		IJavaProject project = createJavaProject("P1");
+		createFolder("/P1/p");
+		createFile(
+			"/P1/p/X.java",
+			"package p;\n" +
+			"public class X {\n" +
+			"  class Member {}\n" +
+			"}"
+		);
+		createFile(
+			"/P1/p/XYZ.java",
+			"package p;\n" +
+			"public class XYZ {\n" +
+			"}"
+		);
+		IndexManager indexManager = JavaModelManager.getIndexManager();
+		waitUntilIndexesReady();
+		indexManager.saveIndexes();
+		Index index = indexManager.getIndex(project.getPath(), true, false);
+		assertNotNull("Index should exist", index);
+		char[][] categories = new char[][] {IIndexConstants.TYPE_DECL};
+		int rule = SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE;
+		assertEquals("Unexpected results for prefix X", 2, index.query(categories, "X".toCharArray(), rule).length);
+		assertEquals("Unexpected results for prefix XYZ", 1, index.query(categories, "XYZ".toCharArray(), rule).length);
+		assertEquals("Unexpected results for prefix Mem", 1, index.query(categories, "Mem".toCharArray(), rule).length);
+		assertNull("Unexpected results for prefix Z", index.query(categories, "Zork".toCharArray(), rule));
+		assertNull("Unexpected results for prefix XYZW", index.query(categories, "XYZW".toCharArray(), rule));
+
+		// the word filters of the index header accept the words of the category...
+		int exactRule = SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE;
+		assertTrue("Filters should accept prefix X", index.mayMatchOnDisk(categories, "X".toCharArray(), rule));
+		assertTrue("Filters should accept prefix Mem", index.mayMatchOnDisk(categories, "Mem".toCharArray(), rule));
+		// ...and reject the words which are absent from it
+		assertFalse("Filters should reject prefix Zork", index.mayMatchOnDisk(categories, "Zork".toCharArray(), rule));
+		assertFalse("Filters should reject prefix Bar", index.mayMatchOnDisk(categories, "Bar".toCharArray(), rule));
+		assertFalse("Filters should reject prefix Y", index.mayMatchOnDisk(categories, "Y".toCharArray(), rule));
+		assertFalse("Filters should reject word Abc", index.mayMatchOnDisk(categories, "Abc".toCharArray(), exactRule));
+		assertFalse("Filters should reject an absent category", index.mayMatchOnDisk(new char[][] {IIndexConstants.ANNOTATION_REF}, "X".toCharArray(), rule));
+	} finally {
+		deleteProject("P1");
+	}
+}
 /**
  * Test pattern creation
  */
@@ -711,6 +711,53 @@ public void testEditBuffer() throws CoreException {
 		deleteProject("P");
 	}
 }
+/**
+ * When changing the super types of a subtype in a hierarchy, the refreshed hierarchy should
+ * have the new super types of the subtype, whether it is refreshed in place or not.
+ */
+public void testEditSuperTypesOfSubtype() throws CoreException {
+	ITypeHierarchy h = null;
+	try {
+		createJavaProject("P", new String[] {""}, new String[] {"JCL_LIB"}, "");
+		createFile("/P/X.java", "public class X {\n}");
+		createFile("/P/Y.java", "public class Y extends X {\n}");
+		createFile("/P/Z.java", "public class Z extends X {\n}");
+		createFile("/P/I.java", "public interface I {\n}");
+		IType x = getCompilationUnit("/P/X.java").getType("X");
+		IType y = getCompilationUnit("/P/Y.java").getType("Y");
+		IType z = getCompilationUnit("/P/Z.java").getType("Z");
+		IType i = getCompilationUnit("/P/I.java").getType("I");
+		h = x.newTypeHierarchy(null);
+		h.addTypeHierarchyChangedListener(this);
+
+		// Y stays a subtype of X through Z
+		changeSuper(y.getCompilationUnit(), "X", "Z implements I");
+		assertOneChange(h);
+		h.refresh(null);
+		assertEquals("Unexpected superclass of Y", z, h.getSuperclass(y));
+		IType[] superInterfaces = h.getSuperInterfaces(y);
+		assertEquals("Unexpected number of super interfaces of Y", 1, superInterfaces.length);
+		assertEquals("Unexpected super interface of Y", i, superInterfaces[0]);
+		IType[] subtypes = h.getSubtypes(x);
+		assertEquals("Unexpected number of subtypes of X", 1, subtypes.length);
+		assertEquals("Unexpected subtype of X", z, subtypes[0]);
+		subtypes = h.getSubtypes(z);
+		assertEquals("Unexpected number of subtypes of Z", 1, subtypes.length);
+		assertEquals("Unexpected subtype of Z", y, subtypes[0]);
+
+		// Y is not a subtype of X any longer
+		reset();
+		changeSuper(y.getCompilationUnit(), "Z implements I", "Object");
+		assertOneChange(h);
+		h.refresh(null);
+		assertFalse("Y should not be in the hierarchy", h.contains(y));
+		assertEquals("Unexpected number of subtypes of Z", 0, h.getSubtypes(z).length);
+	} finally {
+		if (h != null)
+			h.removeTypeHierarchyChangedListener(this);
+		deleteProject("P");
+	}
+}
 /**
  * When editing the extends clause of a source type in a hierarchy, we should be notified of change.
  */
@@ -41,6 +41,7 @@ import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.tests.model.SearchTests.WaitingJob;
 import org.eclipse.jdt.core.tests.model.Semaphore.TimeOutException;
 import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.core.hierarchy.HierarchyResolver;
 
 public class TypeHierarchyTests extends ModifyingResourceTests {
 	/**
@@ -1130,6 +1131,31 @@ public void testGetAllSubtypes() throws JavaModelException {
 		types
 	);
 }
+/**
+ * Ensures that the same subtypes are found when the potential subtypes are
+ * parsed by several workers.
+ */
+public void testGetAllSubtypesInParallel() throws JavaModelException {
+	String parallelism = System.getProperty(HierarchyResolver.PARALLELISM_PROPERTY);
+	System.setProperty(HierarchyResolver.PARALLELISM_PROPERTY, "4");
+	try {
+		IType type = getCompilationUnit("TypeHierarchy", "src", "p1", "X.java").getType("X");
+		ITypeHierarchy hierarchy = type.newTypeHierarchy(null);
+		IType[] types = hierarchy.getAllSubtypes(type);
+		this.assertTypesEqual(
+			"Unexpected sub types of X",
+			"p1.Deep\n" +
+			"p1.Y\n" +
+			"p1.Z\n",
+			types
+		);
+	} finally {
+		if (parallelism == null)
+			System.getProperties().remove(HierarchyResolver.PARALLELISM_PROPERTY);
+		else
+			System.setProperty(HierarchyResolver.PARALLELISM_PROPERTY, parallelism);
+	}
+}
 /**
  * Ensures that the correct subtypes of a binary type
  * exit in the type hierarchy created on a region.
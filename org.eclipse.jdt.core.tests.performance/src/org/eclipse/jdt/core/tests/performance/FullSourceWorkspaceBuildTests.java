@@ -18,6 +18,7 @@ import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Random;
 
 import junit.framework.Test;
 
@@ -49,6 +50,9 @@ import org.eclipse.jdt.internal.compiler.parser.TerminalTokens;
 import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
 import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
 import org.eclipse.jdt.internal.compiler.util.Util;
+import org.eclipse.jdt.internal.core.builder.NameDictionary;
+import org.eclipse.jdt.internal.core.builder.NameIds;
+import org.eclipse.jdt.internal.core.builder.ReferenceCollection;
 
 /**
  * Class to test compiler performance.
@@ -791,4 +795,70 @@ public class FullSourceWorkspaceBuildTests extends FullSourceWorkspaceTests {
 		tagAsSummary("Build Generic Type ", false); // do NOT put in fingerprint
 		compile(new String[] {"EclipseVisitorBug.java"}, "", "1.6", false /*no log*/ );	
 	}
+
+	/**
+	 * Test performance of the search of the source files affected by structural changes to some types,
+	 * using the reference collections of a synthetic state of 20,000 source files.
+	 */
+	public void testAffectedSourceFiles() {
+		tagAsSummary("Find affected source files", false); // do NOT put in fingerprint
+		int fileCount = 20000, packageCount = 500, typeCount = 40, referenceCount = 30, changeCount = 300;
+		Random random = new Random(0);
+
+		// each source file references types of other packages
+		ReferenceCollection[] collections = new ReferenceCollection[fileCount];
+		for (int i = 0; i < fileCount; i++) {
+			char[][][] qualifiedNames = new char[referenceCount * 2][][];
+			char[][] simpleNames = new char[referenceCount][];
+			for (int j = 0; j < referenceCount; j++) {
+				char[] packageName = ("p" + random.nextInt(packageCount)).toCharArray(); //$NON-NLS-1$
+				char[] typeName = ("T" + random.nextInt(typeCount)).toCharArray(); //$NON-NLS-1$
+				qualifiedNames[2 * j] = new char[][] {"org".toCharArray(), "eclipse".toCharArray(), packageName}; //$NON-NLS-1$ //$NON-NLS-2$
+				qualifiedNames[2 * j + 1] = new char[][] {"org".toCharArray(), "eclipse".toCharArray(), packageName, typeName}; //$NON-NLS-1$ //$NON-NLS-2$
+				simpleNames[j] = typeName;
+			}
+			collections[i] = new ReferenceCollection(qualifiedNames, simpleNames, new char[][] {"org".toCharArray()}) {}; //$NON-NLS-1$
+		}
+
+		// the changed types, as in IncrementalImageBuilder.addAffectedSourceFiles()
+		char[][][] changedPackages = new char[changeCount][][];
+		char[][] changedTypes = new char[changeCount][];
+		for (int i = 0; i < changeCount; i++) {
+			changedPackages[i] = new char[][] {"org".toCharArray(), "eclipse".toCharArray(), ("p" + random.nextInt(packageCount)).toCharArray()}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			changedTypes[i] = ("T" + random.nextInt(typeCount * 10)).toCharArray(); //$NON-NLS-1$
+		}
+		changedPackages = ReferenceCollection.internQualifiedNames(changedPackages);
+		changedTypes = ReferenceCollection.internSimpleNames(changedTypes, true);
+		char[][] changedRoots = ReferenceCollection.internSimpleNames(new char[][] {"org".toCharArray()}, false); //$NON-NLS-1$
+
+		// warm up, which also assigns the ids of the names of the collections
+		NameDictionary dictionary = new NameDictionary();
+		int affected = countAffected(collections, dictionary.query(changedPackages, changedTypes, changedRoots));
+		int expected = 0;
+		for (int i = 0; i < fileCount; i++)
+			if (collections[i].includes(changedPackages, changedTypes, changedRoots))
+				expected++;
+		assertEquals("Unexpected affected source files", expected, affected); //$NON-NLS-1$
+
+		// Measures
+		for (int i = 0; i < MEASURES_COUNT; i++) {
+			runGc();
+			startMeasuring();
+			for (int j = 0; j < 10; j++)
+				countAffected(collections, dictionary.query(changedPackages, changedTypes, changedRoots));
+			stopMeasuring();
+		}
+
+		// Commit measures
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private int countAffected(ReferenceCollection[] collections, NameIds query) {
+		int count = 0;
+		for (int i = 0, length = collections.length; i < length; i++)
+			if (collections[i].includes(query))
+				count++;
+		return count;
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,7 @@ import junit.framework.*;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jdt.core.*;
 import org.eclipse.jdt.core.search.*;
+import org.eclipse.jdt.internal.core.hierarchy.HierarchyResolver;
 import org.eclipse.test.performance.Performance;
 
 /**
@@ -119,6 +120,47 @@ public class FullSourceWorkspaceTypeHierarchyTests extends FullSourceWorkspaceTe
 		assertPerformance();
 	}
 
+	/*
+	 * Same as testPerfAllTypes() but with the potential subtypes diet parsed by several threads.
+	 */
+	public void testPerfAllTypesParallel() throws CoreException {
+		ICompilationUnit unit = getCompilationUnit("org.eclipse.jdt.core", "org.eclipse.jdt.internal.compiler.ast", "ASTNode.java");
+		assertNotNull("ASTNode not found!", unit);
+
+		String parallelism = System.getProperty(HierarchyResolver.PARALLELISM_PROPERTY);
+		int workers = Math.max(Runtime.getRuntime().availableProcessors(), 2);
+		System.setProperty(HierarchyResolver.PARALLELISM_PROPERTY, String.valueOf(workers));
+		try {
+			// Warm up
+			for (int i=0; i<WARMUP_COUNT; i++) {
+				IType[] types = unit.getType("ASTNode").newTypeHierarchy(null).getAllClasses();
+				if (i==0) {
+					System.out.println("  - "+INT_FORMAT.format(types.length)+" all classes found in hierarchy using "+workers+" workers.");
+				}
+			}
+
+			// Clean memory
+			runGc();
+
+			// Measures
+			for (int i=0; i<MEASURES_COUNT; i++) {
+				runGc();
+				startMeasuring();
+				unit.getType("ASTNode").newTypeHierarchy(null).getAllClasses();
+				stopMeasuring();
+			}
+		} finally {
+			if (parallelism == null)
+				System.getProperties().remove(HierarchyResolver.PARALLELISM_PROPERTY);
+			else
+				System.setProperty(HierarchyResolver.PARALLELISM_PROPERTY, parallelism);
+		}
+
+		// Commit
+		commitMeasurements();
+		assertPerformance();
+	}
+
 	/*
 	 * A direct subclass of org.eclipse.jface.text.templates.TemplateVariableResolver is called Collection.
 	 * Collection is also an interface that is the root of a deep hierarchy in java.util.
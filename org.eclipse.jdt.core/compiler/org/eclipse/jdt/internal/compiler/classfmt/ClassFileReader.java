@@ -22,6 +22,7 @@ import org.eclipse.jdt.internal.compiler.env.*;
 import org.eclipse.jdt.internal.compiler.impl.Constant;
 import org.eclipse.jdt.internal.compiler.lookup.TagBits;
 import org.eclipse.jdt.internal.compiler.lookup.TypeIds;
+import org.eclipse.jdt.internal.compiler.util.FNVHash;
 import org.eclipse.jdt.internal.compiler.util.Util;
 
 public class ClassFileReader extends ClassFileStruct implements IBinaryType {
@@ -834,55 +835,9 @@ public boolean hasStructuralChanges(byte[] newBytes, boolean orderRequired, bool
 		ClassFileReader newClassFile =
 			new ClassFileReader(newBytes, this.classFileName);
 		// type level comparison
-		// modifiers
-		if (getModifiers() != newClassFile.getModifiers())
+		if (hasStructuralTypeChanges(newClassFile))
 			return true;
 
-		// only consider a portion of the tagbits which indicate a structural change for dependents
-		// e.g. @Override change has no influence outside
-		long OnlyStructuralTagBits = TagBits.AnnotationTargetMASK // different @Target status ?
-			| TagBits.AnnotationDeprecated // different @Deprecated status ?
-			| TagBits.AnnotationRetentionMASK // different @Retention status ?
-			| TagBits.HierarchyHasProblems; // different hierarchy status ?
-
-		// meta-annotations
-		if ((getTagBits() & OnlyStructuralTagBits) != (newClassFile.getTagBits() & OnlyStructuralTagBits))
-			return true;
-		// annotations
-		if (hasStructuralAnnotationChanges(getAnnotations(), newClassFile.getAnnotations()))
-			return true;
-
-		// generic signature
-		if (!CharOperation.equals(getGenericSignature(), newClassFile.getGenericSignature()))
-			return true;
-		// superclass
-		if (!CharOperation.equals(getSuperclassName(), newClassFile.getSuperclassName()))
-			return true;
-		// interfaces
-		char[][] newInterfacesNames = newClassFile.getInterfaceNames();
-		if (this.interfaceNames != newInterfacesNames) { // TypeConstants.NoSuperInterfaces
-			int newInterfacesLength = newInterfacesNames == null ? 0 : newInterfacesNames.length;
-			if (newInterfacesLength != this.interfacesCount)
-				return true;
-			for (int i = 0, max = this.interfacesCount; i < max; i++)
-				if (!CharOperation.equals(this.interfaceNames[i], newInterfacesNames[i]))
-					return true;
-		}
-
-		// member types
-		IBinaryNestedType[] currentMemberTypes = getMemberTypes();
-		IBinaryNestedType[] otherMemberTypes = newClassFile.getMemberTypes();
-		if (currentMemberTypes != otherMemberTypes) { // TypeConstants.NoMemberTypes
-			int currentMemberTypeLength = currentMemberTypes == null ? 0 : currentMemberTypes.length;
-			int otherMemberTypeLength = otherMemberTypes == null ? 0 : otherMemberTypes.length;
-			if (currentMemberTypeLength != otherMemberTypeLength)
-				return true;
-			for (int i = 0; i < currentMemberTypeLength; i++)
-				if (!CharOperation.equals(currentMemberTypes[i].getName(), otherMemberTypes[i].getName())
-					|| currentMemberTypes[i].getModifiers() != otherMemberTypes[i].getModifiers())
-						return true;
-		}
-
 		// fields
 		FieldInfo[] otherFieldInfos = (FieldInfo[]) newClassFile.getFields();
 		int otherFieldInfosLength = otherFieldInfos == null ? 0 : otherFieldInfos.length;
@@ -942,30 +897,324 @@ public boolean hasStructuralChanges(byte[] newBytes, boolean orderRequired, bool
 						return true;
 			}
 		}
+		return false;
+	} catch (ClassFormatException e) {
+		return true;
+	}
+}
 
-		// missing types
-		char[][][] missingTypes = getMissingTypeNames();
-		char[][][] newMissingTypes = newClassFile.getMissingTypeNames();
-		if (missingTypes != null) {
-			if (newMissingTypes == null) {
-				return true;
+/**
+ * Answer the names of the fields and methods which have structural changes compared to the byte array
+ * in argument, or null if the changes cannot be limited to some members.
+ * The changes cannot be limited to some members when:
+ * - the type itself has structural changes (see hasStructuralChanges(byte[]))
+ * - a constant field or an enum constant is added, removed or changed, since its uses are inlined
+ * - an abstract method is added, removed or changed, since it affects all the subtypes
+ * Synthetic members and static initializers are ignored. The members are sorted by this method.
+ * @param newBytes the bytes of the .class file we want to compare the receiver to
+ * @return char[][] Returns the names of the changed members, or null
+ */
+public char[][] getStructurallyChangedMemberNames(byte[] newBytes) {
+	try {
+		ClassFileReader newClassFile =
+			new ClassFileReader(newBytes, this.classFileName);
+		if (hasStructuralTypeChanges(newClassFile))
+			return null;
+
+		char[][] changedNames = new char[4][];
+		int count = 0;
+
+		// fields
+		FieldInfo[] otherFieldInfos = (FieldInfo[]) newClassFile.getFields();
+		int otherFieldInfosLength = otherFieldInfos == null ? 0 : otherFieldInfos.length;
+		if (this.fieldsCount != 0)
+			Arrays.sort(this.fields);
+		if (otherFieldInfosLength != 0)
+			Arrays.sort(otherFieldInfos);
+		int index1 = 0, index2 = 0;
+		while (index1 < this.fieldsCount || index2 < otherFieldInfosLength) {
+			FieldInfo current = index1 < this.fieldsCount ? this.fields[index1] : null;
+			FieldInfo other = index2 < otherFieldInfosLength ? otherFieldInfos[index2] : null;
+			if (current != null && current.isSynthetic()) {
+				index1++;
+				continue;
 			}
-			int length = missingTypes.length;
-			if (length != newMissingTypes.length) {
-				return true;
+			if (other != null && other.isSynthetic()) {
+				index2++;
+				continue;
 			}
-			for (int i = 0; i < length; i++) {
-				if (!CharOperation.equals(missingTypes[i], newMissingTypes[i])) {
-					return true;
+			int compare = current == null ? 1 : other == null ? -1 : current.compareTo(other);
+			FieldInfo changed = null;
+			if (compare < 0) {
+				changed = current; // removed field
+				index1++;
+			} else if (compare > 0) {
+				changed = other; // added field
+				index2++;
+			} else {
+				if (hasStructuralFieldChanges(current, other)) {
+					if (isInlinedField(other))
+						return null;
+					changed = current;
 				}
+				index1++;
+				index2++;
+			}
+			if (changed != null) {
+				if (isInlinedField(changed))
+					return null;
+				if (count == changedNames.length)
+					System.arraycopy(changedNames, 0, changedNames = new char[count * 2][], 0, count);
+				changedNames[count++] = changed.getName();
 			}
-		} else if (newMissingTypes != null) {
-			return true;
 		}
-		return false;
+
+		// methods
+		MethodInfo[] otherMethodInfos = (MethodInfo[]) newClassFile.getMethods();
+		int otherMethodInfosLength = otherMethodInfos == null ? 0 : otherMethodInfos.length;
+		if (this.methodsCount != 0)
+			Arrays.sort(this.methods);
+		if (otherMethodInfosLength != 0)
+			Arrays.sort(otherMethodInfos);
+		index1 = index2 = 0;
+		while (index1 < this.methodsCount || index2 < otherMethodInfosLength) {
+			MethodInfo current = index1 < this.methodsCount ? this.methods[index1] : null;
+			MethodInfo other = index2 < otherMethodInfosLength ? otherMethodInfos[index2] : null;
+			if (current != null && (current.isSynthetic() || current.isClinit())) {
+				index1++;
+				continue;
+			}
+			if (other != null && (other.isSynthetic() || other.isClinit())) {
+				index2++;
+				continue;
+			}
+			int compare = current == null ? 1 : other == null ? -1 : current.compareTo(other);
+			MethodInfo changed = null;
+			if (compare < 0) {
+				changed = current; // removed method
+				index1++;
+			} else if (compare > 0) {
+				changed = other; // added method
+				index2++;
+			} else {
+				if (hasStructuralMethodChanges(current, other)) {
+					if ((other.getModifiers() & ClassFileConstants.AccAbstract) != 0)
+						return null;
+					changed = current;
+				}
+				index1++;
+				index2++;
+			}
+			if (changed != null) {
+				if ((changed.getModifiers() & ClassFileConstants.AccAbstract) != 0)
+					return null;
+				char[] selector = changed.getSelector();
+				if (count == 0 || !CharOperation.equals(changedNames[count - 1], selector)) {
+					if (count == changedNames.length)
+						System.arraycopy(changedNames, 0, changedNames = new char[count * 2][], 0, count);
+					changedNames[count++] = selector;
+				}
+			}
+		}
+		if (count < changedNames.length)
+			System.arraycopy(changedNames, 0, changedNames = new char[count][], 0, count);
+		return changedNames;
 	} catch (ClassFormatException e) {
+		return null;
+	}
+}
+
+/**
+ * Answer a 64-bit hash of the structure of the type, that is of everything compared by
+ * hasStructuralChanges(byte[]): two class files without structural changes have the same hash,
+ * and two class files with the same hash can be considered as having no structural changes.
+ * The hash does not depend on the order of the fields & methods, nor on the synthetic members.
+ */
+public long getStructuralHash() {
+	long hash = FNVHash.OFFSET_BASIS;
+	hash = hash(hash, getModifiers());
+	hash = hash(hash, getTagBits() & OnlyStructuralTagBits);
+	hash = hash(hash, getAnnotations());
+	hash = hash(hash, getGenericSignature());
+	hash = hash(hash, getSuperclassName());
+	hash = hash(hash, getInterfaceNames());
+	IBinaryNestedType[] memberTypes = getMemberTypes();
+	int length = memberTypes == null ? 0 : memberTypes.length;
+	hash = hash(hash, length);
+	for (int i = 0; i < length; i++) {
+		hash = hash(hash, memberTypes[i].getName());
+		hash = hash(hash, memberTypes[i].getModifiers());
+	}
+	char[][][] missingTypes = getMissingTypeNames();
+	length = missingTypes == null ? -1 : missingTypes.length;
+	hash = hash(hash, length);
+	for (int i = 0; i < length; i++)
+		hash = hash(hash, missingTypes[i]);
+
+	FieldInfo[] fieldInfos = new FieldInfo[this.fieldsCount];
+	int count = 0;
+	for (int i = 0; i < this.fieldsCount; i++)
+		if (!this.fields[i].isSynthetic())
+			fieldInfos[count++] = this.fields[i];
+	if (count < this.fieldsCount)
+		System.arraycopy(fieldInfos, 0, fieldInfos = new FieldInfo[count], 0, count);
+	Arrays.sort(fieldInfos);
+	hash = hash(hash, count);
+	for (int i = 0; i < count; i++) {
+		FieldInfo fieldInfo = fieldInfos[i];
+		hash = hash(hash, fieldInfo.getGenericSignature());
+		hash = hash(hash, fieldInfo.getModifiers());
+		hash = hash(hash, fieldInfo.getTagBits() & TagBits.AnnotationDeprecated);
+		hash = hash(hash, fieldInfo.getAnnotations());
+		hash = hash(hash, fieldInfo.getName());
+		hash = hash(hash, fieldInfo.getTypeName());
+		// the string form of a constant includes its type, e.g. (int)1
+		hash = hash(hash, fieldInfo.hasConstant() ? fieldInfo.getConstant().toString().toCharArray() : null);
+	}
+
+	MethodInfo[] methodInfos = new MethodInfo[this.methodsCount];
+	count = 0;
+	for (int i = 0; i < this.methodsCount; i++) {
+		MethodInfo methodInfo = this.methods[i];
+		if (!methodInfo.isSynthetic() && !methodInfo.isClinit())
+			methodInfos[count++] = methodInfo;
+	}
+	if (count < this.methodsCount)
+		System.arraycopy(methodInfos, 0, methodInfos = new MethodInfo[count], 0, count);
+	Arrays.sort(methodInfos);
+	hash = hash(hash, count);
+	for (int i = 0; i < count; i++) {
+		MethodInfo methodInfo = methodInfos[i];
+		hash = hash(hash, methodInfo.getGenericSignature());
+		hash = hash(hash, methodInfo.getModifiers());
+		hash = hash(hash, methodInfo.getTagBits() & TagBits.AnnotationDeprecated);
+		hash = hash(hash, methodInfo.getAnnotations());
+		int annotatedParametersCount = methodInfo.getAnnotatedParametersCount();
+		hash = hash(hash, annotatedParametersCount);
+		for (int j = 0; j < annotatedParametersCount; j++)
+			hash = hash(hash, methodInfo.getParameterAnnotations(j));
+		hash = hash(hash, methodInfo.getSelector());
+		hash = hash(hash, methodInfo.getMethodDescriptor());
+		hash = hash(hash, methodInfo.getExceptionTypeNames());
+	}
+	return hash;
+}
+
+private static long hash(long hash, long value) {
+	return FNVHash.hash(hash, value);
+}
+
+private static long hash(long hash, char[] name) {
+	return FNVHash.hash(hash, name);
+}
+
+private static long hash(long hash, char[][] names) {
+	int length = names == null ? 0 : names.length;
+	hash = hash(hash, length);
+	for (int i = 0; i < length; i++)
+		hash = hash(hash, names[i]);
+	return hash;
+}
+
+private static long hash(long hash, IBinaryAnnotation[] annotations) {
+	int length = annotations == null ? 0 : annotations.length;
+	hash = hash(hash, length);
+	for (int i = 0; i < length; i++) {
+		hash = hash(hash, annotations[i].getTypeName());
+		IBinaryElementValuePair[] pairs = annotations[i].getElementValuePairs();
+		int pairsLength = pairs == null ? 0 : pairs.length;
+		hash = hash(hash, pairsLength);
+		for (int j = 0; j < pairsLength; j++) {
+			hash = hash(hash, pairs[j].getName());
+			// the string forms of the values are complete: constants, class literals, enum constants & annotations
+			Object value = pairs[j].getValue();
+			if (value instanceof Object[]) {
+				Object[] values = (Object[]) value;
+				hash = hash(hash, values.length);
+				for (int k = 0, l = values.length; k < l; k++)
+					hash = hash(hash, String.valueOf(values[k]).toCharArray());
+			} else {
+				hash = hash(hash, String.valueOf(value).toCharArray());
+			}
+		}
+	}
+	return hash;
+}
+
+private boolean isInlinedField(FieldInfo fieldInfo) {
+	return fieldInfo.hasConstant() || (fieldInfo.getModifiers() & ClassFileConstants.AccEnum) != 0;
+}
+
+// only consider a portion of the tagbits which indicate a structural change for dependents
+// e.g. @Override change has no influence outside
+private static final long OnlyStructuralTagBits = TagBits.AnnotationTargetMASK // different @Target status ?
+	| TagBits.AnnotationDeprecated // different @Deprecated status ?
+	| TagBits.AnnotationRetentionMASK // different @Retention status ?
+	| TagBits.HierarchyHasProblems; // different hierarchy status ?
+
+private boolean hasStructuralTypeChanges(ClassFileReader newClassFile) {
+	// modifiers
+	if (getModifiers() != newClassFile.getModifiers())
+		return true;
+
+	// meta-annotations
+	if ((getTagBits() & OnlyStructuralTagBits) != (newClassFile.getTagBits() & OnlyStructuralTagBits))
+		return true;
+	// annotations
+	if (hasStructuralAnnotationChanges(getAnnotations(), newClassFile.getAnnotations()))
+		return true;
+
+	// generic signature
+	if (!CharOperation.equals(getGenericSignature(), newClassFile.getGenericSignature()))
+		return true;
+	// superclass
+	if (!CharOperation.equals(getSuperclassName(), newClassFile.getSuperclassName()))
+		return true;
+	// interfaces
+	char[][] newInterfacesNames = newClassFile.getInterfaceNames();
+	if (this.interfaceNames != newInterfacesNames) { // TypeConstants.NoSuperInterfaces
+		int newInterfacesLength = newInterfacesNames == null ? 0 : newInterfacesNames.length;
+		if (newInterfacesLength != this.interfacesCount)
+			return true;
+		for (int i = 0, max = this.interfacesCount; i < max; i++)
+			if (!CharOperation.equals(this.interfaceNames[i], newInterfacesNames[i]))
+				return true;
+	}
+
+	// member types
+	IBinaryNestedType[] currentMemberTypes = getMemberTypes();
+	IBinaryNestedType[] otherMemberTypes = newClassFile.getMemberTypes();
+	if (currentMemberTypes != otherMemberTypes) { // TypeConstants.NoMemberTypes
+		int currentMemberTypeLength = currentMemberTypes == null ? 0 : currentMemberTypes.length;
+		int otherMemberTypeLength = otherMemberTypes == null ? 0 : otherMemberTypes.length;
+		if (currentMemberTypeLength != otherMemberTypeLength)
+			return true;
+		for (int i = 0; i < currentMemberTypeLength; i++)
+			if (!CharOperation.equals(currentMemberTypes[i].getName(), otherMemberTypes[i].getName())
+				|| currentMemberTypes[i].getModifiers() != otherMemberTypes[i].getModifiers())
+					return true;
+	}
+
+	// missing types
+	char[][][] missingTypes = getMissingTypeNames();
+	char[][][] newMissingTypes = newClassFile.getMissingTypeNames();
+	if (missingTypes != null) {
+		if (newMissingTypes == null) {
+			return true;
+		}
+		int length = missingTypes.length;
+		if (length != newMissingTypes.length) {
+			return true;
+		}
+		for (int i = 0; i < length; i++) {
+			if (!CharOperation.equals(missingTypes[i], newMissingTypes[i])) {
+				return true;
+			}
+		}
+	} else if (newMissingTypes != null) {
 		return true;
 	}
+	return false;
 }
 
 private boolean hasStructuralAnnotationChanges(IBinaryAnnotation[] currentAnnotations, IBinaryAnnotation[] otherAnnotations) {
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.compiler.util;
+
+/**
+ * The 64-bit FNV-1a hash function, see http://www.isthe.com/chongo/tech/comp/fnv/
+ * <p>
+ * The hash of a sequence of values is computed by combining each value with the hash of the previous ones,
+ * starting from {@link #OFFSET_BASIS}. Arrays and strings are combined with their length first, so that two
+ * sequences which only differ by where an array ends have different hashes. A null array is combined as the length -1.
+ * </p><p>
+ * The hash is fast but is not a digest: it must not be trusted as the only proof that two contents are equal.
+ * </p>
+ */
+public class FNVHash {
+
+	public static final long OFFSET_BASIS = 0xCBF29CE484222325L;
+	public static final long PRIME = 0x100000001B3L;
+
+	private FNVHash() {
+		// not instantiable
+	}
+
+	/**
+	 * Answers the given hash combined with the 8 bytes of the given value.
+	 */
+	public static long hash(long hash, long value) {
+		for (int i = 0; i < 64; i += 8) {
+			hash ^= (value >>> i) & 0xFF;
+			hash *= PRIME;
+		}
+		return hash;
+	}
+
+	public static long hash(long hash, byte[] bytes) {
+		if (bytes == null)
+			return hash(hash, -1);
+		int length = bytes.length;
+		hash = hash(hash, length);
+		for (int i = 0; i < length; i++) {
+			hash ^= bytes[i] & 0xFF;
+			hash *= PRIME;
+		}
+		return hash;
+	}
+
+	public static long hash(long hash, char[] chars) {
+		if (chars == null)
+			return hash(hash, -1);
+		int length = chars.length;
+		hash = hash(hash, length);
+		for (int i = 0; i < length; i++) {
+			hash ^= chars[i];
+			hash *= PRIME;
+		}
+		return hash;
+	}
+
+	public static long hash(long hash, String string) {
+		if (string == null)
+			return hash(hash, -1);
+		int length = string.length();
+		hash = hash(hash, length);
+		for (int i = 0; i < length; i++) {
+			hash ^= string.charAt(i);
+			hash *= PRIME;
+		}
+		return hash;
+	}
+}
@@ -3180,6 +3180,21 @@ public final class JavaCore extends Plugin {
 		return JavaModelManager.createJarPackageFragmentRootFrom(file, null/*unknown java project*/);
 	}
 
+	/**
+	 * Returns the estimated memory footprint of the caches of the Java model, for diagnostic purposes.
+	 * <p>
+	 * The returned map is keyed by the name of each cache (e.g. "Openable cache" or "Jar type cache")
+	 * and its values are the estimated number of bytes used by the cache, as <code>Long</code>s.
+	 * The footprints are approximations, which are only meant to compare the caches and to monitor their growth.
+	 * </p>
+	 *
+	 * @return a map from cache name (<code>String</code>) to its estimated footprint in bytes (<code>Long</code>)
+	 * @since 3.9
+	 */
+	public static Map getCacheFootprints() {
+		return JavaModelManager.getJavaModelManager().getCacheFootprints();
+	}
+
 	/**
 	 * Answers the project specific value for a given classpath container.
 	 * In case this container path could not be resolved, then will answer <code>null</code>.
@@ -4014,6 +4029,7 @@ public final class JavaCore extends Plugin {
 			if (monitor != null)
 				monitor.subTask(Messages.javamodel_resetting_source_attachment_properties);
 			final IJavaProject[] projects = manager.getJavaModel().getJavaProjects();
+			manager.resolveClasspaths(projects, monitor); // resolve the classpaths concurrently if requested
 			HashSet visitedPaths = new HashSet();
 			ExternalFoldersManager externalFoldersManager = JavaModelManager.getExternalManager();
 			for (int i = 0, length = projects.length; i < length; i++) {
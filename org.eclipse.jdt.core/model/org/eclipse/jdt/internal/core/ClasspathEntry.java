@@ -920,32 +920,50 @@ public class ClasspathEntry implements IClasspathEntry {
 		JavaModelManager manager = JavaModelManager.getJavaModelManager();
 		if (manager.isNonChainingJar(jarPath))
 			return;
-		List calledFileNames = getCalledFileNames(jarPath);
-		if (calledFileNames == null) {
-			manager.addNonChainingJar(jarPath);
-		} else {
-			Iterator calledFilesIterator = calledFileNames.iterator();
-			IPath directoryPath = jarPath.removeLastSegments(1);
-			while (calledFilesIterator.hasNext()) {
-				String calledFileName = (String) calledFilesIterator.next();
-				if (!directoryPath.isValidPath(calledFileName)) {
+		IPath[] calledJars = manager.getCalledJars(jarPath);
+		if (calledJars == null) {
+			List calledFileNames = getCalledFileNames(jarPath);
+			if (calledFileNames == null) {
+				manager.addNonChainingJar(jarPath);
+				return;
+			}
+			calledJars = getCalledJars(jarPath, calledFileNames);
+			manager.addChainingJar(jarPath, calledJars);
+		}
+		for (int i = 0, length = calledJars.length; i < length; i++) {
+			IPath calledJar = calledJars[i];
+			resolvedChainedLibraries(calledJar, visited, result);
+			result.add(calledJar);
+		}
+	}
+
+	/*
+	 * Returns the paths of the given file names of the Class-Path clause of the manifest of the given jar,
+	 * ignoring the invalid file names.
+	 */
+	private static IPath[] getCalledJars(IPath jarPath, List calledFileNames) {
+		ArrayList calledJars = new ArrayList(calledFileNames.size());
+		Iterator calledFilesIterator = calledFileNames.iterator();
+		IPath directoryPath = jarPath.removeLastSegments(1);
+		while (calledFilesIterator.hasNext()) {
+			String calledFileName = (String) calledFilesIterator.next();
+			if (!directoryPath.isValidPath(calledFileName)) {
+				if (JavaModelManager.CP_RESOLVE_VERBOSE_FAILURE) {
+					Util.verbose("Invalid Class-Path entry " + calledFileName + " in manifest of jar file: " + jarPath.toOSString()); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			} else {
+				IPath calledJar = directoryPath.append(new Path(calledFileName));
+				// Ignore if segment count is Zero (https://bugs.eclipse.org/bugs/show_bug.cgi?id=308150)
+				if (calledJar.segmentCount() == 0) {
 					if (JavaModelManager.CP_RESOLVE_VERBOSE_FAILURE) {
 						Util.verbose("Invalid Class-Path entry " + calledFileName + " in manifest of jar file: " + jarPath.toOSString()); //$NON-NLS-1$ //$NON-NLS-2$
 					}
-				} else {
-					IPath calledJar = directoryPath.append(new Path(calledFileName));
-					// Ignore if segment count is Zero (https://bugs.eclipse.org/bugs/show_bug.cgi?id=308150)
-					if (calledJar.segmentCount() == 0) {
-						if (JavaModelManager.CP_RESOLVE_VERBOSE_FAILURE) {
-							Util.verbose("Invalid Class-Path entry " + calledFileName + " in manifest of jar file: " + jarPath.toOSString()); //$NON-NLS-1$ //$NON-NLS-2$
-						}
-						continue;
-					}
-					resolvedChainedLibraries(calledJar, visited, result);
-					result.add(calledJar);
+					continue;
 				}
+				calledJars.add(calledJar);
 			}
 		}
+		return (IPath[]) calledJars.toArray(new IPath[calledJars.size()]);
 	}
 
 	private static List getCalledFileNames(IPath jarPath) {
@@ -22,8 +22,10 @@ import java.util.*;
 
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.*;
 import org.eclipse.jdt.internal.core.JavaModelManager.PerProjectInfo;
+import org.eclipse.jdt.internal.core.util.Messages;
 import org.eclipse.jdt.internal.core.util.Util;
 
 /**
@@ -87,6 +89,10 @@ public class DeltaProcessingState implements IResourceChangeListener {
 	/* A table from file system absoulte path (String) to timestamp (Long) */
 	public Hashtable externalTimeStamps;
 
+	/* The watcher of the external archives, null if they are not watched (see ExternalArchiveWatcher#INTERVAL) */
+	private ExternalArchiveWatcher externalArchiveWatcher;
+	private boolean externalArchiveWatcherStopped;
+
 	/*
 	 * Map from IProject to ClasspathChange
 	 * Note these changes need to be kept on the delta processing state to ensure we don't loose them
@@ -115,6 +121,14 @@ public class DeltaProcessingState implements IResourceChangeListener {
 	 */
 	private HashSet externalElementsToRefresh;
 
+	/*
+	 * The Java element deltas of the resource changes that are waiting to be fired together
+	 * (see DeltaProcessor#COALESCING_WINDOW), in the order of the resource changes.
+	 * This is null if no delta is waiting.
+	 */
+	private ArrayList coalescedDeltas;
+	private Job coalescedDeltasJob;
+
 	/*
 	 * Need to clone defensively the listener information, in case some listener is reacting to some notification iteration by adding/changing/removing
 	 * any of the other (for example, if it deregisters itself).
@@ -152,6 +166,37 @@ public class DeltaProcessingState implements IResourceChangeListener {
 		this.externalElementsToRefresh.add(externalElement);
 	}
 
+	/*
+	 * Adds the given Java element deltas to the deltas that are fired together once the given delay has elapsed.
+	 * The delay starts with the first delta which is waiting, so that a stream of resource changes does not
+	 * postpone the notification indefinitely.
+	 */
+	public synchronized void addCoalescedDeltas(Collection deltas, long delay) {
+		if (this.coalescedDeltas == null) {
+			this.coalescedDeltas = new ArrayList();
+		}
+		this.coalescedDeltas.addAll(deltas);
+		if (this.coalescedDeltasJob == null) {
+			this.coalescedDeltasJob = new Job(Messages.coalesced_deltas_jobName) {
+				protected IStatus run(IProgressMonitor monitor) {
+					try {
+						// the deltas which are waiting are merged with the (empty) deltas of the job's processor
+						getDeltaProcessor().fire(null, ElementChangedEvent.POST_CHANGE);
+					} finally {
+						doNotUse();
+					}
+					return Status.OK_STATUS;
+				}
+			};
+			this.coalescedDeltasJob.setSystem(true);
+		}
+		int jobState = this.coalescedDeltasJob.getState();
+		if (jobState != Job.WAITING && jobState != Job.SLEEPING) {
+			// if the job is running, it is scheduled again once it is done
+			this.coalescedDeltasJob.schedule(delay);
+		}
+	}
+
 	public synchronized void addPreResourceChangedListener(IResourceChangeListener listener, int eventMask) {
 		for (int i = 0; i < this.preResourceChangeListenerCount; i++){
 			if (this.preResourceChangeListeners[i] == listener) {
@@ -386,6 +431,15 @@ public class DeltaProcessingState implements IResourceChangeListener {
 	    return updates;
 	}
 
+	/*
+	 * Returns the Java element deltas that are waiting to be fired, or null if none.
+	 */
+	public synchronized ArrayList removeCoalescedDeltas() {
+		ArrayList result = this.coalescedDeltas;
+		this.coalescedDeltas = null;
+		return result;
+	}
+
 	public synchronized HashSet removeExternalElementsToRefresh() {
 		HashSet result = this.externalElementsToRefresh;
 		this.externalElementsToRefresh = null;
@@ -511,6 +565,33 @@ public class DeltaProcessingState implements IResourceChangeListener {
 		return this.externalTimeStamps;
 	}
 
+	/*
+	 * Returns the watcher of the external archives, or null if they are not watched.
+	 */
+	public synchronized ExternalArchiveWatcher getExternalArchiveWatcher() {
+		if (this.externalArchiveWatcherStopped) return null;
+		if (ExternalArchiveWatcher.INTERVAL == 0) {
+			if (this.externalArchiveWatcher != null) {
+				this.externalArchiveWatcher.stop();
+				this.externalArchiveWatcher = null;
+			}
+		} else if (this.externalArchiveWatcher == null) {
+			this.externalArchiveWatcher = new ExternalArchiveWatcher(ExternalArchiveWatcher.INTERVAL, getExternalLibTimeStamps());
+		}
+		return this.externalArchiveWatcher;
+	}
+
+	/*
+	 * Stops watching the external archives.
+	 */
+	public synchronized void stopExternalArchiveWatcher() {
+		this.externalArchiveWatcherStopped = true;
+		if (this.externalArchiveWatcher != null) {
+			this.externalArchiveWatcher.stop();
+			this.externalArchiveWatcher = null;
+		}
+	}
+
 	public IJavaProject findJavaProject(String name) {
 		if (getOldJavaProjecNames().contains(name))
 			return JavaModelManager.getJavaModelManager().getJavaModel().getJavaProject(name);
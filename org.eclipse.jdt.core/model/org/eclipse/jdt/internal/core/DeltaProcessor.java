@@ -198,6 +198,16 @@ public class DeltaProcessor {
 
 	public static final int DEFAULT_CHANGE_EVENT = 0; // must not collide with ElementChangedEvent event masks
 
+	/*
+	 * Number of milliseconds during which the Java element deltas of successive resource changes are coalesced
+	 * before being fired as a single merged delta. The model is still updated when each resource change is processed.
+	 * The deltas are fired with each resource change if this is 0 (the default).
+	 * The search scopes process the deltas when they are queued, but the listeners, including the type hierarchies,
+	 * only see the changes once the merged delta is fired: a type hierarchy may be stale for the length of the window.
+	 */
+	public static final String COALESCING_WINDOW_PROPERTY = "jdt.core.delta.coalescingWindow"; //$NON-NLS-1$
+	public static int COALESCING_WINDOW = Math.max(Integer.getInteger(COALESCING_WINDOW_PROPERTY, 0).intValue(), 0);
+
 	/*
 	 * Answer a combination of the lastModified stamp and the size.
 	 * Used for detecting external JAR changes
@@ -791,7 +801,10 @@ public class DeltaProcessor {
 				}
 			}
 			HashSet elementsToRefresh = this.state.removeExternalElementsToRefresh();
-			boolean hasDelta = elementsToRefresh != null && createExternalArchiveDelta(elementsToRefresh, monitor);
+			// an explicit refresh (see IJavaModel#refreshExternalArchives(..)) accesses every archive,
+			// the watcher is only trusted when checking the archives before a workspace refresh
+			boolean useWatcher = asynchronous;
+			boolean hasDelta = elementsToRefresh != null && createExternalArchiveDelta(elementsToRefresh, useWatcher, monitor);
 			if (hasDelta){
 				IJavaElementDelta[] projectDeltas = this.currentDelta.getAffectedChildren();
 				final int length = projectDeltas.length;
@@ -875,9 +888,11 @@ public class DeltaProcessor {
 
 	/*
 	 * Check if external archives have changed for the given elements and create the corresponding deltas.
+	 * The time stamps polled by the external archive watcher are trusted only if useWatcher is true,
+	 * otherwise the file system is accessed for every archive.
 	 * Returns whether at least one delta was created.
 	 */
-	private boolean createExternalArchiveDelta(HashSet refreshedElements, IProgressMonitor monitor) {
+	private boolean createExternalArchiveDelta(HashSet refreshedElements, boolean useWatcher, IProgressMonitor monitor) {
 
 		HashMap externalArchivesStatus = new HashMap();
 		boolean hasDelta = false;
@@ -936,6 +951,7 @@ public class DeltaProcessor {
 		}
 
 		// perform refresh
+		ExternalArchiveWatcher watcher = this.state.getExternalArchiveWatcher();
 		Iterator projectNames = this.state.getOldJavaProjecNames().iterator();
 		IWorkspaceRoot wksRoot = ResourcesPlugin.getWorkspace().getRoot();
 		while (projectNames.hasNext()) {
@@ -964,7 +980,20 @@ public class DeltaProcessor {
 					if (!archivePathsToRefresh.contains(entryPath)) continue; // not supposed to be refreshed
 
 					String status = (String)externalArchivesStatus.get(entryPath);
-					if (status == null){
+					Long knownTimestamp;
+					if (status == null
+							&& useWatcher
+							&& watcher != null
+							&& (knownTimestamp = (Long) this.state.getExternalLibTimeStamps().get(entryPath)) != null
+							&& watcher.isUnchanged(entryPath, knownTimestamp.longValue())) {
+
+						// the watcher saw no change since the JAR was last refreshed: don't access the file system
+						URL indexLocation = ((ClasspathEntry)entries[j]).getLibraryIndexLocation();
+						if (indexLocation != null) { // force reindexing, this could be faster rather than maintaining the list
+							this.manager.indexManager.indexLibrary(entryPath, project.getProject(), indexLocation);
+						}
+						externalArchivesStatus.put(entryPath, EXTERNAL_JAR_UNCHANGED);
+					} else if (status == null){
 
 						// compute shared status
 						Object targetLibrary = JavaModel.getTarget(entryPath, true);
@@ -1017,6 +1046,9 @@ public class DeltaProcessor {
 									this.manager.indexManager.indexLibrary(entryPath, project.getProject(), ((ClasspathEntry)entries[j]).getLibraryIndexLocation());
 								}
 							}
+							if (watcher != null && newTimeStamp != 0) {
+								watcher.watch(entryPath, newTimeStamp);
+							}
 						} else { // internal JAR
 							externalArchivesStatus.put(entryPath, INTERNAL_JAR_IGNORE);
 						}
@@ -1444,25 +1476,25 @@ public class DeltaProcessor {
 			System.out.println("-----------------------------------------------------------------------------------------------------------------------");//$NON-NLS-1$
 		}
 
+		// Refresh internal scopes
+		// (the coalesced deltas of previous resource changes have been processed by the scopes when they were queued)
+		ArrayList coalescedDeltas = this.state.removeCoalescedDeltas();
 		IJavaElementDelta deltaToNotify;
 		if (customDelta == null){
+			for (int i = 0, size = this.javaModelDeltas.size(); i < size; i++)
+				refreshScopes((IJavaElementDelta) this.javaModelDeltas.get(i), eventType);
+			// the coalesced deltas of previous resource changes are fired first
+			if (coalescedDeltas != null) {
+				coalescedDeltas.addAll(this.javaModelDeltas);
+				this.javaModelDeltas = coalescedDeltas;
+				coalescedDeltas = null;
+			}
 			deltaToNotify = mergeDeltas(this.javaModelDeltas);
 		} else {
+			refreshScopes(customDelta, eventType);
 			deltaToNotify = customDelta;
 		}
 
-		// Refresh internal scopes
-		if (deltaToNotify != null) {
-			Iterator scopes = this.manager.searchScopes.keySet().iterator();
-			while (scopes.hasNext()) {
-				AbstractSearchScope scope = (AbstractSearchScope)scopes.next();
-				scope.processDelta(deltaToNotify, eventType);
-			}
-			JavaWorkspaceScope workspaceScope = this.manager.workspaceScope;
-			if (workspaceScope != null)
-				workspaceScope.processDelta(deltaToNotify, eventType);
-		}
-
 		// Notification
 
 		// Important: if any listener reacts to notification by updating the listeners list or mask, these lists will
@@ -1476,6 +1508,11 @@ public class DeltaProcessor {
 			listenerCount = this.state.elementChangedListenerCount;
 		}
 
+		if (coalescedDeltas != null) {
+			// the coalesced deltas of previous resource changes are fired before the custom delta
+			firePostChangeDelta(mergeDeltas(coalescedDeltas), listeners, listenerMask, listenerCount);
+		}
+
 		switch (eventType) {
 			case DEFAULT_CHANGE_EVENT:
 			case ElementChangedEvent.POST_CHANGE:
@@ -1658,6 +1695,19 @@ public class DeltaProcessor {
 		if (insertedTree) return rootDelta;
 		return null;
 	}
+	/*
+	 * Lets the search scopes process the given Java element delta.
+	 */
+	private void refreshScopes(IJavaElementDelta delta, int eventType) {
+		Iterator scopes = this.manager.searchScopes.keySet().iterator();
+		while (scopes.hasNext()) {
+			AbstractSearchScope scope = (AbstractSearchScope)scopes.next();
+			scope.processDelta(delta, eventType);
+		}
+		JavaWorkspaceScope workspaceScope = this.manager.workspaceScope;
+		if (workspaceScope != null)
+			workspaceScope.processDelta(delta, eventType);
+	}
 	private void notifyListeners(IJavaElementDelta deltaToNotify, int eventType, IElementChangedListener[] listeners, int[] listenerMask, int listenerCount) {
 		final ElementChangedEvent extraEvent = new ElementChangedEvent(deltaToNotify, eventType);
 		for (int i= 0; i < listenerCount; i++) {
@@ -1703,7 +1753,7 @@ public class DeltaProcessor {
 				}
 				public void run() throws Exception {
 					TypeHierarchy typeHierarchy = (TypeHierarchy)listener;
-					if (typeHierarchy.hasFineGrainChanges()) {
+					if (!typeHierarchy.needsRefresh && typeHierarchy.hasFineGrainChanges()) {
 						// case of changes in primary working copies
 						typeHierarchy.needsRefresh = true;
 						typeHierarchy.fireChange();
@@ -2038,7 +2088,7 @@ public class DeltaProcessor {
 
 							// generate external archive change deltas
 							if (elementsToRefresh != null) {
-								createExternalArchiveDelta(elementsToRefresh, null);
+								createExternalArchiveDelta(elementsToRefresh, true, null);
 							}
 
 							// generate classpath change deltas
@@ -2069,7 +2119,7 @@ public class DeltaProcessor {
 								// process late coming external elements to refresh (see https://bugs.eclipse.org/bugs/show_bug.cgi?id=212769 )
 								elementsToRefresh = this.state.removeExternalElementsToRefresh();
 								if (elementsToRefresh != null) {
-									hasDelta |= createExternalArchiveDelta(elementsToRefresh, null);
+									hasDelta |= createExternalArchiveDelta(elementsToRefresh, true, null);
 								}
 								if (!hasDelta)
 									this.currentDelta = null;
@@ -2091,7 +2141,18 @@ public class DeltaProcessor {
 							listenerCount = this.state.elementChangedListenerCount;
 						}
 						notifyTypeHierarchies(listeners, listenerCount);
-						fire(null, ElementChangedEvent.POST_CHANGE);
+						if (COALESCING_WINDOW > 0 && this.reconcileDeltas.isEmpty()) {
+							// fire the deltas later together with the ones of the next resource changes
+							if (!this.javaModelDeltas.isEmpty()) {
+								// the search scopes are refreshed right away so that searches do not wait for the deltas
+								for (int i = 0, size = this.javaModelDeltas.size(); i < size; i++)
+									refreshScopes((IJavaElementDelta) this.javaModelDeltas.get(i), ElementChangedEvent.POST_CHANGE);
+								this.state.addCoalescedDeltas(this.javaModelDeltas, COALESCING_WINDOW);
+								flush();
+							}
+						} else {
+							fire(null, ElementChangedEvent.POST_CHANGE);
+						}
 					} finally {
 						// workaround for bug 15168 circular errors not reported
 						this.state.resetOldJavaProjectNames();
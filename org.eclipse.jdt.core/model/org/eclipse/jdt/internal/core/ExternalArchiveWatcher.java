@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.internal.core.util.Messages;
+
+/**
+ * A background job which watches the time stamps of the external archives on the classpaths,
+ * so that the check of the external archives before a workspace refresh only accesses the file system
+ * for the archives that changed. An explicit refresh of the external archives always accesses all of them.
+ * <p>
+ * An archive is watched once it has been refreshed (see {@link DeltaProcessor#checkExternalArchiveChanges(org.eclipse.jdt.core.IJavaElement[], IProgressMonitor)}).
+ * The job polls the time stamps of the watched archives periodically: a change of an archive is seen by
+ * the next check if the job polled the archive since the change. The archives which are no longer known
+ * by the delta processing state are no longer watched.
+ * </p><p>
+ * The job backs off while nothing asks for the polled time stamps, doubling its interval after each poll,
+ * and stops polling after {@link #MAX_IDLE_POLLS} such polls until it is asked again. The polled time stamps
+ * are not trusted if the last poll is older than twice the interval.
+ * </p>
+ */
+public class ExternalArchiveWatcher extends Job {
+
+	/**
+	 * Number of milliseconds between two polls of the time stamps of the external archives.
+	 * The external archives are not watched, and every refresh checks all of them, if this is 0 (the default).
+	 */
+	public static final String INTERVAL_PROPERTY = "jdt.core.externalArchives.watchInterval"; //$NON-NLS-1$
+	public static int INTERVAL = Math.max(Integer.getInteger(INTERVAL_PROPERTY, 0).intValue(), 0);
+
+	/*
+	 * Number of polls after which the job stops polling if nothing asked for the polled time stamps meanwhile.
+	 */
+	static final int MAX_IDLE_POLLS = 5;
+
+	private long interval;
+	private Map knownTimeStamps; // the time stamps of the archives at their last refresh (see DeltaProcessingState#getExternalLibTimeStamps())
+	private HashMap timeStamps = new HashMap(); // a table from IPath to the last polled time stamp (Long) of the archive
+	private long lastPollTime; // the time at which the last poll ended, 0 if none
+	private boolean asked; // whether the polled time stamps were asked for since the last poll
+	private int idlePolls; // the number of polls since the polled time stamps were last asked for
+	private boolean stopped;
+
+public ExternalArchiveWatcher(long interval, Map knownTimeStamps) {
+	super(Messages.watching_external_archives_jobName);
+	this.interval = interval;
+	this.knownTimeStamps = knownTimeStamps;
+	setSystem(true);
+	setPriority(Job.DECORATE);
+}
+
+/*
+ * Returns whether the given archive is watched and whether its last polled time stamp is the given one.
+ * Resumes polling if the job stopped.
+ */
+public synchronized boolean isUnchanged(IPath path, long timeStamp) {
+	if (this.stopped) return false;
+	this.asked = true;
+	if (getState() == Job.NONE) {
+		// the caller checks the archives itself meanwhile
+		schedule(this.interval);
+		return false;
+	}
+	if (System.currentTimeMillis() - this.lastPollTime > 2 * this.interval)
+		return false; // the job is backing off: the polled time stamps are outdated
+	Long polledTimeStamp = (Long) this.timeStamps.get(path);
+	return polledTimeStamp != null && polledTimeStamp.longValue() == timeStamp;
+}
+
+protected IStatus run(IProgressMonitor monitor) {
+	Object[] paths;
+	synchronized (this) {
+		if (this.stopped) return Status.CANCEL_STATUS;
+		paths = this.timeStamps.keySet().toArray();
+	}
+	for (int i = 0, length = paths.length; i < length; i++) {
+		if (monitor.isCanceled()) return Status.CANCEL_STATUS;
+		IPath path = (IPath) paths[i];
+		if (this.knownTimeStamps.get(path) == null) {
+			synchronized (this) {
+				this.timeStamps.remove(path);
+			}
+			continue;
+		}
+		long timeStamp = DeltaProcessor.getTimeStamp(path.toFile());
+		synchronized (this) {
+			Long polledTimeStamp = (Long) this.timeStamps.get(path);
+			if (polledTimeStamp != null && polledTimeStamp.longValue() != timeStamp) {
+				if (DeltaProcessor.VERBOSE)
+					System.out.println("- External archive changed: " + path); //$NON-NLS-1$
+				this.timeStamps.put(path, new Long(timeStamp));
+			}
+		}
+	}
+	synchronized (this) {
+		this.lastPollTime = System.currentTimeMillis();
+		if (this.stopped) return Status.OK_STATUS;
+		if (this.asked) {
+			this.asked = false;
+			this.idlePolls = 0;
+			schedule(this.interval);
+		} else if (this.idlePolls < MAX_IDLE_POLLS) {
+			this.idlePolls++;
+			schedule(this.interval << this.idlePolls);
+		} else {
+			// nothing asked for the polled time stamps lately: stop polling until asked again
+			this.idlePolls = 0;
+		}
+	}
+	return Status.OK_STATUS;
+}
+
+/*
+ * Stops polling the time stamps of the archives.
+ */
+public synchronized void stop() {
+	this.stopped = true;
+	cancel();
+}
+
+/*
+ * Watches the given archive, whose time stamp was just checked.
+ * The time stamp is polled once the polled time stamps are asked for (see #isUnchanged(IPath, long)).
+ */
+public synchronized void watch(IPath path, long timeStamp) {
+	if (this.stopped) return;
+	this.timeStamps.put(path, new Long(timeStamp));
+}
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.internal.compiler.util.FNVHash;
+import org.eclipse.jdt.internal.core.util.CacheFiles;
+
+/**
+ * A directory of the names of the entries of jars, used to open a {@link JarPackageFragmentRoot}
+ * without opening and enumerating its jar when the jar did not change since it was last listed.
+ * <p>
+ * A listing is stored under a name computed from the path of its jar, and is valid as long as the
+ * time stamp and the size of the jar are the ones it was listed with. The listings that were read or
+ * written are also kept softly in memory, so that reopening a root whose info was removed from the
+ * Java model cache does not read the directory again.
+ * The listings are never removed from the directory: the directory can be deleted when no workbench is running.
+ * </p>
+ */
+public class JarEntryListingCache {
+
+/**
+ * Directory of the cache, the listings are not stored if it is not set.
+ */
+public static final String PROPERTY = "jdt.core.jarEntryListings"; //$NON-NLS-1$
+static final int VERSION = 2;
+private static final String LISTING_SUFFIX = ".listing"; //$NON-NLS-1$
+
+/*
+ * The entry names of a jar, with the time stamp and the size of the jar they were listed from.
+ */
+static class Listing {
+	String path;
+	long timeStamp;
+	long size;
+	String[] entryNames;
+	Listing(String path, long timeStamp, long size, String[] entryNames) {
+		this.path = path;
+		this.timeStamp = timeStamp;
+		this.size = size;
+		this.entryNames = entryNames;
+	}
+	boolean isValid(String jarPath, long jarTimeStamp, long jarSize) {
+		return this.timeStamp == jarTimeStamp && this.size == jarSize && this.path.equals(jarPath);
+	}
+}
+
+File root;
+private HashMap listings = new HashMap(); // a table from the portable path (String) of a jar to a soft reference to its Listing
+
+public JarEntryListingCache(File root) {
+	this.root = root;
+}
+
+/**
+ * Returns the cache located in the given directory, or <code>null</code> if no directory is given.
+ */
+public static JarEntryListingCache create(String directory) {
+	if (directory == null || directory.length() == 0) return null;
+	return new JarEntryListingCache(new File(directory));
+}
+
+File getListingFile(String jarPath) {
+	String key = CacheFiles.toHexString(FNVHash.hash(FNVHash.OFFSET_BASIS, jarPath));
+	return CacheFiles.getFile(this.root, Integer.toString(VERSION), key, LISTING_SUFFIX);
+}
+
+/**
+ * Answers the entry names of the given jar if it was listed with the given time stamp and size, or null if none.
+ */
+public String[] read(IPath path, long timeStamp, long size) {
+	String jarPath = path.toPortableString();
+	synchronized (this) {
+		SoftReference reference = (SoftReference) this.listings.get(jarPath);
+		Listing listing = reference == null ? null : (Listing) reference.get();
+		if (listing != null && listing.isValid(jarPath, timeStamp, size))
+			return listing.entryNames;
+	}
+	File file = getListingFile(jarPath);
+	if (!file.isFile()) return null;
+	Listing listing;
+	try {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			listing = new Listing(in.readUTF(), in.readLong(), in.readLong(), null);
+			if (!listing.isValid(jarPath, timeStamp, size))
+				return null;
+			int count = in.readInt();
+			if (count < 0 || count > in.available()) // each name takes at least 2 bytes
+				throw new IOException("Corrupted jar entry listing, invalid count: " + count); //$NON-NLS-1$
+			String[] entryNames = new String[count];
+			for (int i = 0, length = entryNames.length; i < length; i++)
+				entryNames[i] = in.readUTF();
+			listing.entryNames = entryNames;
+		} finally {
+			in.close();
+		}
+	} catch (IOException e) {
+		if (JavaModelManager.VERBOSE)
+			System.out.println("Could not read jar entry listing " + file + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+		file.delete(); // the jar is listed again
+		return null;
+	} catch (RuntimeException e) {
+		// corrupted listing
+		if (JavaModelManager.VERBOSE)
+			System.out.println("Could not read jar entry listing " + file + ": " + e); //$NON-NLS-1$ //$NON-NLS-2$
+		file.delete();
+		return null;
+	}
+	synchronized (this) {
+		this.listings.put(jarPath, new SoftReference(listing));
+	}
+	return listing.entryNames;
+}
+
+/**
+ * Stores the entry names of the given jar, listed with the given time stamp and size.
+ */
+public void write(IPath path, final long timeStamp, final long size, final String[] entryNames) {
+	final String jarPath = path.toPortableString();
+	synchronized (this) {
+		this.listings.put(jarPath, new SoftReference(new Listing(jarPath, timeStamp, size, entryNames)));
+	}
+	File file = getListingFile(jarPath);
+	try {
+		CacheFiles.write(file, new CacheFiles.Contents() {
+			public void write(DataOutputStream out) throws IOException {
+				out.writeUTF(jarPath);
+				out.writeLong(timeStamp);
+				out.writeLong(size);
+				out.writeInt(entryNames.length);
+				for (int i = 0, length = entryNames.length; i < length; i++)
+					out.writeUTF(entryNames[i]);
+			}
+		});
+	} catch (IOException e) {
+		if (JavaModelManager.VERBOSE)
+			System.out.println("Could not write jar entry listing " + file + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
+
+public String toString() {
+	return "Jar entry listing cache " + this.root; //$NON-NLS-1$
+}
+}
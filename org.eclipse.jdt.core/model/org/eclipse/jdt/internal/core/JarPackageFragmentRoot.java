@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.core;
 
+import java.io.File;
 import java.net.URL;
 import java.util.*;
 import java.util.zip.ZipEntry;
@@ -39,6 +40,11 @@ public class JarPackageFragmentRoot extends PackageFragmentRoot {
 
 	private final static ArrayList EMPTY_LIST = new ArrayList();
 
+	/*
+	 * The cache of the entry names of the jars, null if the jars are enumerated each time a root is opened.
+	 */
+	public static JarEntryListingCache LISTING_CACHE = JarEntryListingCache.create(System.getProperty(JarEntryListingCache.PROPERTY));
+
 	/**
 	 * The path to the jar file
 	 * (a workspace relative path if the jar is internal,
@@ -68,6 +74,7 @@ public class JarPackageFragmentRoot extends PackageFragmentRoot {
 	 * Compute the package fragment children of this package fragment root.
 	 * These are all of the directory zip entries, and any directories implied
 	 * by the path of class files contained in the jar of this package fragment root.
+	 * If the entry names of the jar are cached, the jar is only opened if it changed since it was last listed.
 	 */
 	protected boolean computeChildren(OpenableElementInfo info, IResource underlyingResource) throws JavaModelException {
 		HashtableOfArrayToObject rawPackageInfo = new HashtableOfArrayToObject();
@@ -77,14 +84,35 @@ public class JarPackageFragmentRoot extends PackageFragmentRoot {
 			IJavaProject project = getJavaProject();
 			String sourceLevel = project.getOption(JavaCore.COMPILER_SOURCE, true);
 			String compliance = project.getOption(JavaCore.COMPILER_COMPLIANCE, true);
-			jar = getJar();
 
 			// always create the default package
 			rawPackageInfo.put(CharOperation.NO_STRINGS, new ArrayList[] { EMPTY_LIST, EMPTY_LIST });
 
-			for (Enumeration e= jar.entries(); e.hasMoreElements();) {
-				ZipEntry member= (ZipEntry) e.nextElement();
-				initRawPackageInfo(rawPackageInfo, member.getName(), member.isDirectory(), sourceLevel, compliance);
+			JarEntryListingCache listingCache = LISTING_CACHE;
+			File jarFile = listingCache == null ? null : getJarFile();
+			if (jarFile != null) {
+				long timeStamp = jarFile.lastModified();
+				long size = jarFile.length();
+				String[] entryNames = listingCache.read(getPath(), timeStamp, size);
+				if (entryNames == null) {
+					jar = getJar();
+					ArrayList names = new ArrayList();
+					for (Enumeration e= jar.entries(); e.hasMoreElements();)
+						names.add(((ZipEntry) e.nextElement()).getName());
+					entryNames = (String[]) names.toArray(new String[names.size()]);
+					if (timeStamp != 0)
+						listingCache.write(getPath(), timeStamp, size, entryNames);
+				}
+				for (int i = 0, length = entryNames.length; i < length; i++) {
+					String entryName = entryNames[i];
+					initRawPackageInfo(rawPackageInfo, entryName, entryName.endsWith("/")/*see ZipEntry#isDirectory()*/, sourceLevel, compliance); //$NON-NLS-1$
+				}
+			} else {
+				jar = getJar();
+				for (Enumeration e= jar.entries(); e.hasMoreElements();) {
+					ZipEntry member= (ZipEntry) e.nextElement();
+					initRawPackageInfo(rawPackageInfo, member.getName(), member.isDirectory(), sourceLevel, compliance);
+				}
 			}
 
 			// loop through all of referenced packages, creating package fragments if necessary
@@ -145,6 +173,15 @@ public class JarPackageFragmentRoot extends PackageFragmentRoot {
 	public String getElementName() {
 		return this.jarPath.lastSegment();
 	}
+	/*
+	 * Returns the file of the jar of this root, or null if the jar is not in the local file system.
+	 */
+	private File getJarFile() {
+		if (isExternal())
+			return this.jarPath.toFile();
+		IPath location = resource().getLocation();
+		return location == null ? null : location.toFile();
+	}
 	/**
 	 * Returns the underlying ZipFile for this Jar package fragment root.
 	 *
@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+
+import org.eclipse.jdt.internal.compiler.env.IBinaryAnnotation;
+import org.eclipse.jdt.internal.compiler.env.IBinaryField;
+import org.eclipse.jdt.internal.compiler.env.IBinaryMethod;
+import org.eclipse.jdt.internal.compiler.env.IBinaryNestedType;
+import org.eclipse.jdt.internal.compiler.env.IBinaryType;
+import org.eclipse.jdt.internal.core.util.ICacheEnumeration;
+import org.eclipse.jdt.internal.core.util.LRUCache;
+
+/**
+ * An LRU cache of the infos of the binary types in jars that have a non-open parent.
+ * <p>
+ * The space of the cache is measured in bytes, using an estimate of the footprint of each info,
+ * so that a few large types use as much space as many small ones.
+ * The infos are softly referenced, so that they can be reclaimed by the garbage collector
+ * when memory is low: the entry of a reclaimed info is removed from the cache as an eviction.
+ * </p>
+ */
+public class JarTypeCache extends LRUCache {
+
+	/*
+	 * Estimated footprint of an average binary type, used to convert a number of types into a space limit.
+	 */
+	public static final int AVERAGE_TYPE_FOOTPRINT = 4096;
+
+	private static final int OBJECT_FOOTPRINT = 16;
+	private static final int ARRAY_FOOTPRINT = 16;
+	private static final int TYPE_FOOTPRINT = 160; // the reader and its info arrays
+	private static final int FIELD_FOOTPRINT = 48;
+	private static final int METHOD_FOOTPRINT = 64;
+	private static final int NESTED_TYPE_FOOTPRINT = 32;
+	private static final int ANNOTATION_FOOTPRINT = 64;
+
+	/*
+	 * A soft reference to an info, which remembers the key and the footprint of its entry.
+	 */
+	static class InfoReference extends SoftReference {
+		Object key;
+		int footprint;
+		InfoReference(Object key, Object info, ReferenceQueue queue) {
+			super(info, queue);
+			this.key = key;
+			this.footprint = footprint(info);
+		}
+	}
+
+	private ReferenceQueue reclaimedInfos = new ReferenceQueue();
+
+/**
+ * Creates a new cache of the given size in bytes.
+ */
+public JarTypeCache(int size) {
+	super(size);
+}
+
+/**
+ * Returns a new cache containing the same infos, except the ones that were reclaimed.
+ */
+public Object clone() {
+	removeReclaimedInfos();
+	JarTypeCache newCache = new JarTypeCache(this.spaceLimit);
+	LRUCacheEntry entry = this.entryQueueTail; // preserve order of entries by copying from oldest to newest
+	while (entry != null) {
+		Object info = ((InfoReference) entry.value).get();
+		if (info != null)
+			newCache.put(entry.key, info);
+		entry = entry.previous;
+	}
+	return newCache;
+}
+
+/**
+ * Flushes all infos from the cache.
+ */
+public void flush() {
+	super.flush();
+	this.reclaimedInfos = new ReferenceQueue(); // the infos being reclaimed are no longer in the cache
+}
+
+/**
+ * Flushes the info at the given key from the cache.
+ */
+public void flush(Object key) {
+	removeReclaimedInfos();
+	super.flush(key);
+}
+
+/*
+ * Returns the estimated number of bytes used by the given info.
+ */
+public static int footprint(Object info) {
+	if (!(info instanceof IBinaryType)) return OBJECT_FOOTPRINT;
+	IBinaryType type = (IBinaryType) info;
+	int footprint = TYPE_FOOTPRINT
+		+ footprint(type.getName())
+		+ footprint(type.getSourceName())
+		+ footprint(type.getSuperclassName())
+		+ footprint(type.getEnclosingTypeName())
+		+ footprint(type.getGenericSignature())
+		+ footprint(type.getInterfaceNames())
+		+ footprint(type.getAnnotations());
+	IBinaryField[] fields = type.getFields();
+	if (fields != null) {
+		for (int i = 0, length = fields.length; i < length; i++) {
+			IBinaryField field = fields[i];
+			footprint += FIELD_FOOTPRINT
+				+ footprint(field.getName())
+				+ footprint(field.getTypeName())
+				+ footprint(field.getGenericSignature())
+				+ footprint(field.getAnnotations());
+		}
+	}
+	IBinaryMethod[] methods = type.getMethods();
+	if (methods != null) {
+		for (int i = 0, length = methods.length; i < length; i++) {
+			IBinaryMethod method = methods[i];
+			footprint += METHOD_FOOTPRINT
+				+ footprint(method.getSelector())
+				+ footprint(method.getMethodDescriptor())
+				+ footprint(method.getGenericSignature())
+				+ footprint(method.getExceptionTypeNames())
+				+ footprint(method.getArgumentNames())
+				+ footprint(method.getAnnotations());
+		}
+	}
+	IBinaryNestedType[] memberTypes = type.getMemberTypes();
+	if (memberTypes != null) {
+		for (int i = 0, length = memberTypes.length; i < length; i++)
+			footprint += NESTED_TYPE_FOOTPRINT + footprint(memberTypes[i].getName());
+	}
+	return footprint;
+}
+
+private static int footprint(char[] chars) {
+	return chars == null ? 0 : ARRAY_FOOTPRINT + 2 * chars.length;
+}
+
+private static int footprint(char[][] names) {
+	if (names == null) return 0;
+	int footprint = ARRAY_FOOTPRINT + 4 * names.length;
+	for (int i = 0, length = names.length; i < length; i++)
+		footprint += footprint(names[i]);
+	return footprint;
+}
+
+private static int footprint(IBinaryAnnotation[] annotations) {
+	return annotations == null ? 0 : ARRAY_FOOTPRINT + ANNOTATION_FOOTPRINT * annotations.length;
+}
+
+/**
+ * Answers the info in the cache at the given key.
+ * If the info is not in the cache or was reclaimed, returns null.
+ */
+public Object get(Object key) {
+	removeReclaimedInfos();
+	LRUCacheEntry entry = (LRUCacheEntry) this.entryTable.get(key);
+	Object info = entry == null ? null : ((InfoReference) entry.value).get();
+	if (info == null) {
+		this.missCount++;
+		return null;
+	}
+	this.hitCount++;
+	updateTimestamp(entry);
+	return info;
+}
+
+/**
+ * Returns the key of the least recently used info which was not reclaimed, never its reference,
+ * or null if the cache is empty.
+ */
+public Object getOldestElement() {
+	removeReclaimedInfos();
+	return super.getOldestElement();
+}
+
+/**
+ * Returns an enumeration of the keys and infos of the cache.
+ * The value of a key is null if its info was reclaimed since the enumeration was created.
+ */
+public ICacheEnumeration keysAndValues() {
+	removeReclaimedInfos();
+	final ICacheEnumeration entries = super.keysAndValues();
+	return new ICacheEnumeration() {
+		public boolean hasMoreElements() {
+			return entries.hasMoreElements();
+		}
+		public Object nextElement() {
+			return entries.nextElement();
+		}
+		public Object getValue() {
+			return ((InfoReference) entries.getValue()).get();
+		}
+	};
+}
+
+protected LRUCache newInstance(int size) {
+	return new JarTypeCache(size);
+}
+
+/**
+ * Answers the info in the cache at the given key, without modifying timestamps.
+ * If the info is not in the cache or was reclaimed, returns null.
+ */
+public Object peek(Object key) {
+	LRUCacheEntry entry = (LRUCacheEntry) this.entryTable.get(key);
+	return entry == null ? null : ((InfoReference) entry.value).get();
+}
+
+/**
+ * Sets the info in the cache at the given key. Returns the info.
+ */
+public Object put(Object key, Object info) {
+	removeReclaimedInfos();
+	super.put(key, new InfoReference(key, info, this.reclaimedInfos));
+	return info;
+}
+
+/**
+ * Removes the info at the given key from the cache. Returns the info, or null if the info
+ * is not in the cache or was reclaimed.
+ */
+public Object removeKey(Object key) {
+	removeReclaimedInfos();
+	Object reference = super.removeKey(key);
+	return reference == null ? null : ((InfoReference) reference).get();
+}
+
+/*
+ * Removes the entries of the infos that were reclaimed by the garbage collector.
+ */
+private void removeReclaimedInfos() {
+	InfoReference reference;
+	while ((reference = (InfoReference) this.reclaimedInfos.poll()) != null) {
+		LRUCacheEntry entry = (LRUCacheEntry) this.entryTable.get(reference.key);
+		if (entry != null && entry.value == reference) { // otherwise the info was replaced or removed
+			privateRemoveEntry(entry, false);
+			this.evictionCount++;
+		}
+	}
+}
+
+protected int spaceFor(Object value) {
+	return value instanceof InfoReference ? ((InfoReference) value).footprint : super.spaceFor(value);
+}
+
+public String toStringFillingRation(String cacheName) {
+	removeReclaimedInfos();
+	return super.toStringFillingRation(cacheName);
+}
+}
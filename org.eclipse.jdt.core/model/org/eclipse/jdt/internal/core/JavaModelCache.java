@@ -11,10 +11,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.core;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.eclipse.jdt.core.IJavaElement;
-import org.eclipse.jdt.internal.core.util.LRUCache;
 import org.eclipse.jdt.internal.core.util.Util;
 
 /**
@@ -28,6 +28,10 @@ public class JavaModelCache {
 	public static final int DEFAULT_PKG_SIZE = 500; // average 1782 bytes per pkg -> maximum size : 178200*BASE_VALUE bytes
 	public static final int DEFAULT_OPENABLE_SIZE = 250; // average 6629 bytes per openable (includes children) -> maximum size : 662900*BASE_VALUE bytes
 	public static final int DEFAULT_CHILDREN_SIZE = 250*20; // average 20 children per openable
+	private static final long PROJECT_FOOTPRINT = 25552;
+	private static final long ROOT_FOOTPRINT = 2590;
+	private static final long PKG_FOOTPRINT = 1782;
+	private static final long OPENABLE_FOOTPRINT = 6629;
 	public static final String RATIO_PROPERTY = "org.eclipse.jdt.core.javamodelcache.ratio"; //$NON-NLS-1$
 	public static final String JAR_TYPE_RATIO_PROPERTY = "org.eclipse.jdt.core.javamodelcache.jartyperatio"; //$NON-NLS-1$
 	
@@ -69,9 +73,9 @@ public class JavaModelCache {
 	protected Map childrenCache;
 
 	/*
-	 * Cache of open binary type (inside a jar) that have a non-open parent
+	 * Cache of open binary type (inside a jar) that have a non-open parent, its space is measured in bytes
 	 */
-	protected LRUCache jarTypeCache;
+	protected JarTypeCache jarTypeCache;
 
 public JavaModelCache() {
 	// set the size of the caches as a function of the maximum amount of memory available
@@ -113,6 +117,20 @@ private double getRatioForProperty(String propertyName) {
 	return 1.0;
 }
 
+/*
+ * Returns the estimated number of bytes used by each cache, keyed by the name of the cache.
+ * The footprint of the element caches is estimated from the average footprint of their elements.
+ */
+public Map getFootprints() {
+	Map footprints = new LinkedHashMap();
+	footprints.put("Project cache", new Long(this.projectCache.size() * PROJECT_FOOTPRINT)); //$NON-NLS-1$
+	footprints.put("Root cache", new Long(this.rootCache.getCurrentSpace() * ROOT_FOOTPRINT)); //$NON-NLS-1$
+	footprints.put("Package cache", new Long(this.pkgCache.getCurrentSpace() * PKG_FOOTPRINT)); //$NON-NLS-1$
+	footprints.put("Openable cache", new Long(this.openableCache.getCurrentSpace() * OPENABLE_FOOTPRINT)); //$NON-NLS-1$
+	footprints.put("Jar type cache", new Long(this.jarTypeCache.getCurrentSpace())); //$NON-NLS-1$
+	return footprints;
+}
+
 /**
  *  Returns the info for the element.
  */
@@ -259,7 +277,9 @@ protected void removeInfo(JavaElement element) {
 	}
 }
 protected void resetJarTypeCache() {
-	this.jarTypeCache = new LRUCache((int) (DEFAULT_OPENABLE_SIZE * getMemoryRatio() * getJarTypeRatio()));
+	// the ratio properties give a number of types, which is converted into bytes
+	double size = DEFAULT_OPENABLE_SIZE * getMemoryRatio() * getJarTypeRatio() * JarTypeCache.AVERAGE_TYPE_FOOTPRINT;
+	this.jarTypeCache = new JarTypeCache((int) Math.min(size, Integer.MAX_VALUE));
 }
 public String toString() {
 	return toStringFillingRation(""); //$NON-NLS-1$
@@ -284,4 +304,23 @@ public String toStringFillingRation(String prefix) {
 	buffer.append('\n');
 	return buffer.toString();
 }
+/*
+ * Returns the number of hits, misses and evictions of the LRU caches, to monitor whether their sizes fit the workspace.
+ */
+public String toStringStatistics(String prefix) {
+	StringBuffer buffer = new StringBuffer();
+	buffer.append(prefix);
+	buffer.append(this.rootCache.toStringStatistics("Root cache")); //$NON-NLS-1$
+	buffer.append('\n');
+	buffer.append(prefix);
+	buffer.append(this.pkgCache.toStringStatistics("Package cache")); //$NON-NLS-1$
+	buffer.append('\n');
+	buffer.append(prefix);
+	buffer.append(this.openableCache.toStringStatistics("Openable cache")); //$NON-NLS-1$
+	buffer.append('\n');
+	buffer.append(prefix);
+	buffer.append(this.jarTypeCache.toStringStatistics("Jar type cache")); //$NON-NLS-1$
+	buffer.append('\n');
+	return buffer.toString();
+}
 }
@@ -61,7 +61,6 @@ import org.eclipse.jdt.internal.core.search.IRestrictedAccessTypeRequestor;
 import org.eclipse.jdt.internal.core.search.JavaWorkspaceScope;
 import org.eclipse.jdt.internal.core.search.indexing.IndexManager;
 import org.eclipse.jdt.internal.core.search.processing.JobManager;
-import org.eclipse.jdt.internal.core.util.HashtableOfArrayToObject;
 import org.eclipse.jdt.internal.core.util.LRUCache;
 import org.eclipse.jdt.internal.core.util.Messages;
 import org.eclipse.jdt.internal.core.util.Util;
@@ -88,6 +87,16 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 
 	private static final String NON_CHAINING_JARS_CACHE = "nonChainingJarsCache"; //$NON-NLS-1$
 	private static final String INVALID_ARCHIVES_CACHE = "invalidArchivesCache";  //$NON-NLS-1$
+	private static final String CHAINING_JARS_CACHE = "chainingJarsCache"; //$NON-NLS-1$
+
+	/**
+	 * Number of threads used to resolve the classpaths of the projects when the workspace is opened
+	 * (see {@link #resolveClasspaths(IJavaProject[], IProgressMonitor)}).
+	 * The classpaths are resolved when they are first asked if this is 1 (the default).
+	 * Note that the classpath container initializers of different projects are then called concurrently.
+	 */
+	public static final String CLASSPATH_RESOLUTION_PARALLELISM_PROPERTY = "jdt.core.classpath.parallelism"; //$NON-NLS-1$
+	public static int CLASSPATH_RESOLUTION_PARALLELISM = Math.max(Integer.getInteger(CLASSPATH_RESOLUTION_PARALLELISM_PROPERTY, 1).intValue(), 1);
 
 	/**
 	 * Define a zip cache object.
@@ -1011,7 +1020,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		try {
 			JavaProjectElementInfo projectInfo = (JavaProjectElementInfo) getJavaModelManager().getInfo(project);
 			ProjectCache projectCache = projectInfo == null ? null : projectInfo.projectCache;
-			HashtableOfArrayToObject allPkgFragmentsCache = projectCache == null ? null : projectCache.allPkgFragmentsCache;
+			PackageFragmentIndex allPkgFragmentsCache = projectCache == null ? null : projectCache.allPkgFragmentsCache;
 			boolean isJavaLike = org.eclipse.jdt.internal.core.util.Util.isJavaLikeFileName(resourcePath.lastSegment());
 			IClasspathEntry[] entries = isJavaLike ? project.getRawClasspath() // JAVA file can only live inside SRC folder (on the raw path)
 					: ((JavaProject)project).getResolvedClasspath();
@@ -1048,7 +1057,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 
 							// if package name is in the cache, then it has already been validated
 							// (see https://bugs.eclipse.org/bugs/show_bug.cgi?id=133141)
-							if (allPkgFragmentsCache != null && allPkgFragmentsCache.containsKey(pkgName))
+							if (allPkgFragmentsCache != null && allPkgFragmentsCache.get(pkgName) != null)
 								return root.getPackageFragment(pkgName);
 
 							if (pkgName.length != 0 && JavaConventions.validatePackageName(Util.packageName(pkgPath, sourceLevel, complianceLevel), sourceLevel, complianceLevel).getSeverity() == IStatus.ERROR) {
@@ -1075,6 +1084,14 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	 */
 	private JavaModelCache cache;
 
+	/*
+	 * Lock guarding the infos cache. The cache doesn't use the lock of the manager so that opening
+	 * and closing elements doesn't contend with the other synchronized operations of the manager
+	 * (interning, classpath variables and containers). No lock of the manager must be held when
+	 * acquiring this lock, since closing elements can call the manager.
+	 */
+	private final Object cacheLock = new Object();
+
 	/*
 	 * Temporary cache of newly opened elements
 	 */
@@ -1437,6 +1454,56 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	 */
 	private Set invalidArchives;
 
+	/*
+	 * A table from IPath of jars that are known to contain a chaining (through MANIFEST.MF) to other libraries
+	 * to the ChainingJar holding the IPath[] of these libraries, in the order of the Class-Path clause
+	 */
+	private Map chainingJars;
+
+	/*
+	 * The libraries a jar chains to, with the time stamp and size of the jar when its manifest was read.
+	 */
+	static class ChainingJar {
+		IPath[] calledJars;
+		long lastModified;
+		long length;
+		ChainingJar(IPath[] calledJars, long lastModified, long length) {
+			this.calledJars = calledJars;
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+		ChainingJar(IPath path, IPath[] calledJars) {
+			this.calledJars = calledJars;
+			File file = getChainingJarFile(path);
+			if (file != null) {
+				this.lastModified = file.lastModified();
+				this.length = file.length();
+			}
+		}
+		/*
+		 * Returns whether the jar at the given path still has the time stamp and size of this entry.
+		 */
+		boolean isValid(IPath path) {
+			File file = getChainingJarFile(path);
+			return file != null && file.lastModified() == this.lastModified && file.length() == this.length;
+		}
+		/*
+		 * Returns the file of the jar at the given path, or null if there is none.
+		 */
+		private static File getChainingJarFile(IPath path) {
+			File file;
+			IResource resource = JavaModel.getWorkspaceTarget(path);
+			if (resource != null) {
+				IPath location = resource.getLocation();
+				if (location == null) return null;
+				file = location.toFile();
+			} else {
+				file = path.toFile();
+			}
+			return file.isFile() ? file : null;
+		}
+	}
+
 	/**
 	 * Update the classpath variable cache
 	 */
@@ -1571,6 +1638,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 			this.indexManager = new IndexManager();
 			this.nonChainingJars = loadClasspathListCache(NON_CHAINING_JARS_CACHE);
 			this.invalidArchives = loadClasspathListCache(INVALID_ARCHIVES_CACHE);
+			this.chainingJars = loadChainingJarsCache();
 			String includeContainerReferencedLib = System.getProperty(RESOLVE_REFERENCED_LIBRARIES_FOR_CONTAINERS);
 			this.resolveReferencedLibrariesForContainers = TRUE.equalsIgnoreCase(includeContainerReferencedLib);
 		}
@@ -1584,6 +1652,11 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		options.put(JavaCore.COMPILER_PB_UNREACHABLE_CODE, JavaCore.ERROR);
 	}
 	
+	public void addChainingJar(IPath path, IPath[] calledJars) {
+		if (this.chainingJars != null)
+			this.chainingJars.put(path, new ChainingJar(path, calledJars));
+	}
+
 	public void addNonChainingJar(IPath path) {
 		if (this.nonChainingJars != null)
 			this.nonChainingJars.add(path);
@@ -1955,7 +2028,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	/**
 	 *  Returns the info for the element.
 	 */
-	public synchronized Object getInfo(IJavaElement element) {
+	public Object getInfo(IJavaElement element) {
 		HashMap tempCache = (HashMap)this.temporaryCache.get();
 		if (tempCache != null) {
 			Object result = tempCache.get(element);
@@ -1963,14 +2036,18 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 				return result;
 			}
 		}
-		return this.cache.getInfo(element);
+		synchronized (this.cacheLock) {
+			return this.cache.getInfo(element);
+		}
 	}
 
 	/**
 	 *  Returns the existing element in the cache that is equal to the given element.
 	 */
-	public synchronized IJavaElement getExistingElement(IJavaElement element) {
-		return this.cache.getExistingElement(element);
+	public IJavaElement getExistingElement(IJavaElement element) {
+		synchronized (this.cacheLock) {
+			return this.cache.getExistingElement(element);
+		}
 	}
 
 	public HashSet getExternalWorkingCopyProjects() {
@@ -3075,6 +3152,15 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 				|| JavaCore.COMPILER_PB_UNREACHABLE_CODE.equals(optionName);
 	}
 	
+	/*
+	 * Returns the libraries the given jar is known to chain to, or null if this is not known.
+	 */
+	public IPath[] getCalledJars(IPath path) {
+		if (this.chainingJars == null) return null;
+		ChainingJar chainingJar = (ChainingJar) this.chainingJars.get(path);
+		return chainingJar == null ? null : chainingJar.calledJars;
+	}
+
 	public boolean isNonChainingJar(IPath path) {
 		return this.nonChainingJars != null && this.nonChainingJars.contains(path);
 	}
@@ -3123,6 +3209,43 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		return Collections.synchronizedSet(pathCache);
 	}
 	
+	private Map loadChainingJarsCache() {
+		Map jarCache = new HashMap();
+		File cacheFile = getClasspathListFile(CHAINING_JARS_CACHE);
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+			int size = in.readInt();
+			while (size-- > 0) {
+				IPath path = Path.fromPortableString(in.readUTF());
+				long lastModified = in.readLong();
+				long length = in.readLong();
+				int count = in.readInt();
+				if (count < 0 || count > in.available())
+					throw new IOException("Corrupted chaining jar cache file"); //$NON-NLS-1$
+				IPath[] calledJars = new IPath[count];
+				for (int i = 0; i < count; i++)
+					calledJars[i] = Path.fromPortableString(in.readUTF());
+				ChainingJar chainingJar = new ChainingJar(calledJars, lastModified, length);
+				// the jar was changed or deleted since the cache was saved: its manifest is read again
+				if (chainingJar.isValid(path))
+					jarCache.put(path, chainingJar);
+			}
+		} catch (IOException e) {
+			if (cacheFile.exists())
+				Util.log(e, "Unable to read chaining jar cache file"); //$NON-NLS-1$
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// nothing we can do: ignore
+				}
+			}
+		}
+		return Collections.synchronizedMap(jarCache);
+	}
+
 	private File getClasspathListFile(String fileName) {
 		return JavaCore.getPlugin().getStateLocation().append(fileName).toFile(); 
 	}
@@ -3600,7 +3723,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	 *  Returns the info for this element without
 	 *  disturbing the cache ordering.
 	 */
-	protected synchronized Object peekAtInfo(IJavaElement element) {
+	protected Object peekAtInfo(IJavaElement element) {
 		HashMap tempCache = (HashMap)this.temporaryCache.get();
 		if (tempCache != null) {
 			Object result = tempCache.get(element);
@@ -3608,7 +3731,9 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 				return result;
 			}
 		}
-		return this.cache.peekAtInfo(element);
+		synchronized (this.cacheLock) {
+			return this.cache.peekAtInfo(element);
+		}
 	}
 
 	/**
@@ -3624,48 +3749,50 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	 * If forceAdd is false it just returns the existing info and if true, this element and it's children are closed and then 
 	 * this particular info is added to the cache.
 	 */
-	protected synchronized Object putInfos(IJavaElement openedElement, Object newInfo, boolean forceAdd, Map newElements) {
-		// remove existing children as the are replaced with the new children contained in newElements
-		Object existingInfo = this.cache.peekAtInfo(openedElement);
-		if (existingInfo != null && !forceAdd) {
-			// If forceAdd is false, then it could mean that the particular element 
-			// wasn't in cache at that point of time, but would have got added through 
-			// another thread. In that case, removing the children could remove it's own
-			// children. So, we should not remove the children but return the already existing 
-			// info.
-			// https://bugs.eclipse.org/bugs/show_bug.cgi?id=372687
-			return existingInfo;
-		}
-		if (openedElement instanceof IParent) {
-			closeChildren(existingInfo);
-		}
-
-		// Need to put any JarPackageFragmentRoot in first.
-		// This is due to the way the LRU cache flushes entries.
-		// When a JarPackageFragment is flushed from the LRU cache, the entire
-		// jar is flushed by removing the JarPackageFragmentRoot and all of its
-		// children (see ElementCache.close()). If we flush the JarPackageFragment
-		// when its JarPackageFragmentRoot is not in the cache and the root is about to be
-		// added (during the 'while' loop), we will end up in an inconsistent state.
-		// Subsequent resolution against package in the jar would fail as a result.
-		// https://bugs.eclipse.org/bugs/show_bug.cgi?id=102422
-		// (theodora)
-		for(Iterator it = newElements.entrySet().iterator(); it.hasNext(); ) {
-			Map.Entry entry = (Map.Entry)it.next();
-			IJavaElement element = (IJavaElement)entry.getKey();
-			if (element instanceof JarPackageFragmentRoot) {
-				Object info = entry.getValue();
-				it.remove();
-				this.cache.putInfo(element, info);
-			}
-		}
-
-		Iterator iterator = newElements.entrySet().iterator();
-		while (iterator.hasNext()) {
-			Map.Entry entry = (Map.Entry) iterator.next();
-			this.cache.putInfo((IJavaElement) entry.getKey(), entry.getValue());
+	protected Object putInfos(IJavaElement openedElement, Object newInfo, boolean forceAdd, Map newElements) {
+		synchronized (this.cacheLock) {
+			// remove existing children as the are replaced with the new children contained in newElements
+			Object existingInfo = this.cache.peekAtInfo(openedElement);
+			if (existingInfo != null && !forceAdd) {
+				// If forceAdd is false, then it could mean that the particular element 
+				// wasn't in cache at that point of time, but would have got added through 
+				// another thread. In that case, removing the children could remove it's own
+				// children. So, we should not remove the children but return the already existing 
+				// info.
+				// https://bugs.eclipse.org/bugs/show_bug.cgi?id=372687
+				return existingInfo;
+			}
+			if (openedElement instanceof IParent) {
+				closeChildren(existingInfo);
+			}
+
+			// Need to put any JarPackageFragmentRoot in first.
+			// This is due to the way the LRU cache flushes entries.
+			// When a JarPackageFragment is flushed from the LRU cache, the entire
+			// jar is flushed by removing the JarPackageFragmentRoot and all of its
+			// children (see ElementCache.close()). If we flush the JarPackageFragment
+			// when its JarPackageFragmentRoot is not in the cache and the root is about to be
+			// added (during the 'while' loop), we will end up in an inconsistent state.
+			// Subsequent resolution against package in the jar would fail as a result.
+			// https://bugs.eclipse.org/bugs/show_bug.cgi?id=102422
+			// (theodora)
+			for(Iterator it = newElements.entrySet().iterator(); it.hasNext(); ) {
+				Map.Entry entry = (Map.Entry)it.next();
+				IJavaElement element = (IJavaElement)entry.getKey();
+				if (element instanceof JarPackageFragmentRoot) {
+					Object info = entry.getValue();
+					it.remove();
+					this.cache.putInfo(element, info);
+				}
+			}
+
+			Iterator iterator = newElements.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry entry = (Map.Entry) iterator.next();
+				this.cache.putInfo((IJavaElement) entry.getKey(), entry.getValue());
+			}
+			return newInfo;
 		}
-		return newInfo;
 	}
 
 	private void closeChildren(Object info) {
@@ -3685,8 +3812,10 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	/*
 	 * Remember the info for the jar binary type
 	 */
-	protected synchronized void putJarTypeInfo(IJavaElement type, Object info) {
-		this.cache.jarTypeCache.put(type, info);
+	protected void putJarTypeInfo(IJavaElement type, Object info) {
+		synchronized (this.cacheLock) {
+			this.cache.jarTypeCache.put(type, info);
+		}
 	}
 
 	/**
@@ -3795,50 +3924,52 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	 * from the cache.
 	 * Returns the info for the given element, or null if it was closed.
 	 */
-	public synchronized Object removeInfoAndChildren(JavaElement element) throws JavaModelException {
-		Object info = this.cache.peekAtInfo(element);
-		if (info != null) {
-			boolean wasVerbose = false;
-			try {
-				if (JavaModelCache.VERBOSE) {
-					String elementType;
-					switch (element.getElementType()) {
-						case IJavaElement.JAVA_PROJECT:
-							elementType = "project"; //$NON-NLS-1$
-							break;
-						case IJavaElement.PACKAGE_FRAGMENT_ROOT:
-							elementType = "root"; //$NON-NLS-1$
-							break;
-						case IJavaElement.PACKAGE_FRAGMENT:
-							elementType = "package"; //$NON-NLS-1$
-							break;
-						case IJavaElement.CLASS_FILE:
-							elementType = "class file"; //$NON-NLS-1$
-							break;
-						case IJavaElement.COMPILATION_UNIT:
-							elementType = "compilation unit"; //$NON-NLS-1$
-							break;
-						default:
-							elementType = "element"; //$NON-NLS-1$
+	public Object removeInfoAndChildren(JavaElement element) throws JavaModelException {
+		synchronized (this.cacheLock) {
+			Object info = this.cache.peekAtInfo(element);
+			if (info != null) {
+				boolean wasVerbose = false;
+				try {
+					if (JavaModelCache.VERBOSE) {
+						String elementType;
+						switch (element.getElementType()) {
+							case IJavaElement.JAVA_PROJECT:
+								elementType = "project"; //$NON-NLS-1$
+								break;
+							case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+								elementType = "root"; //$NON-NLS-1$
+								break;
+							case IJavaElement.PACKAGE_FRAGMENT:
+								elementType = "package"; //$NON-NLS-1$
+								break;
+							case IJavaElement.CLASS_FILE:
+								elementType = "class file"; //$NON-NLS-1$
+								break;
+							case IJavaElement.COMPILATION_UNIT:
+								elementType = "compilation unit"; //$NON-NLS-1$
+								break;
+							default:
+								elementType = "element"; //$NON-NLS-1$
+						}
+						System.out.println(Thread.currentThread() + " CLOSING "+ elementType + " " + element.toStringWithAncestors());  //$NON-NLS-1$//$NON-NLS-2$
+						wasVerbose = true;
+						JavaModelCache.VERBOSE = false;
 					}
-					System.out.println(Thread.currentThread() + " CLOSING "+ elementType + " " + element.toStringWithAncestors());  //$NON-NLS-1$//$NON-NLS-2$
-					wasVerbose = true;
-					JavaModelCache.VERBOSE = false;
-				}
-				element.closing(info);
-				if (element instanceof IParent) {
-					closeChildren(info);
-				}
-				this.cache.removeInfo(element);
-				if (wasVerbose) {
-					System.out.println(this.cache.toStringFillingRation("-> ")); //$NON-NLS-1$
+					element.closing(info);
+					if (element instanceof IParent) {
+						closeChildren(info);
+					}
+					this.cache.removeInfo(element);
+					if (wasVerbose) {
+						System.out.println(this.cache.toStringFillingRation("-> ")); //$NON-NLS-1$
+					}
+				} finally {
+					JavaModelCache.VERBOSE = wasVerbose;
 				}
-			} finally {
-				JavaModelCache.VERBOSE = wasVerbose;
+				return info;
 			}
-			return info;
+			return null;
 		}
-		return null;
 	}
 
 	public void removePerProjectInfo(JavaProject javaProject, boolean removeExtJarInfo) {
@@ -3890,8 +4021,10 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	/*
 	 * Resets the cache that holds on binary type in jar files
 	 */
-	protected synchronized void resetJarTypeCache() {
-		this.cache.resetJarTypeCache();
+	protected void resetJarTypeCache() {
+		synchronized (this.cacheLock) {
+			this.cache.resetJarTypeCache();
+		}
 	}
 	
 	public void resetClasspathListCache() {
@@ -3899,6 +4032,51 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 			this.nonChainingJars.clear();
 		if (this.invalidArchives != null) 
 			this.invalidArchives.clear();
+		if (this.chainingJars != null)
+			this.chainingJars.clear();
+	}
+
+	/*
+	 * Resolves the classpaths of the given projects using CLASSPATH_RESOLUTION_PARALLELISM jobs.
+	 * The classpath of a project does not depend on the resolved classpaths of the other projects,
+	 * and the resolved classpaths are remembered in the infos of the projects.
+	 * The jobs run the container initializers of different projects concurrently, so the initializers
+	 * must tolerate concurrent calls.
+	 * Does nothing if the classpaths are resolved when they are first asked.
+	 */
+	public void resolveClasspaths(final IJavaProject[] projects, final IProgressMonitor monitor) {
+		int parallelism = Math.min(CLASSPATH_RESOLUTION_PARALLELISM, projects.length);
+		if (parallelism <= 1) return;
+		final int[] nextProject = new int[1];
+		Job[] jobs = new Job[parallelism];
+		for (int i = 0; i < parallelism; i++) {
+			jobs[i] = new Job(Messages.classpath_resolution_jobName) {
+				protected IStatus run(IProgressMonitor jobMonitor) {
+					while (true) {
+						int project;
+						synchronized (nextProject) {
+							if (nextProject[0] == projects.length || jobMonitor.isCanceled() || (monitor != null && monitor.isCanceled()))
+								return Status.OK_STATUS;
+							project = nextProject[0]++;
+						}
+						try {
+							((JavaProject) projects[project]).getResolvedClasspath();
+						} catch (JavaModelException e) {
+							// project no longer exist: ignore
+						}
+					}
+				}
+			};
+			jobs[i].setSystem(true);
+			jobs[i].schedule();
+		}
+		for (int i = 0; i < parallelism; i++) {
+			try {
+				jobs[i].join();
+			} catch (InterruptedException e) {
+				// ignore
+			}
+		}
 	}
 
 	/*
@@ -4000,6 +4178,41 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		}
 	}
 	
+	private void saveChainingJarsCache() throws CoreException {
+		if (this.chainingJars == null) return;
+		File file = getClasspathListFile(CHAINING_JARS_CACHE);
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			synchronized (this.chainingJars) {
+				out.writeInt(this.chainingJars.size());
+				Iterator entries = this.chainingJars.entrySet().iterator();
+				while (entries.hasNext()) {
+					Map.Entry entry = (Map.Entry) entries.next();
+					out.writeUTF(((IPath) entry.getKey()).toPortableString());
+					ChainingJar chainingJar = (ChainingJar) entry.getValue();
+					out.writeLong(chainingJar.lastModified);
+					out.writeLong(chainingJar.length);
+					IPath[] calledJars = chainingJar.calledJars;
+					out.writeInt(calledJars.length);
+					for (int i = 0, length = calledJars.length; i < length; i++)
+						out.writeUTF(calledJars[i].toPortableString());
+				}
+			}
+		} catch (IOException e) {
+			IStatus status = new Status(IStatus.ERROR, JavaCore.PLUGIN_ID, IStatus.ERROR, "Problems while saving chaining jar cache", e); //$NON-NLS-1$
+			throw new CoreException(status);
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// nothing we can do: ignore
+				}
+			}
+		}
+	}
+
 	private void saveVariablesAndContainers(ISaveContext context) throws CoreException {
 		File file = getVariableAndContainersFile();
 		DataOutputStream out = null;
@@ -4244,9 +4457,10 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 
 		switch(context.getKind()) {
 			case ISaveContext.FULL_SAVE : {
-				// save non-chaining jar and invalid jar caches on full save
+				// save non-chaining jar, invalid jar and chaining jar caches on full save
 				saveClasspathListCache(NON_CHAINING_JARS_CACHE);
 				saveClasspathListCache(INVALID_ARCHIVES_CACHE);
+				saveChainingJarsCache();
 	
 				// will need delta since this save (see https://bugs.eclipse.org/bugs/show_bug.cgi?id=38658)
 				context.needDelta();
@@ -5000,6 +5214,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		IWorkspace workspace = ResourcesPlugin.getWorkspace();
 		workspace.removeResourceChangeListener(this.deltaState);
 		workspace.removeSaveParticipant(JavaCore.PLUGIN_ID);
+		this.deltaState.stopExternalArchiveWatcher();
 
 		// Stop listening to content-type changes
 		Platform.getContentTypeManager().removeContentTypeChangeListener(this);
@@ -5146,8 +5361,28 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		}
 	}
 
-	public synchronized String cacheToString(String prefix) {
-		return this.cache.toStringFillingRation(prefix);
+	public String cacheToString(String prefix) {
+		synchronized (this.cacheLock) {
+			return this.cache.toStringFillingRation(prefix);
+		}
+	}
+
+	/*
+	 * Returns the estimated number of bytes used by each cache of the infos cache, keyed by cache name.
+	 */
+	public Map getCacheFootprints() {
+		synchronized (this.cacheLock) {
+			return this.cache.getFootprints();
+		}
+	}
+
+	/*
+	 * Returns the hits, misses and evictions of the infos cache, for monitoring.
+	 */
+	public String cacheStatisticsToString(String prefix) {
+		synchronized (this.cacheLock) {
+			return this.cache.toStringStatistics(prefix);
+		}
 	}
 	
 	public Stats debugNewOpenableCacheStats() {
@@ -50,10 +50,10 @@ class JavaProjectElementInfo extends OpenableElementInfo {
 		public IPackageFragmentRoot[] allPkgFragmentRootsCache;
 
 		/*
-		 * A cache of all package fragments in this project.
+		 * A cache of all package fragments in this project, shared by its name lookups.
 		 * (a map from String[] (the package name) to IPackageFragmentRoot[] (the package fragment roots that contain a package fragment with this name))
 		 */
-		public HashtableOfArrayToObject allPkgFragmentsCache;
+		public PackageFragmentIndex allPkgFragmentsCache;
 
 		/*
 		 * A cache of package fragments for each package fragment root of this project
@@ -288,12 +288,11 @@ class JavaProjectElementInfo extends OpenableElementInfo {
 	 */
 	NameLookup newNameLookup(JavaProject project, ICompilationUnit[] workingCopies) {
 		ProjectCache cache = getProjectCache(project);
-		HashtableOfArrayToObject allPkgFragmentsCache = cache.allPkgFragmentsCache;
-		if (allPkgFragmentsCache == null) {
+		if (cache.allPkgFragmentsCache == null) {
 			HashMap rootInfos = JavaModelManager.getJavaModelManager().deltaState.roots;
 			IPackageFragmentRoot[] allRoots = cache.allPkgFragmentRootsCache;
 			int length = allRoots.length;
-			allPkgFragmentsCache = new HashtableOfArrayToObject();
+			HashtableOfArrayToObject allPkgFragmentsCache = new HashtableOfArrayToObject();
 			for (int i = 0; i < length; i++) {
 				IPackageFragmentRoot root = allRoots[i];
 				DeltaProcessor.RootInfo rootInfo = (DeltaProcessor.RootInfo) rootInfos.get(root.getPath());
@@ -341,7 +340,7 @@ class JavaProjectElementInfo extends OpenableElementInfo {
 					}
 				}
 			}
-			cache.allPkgFragmentsCache = allPkgFragmentsCache;
+			cache.allPkgFragmentsCache = PackageFragmentIndex.create(allPkgFragmentsCache);
 		}
 		return new NameLookup(cache.allPkgFragmentRootsCache, cache.allPkgFragmentsCache, workingCopies, cache.rootToResolvedEntries);
 	}
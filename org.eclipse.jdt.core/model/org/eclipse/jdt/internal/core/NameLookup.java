@@ -36,7 +36,6 @@ import org.eclipse.jdt.internal.compiler.lookup.TypeConstants;
 import org.eclipse.jdt.internal.compiler.parser.ScannerHelper;
 import org.eclipse.jdt.internal.compiler.util.HashtableOfObjectToInt;
 import org.eclipse.jdt.internal.compiler.util.SuffixConstants;
-import org.eclipse.jdt.internal.core.util.HashtableOfArrayToObject;
 import org.eclipse.jdt.internal.core.util.Messages;
 import org.eclipse.jdt.internal.core.util.Util;
 
@@ -125,8 +124,10 @@ public class NameLookup implements SuffixConstants {
 	 * classpath.
 	 * Note if the list is of size 1, then the IPackageFragmentRoot object
 	 * replaces the array.
+	 * The index is shared with the project and the other name lookups of the project,
+	 * the packages of the working copies being added to a copy of the paths to these packages.
 	 */
-	protected HashtableOfArrayToObject packageFragments;
+	protected PackageFragmentIndex packageFragments;
 
 	/**
 	 * Reverse map from root path to corresponding resolved CP entry
@@ -145,7 +146,7 @@ public class NameLookup implements SuffixConstants {
 
 	public NameLookup(
 			IPackageFragmentRoot[] packageFragmentRoots,
-			HashtableOfArrayToObject packageFragments,
+			PackageFragmentIndex packageFragments,
 			ICompilationUnit[] workingCopies,
 			Map rootToResolvedEntries) {
 		long start = -1;
@@ -157,15 +158,9 @@ public class NameLookup implements SuffixConstants {
 			start = System.currentTimeMillis();
 		}
 		this.packageFragmentRoots = packageFragmentRoots;
-		if (workingCopies == null) {
-			this.packageFragments = packageFragments;
-		} else {
-			// clone tables as we're adding packages from working copies
-			try {
-				this.packageFragments = (HashtableOfArrayToObject) packageFragments.clone();
-			} catch (CloneNotSupportedException e1) {
-				// ignore (implementation of HashtableOfArrayToObject supports cloning)
-			}
+		this.packageFragments = packageFragments;
+		if (workingCopies != null) {
+			// packages from working copies are put in new versions of the shared index
 			this.typesInWorkingCopies = new HashMap();
 			HashtableOfObjectToInt rootPositions = new HashtableOfObjectToInt();
 			for (int i = 0, length = packageFragmentRoots.length; i < length; i++) {
@@ -215,15 +210,13 @@ public class NameLookup implements SuffixConstants {
 				String[] pkgName = pkg.names;
 				Object existing = this.packageFragments.get(pkgName);
 				if (existing == null || existing == JavaProjectElementInfo.NO_ROOTS) {
-					this.packageFragments.put(pkgName, root);
-					// ensure super packages (see https://bugs.eclipse.org/bugs/show_bug.cgi?id=119161)
-					// are also in the map
-					JavaProjectElementInfo.addSuperPackageNames(pkgName, this.packageFragments);
+					// super packages are also added to the index (see https://bugs.eclipse.org/bugs/show_bug.cgi?id=119161)
+					this.packageFragments = this.packageFragments.put(pkgName, root);
 				} else {
 					if (existing instanceof PackageFragmentRoot) {
 						int exisitingPosition = rootPositions.get(existing);
 						if (rootPosition != exisitingPosition) { // if not equal
-							this.packageFragments.put(
+							this.packageFragments = this.packageFragments.put(
 								pkgName,
 								exisitingPosition < rootPosition ?
 									new IPackageFragmentRoot[] {(PackageFragmentRoot) existing, root} :
@@ -253,7 +246,7 @@ public class NameLookup implements SuffixConstants {
 							System.arraycopy(roots, 0, newRoots, 0, insertionIndex);
 							newRoots[insertionIndex] = root;
 							System.arraycopy(roots, insertionIndex, newRoots, insertionIndex+1, rootLength-insertionIndex);
-							this.packageFragments.put(pkgName, newRoots);
+							this.packageFragments = this.packageFragments.put(pkgName, newRoots);
 						}
 					}
 				}
@@ -352,11 +345,11 @@ public class NameLookup implements SuffixConstants {
 		if (index != -1) {
 			cuName= cuName.substring(0, index);
 		}
-		int pkgIndex = this.packageFragments.getIndex(pkgName);
-		if (pkgIndex != -1) {
-			Object value = this.packageFragments.valueTable[pkgIndex];
+		PackageFragmentIndex pkg = this.packageFragments.find(pkgName);
+		if (pkg != null) {
+			Object value = pkg.roots;
 			// reuse existing String[]
-			pkgName = (String[]) this.packageFragments.keyTable[pkgIndex];
+			pkgName = pkg.name;
 			if (value instanceof PackageFragmentRoot) {
 				return findCompilationUnit(pkgName, cuName, (PackageFragmentRoot) value);
 			} else {
@@ -516,17 +509,30 @@ public class NameLookup implements SuffixConstants {
 			IPackageFragment[] oneFragment = null;
 			ArrayList pkgs = null;
 			char[] lowercaseName = hasPatternChars && !isStarPattern ? name.toLowerCase().toCharArray() : null;
-			Object[][] keys = this.packageFragments.keyTable;
-			for (int i = 0, length = keys.length; i < length; i++) {
-				String[] pkgName = (String[]) keys[i];
-				if (pkgName != null) {
-					boolean match = isStarPattern || (hasPatternChars
-						? CharOperation.match(lowercaseName, Util.concatCompoundNameToCharArray(pkgName), false)
-						: Util.startsWithIgnoreCase(pkgName, splittedName, partialMatch));
-					if (match) {
-						Object value = this.packageFragments.valueTable[i];
-						if (value instanceof PackageFragmentRoot) {
-							IPackageFragment pkg = ((PackageFragmentRoot) value).getPackageFragment(pkgName);
+			PackageFragmentIndex[] candidates = hasPatternChars
+				? this.packageFragments.findAll()
+				: this.packageFragments.findPrefixed(splittedName, partialMatch);
+			for (int i = 0, length = candidates.length; i < length; i++) {
+				String[] pkgName = candidates[i].name;
+				if (!hasPatternChars || isStarPattern
+						|| CharOperation.match(lowercaseName, Util.concatCompoundNameToCharArray(pkgName), false)) {
+					Object value = candidates[i].roots;
+					if (value instanceof PackageFragmentRoot) {
+						IPackageFragment pkg = ((PackageFragmentRoot) value).getPackageFragment(pkgName);
+						if (oneFragment == null) {
+							oneFragment = new IPackageFragment[] {pkg};
+						} else {
+							if (pkgs == null) {
+								pkgs = new ArrayList();
+								pkgs.add(oneFragment[0]);
+							}
+							pkgs.add(pkg);
+						}
+					} else {
+						IPackageFragmentRoot[] roots = (IPackageFragmentRoot[]) value;
+						for (int j = 0, length2 = roots.length; j < length2; j++) {
+							PackageFragmentRoot root = (PackageFragmentRoot) roots[j];
+							IPackageFragment pkg = root.getPackageFragment(pkgName);
 							if (oneFragment == null) {
 								oneFragment = new IPackageFragment[] {pkg};
 							} else {
@@ -536,21 +542,6 @@ public class NameLookup implements SuffixConstants {
 								}
 								pkgs.add(pkg);
 							}
-						} else {
-							IPackageFragmentRoot[] roots = (IPackageFragmentRoot[]) value;
-							for (int j = 0, length2 = roots.length; j < length2; j++) {
-								PackageFragmentRoot root = (PackageFragmentRoot) roots[j];
-								IPackageFragment pkg = root.getPackageFragment(pkgName);
-								if (oneFragment == null) {
-									oneFragment = new IPackageFragment[] {pkg};
-								} else {
-									if (pkgs == null) {
-										pkgs = new ArrayList();
-										pkgs.add(oneFragment[0]);
-									}
-									pkgs.add(pkg);
-								}
-							}
 						}
 					}
 				}
@@ -562,12 +553,12 @@ public class NameLookup implements SuffixConstants {
 			return result;
 		} else {
 			String[] splittedName = Util.splitOn('.', name, 0, name.length());
-			int pkgIndex = this.packageFragments.getIndex(splittedName);
-			if (pkgIndex == -1)
+			PackageFragmentIndex pkg = this.packageFragments.find(splittedName);
+			if (pkg == null)
 				return null;
-			Object value = this.packageFragments.valueTable[pkgIndex];
+			Object value = pkg.roots;
 			// reuse existing String[]
-			String[] pkgName = (String[]) this.packageFragments.keyTable[pkgIndex];
+			String[] pkgName = pkg.name;
 			if (value instanceof PackageFragmentRoot) {
 				return new IPackageFragment[] {((PackageFragmentRoot) value).getPackageFragment(pkgName)};
 			} else {
@@ -884,34 +875,32 @@ public class NameLookup implements SuffixConstants {
 		}
 */		if (partialMatch) {
 			String[] splittedName = Util.splitOn('.', name, 0, name.length());
-			Object[][] keys = this.packageFragments.keyTable;
-			for (int i = 0, length = keys.length; i < length; i++) {
+			PackageFragmentIndex[] pkgs = this.packageFragments.findPrefixed(splittedName, partialMatch);
+			for (int i = 0, length = pkgs.length; i < length; i++) {
 				if (requestor.isCanceled())
 					return;
-				String[] pkgName = (String[]) keys[i];
-				if (pkgName != null && Util.startsWithIgnoreCase(pkgName, splittedName, partialMatch)) {
-					Object value = this.packageFragments.valueTable[i];
-					if (value instanceof PackageFragmentRoot) {
-						PackageFragmentRoot root = (PackageFragmentRoot) value;
+				String[] pkgName = pkgs[i].name;
+				Object value = pkgs[i].roots;
+				if (value instanceof PackageFragmentRoot) {
+					PackageFragmentRoot root = (PackageFragmentRoot) value;
+					requestor.acceptPackageFragment(root.getPackageFragment(pkgName));
+				} else {
+					IPackageFragmentRoot[] roots = (IPackageFragmentRoot[]) value;
+					for (int j = 0, length2 = roots.length; j < length2; j++) {
+						if (requestor.isCanceled())
+							return;
+						PackageFragmentRoot root = (PackageFragmentRoot) roots[j];
 						requestor.acceptPackageFragment(root.getPackageFragment(pkgName));
-					} else {
-						IPackageFragmentRoot[] roots = (IPackageFragmentRoot[]) value;
-						for (int j = 0, length2 = roots.length; j < length2; j++) {
-							if (requestor.isCanceled())
-								return;
-							PackageFragmentRoot root = (PackageFragmentRoot) roots[j];
-							requestor.acceptPackageFragment(root.getPackageFragment(pkgName));
-						}
 					}
 				}
 			}
 		} else {
 			String[] splittedName = Util.splitOn('.', name, 0, name.length());
-			int pkgIndex = this.packageFragments.getIndex(splittedName);
-			if (pkgIndex != -1) {
-				Object value = this.packageFragments.valueTable[pkgIndex];
+			PackageFragmentIndex pkg = this.packageFragments.find(splittedName);
+			if (pkg != null) {
+				Object value = pkg.roots;
 				// reuse existing String[]
-				String[] pkgName = (String[]) this.packageFragments.keyTable[pkgIndex];
+				String[] pkgName = pkg.name;
 				if (value instanceof PackageFragmentRoot) {
 					requestor.acceptPackageFragment(((PackageFragmentRoot) value).getPackageFragment(pkgName));
 				} else {
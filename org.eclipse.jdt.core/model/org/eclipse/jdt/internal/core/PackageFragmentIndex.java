@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.core.util.HashtableOfArrayToObject;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * An immutable index of the package fragments known by a {@link NameLookup}: a map from a package name
+ * to the package fragment roots that contain a package fragment with this name.
+ * <p>
+ * The index is a trie of the segments of the package names, each node being a package.
+ * Putting a package with {@link #put(String[], Object)} answers a new index which shares all its nodes
+ * with the receiver, except the ones on the path to the package. So the name lookups of a project share
+ * the index of the project, and a name lookup with working copies only copies the paths to the packages
+ * of its working copies instead of cloning the whole table.
+ * The packages whose name starts with a given prefix are found without visiting the other packages.
+ * </p>
+ */
+public final class PackageFragmentIndex {
+
+	private static final PackageFragmentIndex[] NO_CHILDREN = new PackageFragmentIndex[0];
+
+	public static final PackageFragmentIndex EMPTY = new PackageFragmentIndex(CharOperation.NO_STRINGS, null, NO_CHILDREN);
+
+	/*
+	 * Compares package names segment by segment, a name being before the names it is a prefix of.
+	 */
+	private static final Comparator NAME_COMPARATOR = new Comparator() {
+		public int compare(Object o1, Object o2) {
+			String[] name1 = (String[]) ((Object[]) o1)[0];
+			String[] name2 = (String[]) ((Object[]) o2)[0];
+			for (int i = 0, length = Math.min(name1.length, name2.length); i < length; i++) {
+				int comparison = name1[i].compareTo(name2[i]);
+				if (comparison != 0) return comparison;
+			}
+			return name1.length - name2.length;
+		}
+	};
+
+	/**
+	 * The name of the package of this node.
+	 */
+	public final String[] name;
+
+	/**
+	 * The package fragment root that contains the package, or the roots ordered as they appear on the
+	 * classpath if there are several of them, or {@link JavaProjectElementInfo#NO_ROOTS} if the package
+	 * is only the super package of other packages. <code>null</code> if the node is not a package
+	 * (only for the default package).
+	 */
+	public final Object roots;
+
+	private final PackageFragmentIndex[] children; // sorted by the last segment of their name
+	private final int size;
+
+private PackageFragmentIndex(String[] name, Object roots, PackageFragmentIndex[] children) {
+	this.name = name;
+	this.roots = roots;
+	this.children = children;
+	int count = roots == null ? 0 : 1;
+	for (int i = 0, length = children.length; i < length; i++)
+		count += children[i].size;
+	this.size = count;
+}
+
+/**
+ * Creates the index of the packages of the given table, which contains the super packages of its packages.
+ */
+public static PackageFragmentIndex create(HashtableOfArrayToObject packageFragments) {
+	Object[][] entries = new Object[packageFragments.elementSize][];
+	Object[][] keys = packageFragments.keyTable;
+	int count = 0;
+	for (int i = 0, length = keys.length; i < length; i++) {
+		if (keys[i] != null)
+			entries[count++] = new Object[] {keys[i], packageFragments.valueTable[i]};
+	}
+	Arrays.sort(entries, NAME_COMPARATOR);
+	int start = 0;
+	String[] rootName = CharOperation.NO_STRINGS;
+	Object rootRoots = null;
+	if (count > 0 && ((String[]) entries[0][0]).length == 0) {
+		// default package
+		rootName = (String[]) entries[0][0];
+		rootRoots = entries[0][1];
+		start = 1;
+	}
+	return create(rootName, rootRoots, entries, start, count, 0);
+}
+
+/*
+ * Creates the node of the given package, the given sorted entries being the ones of its sub packages.
+ */
+private static PackageFragmentIndex create(String[] name, Object roots, Object[][] entries, int start, int end, int depth) {
+	ArrayList children = new ArrayList();
+	int i = start;
+	while (i < end) {
+		String[] childName = (String[]) entries[i][0];
+		String segment = childName[depth];
+		int childEnd = i + 1;
+		while (childEnd < end && ((String[]) entries[childEnd][0])[depth].equals(segment))
+			childEnd++;
+		Object childRoots;
+		if (childName.length == depth + 1) {
+			childRoots = entries[i++][1];
+		} else {
+			// super package missing from the table
+			System.arraycopy(childName, 0, childName = new String[depth + 1], 0, depth + 1);
+			childRoots = JavaProjectElementInfo.NO_ROOTS;
+		}
+		children.add(create(childName, childRoots, entries, i, childEnd, depth + 1));
+		i = childEnd;
+	}
+	int length = children.size();
+	return new PackageFragmentIndex(name, roots, length == 0 ? NO_CHILDREN : (PackageFragmentIndex[]) children.toArray(new PackageFragmentIndex[length]));
+}
+
+/*
+ * Adds the packages of this node and of its descendants to the given list.
+ */
+private void collectPackages(ArrayList packages) {
+	if (this.roots != null)
+		packages.add(this);
+	for (int i = 0, length = this.children.length; i < length; i++)
+		this.children[i].collectPackages(packages);
+}
+
+/**
+ * Returns the node of the package with the given name, or <code>null</code> if there is no such package.
+ */
+public PackageFragmentIndex find(String[] pkgName) {
+	PackageFragmentIndex node = this;
+	for (int i = 0, length = pkgName.length; i < length; i++) {
+		int index = node.indexOf(pkgName[i]);
+		if (index < 0) return null;
+		node = node.children[index];
+	}
+	return node.roots == null ? null : node;
+}
+
+/**
+ * Returns the nodes of all the packages of this index.
+ */
+public PackageFragmentIndex[] findAll() {
+	ArrayList packages = new ArrayList(this.size);
+	collectPackages(packages);
+	return (PackageFragmentIndex[]) packages.toArray(new PackageFragmentIndex[packages.size()]);
+}
+
+/**
+ * Returns the nodes of the packages whose name starts with the given prefix, ignoring case,
+ * as defined by {@link org.eclipse.jdt.internal.core.util.Util#startsWithIgnoreCase(String[], String[], boolean)}.
+ * Only the sub packages of the matching packages are visited.
+ */
+public PackageFragmentIndex[] findPrefixed(String[] prefix, boolean partialMatch) {
+	ArrayList packages = new ArrayList();
+	int prefixLength = prefix.length;
+	if (prefixLength > 0) {
+		String[] lowercasePrefix = new String[prefixLength];
+		for (int i = 0; i < prefixLength; i++)
+			lowercasePrefix[i] = prefix[i].toLowerCase();
+		findPrefixed(lowercasePrefix, 0, partialMatch, packages);
+	}
+	return (PackageFragmentIndex[]) packages.toArray(new PackageFragmentIndex[packages.size()]);
+}
+
+private void findPrefixed(String[] lowercasePrefix, int depth, boolean partialMatch, ArrayList packages) {
+	boolean isLastSegment = depth == lowercasePrefix.length - 1;
+	String prefixSegment = lowercasePrefix[depth];
+	for (int i = 0, length = this.children.length; i < length; i++) {
+		PackageFragmentIndex child = this.children[i];
+		String segment = child.name[depth].toLowerCase();
+		if (!isLastSegment) {
+			if (segment.equals(prefixSegment))
+				child.findPrefixed(lowercasePrefix, depth + 1, partialMatch, packages);
+		} else if (segment.startsWith(prefixSegment)) {
+			if (partialMatch)
+				child.collectPackages(packages);
+			else if (child.roots != null)
+				packages.add(child);
+		}
+	}
+}
+
+/**
+ * Returns the roots of the package with the given name, or <code>null</code> if there is no such package.
+ * @see #roots
+ */
+public Object get(String[] pkgName) {
+	PackageFragmentIndex node = find(pkgName);
+	return node == null ? null : node.roots;
+}
+
+/*
+ * Returns the index of the child with the given last segment, or (-(insertion point) - 1) if there is no such child.
+ */
+private int indexOf(String segment) {
+	int low = 0;
+	int high = this.children.length - 1;
+	while (low <= high) {
+		int mid = (low + high) >>> 1;
+		int comparison = this.children[mid].name[this.name.length].compareTo(segment);
+		if (comparison < 0)
+			low = mid + 1;
+		else if (comparison > 0)
+			high = mid - 1;
+		else
+			return mid;
+	}
+	return -(low + 1);
+}
+
+/**
+ * Returns an index with the same packages as this index, except that the package with the given name
+ * is contained in the given roots. The missing super packages of the package are added with no roots.
+ * This index is not modified.
+ */
+public PackageFragmentIndex put(String[] pkgName, Object pkgRoots) {
+	return put(pkgName, 0, pkgRoots);
+}
+
+private PackageFragmentIndex put(String[] pkgName, int depth, Object pkgRoots) {
+	if (depth == pkgName.length)
+		return new PackageFragmentIndex(this.name, pkgRoots, this.children);
+	int index = indexOf(pkgName[depth]);
+	PackageFragmentIndex[] newChildren;
+	if (index >= 0) {
+		int length = this.children.length;
+		System.arraycopy(this.children, 0, newChildren = new PackageFragmentIndex[length], 0, length);
+		newChildren[index] = this.children[index].put(pkgName, depth + 1, pkgRoots);
+	} else {
+		index = -index - 1;
+		String[] childName = pkgName;
+		if (depth + 1 < pkgName.length)
+			System.arraycopy(pkgName, 0, childName = new String[depth + 1], 0, depth + 1);
+		PackageFragmentIndex child = new PackageFragmentIndex(childName, JavaProjectElementInfo.NO_ROOTS, NO_CHILDREN);
+		int length = this.children.length;
+		newChildren = new PackageFragmentIndex[length + 1];
+		System.arraycopy(this.children, 0, newChildren, 0, index);
+		newChildren[index] = child.put(pkgName, depth + 1, pkgRoots);
+		System.arraycopy(this.children, index, newChildren, index + 1, length - index);
+	}
+	return new PackageFragmentIndex(this.name, this.roots, newChildren);
+}
+
+/**
+ * Returns the number of packages of this index.
+ */
+public int size() {
+	return this.size;
+}
+
+public String toString() {
+	StringBuffer buffer = new StringBuffer();
+	PackageFragmentIndex[] packages = findAll();
+	for (int i = 0, length = packages.length; i < length; i++) {
+		PackageFragmentIndex pkg = packages[i];
+		buffer.append(CharOperation.toString(Util.toCharArrays(pkg.name)));
+		buffer.append(" -> "); //$NON-NLS-1$
+		if (pkg.roots instanceof IPackageFragmentRoot[]) {
+			IPackageFragmentRoot[] pkgRoots = (IPackageFragmentRoot[]) pkg.roots;
+			buffer.append('[');
+			for (int j = 0, rootsLength = pkgRoots.length; j < rootsLength; j++) {
+				if (j > 0) buffer.append(", "); //$NON-NLS-1$
+				buffer.append(((JavaElement) pkgRoots[j]).toStringWithAncestors());
+			}
+			buffer.append(']');
+		} else {
+			buffer.append(((JavaElement) pkg.roots).toStringWithAncestors());
+		}
+		buffer.append('\n');
+	}
+	return buffer.toString();
+}
+}
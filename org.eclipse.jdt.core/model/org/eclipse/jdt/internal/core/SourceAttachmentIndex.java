@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core;
+
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * An index of the Java source files of a source archive, used by a {@link SourceMapper} to find the
+ * source of a binary type without guessing the root paths of the archive.
+ * <p>
+ * The source files are indexed by their simple name. The source of <code>x/y/A.java</code> is the entry
+ * with this simple name whose name ends with the segments <code>x/y/A.java</code>, the entry with the shortest
+ * root path being preferred. An index is built once per archive, from the listing of its entries stored by
+ * {@link JarPackageFragmentRoot#LISTING_CACHE} if any, and is shared by the source mappers of all the roots
+ * the archive is attached to as long as the archive does not change.
+ * </p>
+ */
+public class SourceAttachmentIndex {
+
+	/**
+	 * Whether the source mappers find the sources in the indexes of their archives. The source mappers compute the
+	 * root paths of their archive if this is <code>false</code> (the default).
+	 */
+	public static final String PROPERTY = "jdt.core.sourceAttachmentIndex"; //$NON-NLS-1$
+	public static boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+	private static HashMap INDEXES = new HashMap(); // a table from the IPath of a source archive to a soft reference to its index
+
+	long timeStamp;
+	long size;
+	private HashMap entryNames = new HashMap(); // a table from the simple name of a source file to its entry name (String) or entry names (ArrayList)
+
+private SourceAttachmentIndex(long timeStamp, long size) {
+	this.timeStamp = timeStamp;
+	this.size = size;
+}
+
+/**
+ * Returns the index of the given source archive, building it if needed, or <code>null</code> if the archive
+ * is not a file of the local file system or cannot be read.
+ */
+public static SourceAttachmentIndex getIndex(IPath sourcePath) {
+	Object target = JavaModel.getTarget(sourcePath, true);
+	File file = null;
+	if (target instanceof File) {
+		file = (File) target;
+	} else if (target instanceof IFile) {
+		IPath location = ((IFile) target).getLocation();
+		if (location != null)
+			file = location.toFile();
+	}
+	if (file == null) return null;
+	long timeStamp = file.lastModified();
+	long size = file.length();
+	synchronized (INDEXES) {
+		SoftReference reference = (SoftReference) INDEXES.get(sourcePath);
+		SourceAttachmentIndex index = reference == null ? null : (SourceAttachmentIndex) reference.get();
+		if (index != null && index.timeStamp == timeStamp && index.size == size)
+			return index;
+	}
+	String[] names = getEntryNames(sourcePath, timeStamp, size);
+	if (names == null) return null;
+	SourceAttachmentIndex index = new SourceAttachmentIndex(timeStamp, size);
+	for (int i = 0, length = names.length; i < length; i++) {
+		String name = names[i];
+		if (!name.endsWith("/") && Util.isJavaLikeFileName(name)) //$NON-NLS-1$
+			index.add(name);
+	}
+	synchronized (INDEXES) {
+		INDEXES.put(sourcePath, new SoftReference(index));
+	}
+	return index;
+}
+
+private static String[] getEntryNames(IPath sourcePath, long timeStamp, long size) {
+	JarEntryListingCache listingCache = JarPackageFragmentRoot.LISTING_CACHE;
+	if (listingCache != null) {
+		String[] names = listingCache.read(sourcePath, timeStamp, size);
+		if (names != null) return names;
+	}
+	JavaModelManager manager = JavaModelManager.getJavaModelManager();
+	ZipFile zip = null;
+	try {
+		zip = manager.getZipFile(sourcePath);
+		ArrayList names = new ArrayList();
+		for (Enumeration entries = zip.entries(); entries.hasMoreElements(); )
+			names.add(((ZipEntry) entries.nextElement()).getName());
+		String[] result = (String[]) names.toArray(new String[names.size()]);
+		if (listingCache != null && timeStamp != 0)
+			listingCache.write(sourcePath, timeStamp, size, result);
+		return result;
+	} catch (CoreException e) {
+		return null;
+	} finally {
+		manager.closeZipFile(zip); // handle null case
+	}
+}
+
+private void add(String entryName) {
+	String simpleName = entryName.substring(entryName.lastIndexOf('/') + 1);
+	Object existing = this.entryNames.get(simpleName);
+	if (existing == null) {
+		this.entryNames.put(simpleName, entryName);
+	} else if (existing instanceof String) {
+		ArrayList names = new ArrayList(2);
+		names.add(existing);
+		names.add(entryName);
+		this.entryNames.put(simpleName, names);
+	} else {
+		((ArrayList) existing).add(entryName);
+	}
+}
+
+/**
+ * Returns the name of the entry of the source file with the given name relative to its root path
+ * (e.g. <code>x/y/A.java</code>), or <code>null</code> if there is no such entry.
+ */
+public String find(String name) {
+	Object existing = this.entryNames.get(name.substring(name.lastIndexOf('/') + 1));
+	if (existing == null) return null;
+	if (existing instanceof String)
+		return matches((String) existing, name) ? (String) existing : null;
+	ArrayList names = (ArrayList) existing;
+	String result = null;
+	for (int i = 0, length = names.size(); i < length; i++) {
+		String entryName = (String) names.get(i);
+		if (matches(entryName, name) && (result == null || entryName.length() < result.length()))
+			result = entryName;
+	}
+	return result;
+}
+
+private static boolean matches(String entryName, String name) {
+	int rootLength = entryName.length() - name.length();
+	return entryName.endsWith(name) && (rootLength == 0 || (rootLength > 0 && entryName.charAt(rootLength - 1) == '/'));
+}
+
+/**
+ * Returns the root path of the given entry found for the given name.
+ * @see #find(String)
+ */
+public static String getRootPath(String entryName, String name) {
+	int rootLength = entryName.length() - name.length();
+	return rootLength == 0 ? IPackageFragmentRoot.DEFAULT_PACKAGEROOT_PATH : entryName.substring(0, rootLength - 1);
+}
+}
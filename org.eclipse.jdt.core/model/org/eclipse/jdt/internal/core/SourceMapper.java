@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2013 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -138,6 +138,12 @@ public class SourceMapper
 	}
 
 	public static boolean VERBOSE = false;
+
+	/**
+	 * The ranges of the types mapped by all the source mappers, or <code>null</code> if they are not cached.
+	 * @see SourceRangeCache#SIZE_PROPERTY
+	 */
+	public static SourceRangeCache RANGE_CACHE = SourceRangeCache.create(Integer.getInteger(SourceRangeCache.SIZE_PROPERTY, 0).intValue());
 	/**
 	 * Specifies the location of the package fragment roots within
 	 * the zip (empty specifies the default root). <code>null</code> is
@@ -1008,7 +1014,20 @@ public class SourceMapper
 				source = getSourceForRootPath(this.rootPath, name);
 			}
 	
-			if (source == null) {
+			SourceAttachmentIndex index;
+			if (source == null
+					&& SourceAttachmentIndex.ENABLED
+					&& !(JavaModel.getTarget(this.sourcePath, true) instanceof IContainer)
+					&& (index = SourceAttachmentIndex.getIndex(this.sourcePath)) != null) {
+				String entryName = index.find(name);
+				if (entryName != null) {
+					source = findSource(entryName);
+					if (source != null) {
+						// remember right root path
+						this.rootPath = SourceAttachmentIndex.getRootPath(entryName, name);
+					}
+				}
+			} else if (source == null) {
 				computeAllRootPaths(type);
 				if (this.rootPaths != null) {
 					loop: for (Iterator iterator = this.rootPaths.iterator(); iterator.hasNext(); ) {
@@ -1385,6 +1404,17 @@ public class SourceMapper
 		// check whether it is already mapped
 		if (this.sourceRanges.get(type) != null) return (elementToFind != null) ? getNameRange(elementToFind) : null;
 
+		// check whether another source mapper already mapped the same source
+		SourceRangeCache rangeCache = elementToFind == null ? RANGE_CACHE : null;
+		if (rangeCache != null) {
+			SourceRangeCache.Ranges ranges = rangeCache.get(type, contents);
+			if (ranges != null) {
+				addRanges(ranges);
+				this.binaryType = null;
+				return null;
+			}
+		}
+
 		this.importsTable.remove(this.binaryType);
 		this.importsCounterTable.remove(this.binaryType);
 		this.searchedElement = elementToFind;
@@ -1404,6 +1434,22 @@ public class SourceMapper
 		if (elementToFind != null) {
 			oldSourceRanges = (HashMap) this.sourceRanges.clone();
 		}
+		HashMap otherSourceRanges = null, otherParametersRanges = null, otherParameterNames = null, otherCategories = null;
+		HashSet otherFinalParameters = null;
+		if (rangeCache != null) {
+			// collect the ranges of this type alone
+			otherSourceRanges = this.sourceRanges;
+			otherParametersRanges = this.parametersRanges;
+			otherParameterNames = this.parameterNames;
+			otherCategories = this.categories;
+			otherFinalParameters = this.finalParameters;
+			this.sourceRanges = new HashMap();
+			this.parametersRanges = new HashMap();
+			this.parameterNames = new HashMap();
+			this.categories = null;
+			this.finalParameters = null;
+		}
+		boolean mapped = false;
 		try {
 			IProblemFactory factory = new DefaultProblemFactory();
 			SourceElementParser parser = null;
@@ -1435,6 +1481,7 @@ public class SourceMapper
 				new BasicCompilationUnit(contents, null, this.binaryType.sourceFileName(info), javaElement),
 				doFullParse,
 				null/*no progress*/);
+			mapped = true;
 			if (elementToFind != null) {
 				ISourceRange range = getNameRange(elementToFind);
 				return range;
@@ -1445,6 +1492,24 @@ public class SourceMapper
 			if (elementToFind != null) {
 				this.sourceRanges = oldSourceRanges;
 			}
+			if (rangeCache != null) {
+				SourceRangeCache.Ranges ranges = new SourceRangeCache.Ranges(
+					contents,
+					this.sourceRanges,
+					this.parametersRanges,
+					this.parameterNames,
+					this.categories,
+					this.finalParameters,
+					getImports(this.binaryType));
+				this.sourceRanges = otherSourceRanges;
+				this.parametersRanges = otherParametersRanges;
+				this.parameterNames = otherParameterNames;
+				this.categories = otherCategories;
+				this.finalParameters = otherFinalParameters;
+				addRanges(ranges);
+				if (mapped)
+					rangeCache.put(type, ranges);
+			}
 			this.binaryType = null;
 			this.searchedElement = null;
 			this.types = null;
@@ -1453,6 +1518,28 @@ public class SourceMapper
 			this.typeDepth = -1;
 		}
 	}
+	/*
+	 * Adds the given ranges of the binary type being mapped to the tables of this mapper.
+	 */
+	private void addRanges(SourceRangeCache.Ranges ranges) {
+		this.sourceRanges.putAll(ranges.sourceRanges);
+		this.parametersRanges.putAll(ranges.parametersRanges);
+		this.parameterNames.putAll(ranges.parameterNames);
+		if (ranges.categories != null) {
+			if (this.categories == null)
+				this.categories = new HashMap();
+			this.categories.putAll(ranges.categories);
+		}
+		if (ranges.finalParameters != null) {
+			if (this.finalParameters == null)
+				this.finalParameters = new HashSet();
+			this.finalParameters.addAll(ranges.finalParameters);
+		}
+		if (ranges.imports != null) {
+			this.importsTable.put(this.binaryType, ranges.imports);
+			this.importsCounterTable.put(this.binaryType, new Integer(ranges.imports.length));
+		}
+	}
 	private char[] readSource(ZipEntry entry, ZipFile zip, String charSet) {
 		try {
 			byte[] bytes = Util.getZipEntryByteContent(entry, zip);
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import org.eclipse.jdt.internal.core.util.LRUCache;
+
+/**
+ * An LRU cache of the source ranges computed by the {@link SourceMapper}s when they map the source
+ * of a binary type, so that the source of a type is not parsed again when the root of the type is
+ * reopened with a new source mapper.
+ * <p>
+ * The ranges of a type are valid as long as the source they were computed from is the same:
+ * they remember the length and a hash of the contents of the source.
+ * The space of the cache is measured in bytes, using an estimate of the footprint of the ranges of each type.
+ * </p>
+ */
+public class SourceRangeCache extends LRUCache {
+
+	/**
+	 * Size of the cache in bytes, the ranges are not cached if this is 0 (the default).
+	 */
+	public static final String SIZE_PROPERTY = "jdt.core.sourceRangeCache.size"; //$NON-NLS-1$
+
+	private static final int ENTRY_FOOTPRINT = 32;
+	private static final int ARRAY_FOOTPRINT = 16;
+	private static final int RANGES_FOOTPRINT = 64; // a SourceRange[] with its two ranges
+	private static final int KEY_FOOTPRINT = 24; // a LocalVariableElementKey, the handles being shared
+	private static final int STRING_FOOTPRINT = 40;
+
+	/*
+	 * The tables computed by a source mapper for a binary type, with the contents they were computed from.
+	 * The tables are never modified once cached.
+	 */
+	static class Ranges {
+		int contentsLength;
+		int contentsHash;
+		HashMap sourceRanges; // see SourceMapper#sourceRanges
+		HashMap parametersRanges; // see SourceMapper#parametersRanges
+		HashMap parameterNames; // see SourceMapper#parameterNames
+		HashMap categories; // see SourceMapper#categories, may be null
+		HashSet finalParameters; // see SourceMapper#finalParameters, may be null
+		char[][] imports; // see SourceMapper#getImports(BinaryType), may be null
+		int footprint;
+		Ranges(char[] contents, HashMap sourceRanges, HashMap parametersRanges, HashMap parameterNames, HashMap categories, HashSet finalParameters, char[][] imports) {
+			this.contentsLength = contents.length;
+			this.contentsHash = hash(contents);
+			this.sourceRanges = sourceRanges;
+			this.parametersRanges = parametersRanges;
+			this.parameterNames = parameterNames;
+			this.categories = categories;
+			this.finalParameters = finalParameters;
+			this.imports = imports;
+			this.footprint = footprint(this);
+		}
+		boolean isValid(char[] contents) {
+			return this.contentsLength == contents.length && this.contentsHash == hash(contents);
+		}
+	}
+
+/**
+ * Creates a new cache of the given size in bytes.
+ */
+public SourceRangeCache(int size) {
+	super(size);
+}
+
+/**
+ * Returns a cache of the given size in bytes, or <code>null</code> if the size is not positive.
+ */
+public static SourceRangeCache create(int size) {
+	return size > 0 ? new SourceRangeCache(size) : null;
+}
+
+/*
+ * Returns the estimated number of bytes used by the given ranges.
+ */
+static int footprint(Ranges ranges) {
+	int footprint = ENTRY_FOOTPRINT
+		+ ranges.sourceRanges.size() * (ENTRY_FOOTPRINT + RANGES_FOOTPRINT)
+		+ ranges.parametersRanges.size() * (ENTRY_FOOTPRINT + KEY_FOOTPRINT + RANGES_FOOTPRINT)
+		+ footprint(ranges.imports);
+	for (Iterator iterator = ranges.parameterNames.values().iterator(); iterator.hasNext();)
+		footprint += ENTRY_FOOTPRINT + footprint((char[][]) iterator.next());
+	if (ranges.categories != null) {
+		for (Iterator iterator = ranges.categories.values().iterator(); iterator.hasNext();) {
+			String[] elementCategories = (String[]) iterator.next();
+			footprint += ENTRY_FOOTPRINT + ARRAY_FOOTPRINT + 4 * elementCategories.length;
+			for (int i = 0, length = elementCategories.length; i < length; i++)
+				footprint += STRING_FOOTPRINT + 2 * elementCategories[i].length();
+		}
+	}
+	if (ranges.finalParameters != null)
+		footprint += ranges.finalParameters.size() * ENTRY_FOOTPRINT;
+	return footprint;
+}
+
+private static int footprint(char[][] names) {
+	if (names == null) return 0;
+	int footprint = ARRAY_FOOTPRINT + 4 * names.length;
+	for (int i = 0, length = names.length; i < length; i++)
+		footprint += ARRAY_FOOTPRINT + 2 * names[i].length;
+	return footprint;
+}
+
+/**
+ * Answers the ranges of the given binary type if they were computed from the given contents, or null if none.
+ */
+synchronized Ranges get(Object type, char[] contents) {
+	Ranges ranges = (Ranges) get(type);
+	if (ranges == null) return null;
+	if (!ranges.isValid(contents)) {
+		flush(type);
+		return null;
+	}
+	return ranges;
+}
+
+static int hash(char[] contents) {
+	int hash = 0;
+	for (int i = 0, length = contents.length; i < length; i++)
+		hash = 31 * hash + contents[i];
+	return hash;
+}
+
+protected LRUCache newInstance(int size) {
+	return new SourceRangeCache(size);
+}
+
+/**
+ * Sets the ranges of the given binary type. Returns the ranges.
+ */
+public synchronized Object put(Object type, Object ranges) {
+	return super.put(type, ranges);
+}
+
+protected int spaceFor(Object value) {
+	return value instanceof Ranges ? ((Ranges) value).footprint : super.spaceFor(value);
+}
+}
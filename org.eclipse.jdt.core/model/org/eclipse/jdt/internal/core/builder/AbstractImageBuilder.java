@@ -53,11 +53,20 @@ protected ArrayList problemSourceFiles;
 protected boolean compiledAllAtOnce;
 
 private boolean inCompiler;
+private long usedHeapBeforeGroup; // heap used when the current group of units started compiling
+private long peakUsedHeap; // highest heap use sampled while compiling the current group
+private HashMap reusableMarkers; // existing markers which can be kept instead of being created again, see reuseMarkers(IMarker[])
 
 protected boolean keepStoringProblemMarkers;
 protected SimpleSet filesWithAnnotations = null;
 
-public static int MAX_AT_ONCE = 2000; // best compromise between space used and speed
+public static int MAX_AT_ONCE = 5000; // most units compiled together, groups are also limited by the available heap
+// heap used to compile a unit when no build of the project measured it yet, and its accepted range
+static final int DEFAULT_UNIT_COMPILE_HEAP = 200 * 1024;
+static final int MIN_UNIT_COMPILE_HEAP = 16 * 1024;
+static final int MAX_UNIT_COMPILE_HEAP = 4 * 1024 * 1024;
+static final int MIN_GROUP_SIZE = 250; // groups smaller than this do not save enough heap to be worth it
+static final int MIN_MEASURED_GROUP_SIZE = 10; // the heap used by smaller groups is mostly the lookup environment
 public final static String[] JAVA_PROBLEM_MARKER_ATTRIBUTE_NAMES = {
 	IMarker.MESSAGE,
 	IMarker.SEVERITY,
@@ -112,7 +121,7 @@ protected AbstractImageBuilder(JavaBuilder javaBuilder, boolean buildStarting, S
 	}
 }
 
-public void acceptResult(CompilationResult result) {
+public void acceptResult(final CompilationResult result) {
 	// In Batch mode, we write out the class files, hold onto the dependency info
 	// & additional types and report problems.
 
@@ -121,13 +130,23 @@ public void acceptResult(CompilationResult result) {
 	// Before reporting the new problems, we need to update the problem count &
 	// remove the old problems. Plus delete additional class files that no longer exist.
 
-	SourceFile compilationUnit = (SourceFile) result.getCompilationUnit(); // go directly back to the sourceFile
+	final SourceFile compilationUnit = (SourceFile) result.getCompilationUnit(); // go directly back to the sourceFile
 	if (!this.workQueue.isCompiled(compilationUnit)) {
+		sampleHeap(); // the bindings of the units being compiled are still referenced
 		this.workQueue.finished(compilationUnit);
 
 		try {
-			updateProblemsFor(compilationUnit, result); // record compilation problems before potentially adding duplicate errors
-			updateTasksFor(compilationUnit, result); // record tasks
+			// delete & create the markers of the unit in one workspace operation
+			this.javaBuilder.currentProject.getWorkspace().run(
+				new IWorkspaceRunnable() {
+					public void run(IProgressMonitor monitor) throws CoreException {
+						updateProblemsFor(compilationUnit, result); // record compilation problems before potentially adding duplicate errors
+						updateTasksFor(compilationUnit, result); // record tasks
+					}
+				},
+				null,
+				IWorkspace.AVOID_UPDATE,
+				null);
 		} catch (CoreException e) {
 			throw internalException(e);
 		}
@@ -197,8 +216,14 @@ public void acceptResult(CompilationResult result) {
 		if (result.hasAnnotations && this.filesWithAnnotations != null) // only initialized if an annotation processor is attached
 			this.filesWithAnnotations.add(compilationUnit);
 
+		// member references are only reliable when the generated code is complete
+		char[][] memberRefs = JavaBuilder.TRACK_MEMBER_REFERENCES && !result.hasErrors()
+			? ReferenceCollection.memberReferencesOf(classFiles)
+			: null;
 		this.compiler.lookupEnvironment.releaseClassFiles(classFiles);
 		finishedWith(typeLocator, result, compilationUnit.getMainTypeName(), definedTypeNames, duplicateTypeNames);
+		if (memberRefs != null)
+			this.newState.recordMemberReferences(typeLocator, memberRefs);
 		this.notifier.compiled(compilationUnit);
 	}
 }
@@ -293,21 +318,26 @@ protected void compile(SourceFile[] units) {
 	}
 
 	int unitsLength = units.length;
-	this.compiledAllAtOnce = unitsLength <= MAX_AT_ONCE;
+	this.compiledAllAtOnce = unitsLength <= MAX_AT_ONCE && unitsLength <= compileGroupBudget();
 	if (this.compiledAllAtOnce) {
 		// do them all now
 		if (JavaBuilder.DEBUG)
 			for (int i = 0; i < unitsLength; i++)
 				System.out.println("About to compile " + units[i].typeLocator()); //$NON-NLS-1$
+		startHeapSampling();
 		compile(units, null, true);
+		recordUnitCompileHeap(unitsLength);
 	} else {
 		SourceFile[] remainingUnits = new SourceFile[unitsLength]; // copy of units, removing units when about to compile
 		System.arraycopy(units, 0, remainingUnits, 0, unitsLength);
-		int doNow = unitsLength < MAX_AT_ONCE ? unitsLength : MAX_AT_ONCE;
-		SourceFile[] toCompile = new SourceFile[doNow];
+		// the order of the units only matters when they are compiled in several groups
+		orderByPackage(remainingUnits);
 		int remainingIndex = 0;
 		boolean compilingFirstGroup = true;
 		while (remainingIndex < unitsLength) {
+			// size each group from the heap left once the previous group has been compiled
+			int doNow = Math.min(unitsLength - remainingIndex, Math.min(MAX_AT_ONCE, compileGroupBudget()));
+			SourceFile[] toCompile = new SourceFile[doNow];
 			int count = 0;
 			while (remainingIndex < unitsLength && count < doNow) {
 				// Although it needed compiling when this method was called, it may have
@@ -326,7 +356,11 @@ protected void compile(SourceFile[] units) {
 				for (int a = remainingIndex; a < unitsLength; a++)
 					if (remainingUnits[a] != null && this.workQueue.isCompiled(remainingUnits[a]))
 						remainingUnits[a] = null; // use the class file for this source file since its been compiled
+			if (JavaBuilder.DEBUG)
+				System.out.println("Compiling a group of " + count + " units out of " + doNow); //$NON-NLS-1$ //$NON-NLS-2$
+			startHeapSampling();
 			compile(toCompile, remainingUnits, compilingFirstGroup);
+			recordUnitCompileHeap(count);
 			compilingFirstGroup = false;
 		}
 	}
@@ -340,6 +374,83 @@ protected void compile(SourceFile[] units) {
 	}
 }
 
+/*
+ * Answers the number of units which can be compiled together in the heap that is left,
+ * using the heap needed per unit measured by the previous compilations of the project.
+ * The sizes of the source files are not used since they would have to be read from the file system.
+ */
+private int compileGroupBudget() {
+	Runtime runtime = Runtime.getRuntime();
+	long headroom = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+	int unitHeap = this.newState.unitCompileHeap > 0 ? this.newState.unitCompileHeap : DEFAULT_UNIT_COMPILE_HEAP;
+	long budget = headroom / unitHeap;
+	// the used heap includes garbage which has not been collected yet
+	return budget < MIN_GROUP_SIZE ? MIN_GROUP_SIZE : (int) Math.min(budget, Integer.MAX_VALUE);
+}
+
+/*
+ * Orders the units by package, keeping the first package first and the units of a package in their order,
+ * so that a group of units shares as many bindings as possible.
+ * Used only when the units are compiled in several groups: the units compiled all at once share their
+ * bindings whatever their order.
+ */
+private static void orderByPackage(SourceFile[] units) {
+	int length = units.length;
+	HashMap packages = new HashMap();
+	ArrayList orderedPackages = new ArrayList();
+	for (int i = 0; i < length; i++) {
+		String typeName = units[i].initialTypeName;
+		String packageName = typeName.substring(0, typeName.lastIndexOf('/') + 1);
+		ArrayList indexes = (ArrayList) packages.get(packageName);
+		if (indexes == null) {
+			packages.put(packageName, indexes = new ArrayList());
+			orderedPackages.add(indexes);
+		}
+		indexes.add(new Integer(i));
+	}
+	if (orderedPackages.size() == 1) return;
+
+	SourceFile[] orderedUnits = new SourceFile[length];
+	int index = 0;
+	for (int p = 0, max = orderedPackages.size(); p < max; p++) {
+		ArrayList indexes = (ArrayList) orderedPackages.get(p);
+		for (int j = 0, l = indexes.size(); j < l; j++) {
+			int i = ((Integer) indexes.get(j)).intValue();
+			orderedUnits[index++] = units[i];
+		}
+	}
+	System.arraycopy(orderedUnits, 0, units, 0, length);
+}
+
+/*
+ * Updates the heap needed per unit with the heap used by the group of units that was just compiled.
+ */
+private void recordUnitCompileHeap(int groupSize) {
+	long usedHeap = this.peakUsedHeap - this.usedHeapBeforeGroup;
+	if (groupSize < MIN_MEASURED_GROUP_SIZE || usedHeap <= 0) return; // too small to be measured, or the heap was collected
+	long unitHeap = usedHeap / groupSize;
+	if (unitHeap < MIN_UNIT_COMPILE_HEAP)
+		unitHeap = MIN_UNIT_COMPILE_HEAP;
+	else if (unitHeap > MAX_UNIT_COMPILE_HEAP)
+		unitHeap = MAX_UNIT_COMPILE_HEAP;
+	int previousUnitHeap = this.newState.unitCompileHeap;
+	this.newState.unitCompileHeap = previousUnitHeap == 0 ? (int) unitHeap : (int) ((3L * previousUnitHeap + unitHeap) / 4);
+	if (JavaBuilder.DEBUG)
+		System.out.println("Compiled " + groupSize + " units using " + usedHeap + " bytes of heap"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+}
+
+private void sampleHeap() {
+	Runtime runtime = Runtime.getRuntime();
+	long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+	if (usedHeap > this.peakUsedHeap)
+		this.peakUsedHeap = usedHeap;
+}
+
+private void startHeapSampling() {
+	Runtime runtime = Runtime.getRuntime();
+	this.usedHeapBeforeGroup = this.peakUsedHeap = runtime.totalMemory() - runtime.freeMemory();
+}
+
 protected void compile(SourceFile[] units, SourceFile[] additionalUnits, boolean compilingFirstGroup) {
 	if (units.length == 0) return;
 	this.notifier.aboutToCompile(units[0]); // just to change the message
@@ -387,6 +498,35 @@ protected void copyResource(IResource source, IResource destination) throws Core
 	Util.setReadOnly(destination, false); // just in case the original was read only
 }
 
+/*
+ * Creates a marker with the given attributes, or keeps an identical marker given to reuseMarkers(IMarker[]) instead.
+ */
+protected IMarker createMarker(IResource resource, String markerType, String[] attributeNames, Object[] attributeValues) throws CoreException {
+	if (this.reusableMarkers != null) {
+		HashMap attributes = new HashMap(attributeNames.length * 2);
+		for (int i = 0, l = attributeNames.length; i < l; i++)
+			if (attributeValues[i] != null) // setting a null value removes the attribute
+				attributes.put(attributeNames[i], attributeValues[i]);
+		ArrayList markers = (ArrayList) this.reusableMarkers.get(markerKey(resource, markerType, attributes));
+		while (markers != null && !markers.isEmpty()) {
+			IMarker marker = (IMarker) markers.remove(markers.size() - 1);
+			if (marker.exists()) // not deleted since reuseMarkers(IMarker[]) was called
+				return marker;
+		}
+	}
+	IMarker marker = resource.createMarker(markerType);
+	marker.setAttributes(attributeNames, attributeValues);
+	return marker;
+}
+
+private static Object markerKey(IResource resource, String markerType, Map attributes) {
+	ArrayList key = new ArrayList(3);
+	key.add(resource);
+	key.add(markerType);
+	key.add(attributes);
+	return key;
+}
+
 protected void createProblemFor(IResource resource, IMember javaElement, String message, String problemSeverity) {
 	try {
 		IMarker marker = resource.createMarker(IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER);
@@ -421,6 +561,35 @@ protected void deleteGeneratedFiles(IFile[] deletedGeneratedFiles) {
 	// no op by default
 }
 
+/*
+ * Deletes in one operation the markers given to reuseMarkers(IMarker[]) which were not kept.
+ */
+protected void deleteUnusedMarkers() throws CoreException {
+	HashMap markers = this.reusableMarkers;
+	this.reusableMarkers = null;
+	if (markers == null || markers.isEmpty()) return;
+
+	ArrayList unusedMarkers = new ArrayList();
+	for (Iterator i = markers.values().iterator(); i.hasNext();)
+		unusedMarkers.addAll((ArrayList) i.next());
+	if (unusedMarkers.isEmpty()) return;
+
+	IMarker[] toDelete = new IMarker[unusedMarkers.size()];
+	unusedMarkers.toArray(toDelete);
+	this.javaBuilder.currentProject.getWorkspace().deleteMarkers(toDelete);
+}
+
+/*
+ * Answers whether the given marker was given to reuseMarkers(IMarker[]) and is neither kept nor deleted yet.
+ */
+private boolean isReusable(IMarker marker) throws CoreException {
+	if (this.reusableMarkers == null) return false;
+	Map attributes = marker.getAttributes();
+	ArrayList markers = (ArrayList) this.reusableMarkers.get(
+		markerKey(marker.getResource(), marker.getType(), attributes == null ? new HashMap(1) : new HashMap(attributes)));
+	return markers != null && markers.contains(marker);
+}
+
 protected SourceFile findSourceFile(IFile file, boolean mustExist) {
 	if (mustExist && !file.exists()) return null;
 
@@ -653,6 +822,24 @@ protected void recordParticipantResult(CompilationParticipantResult result) {
 	}
 }
 
+/*
+ * Records the existing markers which are replaced by the markers created until deleteUnusedMarkers() is called.
+ * The markers which are created again with the same attributes are kept, so that only the changed markers are
+ * deleted and created, and the markers of an unchanged problem keep their identity.
+ */
+protected void reuseMarkers(IMarker[] markers) throws CoreException {
+	this.reusableMarkers = new HashMap(markers.length * 2);
+	for (int i = 0, l = markers.length; i < l; i++) {
+		IMarker marker = markers[i];
+		Map attributes = marker.getAttributes();
+		Object key = markerKey(marker.getResource(), marker.getType(), attributes == null ? new HashMap(1) : new HashMap(attributes));
+		ArrayList sameMarkers = (ArrayList) this.reusableMarkers.get(key);
+		if (sameMarkers == null)
+			this.reusableMarkers.put(key, sameMarkers = new ArrayList(1));
+		sameMarkers.add(marker);
+	}
+}
+
 /**
  * Creates a marker from each problem and adds it to the resource.
  * The marker is as follows:
@@ -689,10 +876,12 @@ protected void storeProblemsFor(SourceFile sourceFile, CategorizedProblem[] prob
 			// insert extra classpath problem, and make it the only problem for this project (optional)
 			if (isInvalidClasspathError && JavaCore.ABORT.equals(this.javaBuilder.javaProject.getOption(JavaCore.CORE_JAVA_BUILD_INVALID_CLASSPATH, true))) {
 				JavaBuilder.removeProblemsAndTasksFor(this.javaBuilder.currentProject); // make this the only problem for this project
+				this.reusableMarkers = null; // they were all deleted
 				this.keepStoringProblemMarkers = false;
 			}
-			IMarker marker = this.javaBuilder.currentProject.createMarker(IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER);
-			marker.setAttributes(
+			createMarker(
+				this.javaBuilder.currentProject,
+				IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER,
 				new String[] {IMarker.MESSAGE, IMarker.SEVERITY, IJavaModelMarker.CATEGORY_ID, IMarker.SOURCE_ID},
 				new Object[] {
 					Messages.bind(Messages.build_incompleteClassPath, missingClassfileName),
@@ -725,7 +914,8 @@ protected void storeProblemsFor(SourceFile sourceFile, CategorizedProblem[] prob
 						IMarker[] existingMarkers = pkg.resource().findMarkers(IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER, false, IResource.DEPTH_ZERO);
 						int len = existingMarkers.length;
 						for (int j=0; j < len; j++) {
-							if (((Integer)existingMarkers[j].getAttribute(IJavaModelMarker.ID)).intValue() == IProblem.MissingNonNullByDefaultAnnotationOnPackage) {
+							if (((Integer)existingMarkers[j].getAttribute(IJavaModelMarker.ID)).intValue() == IProblem.MissingNonNullByDefaultAnnotationOnPackage
+									&& !isReusable(existingMarkers[j])) { // else it is kept by createMarker(...) or deleted once the build is done
 								continue problems; // marker already present
 							}
 						}
@@ -741,8 +931,6 @@ protected void storeProblemsFor(SourceFile sourceFile, CategorizedProblem[] prob
 					}
 				}
 			}
-			IMarker marker = resource.createMarker(markerType);
-
 			String[] attributeNames = JAVA_PROBLEM_MARKER_ATTRIBUTE_NAMES;
 			int standardLength = attributeNames.length;
 			String[] allNames = attributeNames;
@@ -775,7 +963,7 @@ protected void storeProblemsFor(SourceFile sourceFile, CategorizedProblem[] prob
 			if (extraLength > 0)
 				System.arraycopy(problem.getExtraMarkerAttributeValues(), 0, allValues, index, extraLength);
 
-			marker.setAttributes(allNames, allValues);
+			createMarker(resource, markerType, allNames, allValues);
 
 			if (!this.keepStoringProblemMarkers) return; // only want the one error recorded on this source file
 		}
@@ -789,7 +977,6 @@ protected void storeTasksFor(SourceFile sourceFile, CategorizedProblem[] tasks)
 	for (int i = 0, l = tasks.length; i < l; i++) {
 		CategorizedProblem task = tasks[i];
 		if (task.getID() == IProblem.Task) {
-			IMarker marker = resource.createMarker(IJavaModelMarker.TASK_MARKER);
 			Integer priority = P_NORMAL;
 			String compilerPriority = task.getArguments()[2];
 			if (JavaCore.COMPILER_TASK_PRIORITY_HIGH.equals(compilerPriority))
@@ -823,7 +1010,7 @@ protected void storeTasksFor(SourceFile sourceFile, CategorizedProblem[] tasks)
 			if (extraLength > 0)
 				System.arraycopy(task.getExtraMarkerAttributeValues(), 0, allValues, index, extraLength);
 
-			marker.setAttributes(allNames, allValues);
+			createMarker(resource, IJavaModelMarker.TASK_MARKER, allNames, allValues);
 		}
 	}
 }
@@ -863,7 +1050,9 @@ protected void writeClassFileContents(ClassFile classFile, IFile file, String qu
 //	InputStream input = new SequenceInputStream(
 //			new ByteArrayInputStream(classFile.header, 0, classFile.headerOffset),
 //			new ByteArrayInputStream(classFile.contents, 0, classFile.contentsOffset));
-	InputStream input = new ByteArrayInputStream(classFile.getBytes());
+	byte[] bytes = classFile.getBytes();
+	InputStream input = new ByteArrayInputStream(bytes);
+	this.newState.recordClassFileHashes(qualifiedFileName, bytes.length, State.computeContentHash(bytes), 0);
 	if (file.exists()) {
 		// Deal with shared output folders... last one wins... no collision cases detected
 		if (JavaBuilder.DEBUG)
@@ -877,5 +1066,6 @@ protected void writeClassFileContents(ClassFile classFile, IFile file, String qu
 			System.out.println("Writing new class file " + file.getName());//$NON-NLS-1$
 		file.create(input, IResource.FORCE | IResource.DERIVED, null);
 	}
+	this.newState.recordClassFileStamps(qualifiedFileName, file);
 }
 }
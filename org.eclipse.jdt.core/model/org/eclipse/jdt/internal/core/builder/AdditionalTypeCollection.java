@@ -18,5 +18,10 @@ protected AdditionalTypeCollection(char[][] definedTypeNames, char[][][] qualifi
 	super(qualifiedReferences, simpleNameReferences, rootReferences);
 	this.definedTypeNames = definedTypeNames; // do not bother interning member type names (i.e. 'A$M')
 }
+
+AdditionalTypeCollection(char[][] definedTypeNames, EncodedReferences encodedReferences, int encodedOffset) {
+	super(encodedReferences, encodedOffset);
+	this.definedTypeNames = definedTypeNames;
+}
 }
 
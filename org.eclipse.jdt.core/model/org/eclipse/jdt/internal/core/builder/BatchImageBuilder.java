@@ -14,12 +14,30 @@ import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
 
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.*;
 import org.eclipse.jdt.internal.compiler.ClassFile;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
 import org.eclipse.jdt.internal.compiler.impl.CompilerStats;
+import org.eclipse.jdt.internal.compiler.problem.AbortCompilation;
+import org.eclipse.jdt.internal.compiler.util.HashtableOfObject;
+import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
+import org.eclipse.jdt.internal.compiler.util.SimpleSet;
+import org.eclipse.jdt.internal.compiler.util.SuffixConstants;
+import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.util.CacheFiles;
 import org.eclipse.jdt.internal.core.util.Messages;
 import org.eclipse.jdt.internal.core.util.Util;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
 import java.util.*;
 
 public class BatchImageBuilder extends AbstractImageBuilder {
@@ -28,12 +46,36 @@ public class BatchImageBuilder extends AbstractImageBuilder {
 	ArrayList secondaryTypes; // qualified names for all secondary types found during batch compile
 	StringSet typeLocatorsWithUndefinedTypes; // type locators for all source files with errors that may be caused by 'not found' secondary types
 
+	CompiledUnitCache unitCache; // null if the compiled units are not cached
+	byte[] buildKey; // digest of the compiler options & of the classpath of the project
+	SimpleLookupTable unitKeys; // keyed by type locator, value is the key of the source file in the cache
+	SimpleLookupTable compiledUnits; // keyed by source file, value is the CompiledUnit to store once the build is done
+	SimpleLookupTable restoredUnits; // keyed by source file, value is the CompiledUnit restored from the cache
+	HashtableOfObject changedTypeNames; // simple names of the top level types of the source files to compile
+	HashtableOfObject addedTypeNames; // simple names of the top level types compiled since the units were restored, not in changedTypeNames
+
+public static CompiledUnitCache UNIT_CACHE = CompiledUnitCache.create(System.getProperty(CompiledUnitCache.PROPERTY));
+
 protected BatchImageBuilder(JavaBuilder javaBuilder, boolean buildStarting) {
 	super(javaBuilder, buildStarting, null);
 	this.nameEnvironment.isIncrementalBuild = false;
 	this.incrementalBuilder = null;
 	this.secondaryTypes = null;
 	this.typeLocatorsWithUndefinedTypes = null;
+	// participants may generate files or report problems which cannot be restored
+	this.unitCache = buildStarting && javaBuilder.participants == null ? UNIT_CACHE : null;
+}
+
+public void acceptResult(CompilationResult result) {
+	CompiledUnit unit = this.unitCache == null ? null : newCompiledUnit(result);
+	if (this.changedTypeNames != null)
+		recordAddedTypeNames(result);
+	super.acceptResult(result);
+	if (unit != null) {
+		for (int i = 0, l = unit.classFileNames.length; i < l; i++)
+			this.newState.recordStructuralHash(unit.classFileNames[i], unit.structuralHashes[i]);
+		this.compiledUnits.put(result.getCompilationUnit(), unit);
+	}
 }
 
 public void build() {
@@ -42,32 +84,49 @@ public void build() {
 
 	try {
 		this.notifier.subTask(Messages.bind(Messages.build_cleaningOutput, this.javaBuilder.currentProject.getName()));
-		JavaBuilder.removeProblemsAndTasksFor(this.javaBuilder.currentProject);
-		cleanOutputFolders(true);
-		this.notifier.updateProgressDelta(0.05f);
-
-		this.notifier.subTask(Messages.build_analyzingSources);
-		ArrayList sourceFiles = new ArrayList(33);
-		addAllSourceFiles(sourceFiles);
-		this.notifier.updateProgressDelta(0.10f);
-
-		if (sourceFiles.size() > 0) {
-			SourceFile[] allSourceFiles = new SourceFile[sourceFiles.size()];
-			sourceFiles.toArray(allSourceFiles);
-
-			this.notifier.setProgressPerCompilationUnit(0.75f / allSourceFiles.length);
-			this.workQueue.addAll(allSourceFiles);
-			compile(allSourceFiles);
-
-			if (this.typeLocatorsWithUndefinedTypes != null)
-				if (this.secondaryTypes != null && !this.secondaryTypes.isEmpty())
-					rebuildTypesAffectedBySecondaryTypes();
-			if (this.incrementalBuilder != null)
-				this.incrementalBuilder.buildAfterBatchBuild();
+		// keep the markers of the problems & tasks which did not change, the others are deleted once the sources are compiled
+		IMarker[] problems = JavaBuilder.getProblemsFor(this.javaBuilder.currentProject);
+		IMarker[] tasks = JavaBuilder.getTasksFor(this.javaBuilder.currentProject);
+		IMarker[] markers = new IMarker[problems.length + tasks.length];
+		System.arraycopy(problems, 0, markers, 0, problems.length);
+		System.arraycopy(tasks, 0, markers, problems.length, tasks.length);
+		reuseMarkers(markers);
+		try {
+			cleanOutputFolders(true);
+			this.notifier.updateProgressDelta(0.05f);
+
+			this.notifier.subTask(Messages.build_analyzingSources);
+			ArrayList sourceFiles = new ArrayList(33);
+			addAllSourceFiles(sourceFiles);
+			this.notifier.updateProgressDelta(0.10f);
+
+			if (sourceFiles.size() > 0) {
+				SourceFile[] allSourceFiles = new SourceFile[sourceFiles.size()];
+				sourceFiles.toArray(allSourceFiles);
+
+				this.notifier.setProgressPerCompilationUnit(0.75f / allSourceFiles.length);
+				if (this.unitCache != null)
+					allSourceFiles = restoreCompiledUnits(allSourceFiles);
+				this.workQueue.addAll(allSourceFiles);
+				if (allSourceFiles.length > 0)
+					compile(allSourceFiles);
+				if (this.addedTypeNames != null)
+					compileRestoredUnitsReferencingAddedTypes();
+			}
+		} finally {
+			deleteUnusedMarkers(); // before the incremental builder looks for the markers of the source files
 		}
 
+		if (this.typeLocatorsWithUndefinedTypes != null)
+			if (this.secondaryTypes != null && !this.secondaryTypes.isEmpty())
+				rebuildTypesAffectedBySecondaryTypes();
+		if (this.incrementalBuilder != null)
+			this.incrementalBuilder.buildAfterBatchBuild();
+
 		if (this.javaBuilder.javaProject.hasCycleMarker())
 			this.javaBuilder.mustPropagateStructuralChanges();
+		if (this.unitCache != null)
+			storeCompiledUnits();
 	} catch (CoreException e) {
 		throw internalException(e);
 	} finally {
@@ -169,6 +228,11 @@ protected void cleanUp() {
 	this.incrementalBuilder = null;
 	this.secondaryTypes = null;
 	this.typeLocatorsWithUndefinedTypes = null;
+	this.unitKeys = null;
+	this.compiledUnits = null;
+	this.restoredUnits = null;
+	this.changedTypeNames = null;
+	this.addedTypeNames = null;
 	super.cleanUp();
 }
 
@@ -178,6 +242,114 @@ protected void compile(SourceFile[] units, SourceFile[] additionalUnits, boolean
 	super.compile(units, additionalUnits, compilingFirstGroup);
 }
 
+/*
+ * Compiles the restored units which reference the simple name of a type compiled since they were restored, and
+ * the restored units depending on them, since their references may now be resolved differently.
+ */
+private void compileRestoredUnitsReferencingAddedTypes() {
+	while (this.addedTypeNames.elementSize > 0) {
+		HashtableOfObject addedNames = this.addedTypeNames;
+		this.addedTypeNames = new HashtableOfObject();
+		SimpleSet toCompile = new SimpleSet();
+		SimpleSet compiledTypeNames = new SimpleSet();
+		Object[] keyTable = this.restoredUnits.keyTable;
+		Object[] valueTable = this.restoredUnits.valueTable;
+		for (int i = 0, l = keyTable.length; i < l; i++) {
+			CompiledUnit unit = (CompiledUnit) valueTable[i];
+			if (unit != null && references(unit.simpleNameReferences, addedNames)) {
+				toCompile.add(keyTable[i]);
+				for (int j = 0, m = unit.typeNames.length; j < m; j++)
+					compiledTypeNames.add(unit.typeNames[j]);
+			}
+		}
+		if (toCompile.elementSize == 0) continue;
+		boolean found;
+		do {
+			found = false;
+			for (int i = 0, l = keyTable.length; i < l; i++) {
+				CompiledUnit unit = (CompiledUnit) valueTable[i];
+				if (unit != null && !toCompile.includes(keyTable[i]) && dependsOn(unit, compiledTypeNames)) {
+					toCompile.add(keyTable[i]);
+					for (int j = 0, m = unit.typeNames.length; j < m; j++)
+						compiledTypeNames.add(unit.typeNames[j]);
+					found = true;
+				}
+			}
+		} while (found);
+
+		SourceFile[] units = new SourceFile[toCompile.elementSize];
+		Object[] values = toCompile.values;
+		for (int i = 0, l = values.length, index = 0; i < l; i++) {
+			SourceFile sourceFile = (SourceFile) values[i];
+			if (sourceFile == null) continue;
+			recordChangedTypeNames((CompiledUnit) this.restoredUnits.removeKey(sourceFile));
+			JavaBuilder.removeProblemsAndTasksFor(sourceFile.resource);
+			units[index++] = sourceFile;
+		}
+		if (JavaBuilder.DEBUG)
+			System.out.println("Compiling " + units.length + " restored units referencing types compiled since they were restored"); //$NON-NLS-1$ //$NON-NLS-2$
+		this.workQueue.addAll(units);
+		compile(units);
+	}
+}
+
+/*
+ * Answers a SHA-1 digest of the compiler options and of the classpath of the project, or null if the classpath
+ * contains class folders whose contents are not known.
+ */
+private byte[] computeBuildKey() throws IOException {
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	DataOutputStream out = new DataOutputStream(bytes);
+	out.writeInt(CompiledUnitCache.VERSION << 8 | State.VERSION);
+	out.writeBoolean(JavaBuilder.TRACK_MEMBER_REFERENCES);
+	Map options = this.compiler.options.getMap();
+	Object[] optionNames = options.keySet().toArray();
+	Arrays.sort(optionNames);
+	for (int i = 0, l = optionNames.length; i < l; i++) {
+		out.writeUTF((String) optionNames[i]);
+		out.writeUTF(String.valueOf(options.get(optionNames[i])));
+	}
+
+	ClasspathLocation[] binaryLocations = this.nameEnvironment.binaryLocations;
+	for (int i = 0, l = binaryLocations.length; i < l; i++) {
+		ClasspathLocation location = binaryLocations[i];
+		if (location instanceof ClasspathMultiDirectory) continue; // the output folders of the project
+		if (location instanceof ClasspathJar) {
+			ClasspathJar jar = (ClasspathJar) location;
+			out.writeUTF(jar.zipFilename);
+			out.writeLong(jar.lastModified());
+			out.writeLong(new File(jar.zipFilename).length());
+			out.writeInt(jar.accessRuleSet == null ? 0 : jar.accessRuleSet.hashCode());
+		} else if (location instanceof ClasspathDirectory) {
+			ClasspathDirectory classFolder = (ClasspathDirectory) location;
+			State prerequisiteState = getOutputState(classFolder.binaryFolder);
+			if (prerequisiteState == null) return null;
+			out.writeUTF(classFolder.binaryFolder.getFullPath().toString());
+			out.writeLong(prerequisiteState.computeApiHash());
+			out.writeInt(classFolder.accessRuleSet == null ? 0 : classFolder.accessRuleSet.hashCode());
+		}
+	}
+	out.close();
+	return CacheFiles.newDigest().digest(bytes.toByteArray());
+}
+
+/*
+ * Answers the key of the given source file in the cache, or null if its contents cannot be read.
+ */
+private byte[] computeUnitKey(SourceFile sourceFile, MessageDigest digest) {
+	char[] contents;
+	try {
+		contents = sourceFile.getContents();
+	} catch (AbortCompilation e) {
+		return null;
+	}
+	digest.update(this.buildKey);
+	updateDigest(digest, contents);
+	updateDigest(digest, sourceFile.initialTypeName.toCharArray());
+	digest.update((byte) (sourceFile.ignoreOptionalProblems() ? 1 : 0));
+	return digest.digest();
+}
+
 protected void copyExtraResourcesBack(ClasspathMultiDirectory sourceLocation, final boolean deletedAll) throws CoreException {
 	// When, if ever, does a builder need to copy resources files (not .java or .class) into the output folder?
 	// If we wipe the output folder at the beginning of the build then all 'extra' resources must be copied to the output folder.
@@ -247,6 +419,105 @@ protected IResource findOriginalResource(IPath partialPath) {
 	return null;
 }
 
+/*
+ * Answers whether the given unit depends on one of the given types.
+ */
+private static boolean dependsOn(CompiledUnit unit, SimpleSet typeNames) {
+	for (int i = 0, l = unit.dependencyNames.length; i < l; i++)
+		if (typeNames.includes(unit.dependencyNames[i]))
+			return true;
+	return false;
+}
+
+/*
+ * Answers the last built state of the project whose output folder is the given class folder, or null if the class
+ * folder is not the output folder of a Java project.
+ */
+private State getOutputState(IContainer classFolder) {
+	Object state = JavaModelManager.getJavaModelManager().getLastBuiltState(classFolder.getProject(), null);
+	if (!(state instanceof State)) return null;
+	ClasspathMultiDirectory[] outputLocations = ((State) state).sourceLocations;
+	for (int i = 0, l = outputLocations.length; i < l; i++)
+		if (outputLocations[i].binaryFolder.equals(classFolder))
+			return (State) state;
+	return null;
+}
+
+/*
+ * Answers whether the references of the given unit would be resolved as when it was compiled, recording it as
+ * a dependent of the units defining the types of the project it references.
+ */
+private boolean hasValidReferences(int index, CompiledUnit unit, CompiledUnit[] units, long[] apiHashes,
+	SimpleLookupTable definers, HashtableOfObject changedTypeNames, ArrayList[] dependents) {
+
+	SimpleSet dependencyNames = new SimpleSet(unit.dependencyNames.length);
+	for (int i = 0, l = unit.dependencyNames.length; i < l; i++) {
+		Integer definer = (Integer) definers.get(unit.dependencyNames[i]);
+		int definerIndex = definer == null ? -1 : definer.intValue();
+		if (definerIndex < 0 || units[definerIndex] == null || apiHashes[definerIndex] != unit.dependencyHashes[i])
+			return false;
+		if (definerIndex != index) {
+			if (dependents[definerIndex] == null)
+				dependents[definerIndex] = new ArrayList();
+			dependents[definerIndex].add(new Integer(index));
+		}
+		dependencyNames.add(unit.dependencyNames[i]);
+	}
+	// a type of the project must not hide a type which was found elsewhere
+	for (int i = 0, l = unit.qualifiedReferences.length; i < l; i++) {
+		String typeName = projectTypeName(unit.qualifiedReferences[i], definers);
+		if (typeName != null && !dependencyNames.includes(typeName))
+			return false;
+	}
+	// the source files to compile may define new types
+	for (int i = 0, l = unit.simpleNameReferences.length; i < l; i++)
+		if (changedTypeNames.containsKey(unit.simpleNameReferences[i]))
+			return false;
+	return true;
+}
+
+/*
+ * Answers the unit to store in the cache for the given result, or null if it cannot be restored from the cache.
+ * Its class files are read from the output folder once the build is done.
+ */
+private CompiledUnit newCompiledUnit(CompilationResult result) {
+	SourceFile sourceFile = (SourceFile) result.getCompilationUnit();
+	if (this.workQueue.isCompiled(sourceFile)) return null;
+	String typeLocator = sourceFile.typeLocator();
+	byte[] key = (byte[]) this.unitKeys.get(typeLocator);
+	if (key == null || result.hasErrors()) return null;
+	CategorizedProblem[] problems = result.getProblems();
+	CategorizedProblem[] tasks = result.getTasks();
+	if (!CompiledUnit.canStore(problems) || !CompiledUnit.canStore(tasks)) return null;
+
+	ClassFile[] classFiles = result.getClassFiles();
+	int length = classFiles.length;
+	CompiledUnit unit = new CompiledUnit();
+	unit.key = key;
+	unit.classFileNames = new String[length];
+	unit.structuralHashes = new long[length];
+	ArrayList typeNames = new ArrayList(1);
+	for (int i = 0; i < length; i++) {
+		ClassFile classFile = classFiles[i];
+		String fileName = new String(classFile.fileName());
+		if (!classFile.isNestedType) {
+			if (this.newState.isDuplicateLocator(fileName, typeLocator)) return null;
+			typeNames.add(fileName);
+		}
+		unit.classFileNames[i] = fileName;
+		try {
+			unit.structuralHashes[i] = new ClassFileReader(classFile.getBytes(), classFile.fileName()).getStructuralHash();
+		} catch (ClassFormatException e) {
+			return null;
+		}
+	}
+	unit.typeNames = new String[typeNames.size()];
+	typeNames.toArray(unit.typeNames);
+	unit.problems = problems == null ? CompiledUnit.NO_PROBLEMS : problems;
+	unit.tasks = tasks == null ? CompiledUnit.NO_PROBLEMS : tasks;
+	return unit;
+}
+
 private void printStats() {
 	if (this.compiler == null) return;
 	CompilerStats compilerStats = this.compiler.stats;
@@ -269,6 +540,53 @@ protected void processAnnotationResults(CompilationParticipantResult[] results)
 	this.incrementalBuilder.processAnnotationResults(results);
 }
 
+/*
+ * Answers the name of the type of the project (one of the keys of the given table) which is named by the given
+ * qualified reference, or by one of its prefixes when it names a member type. Answers null if none.
+ */
+private static String projectTypeName(char[][] qualifiedName, SimpleLookupTable types) {
+	for (int length = qualifiedName.length; length > 0; length--) {
+		String typeName = new String(CharOperation.concatWith(CharOperation.subarray(qualifiedName, 0, length), '/'));
+		if (types.containsKey(typeName))
+			return typeName;
+	}
+	return null;
+}
+
+/*
+ * Records the simple names of the top level types of the given result which are not changed type names, such as
+ * the secondary types of the source files which were not found in the cache.
+ */
+private void recordAddedTypeNames(CompilationResult result) {
+	ClassFile[] classFiles = result.getClassFiles();
+	for (int i = 0, l = classFiles.length; i < l; i++) {
+		if (classFiles[i].isNestedType) continue;
+		char[] simpleName = CharOperation.lastSegment(classFiles[i].fileName(), '/');
+		if (!this.changedTypeNames.containsKey(simpleName)) {
+			this.changedTypeNames.put(simpleName, simpleName);
+			this.addedTypeNames.put(simpleName, simpleName);
+		}
+	}
+}
+
+/*
+ * Records the simple names of the top level types of the given unit as changed, since its source file is compiled.
+ */
+private void recordChangedTypeNames(CompiledUnit unit) {
+	for (int i = 0, l = unit.typeNames.length; i < l; i++)
+		this.changedTypeNames.put(CharOperation.lastSegment(unit.typeNames[i].toCharArray(), '/'), unit);
+}
+
+/*
+ * Answers whether one of the given simple names is a key of the given table.
+ */
+private static boolean references(char[][] simpleNames, HashtableOfObject names) {
+	for (int i = 0, l = simpleNames.length; i < l; i++)
+		if (names.containsKey(simpleNames[i]))
+			return true;
+	return false;
+}
+
 protected void rebuildTypesAffectedBySecondaryTypes() {
 	// to compile types that could not find 'missing' secondary types because of multiple
 	// compile groups, we need to incrementally recompile all affected types as if the missing
@@ -292,6 +610,135 @@ protected void rebuildTypesAffectedBySecondaryTypes() {
 		this.typeLocatorsWithUndefinedTypes);
 }
 
+/*
+ * Writes the class files of the given unit, restores its problems & tasks and records it in the new state
+ * as if it was compiled.
+ */
+private void restoreCompiledUnit(SourceFile sourceFile, CompiledUnit unit) throws CoreException {
+	String typeLocator = sourceFile.typeLocator();
+	ArrayList definedTypeNames = new ArrayList(unit.classFileNames.length);
+	for (int i = 0, l = unit.classFileNames.length; i < l; i++)
+		definedTypeNames.add(writeCachedClassFile(sourceFile, unit.classFileNames[i], unit.classFileBytes[i], unit.structuralHashes[i]));
+	for (int i = 0, l = unit.typeNames.length; i < l; i++)
+		this.newState.recordLocatorForType(unit.typeNames[i], typeLocator);
+	this.newState.record(typeLocator, unit.qualifiedReferences, unit.simpleNameReferences, unit.rootReferences,
+		sourceFile.getMainTypeName(), definedTypeNames);
+	if (unit.memberReferences != null)
+		this.newState.recordMemberReferences(typeLocator, unit.memberReferences);
+	if (unit.problems.length > 0) {
+		this.notifier.updateProblemCounts(unit.problems);
+		storeProblemsFor(sourceFile, unit.problems);
+	}
+	storeTasksFor(sourceFile, unit.tasks);
+	this.workQueue.finished(sourceFile);
+	this.notifier.compiled(sourceFile);
+}
+
+/*
+ * Restores the compiled units of the given source files which are found in the cache, and whose references
+ * to the types of the project are still valid. Answers the source files which must be compiled.
+ */
+private SourceFile[] restoreCompiledUnits(SourceFile[] sourceFiles) throws CoreException {
+	MessageDigest digest;
+	try {
+		this.buildKey = computeBuildKey();
+		digest = CacheFiles.newDigest();
+	} catch (IOException e) {
+		this.buildKey = null;
+		digest = null;
+	}
+	if (this.buildKey == null) {
+		if (JavaBuilder.DEBUG)
+			System.out.println("Compiled units are not cached, the classpath contains unknown class folders"); //$NON-NLS-1$
+		this.unitCache = null;
+		return sourceFiles;
+	}
+	this.notifier.subTask(Messages.build_analyzingSources);
+	int length = sourceFiles.length;
+	this.unitKeys = new SimpleLookupTable(length);
+	this.compiledUnits = new SimpleLookupTable(length);
+	this.restoredUnits = new SimpleLookupTable();
+	CompiledUnit[] units = new CompiledUnit[length];
+	SimpleLookupTable definers = new SimpleLookupTable(length); // keyed by qualified type name, value is the index of the unit defining it, -1 if unknown
+	this.changedTypeNames = new HashtableOfObject();
+	this.addedTypeNames = new HashtableOfObject();
+	for (int i = 0; i < length; i++) {
+		SourceFile sourceFile = sourceFiles[i];
+		byte[] key = computeUnitKey(sourceFile, digest);
+		if (key != null) {
+			this.unitKeys.put(sourceFile.typeLocator(), key);
+			units[i] = this.unitCache.read(key);
+		}
+		if (units[i] == null) {
+			definers.put(sourceFile.initialTypeName, new Integer(-1));
+			// the other types of the source file are only known once it is compiled, see recordAddedTypeNames(CompilationResult)
+			this.changedTypeNames.put(sourceFile.getMainTypeName(), sourceFile);
+		}
+		this.notifier.checkCancel();
+	}
+	for (int i = 0; i < length; i++) {
+		if (units[i] == null) continue;
+		String[] typeNames = units[i].typeNames;
+		for (int j = 0, l = typeNames.length; j < l; j++) {
+			Integer definer = (Integer) definers.get(typeNames[j]);
+			if (definer == null) {
+				definers.put(typeNames[j], new Integer(i));
+			} else {
+				// also defined by another source file, let the compiler report it
+				if (definer.intValue() >= 0)
+					units[definer.intValue()] = null;
+				units[i] = null;
+				definers.put(typeNames[j], new Integer(-1));
+			}
+		}
+	}
+
+	// a unit is compiled if one of the types of the project it references is compiled, or has a different API
+	long[] apiHashes = new long[length];
+	for (int i = 0; i < length; i++)
+		if (units[i] != null)
+			apiHashes[i] = units[i].apiHash();
+	ArrayList[] dependents = new ArrayList[length];
+	boolean[] mustCompile = new boolean[length];
+	ArrayList toPropagate = new ArrayList();
+	for (int i = 0; i < length; i++) {
+		CompiledUnit unit = units[i];
+		if (unit == null || !hasValidReferences(i, unit, units, apiHashes, definers, this.changedTypeNames, dependents)) {
+			mustCompile[i] = true;
+			toPropagate.add(new Integer(i));
+		}
+	}
+	while (!toPropagate.isEmpty()) {
+		int index = ((Integer) toPropagate.remove(toPropagate.size() - 1)).intValue();
+		ArrayList indexDependents = dependents[index];
+		for (int j = 0, l = indexDependents == null ? 0 : indexDependents.size(); j < l; j++) {
+			int dependent = ((Integer) indexDependents.get(j)).intValue();
+			if (!mustCompile[dependent]) {
+				mustCompile[dependent] = true;
+				toPropagate.add(new Integer(dependent));
+			}
+		}
+	}
+
+	ArrayList toCompile = new ArrayList();
+	for (int i = 0; i < length; i++) {
+		if (mustCompile[i]) {
+			toCompile.add(sourceFiles[i]);
+			if (units[i] != null)
+				recordChangedTypeNames(units[i]);
+		} else {
+			restoreCompiledUnit(sourceFiles[i], units[i]);
+			units[i].classFileBytes = null;
+			this.restoredUnits.put(sourceFiles[i], units[i]);
+		}
+	}
+	if (JavaBuilder.DEBUG)
+		System.out.println("Restored " + this.restoredUnits.elementSize + " of " + length + " compiled units from " + this.unitCache); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	SourceFile[] result = new SourceFile[toCompile.size()];
+	toCompile.toArray(result);
+	return result;
+}
+
 protected void storeProblemsFor(SourceFile sourceFile, CategorizedProblem[] problems) throws CoreException {
 	if (sourceFile == null || problems == null || problems.length == 0) return;
 
@@ -308,6 +755,119 @@ protected void storeProblemsFor(SourceFile sourceFile, CategorizedProblem[] prob
 	super.storeProblemsFor(sourceFile, problems);
 }
 
+/*
+ * Stores the given compiled unit in the cache, with the API of the types of the project it references.
+ * Answers false if these types are not all cached.
+ */
+private boolean storeCompiledUnit(SourceFile sourceFile, CompiledUnit unit, SimpleLookupTable apiHashes) throws JavaModelException {
+	ReferenceCollection references = (ReferenceCollection) this.newState.references.get(sourceFile.typeLocator());
+	if (references == null) return false;
+	references = references.getDecodedReferences();
+	ArrayList dependencyNames = new ArrayList();
+	ArrayList dependencyHashes = new ArrayList();
+	char[][][] qualifiedReferences = references.qualifiedNameReferences;
+	for (int i = 0, l = qualifiedReferences.length; i < l; i++) {
+		String typeName = projectTypeName(qualifiedReferences[i], this.newState.typeLocators);
+		if (typeName == null || dependencyNames.contains(typeName)) continue;
+		Long apiHash = (Long) apiHashes.get(typeName);
+		if (apiHash == null) return false;
+		dependencyNames.add(typeName);
+		dependencyHashes.add(apiHash);
+	}
+
+	int length = unit.classFileNames.length;
+	unit.classFileBytes = new byte[length][];
+	IContainer outputFolder = sourceFile.sourceLocation.binaryFolder;
+	for (int i = 0; i < length; i++) {
+		String fileName = unit.classFileNames[i];
+		IFile file = outputFolder.getFile(new Path(fileName).addFileExtension(SuffixConstants.EXTENSION_class));
+		if (this.newState.getClassFileHashes(fileName, file) == null) return false; // written again by another source file
+		unit.classFileBytes[i] = Util.getResourceContentsAsByteArray(file);
+	}
+	unit.qualifiedReferences = references.qualifiedNameReferences;
+	unit.simpleNameReferences = references.simpleNameReferences;
+	unit.rootReferences = references.rootReferences;
+	unit.memberReferences = references.memberReferences;
+	unit.dependencyNames = new String[dependencyNames.size()];
+	dependencyNames.toArray(unit.dependencyNames);
+	unit.dependencyHashes = new long[dependencyHashes.size()];
+	for (int i = 0, l = unit.dependencyHashes.length; i < l; i++)
+		unit.dependencyHashes[i] = ((Long) dependencyHashes.get(i)).longValue();
+	this.unitCache.write(unit);
+	unit.classFileBytes = null;
+	return true;
+}
+
+/*
+ * Stores in the cache the units compiled by this build, once the API of all the types of the project is known.
+ */
+private void storeCompiledUnits() throws CoreException {
+	if (this.compiledUnits == null || this.compiledUnits.elementSize == 0) return;
+	this.notifier.subTask(Messages.bind(Messages.build_saveStateProgress, this.javaBuilder.currentProject.getName()));
+	SimpleLookupTable apiHashes = new SimpleLookupTable(this.newState.typeLocators.elementSize); // keyed by qualified type name
+	SimpleLookupTable[] tables = new SimpleLookupTable[] {this.restoredUnits, this.compiledUnits};
+	for (int t = 0; t < 2; t++) {
+		Object[] valueTable = tables[t].valueTable;
+		for (int i = 0, l = valueTable.length; i < l; i++) {
+			CompiledUnit unit = (CompiledUnit) valueTable[i];
+			if (unit == null) continue;
+			Long apiHash = new Long(unit.apiHash());
+			for (int j = 0, m = unit.typeNames.length; j < m; j++)
+				apiHashes.put(unit.typeNames[j], apiHash);
+		}
+	}
+	int stored = 0;
+	Object[] keyTable = this.compiledUnits.keyTable;
+	Object[] valueTable = this.compiledUnits.valueTable;
+	for (int i = 0, l = keyTable.length; i < l; i++)
+		if (keyTable[i] != null && storeCompiledUnit((SourceFile) keyTable[i], (CompiledUnit) valueTable[i], apiHashes))
+			stored++;
+	if (JavaBuilder.DEBUG)
+		System.out.println("Stored " + stored + " compiled units in " + this.unitCache); //$NON-NLS-1$ //$NON-NLS-2$
+}
+
+/*
+ * Updates the given digest with the length and the characters of the given array.
+ */
+private static void updateDigest(MessageDigest digest, char[] chars) {
+	int length = chars.length;
+	byte[] bytes = new byte[4 + 2 * length];
+	bytes[0] = (byte) (length >>> 24);
+	bytes[1] = (byte) (length >>> 16);
+	bytes[2] = (byte) (length >>> 8);
+	bytes[3] = (byte) length;
+	for (int i = 0; i < length; i++) {
+		bytes[4 + 2 * i] = (byte) (chars[i] >>> 8);
+		bytes[5 + 2 * i] = (byte) chars[i];
+	}
+	digest.update(bytes);
+}
+
+/*
+ * Writes the given class file of a unit restored from the cache, answering its name as in Y or Y$M.
+ */
+private char[] writeCachedClassFile(SourceFile sourceFile, String qualifiedFileName, byte[] bytes, long structuralHash) throws CoreException {
+	IPath filePath = new Path(qualifiedFileName);
+	IContainer outputFolder = sourceFile.sourceLocation.binaryFolder;
+	IContainer container = outputFolder;
+	if (filePath.segmentCount() > 1) {
+		container = createFolder(filePath.removeLastSegments(1), outputFolder);
+		filePath = new Path(filePath.lastSegment());
+	}
+	IFile file = container.getFile(filePath.addFileExtension(SuffixConstants.EXTENSION_class));
+	this.newState.recordClassFileHashes(qualifiedFileName, bytes.length, State.computeContentHash(bytes), structuralHash);
+	InputStream input = new ByteArrayInputStream(bytes);
+	if (file.exists()) {
+		if (!file.isDerived())
+			file.setDerived(true, null);
+		file.setContents(input, true, false, null);
+	} else {
+		file.create(input, IResource.FORCE | IResource.DERIVED, null);
+	}
+	this.newState.recordClassFileStamps(qualifiedFileName, file);
+	return filePath.lastSegment().toCharArray();
+}
+
 public String toString() {
 	return "batch image builder for:\n\tnew state: " + this.newState; //$NON-NLS-1$
 }
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.builder;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblem;
+import org.eclipse.jdt.internal.compiler.problem.ProblemSeverities;
+import org.eclipse.jdt.internal.compiler.util.FNVHash;
+
+/**
+ * The output of the compilation of a source file, as stored in a {@link CompiledUnitCache}: its class files,
+ * its problems & tasks, its references and the API of the types of its project it depends on.
+ */
+class CompiledUnit {
+
+static final CategorizedProblem[] NO_PROBLEMS = new CategorizedProblem[0];
+
+byte[] key; // the SHA-1 digest of the source file, the compiler options & the classpath it was compiled with
+String[] typeNames; // qualified names of the top level types "p1/p2/A"
+String[] classFileNames; // qualified names of the class files "p1/p2/A$M"
+long[] structuralHashes; // of the class files
+byte[][] classFileBytes;
+CategorizedProblem[] problems;
+CategorizedProblem[] tasks;
+char[][][] qualifiedReferences;
+char[][] simpleNameReferences;
+char[][] rootReferences;
+char[][] memberReferences; // null if unknown
+String[] dependencyNames; // qualified names of the types of the project referenced by the unit
+long[] dependencyHashes; // API hashes of the units defining these types when the unit was compiled
+
+CompiledUnit() {
+	// fields are set by the builder or read from the cache
+}
+
+/*
+ * Answers a hash of the structure of all the class files of this unit, which does not depend on their order.
+ */
+long apiHash() {
+	return apiHash(this.classFileNames, this.structuralHashes);
+}
+
+static long apiHash(String[] classFileNames, long[] structuralHashes) {
+	long hash = 0;
+	for (int i = 0, l = classFileNames.length; i < l; i++)
+		hash += classFileNames[i].hashCode() * FNVHash.PRIME ^ structuralHashes[i];
+	return hash;
+}
+
+/*
+ * Answers whether the given problems can be restored from the cache: only the problems reported by the compiler
+ * are stored, not the ones contributed with their own marker type or attributes.
+ */
+static boolean canStore(CategorizedProblem[] problems) {
+	if (problems == null) return true;
+	for (int i = 0, l = problems.length; i < l; i++) {
+		CategorizedProblem problem = problems[i];
+		if (problem.isError() || !(problem instanceof DefaultProblem)) return false;
+		String[] extraAttributeNames = problem.getExtraMarkerAttributeNames();
+		if (extraAttributeNames != null && extraAttributeNames.length > 0) return false;
+	}
+	return true;
+}
+
+/*
+ * Reads a unit written by write(DataOutputStream). Since only units without errors are stored, all the problems are warnings.
+ */
+static CompiledUnit read(DataInputStream in) throws IOException {
+	CompiledUnit unit = new CompiledUnit();
+	in.readFully(unit.key = new byte[readLength(in)]);
+	int length = readLength(in);
+	unit.typeNames = new String[length];
+	for (int i = 0; i < length; i++)
+		unit.typeNames[i] = in.readUTF();
+	length = readLength(in);
+	unit.classFileNames = new String[length];
+	unit.structuralHashes = new long[length];
+	unit.classFileBytes = new byte[length][];
+	for (int i = 0; i < length; i++) {
+		unit.classFileNames[i] = in.readUTF();
+		unit.structuralHashes[i] = in.readLong();
+		in.readFully(unit.classFileBytes[i] = new byte[readLength(in)]);
+	}
+	unit.problems = readProblems(in);
+	unit.tasks = readProblems(in);
+	length = readLength(in);
+	unit.qualifiedReferences = new char[length][][];
+	for (int i = 0; i < length; i++)
+		unit.qualifiedReferences[i] = CharOperation.splitOn('/', in.readUTF().toCharArray());
+	unit.simpleNameReferences = readNames(in);
+	unit.rootReferences = readNames(in);
+	unit.memberReferences = in.readBoolean() ? readNames(in) : null;
+	length = readLength(in);
+	unit.dependencyNames = new String[length];
+	unit.dependencyHashes = new long[length];
+	for (int i = 0; i < length; i++) {
+		unit.dependencyNames[i] = in.readUTF();
+		unit.dependencyHashes[i] = in.readLong();
+	}
+	return unit;
+}
+
+/*
+ * Reads the length of an array, which cannot be greater than the number of bytes left to read.
+ */
+private static int readLength(DataInputStream in) throws IOException {
+	int length = in.readInt();
+	if (length < 0 || length > in.available())
+		throw new IOException("Corrupted compiled unit, invalid length: " + length); //$NON-NLS-1$
+	return length;
+}
+
+private static char[][] readNames(DataInputStream in) throws IOException {
+	char[][] names = new char[readLength(in)][];
+	for (int i = 0, l = names.length; i < l; i++)
+		names[i] = in.readUTF().toCharArray();
+	return names;
+}
+
+private static CategorizedProblem[] readProblems(DataInputStream in) throws IOException {
+	int length = readLength(in);
+	if (length == 0) return NO_PROBLEMS;
+	CategorizedProblem[] problems = new CategorizedProblem[length];
+	for (int i = 0; i < length; i++) {
+		char[] fileName = in.readUTF().toCharArray();
+		String message = in.readUTF();
+		int id = in.readInt();
+		String[] arguments = new String[readLength(in)];
+		for (int j = 0, l = arguments.length; j < l; j++)
+			arguments[j] = in.readUTF();
+		int start = in.readInt();
+		int end = in.readInt();
+		int line = in.readInt();
+		int column = in.readInt();
+		problems[i] = new DefaultProblem(fileName, message, id, arguments, ProblemSeverities.Warning, start, end, line, column);
+	}
+	return problems;
+}
+
+void write(DataOutputStream out) throws IOException {
+	out.writeInt(this.key.length);
+	out.write(this.key);
+	out.writeInt(this.typeNames.length);
+	for (int i = 0, l = this.typeNames.length; i < l; i++)
+		out.writeUTF(this.typeNames[i]);
+	out.writeInt(this.classFileNames.length);
+	for (int i = 0, l = this.classFileNames.length; i < l; i++) {
+		out.writeUTF(this.classFileNames[i]);
+		out.writeLong(this.structuralHashes[i]);
+		out.writeInt(this.classFileBytes[i].length);
+		out.write(this.classFileBytes[i]);
+	}
+	writeProblems(this.problems, out);
+	writeProblems(this.tasks, out);
+	out.writeInt(this.qualifiedReferences.length);
+	for (int i = 0, l = this.qualifiedReferences.length; i < l; i++)
+		out.writeUTF(new String(CharOperation.concatWith(this.qualifiedReferences[i], '/')));
+	writeNames(this.simpleNameReferences, out);
+	writeNames(this.rootReferences, out);
+	out.writeBoolean(this.memberReferences != null);
+	if (this.memberReferences != null)
+		writeNames(this.memberReferences, out);
+	out.writeInt(this.dependencyNames.length);
+	for (int i = 0, l = this.dependencyNames.length; i < l; i++) {
+		out.writeUTF(this.dependencyNames[i]);
+		out.writeLong(this.dependencyHashes[i]);
+	}
+}
+
+private static void writeNames(char[][] names, DataOutputStream out) throws IOException {
+	out.writeInt(names.length);
+	for (int i = 0, l = names.length; i < l; i++)
+		out.writeUTF(new String(names[i]));
+}
+
+private static void writeProblems(CategorizedProblem[] problems, DataOutputStream out) throws IOException {
+	int length = problems == null ? 0 : problems.length;
+	out.writeInt(length);
+	for (int i = 0; i < length; i++) {
+		DefaultProblem problem = (DefaultProblem) problems[i];
+		char[] fileName = problem.getOriginatingFileName();
+		out.writeUTF(fileName == null ? "" : new String(fileName)); //$NON-NLS-1$
+		out.writeUTF(problem.getMessage());
+		out.writeInt(problem.getID());
+		String[] arguments = problem.getArguments();
+		out.writeInt(arguments == null ? 0 : arguments.length);
+		for (int j = 0, l = arguments == null ? 0 : arguments.length; j < l; j++)
+			out.writeUTF(arguments[j]);
+		out.writeInt(problem.getSourceStart());
+		out.writeInt(problem.getSourceEnd());
+		out.writeInt(problem.getSourceLineNumber());
+		out.writeInt(problem.getSourceColumnNumber());
+	}
+}
+
+public String toString() {
+	return "Compiled unit " + (this.typeNames.length == 0 ? "" : this.typeNames[0]) //$NON-NLS-1$ //$NON-NLS-2$
+		+ " (" + this.classFileNames.length + " class files)"; //$NON-NLS-1$ //$NON-NLS-2$
+}
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.builder;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.eclipse.jdt.internal.core.util.CacheFiles;
+
+/**
+ * A directory of the outputs of the compilation of source files, used by full builds to avoid compiling
+ * the source files which did not change since they were last compiled.
+ * <p>
+ * A compiled unit is stored under a key which is a SHA-1 digest of the contents of its source file, the compiler
+ * options and the classpath of its project (see {@link BatchImageBuilder}). The key is also stored in the unit
+ * and checked when the unit is read. A unit is only reused if the types of its project it references have the same
+ * API as when it was compiled.
+ * The units are never removed from the store: the directory can be deleted when no build is running.
+ * </p>
+ */
+public class CompiledUnitCache {
+
+/**
+ * Directory of the cache, no cache is used if it is not set.
+ */
+public static final String PROPERTY = "jdt.core.builder.compiledUnitCache"; //$NON-NLS-1$
+static final int VERSION = 2;
+private static final String UNIT_SUFFIX = ".unit"; //$NON-NLS-1$
+
+File root;
+
+public CompiledUnitCache(File root) {
+	this.root = root;
+}
+
+/**
+ * Returns the cache located in the given directory, or <code>null</code> if no directory is given.
+ */
+public static CompiledUnitCache create(String directory) {
+	if (directory == null || directory.length() == 0) return null;
+	return new CompiledUnitCache(new File(directory));
+}
+
+File getUnitFile(byte[] key) {
+	return CacheFiles.getFile(this.root, Integer.toString(VERSION), CacheFiles.toHexString(key), UNIT_SUFFIX);
+}
+
+/*
+ * Answers the unit stored under the given key, or null if none.
+ */
+CompiledUnit read(byte[] key) {
+	File file = getUnitFile(key);
+	if (!file.isFile()) return null;
+	try {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			CompiledUnit unit = CompiledUnit.read(in);
+			return Arrays.equals(unit.key, key) ? unit : null;
+		} finally {
+			in.close();
+		}
+	} catch (IOException e) {
+		if (JavaBuilder.DEBUG)
+			System.out.println("Could not read compiled unit " + file + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+		file.delete(); // the unit is written again once compiled
+		return null;
+	} catch (RuntimeException e) {
+		// corrupted unit
+		if (JavaBuilder.DEBUG)
+			System.out.println("Could not read compiled unit " + file + ": " + e); //$NON-NLS-1$ //$NON-NLS-2$
+		file.delete();
+		return null;
+	}
+}
+
+/*
+ * Stores the given unit under its key.
+ */
+void write(final CompiledUnit unit) {
+	File file = getUnitFile(unit.key);
+	try {
+		CacheFiles.write(file, new CacheFiles.Contents() {
+			public void write(DataOutputStream out) throws IOException {
+				unit.write(out);
+			}
+		});
+	} catch (IOException e) {
+		if (JavaBuilder.DEBUG)
+			System.out.println("Could not write compiled unit " + file + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
+
+public String toString() {
+	return "Compiled unit cache " + this.root; //$NON-NLS-1$
+}
+}
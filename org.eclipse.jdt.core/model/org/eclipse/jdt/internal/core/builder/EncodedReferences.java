@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.builder;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The references of the collections read from a saved state, in their encoded form.
+ * <p>
+ * The references of all the collections of a state are kept in a single block of bytes until each collection
+ * is used: a collection is a sequence of ids encoded as variable length integers, which refer to the names
+ * and qualified names of the state. These names are read and interned along with the state.
+ * </p><p>
+ * The block is read into the heap rather than memory-mapped. A mapping would keep the state file open, and locked
+ * on Windows, for as long as a collection is not decoded, while the state is written again to the same file.
+ * The block is also only a fraction of the size of the decoded collections.
+ * </p>
+ */
+class EncodedReferences {
+
+char[][] names;
+char[][][] qualifiedNames;
+byte[] bytes;
+
+EncodedReferences(char[][] names, char[][][] qualifiedNames, byte[] bytes) {
+	this.names = names;
+	this.qualifiedNames = qualifiedNames;
+	this.bytes = bytes;
+}
+
+/*
+ * Decodes the references of the collection starting at the given offset into the given collection.
+ */
+void decode(int offset, ReferenceCollection collection) {
+	int[] position = new int[] {offset};
+	char[][][] qNames = new char[readInt(position)][][];
+	for (int i = 0, l = qNames.length; i < l; i++)
+		qNames[i] = this.qualifiedNames[readInt(position)];
+	char[][] sNames = new char[readInt(position)][];
+	for (int i = 0, l = sNames.length; i < l; i++)
+		sNames[i] = this.names[readInt(position)];
+	char[][] rNames = new char[readInt(position)][];
+	for (int i = 0, l = rNames.length; i < l; i++)
+		rNames[i] = this.names[readInt(position)];
+	char[][] mNames = null; // unknown member references
+	int mLength = readInt(position) - 1;
+	if (mLength >= 0) {
+		mNames = new char[mLength][];
+		for (int i = 0; i < mLength; i++)
+			mNames[i] = this.names[readInt(position)];
+	}
+	collection.qualifiedNameReferences = qNames.length == 0 ? ReferenceCollection.EmptyQualifiedNames : qNames;
+	collection.simpleNameReferences = sNames.length == 0 ? ReferenceCollection.EmptySimpleNames : sNames;
+	collection.rootReferences = rNames.length == 0 ? ReferenceCollection.EmptySimpleNames : rNames;
+	collection.memberReferences = mNames;
+}
+
+private int readInt(int[] position) {
+	int value = 0;
+	int shift = 0;
+	byte b;
+	do {
+		b = this.bytes[position[0]++];
+		value |= (b & 0x7F) << shift;
+		shift += 7;
+	} while (b < 0);
+	return value;
+}
+
+/*
+ * Reads a positive integer written by writeInt(OutputStream, int).
+ */
+static int readInt(DataInputStream in) throws IOException {
+	int value = 0;
+	int shift = 0;
+	byte b;
+	do {
+		b = in.readByte();
+		value |= (b & 0x7F) << shift;
+		shift += 7;
+	} while (b < 0);
+	return value;
+}
+
+/*
+ * Writes a positive integer using 1 byte per 7 bits, the highest bit of a byte telling whether another byte follows.
+ */
+static void writeInt(OutputStream out, int value) throws IOException {
+	while ((value & ~0x7F) != 0) {
+		out.write((value & 0x7F) | 0x80);
+		value >>>= 7;
+	}
+	out.write(value);
+}
+}
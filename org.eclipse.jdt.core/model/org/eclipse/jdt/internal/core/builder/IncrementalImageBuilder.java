@@ -38,6 +38,11 @@ protected ArrayList previousSourceFiles;
 protected StringSet qualifiedStrings;
 protected StringSet simpleStrings;
 protected StringSet rootStrings;
+// dependents of the types whose structural changes are limited to some members, and the names of these members
+protected StringSet memberQualifiedStrings;
+protected StringSet memberSimpleStrings;
+protected StringSet memberRootStrings;
+protected StringSet changedMemberNames;
 protected SimpleLookupTable secondaryTypesToRemove;
 protected boolean hasStructuralChanges;
 protected int compileLoop;
@@ -180,12 +185,23 @@ protected void buildAfterBatchBuild() {
 }
 
 protected void addAffectedSourceFiles() {
-	if (this.qualifiedStrings.elementSize == 0 && this.simpleStrings.elementSize == 0) return;
-
-	addAffectedSourceFiles(this.qualifiedStrings, this.simpleStrings, this.rootStrings, null);
+	if (this.qualifiedStrings.elementSize > 0 || this.simpleStrings.elementSize > 0)
+		addAffectedSourceFiles(this.qualifiedStrings, this.simpleStrings, this.rootStrings, null);
+	if (this.changedMemberNames.elementSize > 0) {
+		char[][] memberNames = new char[this.changedMemberNames.elementSize][];
+		String[] names = this.changedMemberNames.values;
+		for (int i = 0, l = names.length, index = 0; i < l; i++)
+			if (names[i] != null)
+				memberNames[index++] = names[i].toCharArray();
+		addAffectedSourceFiles(this.memberQualifiedStrings, this.memberSimpleStrings, this.memberRootStrings, null, memberNames);
+	}
 }
 
 protected void addAffectedSourceFiles(StringSet qualifiedSet, StringSet simpleSet, StringSet rootSet, StringSet affectedTypes) {
+	addAffectedSourceFiles(qualifiedSet, simpleSet, rootSet, affectedTypes, null);
+}
+
+protected void addAffectedSourceFiles(StringSet qualifiedSet, StringSet simpleSet, StringSet rootSet, StringSet affectedTypes, char[][] memberNames) {
 	// the qualifiedStrings are of the form 'p1/p2' & the simpleStrings are just 'X'
 	char[][][] internedQualifiedNames = ReferenceCollection.internQualifiedNames(qualifiedSet);
 	// if a well known qualified name was found then we can skip over these
@@ -196,6 +212,7 @@ protected void addAffectedSourceFiles(StringSet qualifiedSet, StringSet simpleSe
 	if (internedSimpleNames.length < simpleSet.elementSize)
 		internedSimpleNames = null;
 	char[][] internedRootNames = ReferenceCollection.internSimpleNames(rootSet, false);
+	NameIds query = this.newState.nameDictionary.query(internedQualifiedNames, internedSimpleNames, internedRootNames);
 
 	Object[] keyTable = this.newState.references.keyTable;
 	Object[] valueTable = this.newState.references.valueTable;
@@ -204,7 +221,8 @@ protected void addAffectedSourceFiles(StringSet qualifiedSet, StringSet simpleSe
 		if (typeLocator != null) {
 			if (affectedTypes != null && !affectedTypes.includes(typeLocator)) continue next;
 			ReferenceCollection refs = (ReferenceCollection) valueTable[i];
-			if (refs.includes(internedQualifiedNames, internedSimpleNames, internedRootNames)) {
+			if (refs.includes(query)
+				&& (memberNames == null || refs.includesMember(memberNames))) {
 				IFile file = this.javaBuilder.currentProject.getFile(typeLocator);
 				SourceFile sourceFile = findSourceFile(file, true);
 				if (sourceFile == null) continue next;
@@ -224,6 +242,17 @@ protected void addDependentsOf(IPath path, boolean isStructuralChange) {
 	addDependentsOf(path, isStructuralChange, this.qualifiedStrings, this.simpleStrings, this.rootStrings);
 }
 
+/*
+ * Adds the dependents of the given type which use or declare one of the given members, or declare a subtype
+ * of the given type.
+ */
+protected void addMemberDependentsOf(IPath path, char[][] memberNames) {
+	addDependentsOf(path, true, this.memberQualifiedStrings, this.memberSimpleStrings, this.memberRootStrings);
+	this.changedMemberNames.add(path.toString()); // subtypes record the qualified names of their supertypes
+	for (int i = 0, l = memberNames.length; i < l; i++)
+		this.changedMemberNames.add(new String(memberNames[i]));
+}
+
 protected void addDependentsOf(IPath path, boolean isStructuralChange, StringSet qualifiedNames, StringSet simpleNames, StringSet rootNames) {
 	path = path.setDevice(null);
 	if (isStructuralChange) {
@@ -297,6 +326,10 @@ protected void cleanUp() {
 	this.qualifiedStrings = null;
 	this.simpleStrings = null;
 	this.rootStrings = null;
+	this.memberQualifiedStrings = null;
+	this.memberSimpleStrings = null;
+	this.memberRootStrings = null;
+	this.changedMemberNames = null;
 	this.secondaryTypesToRemove = null;
 	this.hasStructuralChanges = false;
 	this.compileLoop = 0;
@@ -750,6 +783,7 @@ protected void removeClassFile(IPath typePath, IContainer outputFolder) throws C
 			System.out.println("Found removed type " + typePath); //$NON-NLS-1$
 		addDependentsOf(typePath, true); // when member types are removed, their enclosing type is structurally changed
 	}
+	this.newState.removeClassFileHashes(typePath.toString());
 	IFile classFile = outputFolder.getFile(typePath.addFileExtension(SuffixConstants.EXTENSION_class));
 	if (classFile.exists()) {
 		if (JavaBuilder.DEBUG)
@@ -783,6 +817,10 @@ protected void resetCollections() {
 		this.qualifiedStrings = new StringSet(3);
 		this.simpleStrings = new StringSet(3);
 		this.rootStrings = new StringSet(3);
+		this.memberQualifiedStrings = new StringSet(3);
+		this.memberSimpleStrings = new StringSet(3);
+		this.memberRootStrings = new StringSet(3);
+		this.changedMemberNames = new StringSet(3);
 		this.hasStructuralChanges = false;
 		this.compileLoop = 0;
 	} else {
@@ -792,6 +830,10 @@ protected void resetCollections() {
 		this.qualifiedStrings.clear();
 		this.simpleStrings.clear();
 		this.rootStrings.clear();
+		this.memberQualifiedStrings.clear();
+		this.memberSimpleStrings.clear();
+		this.memberRootStrings.clear();
+		this.changedMemberNames.clear();
 		this.workQueue.clear();
 	}
 }
@@ -806,8 +848,13 @@ protected void updateProblemsFor(SourceFile sourceFile, CompilationResult result
 	if (problems == null && markers.length == 0) return;
 
 	this.notifier.updateProblemCounts(markers, problems);
-	JavaBuilder.removeProblemsFor(sourceFile.resource);
-	storeProblemsFor(sourceFile, problems);
+	// only delete & create the markers of the problems which changed
+	reuseMarkers(markers);
+	try {
+		storeProblemsFor(sourceFile, problems);
+	} finally {
+		deleteUnusedMarkers();
+	}
 }
 
 protected void updateTasksFor(SourceFile sourceFile, CompilationResult result) throws CoreException {
@@ -815,8 +862,12 @@ protected void updateTasksFor(SourceFile sourceFile, CompilationResult result) t
 	CategorizedProblem[] tasks = result.getTasks();
 	if (tasks == null && markers.length == 0) return;
 
-	JavaBuilder.removeTasksFor(sourceFile.resource);
-	storeTasksFor(sourceFile, tasks);
+	reuseMarkers(markers);
+	try {
+		storeTasksFor(sourceFile, tasks);
+	} finally {
+		deleteUnusedMarkers();
+	}
 }
 
 /**
@@ -833,6 +884,7 @@ protected void writeClassFileContents(ClassFile classfile, IFile file, String qu
 			if (!file.isDerived())
 				file.setDerived(true, null);
 			file.setContents(new ByteArrayInputStream(bytes), true, false, null);
+			this.newState.recordClassFileStamps(qualifiedFileName, file);
 		} else if (JavaBuilder.DEBUG) {
 			System.out.println("Skipped over unchanged class file " + file.getName());//$NON-NLS-1$
 		}
@@ -841,8 +893,10 @@ protected void writeClassFileContents(ClassFile classfile, IFile file, String qu
 			addDependentsOf(new Path(qualifiedFileName), true); // new type
 		if (JavaBuilder.DEBUG)
 			System.out.println("Writing new class file " + file.getName());//$NON-NLS-1$
+		this.newState.recordClassFileHashes(qualifiedFileName, bytes.length, State.computeContentHash(bytes), 0);
 		try {
 			file.create(new ByteArrayInputStream(bytes), IResource.FORCE | IResource.DERIVED, null);
+			this.newState.recordClassFileStamps(qualifiedFileName, file);
 		} catch (CoreException e) {
 			if (e.getStatus().getCode() == IResourceStatus.CASE_VARIANT_EXISTS) {
 				IStatus status = e.getStatus();
@@ -868,6 +922,7 @@ protected void writeClassFileContents(ClassFile classfile, IFile file, String qu
 						boolean success = false;
 						try {
 							file.create(new ByteArrayInputStream(bytes), IResource.FORCE | IResource.DERIVED, null);
+							this.newState.recordClassFileStamps(qualifiedFileName, file);
 							success = true;
 						} catch (CoreException ignored) {
 							// ignore the second exception
@@ -884,28 +939,66 @@ protected void writeClassFileContents(ClassFile classfile, IFile file, String qu
 }
 
 protected boolean writeClassFileCheck(IFile file, String fileName, byte[] newBytes) throws CoreException {
-	try {
-		byte[] oldBytes = Util.getResourceContentsAsByteArray(file);
+	// when the class file was not modified since it was written, use the recorded hashes of its contents & structure
+	long[] hashes = this.newState.getClassFileHashes(fileName, file);
+	long contentHash = State.computeContentHash(newBytes);
+	byte[] oldBytes = null;
+	if (hashes == null || (hashes[State.CONTENT_LENGTH] == newBytes.length && hashes[State.CONTENT_HASH] == contentHash)) {
+		// equal hashes do not guarantee equal bytes: the old bytes are only skipped when the contents differ
+		oldBytes = Util.getResourceContentsAsByteArray(file);
 		notEqual : if (newBytes.length == oldBytes.length) {
 			for (int i = newBytes.length; --i >= 0;)
 				if (newBytes[i] != oldBytes[i]) break notEqual;
+			if (hashes == null) {
+				this.newState.recordClassFileHashes(fileName, newBytes.length, contentHash, 0);
+				this.newState.recordClassFileStamps(fileName, file);
+			}
 			return false; // bytes are identical so skip them
 		}
-		URI location = file.getLocationURI();
-		if (location == null) return false; // unable to determine location of this class file
-		String filePath = location.getSchemeSpecificPart();
-		ClassFileReader reader = new ClassFileReader(oldBytes, filePath.toCharArray());
+	}
+	URI location = file.getLocationURI();
+	if (location == null) return false; // unable to determine location of this class file
+	char[] filePath = location.getSchemeSpecificPart().toCharArray();
+	long structuralHash = 0;
+	try {
+		ClassFileReader reader = new ClassFileReader(newBytes, filePath);
 		// ignore local types since they're only visible inside a single method
-		if (!(reader.isLocal() || reader.isAnonymous()) && reader.hasStructuralChanges(newBytes)) {
-			if (JavaBuilder.DEBUG)
-				System.out.println("Type has structural changes " + fileName); //$NON-NLS-1$
-			addDependentsOf(new Path(fileName), true);
-			this.newState.wasStructurallyChanged(fileName);
+		if (!(reader.isLocal() || reader.isAnonymous())) {
+			structuralHash = reader.getStructuralHash();
+			boolean hasStructuralChanges;
+			if (hashes != null && hashes[State.STRUCTURAL_HASH] != 0) {
+				hasStructuralChanges = hashes[State.STRUCTURAL_HASH] != structuralHash;
+			} else {
+				if (oldBytes == null)
+					oldBytes = Util.getResourceContentsAsByteArray(file);
+				hasStructuralChanges = new ClassFileReader(oldBytes, filePath).hasStructuralChanges(newBytes);
+			}
+			if (hasStructuralChanges) {
+				char[][] changedMembers = null;
+				if (JavaBuilder.TRACK_MEMBER_REFERENCES) {
+					if (oldBytes == null)
+						oldBytes = Util.getResourceContentsAsByteArray(file);
+					changedMembers = new ClassFileReader(oldBytes, filePath).getStructurallyChangedMemberNames(newBytes);
+				}
+				if (changedMembers != null) {
+					if (JavaBuilder.DEBUG)
+						System.out.println("Type has structural changes to members " //$NON-NLS-1$
+							+ new String(CharOperation.concatWith(changedMembers, ',')) + " in " + fileName); //$NON-NLS-1$
+					addMemberDependentsOf(new Path(fileName), changedMembers);
+				} else {
+					if (JavaBuilder.DEBUG)
+						System.out.println("Type has structural changes " + fileName); //$NON-NLS-1$
+					addDependentsOf(new Path(fileName), true);
+				}
+				this.newState.wasStructurallyChanged(fileName);
+			}
 		}
 	} catch (ClassFormatException e) {
+		structuralHash = 0;
 		addDependentsOf(new Path(fileName), true);
 		this.newState.wasStructurallyChanged(fileName);
 	}
+	this.newState.recordClassFileHashes(fileName, newBytes.length, contentHash, structuralHash);
 	return true;
 }
 
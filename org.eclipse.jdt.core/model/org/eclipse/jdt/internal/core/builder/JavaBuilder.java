@@ -39,6 +39,12 @@ public static final String SOURCE_ID = "JDT"; //$NON-NLS-1$
 
 public static boolean DEBUG = false;
 public static boolean SHOW_STATS = false;
+/**
+ * Whether the fields & methods used by each source file are recorded, so that a structural change
+ * limited to some members of a type only recompiles the source files using or overriding these members.
+ * Note that the uses removed from the generated code (i.e. dead code) are not recorded.
+ */
+public static boolean TRACK_MEMBER_REFERENCES = Boolean.getBoolean("jdt.core.builder.trackMemberReferences"); //$NON-NLS-1$
 
 /**
  * A list of project names that have been built.
@@ -149,9 +155,16 @@ public static State readState(IProject project, DataInputStream in) throws IOExc
 }
 
 public static void writeState(Object state, DataOutputStream out) throws IOException {
+	// the state is saved: compact the name dictionary shared since the last full build
+	((State) state).resetNameDictionary();
 	((State) state).write(out);
 }
 
+/*
+ * The platform calls the builders of the projects one after the other, in the order of their references,
+ * while holding the workspace rule: the state of a prerequisite project is thus recorded before its
+ * dependents are built, and the builders of different projects never run concurrently.
+ */
 protected IProject[] build(int kind, Map ignored, IProgressMonitor monitor) throws CoreException {
 	this.currentProject = getProject();
 	if (this.currentProject == null || !this.currentProject.isAccessible()) return new IProject[0];
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.builder;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
+
+/**
+ * Assigns an id to each interned name (char[]) and qualified name (char[][]) of the reference collections
+ * of a state, so that the names searched in a collection can be found by intersecting sorted arrays of ids.
+ * <p>
+ * Ids are never reused: a dictionary is shared by the successive states of a project, and the ids
+ * computed by a collection stay valid as long as its state uses the same dictionary.
+ * A state starts a new dictionary on a full build and when it is saved, so that the names which are no
+ * longer referenced do not accumulate.
+ * </p>
+ */
+public class NameDictionary {
+
+private SimpleLookupTable ids; // keyed by interned names, since char arrays use identity for equals & hashCode
+
+public NameDictionary() {
+	this.ids = new SimpleLookupTable(101);
+}
+
+/**
+ * Answers the ids of the given interned names, for testing which reference collections include them
+ * using {@link ReferenceCollection#includes(NameIds)}.
+ * Like in {@link ReferenceCollection#includes(char[][][], char[][], char[][])}, a null array means that
+ * the corresponding names are not checked.
+ */
+public NameIds query(char[][][] qualifiedNames, char[][] simpleNames, char[][] rootNames) {
+	NameIds query = new NameIds(this);
+	if (qualifiedNames != null) {
+		int length = qualifiedNames.length;
+		int[] qualifiedIds = new int[length];
+		int[] singleIds = new int[length];
+		int qualifiedCount = 0, singleCount = 0;
+		synchronized (this) {
+			for (int i = 0; i < length; i++) {
+				char[][] qualifiedName = qualifiedNames[i];
+				// a name such as 'p1' is recorded as a simple name
+				Object id = this.ids.get(qualifiedName.length == 1 ? (Object) qualifiedName[0] : qualifiedName);
+				if (id == null) continue; // no collection includes this name
+				if (qualifiedName.length == 1)
+					singleIds[singleCount++] = ((Integer) id).intValue();
+				else
+					qualifiedIds[qualifiedCount++] = ((Integer) id).intValue();
+			}
+		}
+		query.qualifiedIds = sort(qualifiedIds, qualifiedCount);
+		query.singleQualifiedIds = sort(singleIds, singleCount);
+	}
+	if (simpleNames != null)
+		query.simpleIds = existingIds(simpleNames);
+	if (rootNames != null)
+		query.rootIds = existingIds(rootNames);
+	return query;
+}
+
+/*
+ * Answers the ids of the names of a reference collection, assigning an id to its names that do not have one yet.
+ */
+synchronized NameIds idsOf(char[][][] qualifiedNames, char[][] simpleNames, char[][] rootNames) {
+	NameIds result = new NameIds(this);
+	result.qualifiedIds = addIds(qualifiedNames);
+	result.simpleIds = addIds(simpleNames);
+	result.rootIds = addIds(rootNames);
+	return result;
+}
+
+private int[] addIds(Object[] names) {
+	int length = names.length;
+	int[] result = new int[length];
+	for (int i = 0; i < length; i++) {
+		Object name = names[i];
+		Object id = this.ids.get(name);
+		if (id == null)
+			this.ids.put(name, id = new Integer(this.ids.elementSize));
+		result[i] = ((Integer) id).intValue();
+	}
+	return sort(result, length);
+}
+
+private synchronized int[] existingIds(Object[] names) {
+	int length = names.length;
+	int[] result = new int[length];
+	int count = 0;
+	for (int i = 0; i < length; i++) {
+		Object id = this.ids.get(names[i]);
+		if (id != null) // otherwise no collection includes this name
+			result[count++] = ((Integer) id).intValue();
+	}
+	return sort(result, count);
+}
+
+private static int[] sort(int[] ids, int count) {
+	if (count < ids.length)
+		System.arraycopy(ids, 0, ids = new int[count], 0, count);
+	Arrays.sort(ids);
+	return ids;
+}
+
+public int size() {
+	return this.ids.elementSize;
+}
+
+public String toString() {
+	return "Name dictionary (" + this.ids.elementSize + " names)"; //$NON-NLS-1$ //$NON-NLS-2$
+}
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.builder;
+
+/**
+ * The sorted ids of the names of a reference collection, or of the names searched in reference collections,
+ * in a {@link NameDictionary}.
+ */
+public class NameIds {
+
+static final int[] NO_IDS = new int[0];
+
+NameDictionary dictionary;
+int[] qualifiedIds; // null if the qualified names are not checked
+int[] singleQualifiedIds = NO_IDS; // ids of the searched qualified names with a single segment, recorded as simple names
+int[] simpleIds; // null if the simple names are not checked
+int[] rootIds; // null if the root names are not checked
+
+NameIds(NameDictionary dictionary) {
+	this.dictionary = dictionary;
+}
+
+/*
+ * Answers whether the given sorted arrays have a common id.
+ */
+static boolean intersect(int[] ids1, int[] ids2) {
+	int length1 = ids1.length, length2 = ids2.length;
+	if (length1 == 0 || length2 == 0) return false;
+	if (length1 > length2) {
+		int[] ids = ids1;
+		ids1 = ids2;
+		ids2 = ids;
+		length1 = length2;
+		length2 = ids2.length;
+	}
+	if (ids1[length1 - 1] < ids2[0] || ids2[length2 - 1] < ids1[0]) return false; // disjoint ranges
+
+	if (length2 > length1 << 3) {
+		// search each id of the small array in the large one, starting after the previous position
+		int low = 0;
+		for (int i = 0; i < length1; i++) {
+			int id = ids1[i];
+			int high = length2 - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int midId = ids2[mid];
+				if (midId == id) return true;
+				if (midId < id)
+					low = mid + 1;
+				else
+					high = mid - 1;
+			}
+			if (low == length2) return false;
+		}
+		return false;
+	}
+	int i = 0, j = 0;
+	while (i < length1 && j < length2) {
+		int id1 = ids1[i], id2 = ids2[j];
+		if (id1 == id2) return true;
+		if (id1 < id2)
+			i++;
+		else
+			j++;
+	}
+	return false;
+}
+}
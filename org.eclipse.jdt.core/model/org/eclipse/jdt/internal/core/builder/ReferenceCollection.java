@@ -12,13 +12,30 @@
 package org.eclipse.jdt.internal.core.builder;
 
 import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.ClassFile;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
+import org.eclipse.jdt.internal.compiler.env.IBinaryField;
+import org.eclipse.jdt.internal.compiler.env.IBinaryMethod;
+import org.eclipse.jdt.internal.compiler.lookup.ReferenceBinding;
 import org.eclipse.jdt.internal.compiler.lookup.TypeConstants;
+import org.eclipse.jdt.internal.compiler.util.SimpleSetOfCharArray;
+import org.eclipse.jdt.internal.core.util.Util;
 
 public class ReferenceCollection {
 
 char[][][] qualifiedNameReferences; // contains no simple names as in just 'a' which is kept in simpleNameReferences instead
 char[][] simpleNameReferences;
 char[][] rootReferences;
+// sorted names of the fields & methods used or declared by the generated types, along with the qualified names
+// of all their supertypes (i.e. 'p1/p2/A'), or null if unknown
+char[][] memberReferences;
+// the references of a collection read from a saved state are decoded when the collection is first used
+private volatile EncodedReferences encodedReferences;
+private int encodedOffset;
+// the ids of the names of the collection in the dictionary of the last query, see includes(NameIds)
+private volatile NameIds nameIds;
 
 protected ReferenceCollection(char[][][] qualifiedNameReferences, char[][] simpleNameReferences, char[][] rootReferences) {
 	this.qualifiedNameReferences = internQualifiedNames(qualifiedNameReferences, false);
@@ -26,7 +43,17 @@ protected ReferenceCollection(char[][][] qualifiedNameReferences, char[][] simpl
 	this.rootReferences = internSimpleNames(rootReferences, false);
 }
 
+ReferenceCollection(EncodedReferences encodedReferences, int encodedOffset) {
+	this.encodedReferences = encodedReferences;
+	this.encodedOffset = encodedOffset;
+}
+
+private ReferenceCollection() {
+	// references are set by EncodedReferences.decode()
+}
+
 public void addDependencies(String[] typeNameDependencies) {
+	if (this.encodedReferences != null) decode();
 	// if each qualified type name is already known then all of its subNames can be skipped
 	// and its expected that very few qualified names in typeNameDependencies need to be added
 	// but could always take 'p1.p2.p3.X' and make all qualified names 'p1' 'p1.p2' 'p1.p2.p3' 'p1.p2.p3.X', then intern
@@ -59,15 +86,37 @@ public void addDependencies(String[] typeNameDependencies) {
 			qualifiedTypeName = temp[0];
 		}
 	}
+	this.nameIds = null;
+}
+
+private synchronized void decode() {
+	EncodedReferences encoded = this.encodedReferences;
+	if (encoded == null) return; // decoded by another thread
+	encoded.decode(this.encodedOffset, this);
+	this.encodedReferences = null;
+}
+
+/*
+ * Answers a collection with the references of the receiver, without keeping them decoded in the receiver
+ * if it was not used yet.
+ */
+ReferenceCollection getDecodedReferences() {
+	EncodedReferences encoded = this.encodedReferences;
+	if (encoded == null) return this;
+	ReferenceCollection collection = new ReferenceCollection();
+	encoded.decode(this.encodedOffset, collection);
+	return collection;
 }
 
 public boolean includes(char[] simpleName) {
+	if (this.encodedReferences != null) decode();
 	for (int i = 0, l = this.simpleNameReferences.length; i < l; i++)
 		if (simpleName == this.simpleNameReferences[i]) return true;
 	return false;
 }
 
 public boolean includes(char[][] qualifiedName) {
+	if (this.encodedReferences != null) decode();
 	for (int i = 0, l = this.qualifiedNameReferences.length; i < l; i++)
 		if (qualifiedName == this.qualifiedNameReferences[i]) return true;
 	return false;
@@ -151,7 +200,61 @@ public boolean includes(char[][][] qualifiedNames, char[][] simpleNames, char[][
 	return false;
 }
 
+/**
+ * Answers whether the collection includes the searched names, like {@link #includes(char[][][], char[][], char[][])}
+ * but by intersecting the ids of the names.
+ * @param query the searched names, see {@link NameDictionary#query(char[][][], char[][], char[][])}
+ */
+public boolean includes(NameIds query) {
+	NameIds ids = this.nameIds;
+	if (ids == null || ids.dictionary != query.dictionary) {
+		if (this.encodedReferences != null) decode();
+		this.nameIds = ids = query.dictionary.idsOf(this.qualifiedNameReferences, this.simpleNameReferences, this.rootReferences);
+	}
+	if (query.rootIds != null && !NameIds.intersect(query.rootIds, ids.rootIds))
+		return false;
+	if (query.simpleIds != null && !NameIds.intersect(query.simpleIds, ids.simpleIds))
+		return false;
+	if (query.qualifiedIds != null
+			&& !NameIds.intersect(query.qualifiedIds, ids.qualifiedIds)
+			&& !NameIds.intersect(query.singleQualifiedIds, ids.simpleIds))
+		return false;
+	if (JavaBuilder.DEBUG && query.simpleIds == null && query.qualifiedIds == null)
+		System.out.println("Found well known match"); //$NON-NLS-1$
+	return true;
+}
+
+/**
+ * Answers whether the source file may be affected by structural changes to the given members of the types
+ * whose names are included, that is when it uses or declares one of the members, or declares a subtype
+ * of one of these types. Always answers true if the member references of the source file are unknown.
+ * @param memberNames the names of the changed fields & methods, and the qualified names of their declaring types
+ */
+public boolean includesMember(char[][] memberNames) {
+	if (this.encodedReferences != null) decode();
+	if (this.memberReferences == null) return true;
+	for (int i = 0, l = memberNames.length; i < l; i++) {
+		char[] memberName = memberNames[i];
+		int low = 0, high = this.memberReferences.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int compare = Util.compare(this.memberReferences[mid], memberName);
+			if (compare == 0) {
+				if (JavaBuilder.DEBUG)
+					System.out.println("Found member match to " + new String(memberName)); //$NON-NLS-1$
+				return true;
+			}
+			if (compare < 0)
+				low = mid + 1;
+			else
+				high = mid - 1;
+		}
+	}
+	return false;
+}
+
 public boolean insideRoot(char[] rootName) {
+	if (this.encodedReferences != null) decode();
 	for (int i = 0, l = this.rootReferences.length; i < l; i++)
 		if (rootName == this.rootReferences[i]) return true;
 	return false;
@@ -196,6 +299,64 @@ static {
 		InternedSimpleNames[i] = new NameSet(37);
 }
 
+/**
+ * Answers the sorted member references of the given class files, generated from the same source file:
+ * the names of the fields & methods they use (as found in their constant pool) or declare, and the qualified
+ * names of all the supertypes of their types. Answers null if one of the class files cannot be read.
+ */
+static char[][] memberReferencesOf(ClassFile[] classFiles) {
+	SimpleSetOfCharArray names = new SimpleSetOfCharArray(31);
+	for (int i = 0, l = classFiles.length; i < l; i++) {
+		ClassFile classFile = classFiles[i];
+		try {
+			ClassFileReader reader = new ClassFileReader(classFile.getBytes(), classFile.fileName());
+			int[] constantPoolOffsets = reader.getConstantPoolOffsets();
+			for (int j = 1, m = constantPoolOffsets.length; j < m; j++) {
+				int offset = constantPoolOffsets[j];
+				// the name & type entries are shared by the field, method & invoke dynamic references
+				if (offset != 0 && reader.u1At(offset) == ClassFileConstants.NameAndTypeTag) {
+					int utf8Offset = constantPoolOffsets[reader.u2At(offset + 1)];
+					names.add(reader.utf8At(utf8Offset + 3, reader.u2At(utf8Offset + 1)));
+				}
+			}
+			IBinaryField[] fields = reader.getFields();
+			if (fields != null)
+				for (int j = 0, m = fields.length; j < m; j++)
+					names.add(fields[j].getName());
+			IBinaryMethod[] methods = reader.getMethods();
+			if (methods != null)
+				for (int j = 0, m = methods.length; j < m; j++)
+					names.add(methods[j].getSelector());
+		} catch (ClassFormatException e) {
+			return null;
+		}
+		if (classFile.referenceBinding != null)
+			addSupertypeNames(classFile.referenceBinding, names);
+	}
+	char[][] result = new char[names.elementSize][];
+	names.asArray(result);
+	Util.sort(result);
+	return result;
+}
+
+private static void addSupertypeNames(ReferenceBinding type, SimpleSetOfCharArray names) {
+	ReferenceBinding superclass = type.superclass();
+	if (superclass != null)
+		addSupertypeName(superclass, names);
+	ReferenceBinding[] superInterfaces = type.superInterfaces();
+	if (superInterfaces != null)
+		for (int i = 0, l = superInterfaces.length; i < l; i++)
+			addSupertypeName(superInterfaces[i], names);
+}
+
+private static void addSupertypeName(ReferenceBinding supertype, SimpleSetOfCharArray names) {
+	char[] name = ((ReferenceBinding) supertype.erasure()).constantPoolName();
+	if (name != null && !names.includes(name)) {
+		names.add(name);
+		addSupertypeNames(supertype, names);
+	}
+}
+
 public static char[][][] internQualifiedNames(StringSet qualifiedStrings) {
 	if (qualifiedStrings == null) return EmptyQualifiedNames;
 	int length = qualifiedStrings.elementSize;
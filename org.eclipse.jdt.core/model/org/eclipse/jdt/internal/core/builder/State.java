@@ -16,6 +16,8 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.internal.compiler.env.AccessRuleSet;
 import org.eclipse.jdt.internal.compiler.env.AccessRule;
+import org.eclipse.jdt.internal.compiler.util.FNVHash;
+import org.eclipse.jdt.internal.compiler.util.HashtableOfObject;
 import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
 import org.eclipse.jdt.internal.core.ClasspathAccessRule;
 import org.eclipse.jdt.internal.core.JavaModelManager;
@@ -31,11 +33,24 @@ public ClasspathMultiDirectory[] sourceLocations;
 ClasspathLocation[] binaryLocations;
 // keyed by the project relative path of the type (i.e. "src1/p1/p2/A.java"), value is a ReferenceCollection or an AdditionalTypeCollection
 SimpleLookupTable references;
+// ids of the names of the reference collections, shared with the next states of the project
+NameDictionary nameDictionary;
 // keyed by qualified type name "p1/p2/A", value is the project relative path which defines this type "src1/p1/p2/A.java"
 public SimpleLookupTable typeLocators;
 
+// keyed by the qualified name of a generated class file "p1/p2/A$M", value is a long[] with the modification stamp
+// & local time stamp of the class file when it was written, the length & hash of its contents, and the hash of its
+// structure (0 if unknown) so that the class file is neither read nor parsed when the type is compiled again
+SimpleLookupTable classFileHashes;
+static final int MODIFICATION_STAMP = 0;
+static final int LOCAL_TIME_STAMP = 1;
+static final int CONTENT_LENGTH = 2;
+static final int CONTENT_HASH = 3;
+static final int STRUCTURAL_HASH = 4;
+
 int buildNumber;
 long lastStructuralBuildTime;
+int unitCompileHeap; // heap used to compile a unit by the previous builds, 0 if unknown
 SimpleLookupTable structuralBuildTimes;
 
 private String[] knownPackageNames; // of the form "p1/p2"
@@ -44,7 +59,7 @@ private long previousStructuralBuildTime;
 private StringSet structurallyChangedTypes;
 public static int MaxStructurallyChangedTypes = 100; // keep track of ? structurally changed types, otherwise consider all to be changed
 
-public static final byte VERSION = 0x001B;
+public static final byte VERSION = 0x0020;
 
 static final byte SOURCE_FOLDER = 1;
 static final byte BINARY_FOLDER = 2;
@@ -64,10 +79,13 @@ protected State(JavaBuilder javaBuilder) {
 	this.binaryLocations = javaBuilder.nameEnvironment.binaryLocations;
 	this.references = new SimpleLookupTable(7);
 	this.typeLocators = new SimpleLookupTable(7);
+	this.nameDictionary = new NameDictionary();
+	this.classFileHashes = new SimpleLookupTable(7);
 
 	this.buildNumber = 0; // indicates a full build
 	this.lastStructuralBuildTime = computeStructuralBuildTime(javaBuilder.lastState == null ? 0 : javaBuilder.lastState.lastStructuralBuildTime);
 	this.structuralBuildTimes = new SimpleLookupTable(3);
+	this.unitCompileHeap = javaBuilder.lastState == null ? 0 : javaBuilder.lastState.unitCompileHeap;
 }
 
 long computeStructuralBuildTime(long previousTime) {
@@ -84,10 +102,13 @@ void copyFrom(State lastState) {
 	this.buildNumber = lastState.buildNumber + 1;
 	this.lastStructuralBuildTime = lastState.lastStructuralBuildTime;
 	this.structuralBuildTimes = lastState.structuralBuildTimes;
+	this.nameDictionary = lastState.nameDictionary;
+	this.unitCompileHeap = lastState.unitCompileHeap;
 
 	try {
 		this.references = (SimpleLookupTable) lastState.references.clone();
 		this.typeLocators = (SimpleLookupTable) lastState.typeLocators.clone();
+		this.classFileHashes = (SimpleLookupTable) lastState.classFileHashes.clone();
 	} catch (CloneNotSupportedException e) {
 		this.references = new SimpleLookupTable(lastState.references.elementSize);
 		Object[] keyTable = lastState.references.keyTable;
@@ -102,8 +123,57 @@ void copyFrom(State lastState) {
 		for (int i = 0, l = keyTable.length; i < l; i++)
 			if (keyTable[i] != null)
 				this.typeLocators.put(keyTable[i], valueTable[i]);
+
+		this.classFileHashes = new SimpleLookupTable(lastState.classFileHashes.elementSize);
+		keyTable = lastState.classFileHashes.keyTable;
+		valueTable = lastState.classFileHashes.valueTable;
+		for (int i = 0, l = keyTable.length; i < l; i++)
+			if (keyTable[i] != null)
+				this.classFileHashes.put(keyTable[i], valueTable[i]);
 	}
 }
+
+/*
+ * Answers a hash of the structure of the class files of the project, or of their contents when their structure
+ * is not known, which does not depend on the order of the class files.
+ */
+long computeApiHash() {
+	long hash = 0;
+	Object[] keyTable = this.classFileHashes.keyTable;
+	Object[] valueTable = this.classFileHashes.valueTable;
+	for (int i = 0, l = keyTable.length; i < l; i++) {
+		if (keyTable[i] != null) {
+			long[] hashes = (long[]) valueTable[i];
+			hash += keyTable[i].hashCode() * FNVHash.PRIME
+				^ (hashes[STRUCTURAL_HASH] != 0 ? hashes[STRUCTURAL_HASH] : hashes[CONTENT_HASH]);
+		}
+	}
+	return hash;
+}
+
+/*
+ * Answers a 64-bit FNV-1a hash of the given contents.
+ */
+static long computeContentHash(byte[] bytes) {
+	return FNVHash.hash(FNVHash.OFFSET_BASIS, bytes);
+}
+
+/*
+ * Answers the hashes recorded when the given class file was written, or null if the class file was modified
+ * since then, or was not written by the builder.
+ * The time stamp of the file on disk is also checked, since the output folders may have been modified
+ * outside of the workspace without being refreshed.
+ */
+long[] getClassFileHashes(String qualifiedFileName, IFile file) {
+	long[] hashes = (long[]) this.classFileHashes.get(qualifiedFileName);
+	if (hashes == null || hashes[MODIFICATION_STAMP] == IResource.NULL_STAMP) return null;
+	if (hashes[MODIFICATION_STAMP] != file.getModificationStamp() || hashes[LOCAL_TIME_STAMP] != file.getLocalTimeStamp())
+		return null;
+	IPath location = file.getLocation();
+	if (location == null || location.toFile().lastModified() != hashes[LOCAL_TIME_STAMP])
+		return null;
+	return hashes;
+}
 public char[][] getDefinedTypeNamesFor(String typeLocator) {
 	Object c = this.references.get(typeLocator);
 	if (c instanceof AdditionalTypeCollection)
@@ -178,6 +248,41 @@ void record(String typeLocator, char[][][] qualifiedRefs, char[][] simpleRefs, c
 	}
 }
 
+void recordMemberReferences(String typeLocator, char[][] memberRefs) {
+	ReferenceCollection collection = (ReferenceCollection) this.references.get(typeLocator);
+	if (collection != null)
+		collection.memberReferences = memberRefs;
+}
+
+/*
+ * Records the hashes of the contents of a class file, before it is written. Its stamps are recorded once written.
+ */
+void recordClassFileHashes(String qualifiedFileName, int contentLength, long contentHash, long structuralHash) {
+	this.classFileHashes.put(qualifiedFileName,
+		new long[] {IResource.NULL_STAMP, IResource.NULL_STAMP, contentLength, contentHash, structuralHash});
+}
+
+/*
+ * Records the stamps of a class file which contains the contents whose hashes are recorded.
+ */
+void recordClassFileStamps(String qualifiedFileName, IFile file) {
+	long[] hashes = (long[]) this.classFileHashes.get(qualifiedFileName);
+	if (hashes != null) {
+		hashes = new long[] {file.getModificationStamp(), file.getLocalTimeStamp(),
+			hashes[CONTENT_LENGTH], hashes[CONTENT_HASH], hashes[STRUCTURAL_HASH]}; // the last state may share the previous hashes
+		this.classFileHashes.put(qualifiedFileName, hashes);
+	}
+}
+
+void recordStructuralHash(String qualifiedFileName, long structuralHash) {
+	long[] hashes = (long[]) this.classFileHashes.get(qualifiedFileName);
+	if (hashes != null) {
+		hashes = (long[]) hashes.clone(); // may be shared with the previous state
+		hashes[STRUCTURAL_HASH] = structuralHash;
+		this.classFileHashes.put(qualifiedFileName, hashes);
+	}
+}
+
 void recordLocatorForType(String qualifiedTypeName, String typeLocator) {
 	this.knownPackageNames = null;
 	// in the common case, the qualifiedTypeName is a substring of the typeLocator so share the char[] by using String.substring()
@@ -199,6 +304,10 @@ void removeLocator(String typeLocatorToRemove) {
 	this.typeLocators.removeValue(typeLocatorToRemove);
 }
 
+void removeClassFileHashes(String qualifiedFileName) {
+	this.classFileHashes.removeKey(qualifiedFileName);
+}
+
 void removePackage(IResourceDelta sourceDelta) {
 	IResource resource = sourceDelta.getResource();
 	switch(resource.getType()) {
@@ -237,6 +346,7 @@ static State read(IProject project, DataInputStream in) throws IOException {
 	}
 	newState.buildNumber = in.readInt();
 	newState.lastStructuralBuildTime = in.readLong();
+	newState.unitCompileHeap = in.readInt();
 
 	int length = in.readInt();
 	newState.sourceLocations = new ClasspathMultiDirectory[length];
@@ -279,57 +389,58 @@ static State read(IProject project, DataInputStream in) throws IOException {
 	for (int i = 0; i < length; i++)
 		newState.structuralBuildTimes.put(in.readUTF(), new Long(in.readLong()));
 
-	String[] internedTypeLocators = new String[length = in.readInt()];
+	String[] internedTypeLocators = new String[length = EncodedReferences.readInt(in)];
 	for (int i = 0; i < length; i++)
 		internedTypeLocators[i] = in.readUTF();
 
-	newState.typeLocators = new SimpleLookupTable(length = in.readInt());
+	newState.typeLocators = new SimpleLookupTable(length = EncodedReferences.readInt(in));
 	for (int i = 0; i < length; i++)
-		newState.recordLocatorForType(in.readUTF(), internedTypeLocators[in.readInt()]);
+		newState.recordLocatorForType(in.readUTF(), internedTypeLocators[EncodedReferences.readInt(in)]);
 
-	char[][] internedRootNames = ReferenceCollection.internSimpleNames(readNames(in), false);
-	char[][] internedSimpleNames = ReferenceCollection.internSimpleNames(readNames(in), false);
-	char[][][] internedQualifiedNames = new char[length = in.readInt()][][];
+	char[][] internedNames = new char[length = EncodedReferences.readInt(in)][];
+	for (int i = 0; i < length; i++)
+		internedNames[i] = in.readUTF().toCharArray();
+	internedNames = ReferenceCollection.internSimpleNames(internedNames, false);
+	char[][][] internedQualifiedNames = new char[length = EncodedReferences.readInt(in)][][];
 	for (int i = 0; i < length; i++) {
-		int qLength = in.readInt();
+		int qLength = EncodedReferences.readInt(in);
 		char[][] qName = new char[qLength][];
 		for (int j = 0; j < qLength; j++)
-			qName[j] = internedSimpleNames[in.readInt()];
+			qName[j] = internedNames[EncodedReferences.readInt(in)];
 		internedQualifiedNames[i] = qName;
 	}
-	internedQualifiedNames = ReferenceCollection.internQualifiedNames(internedQualifiedNames, false);
+	internedQualifiedNames = ReferenceCollection.internQualifiedNames(internedQualifiedNames, true);
 
-	newState.references = new SimpleLookupTable(length = in.readInt());
+	// the references are decoded when each collection is first used
+	length = EncodedReferences.readInt(in);
+	String[] typeLocators = new String[length];
+	char[][][] additionalTypeNames = new char[length][][];
+	int[] offsets = new int[length];
 	for (int i = 0; i < length; i++) {
-		String typeLocator = internedTypeLocators[in.readInt()];
-		ReferenceCollection collection = null;
-		switch (in.readByte()) {
-			case 1 :
-				char[][] additionalTypeNames = readNames(in);
-				char[][][] qualifiedNames = new char[in.readInt()][][];
-				for (int j = 0, m = qualifiedNames.length; j < m; j++)
-					qualifiedNames[j] = internedQualifiedNames[in.readInt()];
-				char[][] simpleNames = new char[in.readInt()][];
-				for (int j = 0, m = simpleNames.length; j < m; j++)
-					simpleNames[j] = internedSimpleNames[in.readInt()];
-				char[][] rootNames = new char[in.readInt()][];
-				for (int j = 0, m = rootNames.length; j < m; j++)
-					rootNames[j] = internedRootNames[in.readInt()];
-				collection = new AdditionalTypeCollection(additionalTypeNames, qualifiedNames, simpleNames, rootNames);
-				break;
-			case 2 :
-				char[][][] qNames = new char[in.readInt()][][];
-				for (int j = 0, m = qNames.length; j < m; j++)
-					qNames[j] = internedQualifiedNames[in.readInt()];
-				char[][] sNames = new char[in.readInt()][];
-				for (int j = 0, m = sNames.length; j < m; j++)
-					sNames[j] = internedSimpleNames[in.readInt()];
-				char[][] rNames = new char[in.readInt()][];
-				for (int j = 0, m = rNames.length; j < m; j++)
-					rNames[j] = internedRootNames[in.readInt()];
-				collection = new ReferenceCollection(qNames, sNames, rNames);
-		}
-		newState.references.put(typeLocator, collection);
+		typeLocators[i] = internedTypeLocators[EncodedReferences.readInt(in)];
+		if (in.readBoolean())
+			additionalTypeNames[i] = readNames(in);
+		offsets[i] = EncodedReferences.readInt(in);
+	}
+	byte[] bytes = new byte[in.readInt()];
+	in.readFully(bytes);
+	EncodedReferences encodedReferences = new EncodedReferences(internedNames, internedQualifiedNames, bytes);
+	newState.references = new SimpleLookupTable(length);
+	newState.nameDictionary = new NameDictionary();
+	for (int i = 0; i < length; i++) {
+		ReferenceCollection collection = additionalTypeNames[i] == null
+			? new ReferenceCollection(encodedReferences, offsets[i])
+			: new AdditionalTypeCollection(additionalTypeNames[i], encodedReferences, offsets[i]);
+		newState.references.put(typeLocators[i], collection);
+	}
+
+	newState.classFileHashes = new SimpleLookupTable(length = EncodedReferences.readInt(in));
+	for (int i = 0; i < length; i++) {
+		String qualifiedFileName = in.readUTF();
+		long[] hashes = new long[STRUCTURAL_HASH + 1];
+		for (int j = 0; j <= STRUCTURAL_HASH; j++)
+			hashes[j] = in.readLong();
+		newState.classFileHashes.put(qualifiedFileName, hashes);
 	}
 	if (JavaBuilder.DEBUG)
 		System.out.println("Successfully read state for " + newState.javaProjectName); //$NON-NLS-1$
@@ -397,6 +508,14 @@ void wasStructurallyChanged(String typeName) {
 	}
 }
 
+/*
+ * Starts a new name dictionary, dropping the names of the types deleted or renamed since the dictionary
+ * was started: the collections compute their ids again when they are next queried.
+ */
+void resetNameDictionary() {
+	this.nameDictionary = new NameDictionary();
+}
+
 void write(DataOutputStream out) throws IOException {
 	int length;
 	Object[] keyTable;
@@ -407,11 +526,13 @@ void write(DataOutputStream out) throws IOException {
  * String		project name
  * int			build number
  * int			last structural build number
+ * int			unit compile heap
 */
 	out.writeByte(VERSION);
 	out.writeUTF(this.javaProjectName);
 	out.writeInt(this.buildNumber);
 	out.writeLong(this.lastStructuralBuildTime);
+	out.writeInt(this.unitCompileHeap);
 
 /*
  * ClasspathMultiDirectory[]
@@ -488,7 +609,7 @@ void write(DataOutputStream out) throws IOException {
 /*
  * String[]	Interned type locators
  */
-	out.writeInt(length = this.references.elementSize);
+	EncodedReferences.writeInt(out, length = this.references.elementSize);
 	SimpleLookupTable internedTypeLocators = new SimpleLookupTable(length);
 	if (length > 0) {
 		keyTable = this.references.keyTable;
@@ -509,7 +630,7 @@ void write(DataOutputStream out) throws IOException {
  * String		type name
  * int			interned locator id
  */
-	out.writeInt(length = this.typeLocators.elementSize);
+	EncodedReferences.writeInt(out, length = this.typeLocators.elementSize);
 	if (length > 0) {
 		keyTable = this.typeLocators.keyTable;
 		valueTable = this.typeLocators.valueTable;
@@ -518,7 +639,7 @@ void write(DataOutputStream out) throws IOException {
 				length--;
 				out.writeUTF((String) keyTable[i]);
 				Integer index = (Integer) internedTypeLocators.get(valueTable[i]);
-				out.writeInt(index.intValue());
+				EncodedReferences.writeInt(out, index.intValue());
 			}
 		}
 		if (JavaBuilder.DEBUG && length != 0)
@@ -526,132 +647,127 @@ void write(DataOutputStream out) throws IOException {
 	}
 
 /*
- * char[][]	Interned root names
- * char[][][]	Interned qualified names
- * char[][]	Interned simple names
+ * String[]	Interned names: simple, root & member names, and the segments of the qualified names
+ * char[][][]	Interned qualified names, as arrays of interned name ids
  */
-	SimpleLookupTable internedRootNames = new SimpleLookupTable(3);
-	SimpleLookupTable internedQualifiedNames = new SimpleLookupTable(31);
-	SimpleLookupTable internedSimpleNames = new SimpleLookupTable(31);
+	keyTable = this.references.keyTable;
 	valueTable = this.references.valueTable;
+	ReferenceCollection[] collections = new ReferenceCollection[valueTable.length];
+	HashtableOfObject internedNames = new HashtableOfObject(31);
+	ArrayList names = new ArrayList();
+	SimpleLookupTable internedQualifiedNames = new SimpleLookupTable(31);
+	ArrayList qualifiedNames = new ArrayList();
 	for (int i = 0, l = valueTable.length; i < l; i++) {
 		if (valueTable[i] != null) {
-			ReferenceCollection collection = (ReferenceCollection) valueTable[i];
-			char[][] rNames = collection.rootReferences;
-			for (int j = 0, m = rNames.length; j < m; j++) {
-				char[] rName = rNames[j];
-				if (!internedRootNames.containsKey(rName)) // remember the names have been interned
-					internedRootNames.put(rName, new Integer(internedRootNames.elementSize));
-			}
+			ReferenceCollection collection = collections[i] = ((ReferenceCollection) valueTable[i]).getDecodedReferences();
 			char[][][] qNames = collection.qualifiedNameReferences;
 			for (int j = 0, m = qNames.length; j < m; j++) {
 				char[][] qName = qNames[j];
 				if (!internedQualifiedNames.containsKey(qName)) { // remember the names have been interned
-					internedQualifiedNames.put(qName, new Integer(internedQualifiedNames.elementSize));
-					for (int k = 0, n = qName.length; k < n; k++) {
-						char[] sName = qName[k];
-						if (!internedSimpleNames.containsKey(sName)) // remember the names have been interned
-							internedSimpleNames.put(sName, new Integer(internedSimpleNames.elementSize));
-					}
+					internedQualifiedNames.put(qName, new Integer(qualifiedNames.size()));
+					qualifiedNames.add(qName);
+					internNames(qName, internedNames, names);
 				}
 			}
-			char[][] sNames = collection.simpleNameReferences;
-			for (int j = 0, m = sNames.length; j < m; j++) {
-				char[] sName = sNames[j];
-				if (!internedSimpleNames.containsKey(sName)) // remember the names have been interned
-					internedSimpleNames.put(sName, new Integer(internedSimpleNames.elementSize));
-			}
+			internNames(collection.simpleNameReferences, internedNames, names);
+			internNames(collection.rootReferences, internedNames, names);
+			if (collection.memberReferences != null)
+				internNames(collection.memberReferences, internedNames, names);
 		}
 	}
-	char[][] internedArray = new char[internedRootNames.elementSize][];
-	Object[] rootNames = internedRootNames.keyTable;
-	Object[] positions = internedRootNames.valueTable;
-	for (int i = positions.length; --i >= 0; ) {
-		if (positions[i] != null) {
-			int index = ((Integer) positions[i]).intValue();
-			internedArray[index] = (char[]) rootNames[i];
-		}
-	}
-	writeNames(internedArray, out);
-	// now write the interned simple names
-	internedArray = new char[internedSimpleNames.elementSize][];
-	Object[] simpleNames = internedSimpleNames.keyTable;
-	positions = internedSimpleNames.valueTable;
-	for (int i = positions.length; --i >= 0; ) {
-		if (positions[i] != null) {
-			int index = ((Integer) positions[i]).intValue();
-			internedArray[index] = (char[]) simpleNames[i];
-		}
-	}
-	writeNames(internedArray, out);
-	// now write the interned qualified names as arrays of interned simple names
-	char[][][] internedQArray = new char[internedQualifiedNames.elementSize][][];
-	Object[] qualifiedNames = internedQualifiedNames.keyTable;
-	positions = internedQualifiedNames.valueTable;
-	for (int i = positions.length; --i >= 0; ) {
-		if (positions[i] != null) {
-			int index = ((Integer) positions[i]).intValue();
-			internedQArray[index] = (char[][]) qualifiedNames[i];
-		}
-	}
-	out.writeInt(length = internedQArray.length);
+	EncodedReferences.writeInt(out, length = names.size());
+	for (int i = 0; i < length; i++)
+		out.writeUTF(new String((char[]) names.get(i)));
+	EncodedReferences.writeInt(out, length = qualifiedNames.size());
 	for (int i = 0; i < length; i++) {
-		char[][] qName = internedQArray[i];
-		int qLength = qName.length;
-		out.writeInt(qLength);
-		for (int j = 0; j < qLength; j++) {
-			Integer index = (Integer) internedSimpleNames.get(qName[j]);
-			out.writeInt(index.intValue());
-		}
+		char[][] qName = (char[][]) qualifiedNames.get(i);
+		EncodedReferences.writeInt(out, qName.length);
+		writeNameIds(qName, internedNames, out);
 	}
 
 /*
  * References table
  * int		interned locator id
- * ReferenceCollection
+ * boolean	whether additional types are defined
+ * char[][]	additional type names
+ * int		offset of the encoded collection
+ * byte[]		encoded collections: the ids of their qualified, simple, root & member names (length + 1 if known)
 */
-	out.writeInt(length = this.references.elementSize);
+	ByteArrayOutputStream encodedReferences = new ByteArrayOutputStream(this.references.elementSize * 32);
+	EncodedReferences.writeInt(out, length = this.references.elementSize);
 	if (length > 0) {
-		keyTable = this.references.keyTable;
 		for (int i = 0, l = keyTable.length; i < l; i++) {
 			if (keyTable[i] != null) {
 				length--;
 				Integer index = (Integer) internedTypeLocators.get(keyTable[i]);
-				out.writeInt(index.intValue());
+				EncodedReferences.writeInt(out, index.intValue());
 				ReferenceCollection collection = (ReferenceCollection) valueTable[i];
 				if (collection instanceof AdditionalTypeCollection) {
-					out.writeByte(1);
-					AdditionalTypeCollection atc = (AdditionalTypeCollection) collection;
-					writeNames(atc.definedTypeNames, out);
+					out.writeBoolean(true);
+					writeNames(((AdditionalTypeCollection) collection).definedTypeNames, out);
 				} else {
-					out.writeByte(2);
+					out.writeBoolean(false);
 				}
+				EncodedReferences.writeInt(out, encodedReferences.size());
+
+				collection = collections[i];
 				char[][][] qNames = collection.qualifiedNameReferences;
 				int qLength = qNames.length;
-				out.writeInt(qLength);
+				EncodedReferences.writeInt(encodedReferences, qLength);
 				for (int j = 0; j < qLength; j++) {
 					index = (Integer) internedQualifiedNames.get(qNames[j]);
-					out.writeInt(index.intValue());
-				}
-				char[][] sNames = collection.simpleNameReferences;
-				int sLength = sNames.length;
-				out.writeInt(sLength);
-				for (int j = 0; j < sLength; j++) {
-					index = (Integer) internedSimpleNames.get(sNames[j]);
-					out.writeInt(index.intValue());
+					EncodedReferences.writeInt(encodedReferences, index.intValue());
 				}
-				char[][] rNames = collection.rootReferences;
-				int rLength = rNames.length;
-				out.writeInt(rLength);
-				for (int j = 0; j < rLength; j++) {
-					index = (Integer) internedRootNames.get(rNames[j]);
-					out.writeInt(index.intValue());
+				EncodedReferences.writeInt(encodedReferences, collection.simpleNameReferences.length);
+				writeNameIds(collection.simpleNameReferences, internedNames, encodedReferences);
+				EncodedReferences.writeInt(encodedReferences, collection.rootReferences.length);
+				writeNameIds(collection.rootReferences, internedNames, encodedReferences);
+				char[][] mNames = collection.memberReferences;
+				if (mNames == null) {
+					EncodedReferences.writeInt(encodedReferences, 0);
+				} else {
+					EncodedReferences.writeInt(encodedReferences, mNames.length + 1);
+					writeNameIds(mNames, internedNames, encodedReferences);
 				}
 			}
 		}
 		if (JavaBuilder.DEBUG && length != 0)
 			System.out.println("references table is inconsistent"); //$NON-NLS-1$
 	}
+	out.writeInt(encodedReferences.size());
+	encodedReferences.writeTo(out);
+
+/*
+ * Class file hashes table
+ * String		qualified class file name
+ * long[]		stamps & hashes
+ */
+	EncodedReferences.writeInt(out, length = this.classFileHashes.elementSize);
+	if (length > 0) {
+		keyTable = this.classFileHashes.keyTable;
+		valueTable = this.classFileHashes.valueTable;
+		for (int i = 0, l = keyTable.length; i < l; i++) {
+			if (keyTable[i] != null) {
+				length--;
+				out.writeUTF((String) keyTable[i]);
+				long[] hashes = (long[]) valueTable[i];
+				for (int j = 0; j <= STRUCTURAL_HASH; j++)
+					out.writeLong(hashes[j]);
+			}
+		}
+		if (JavaBuilder.DEBUG && length != 0)
+			System.out.println("classFileHashes table is inconsistent"); //$NON-NLS-1$
+	}
+}
+
+private static void internNames(char[][] namesToIntern, HashtableOfObject internedNames, ArrayList names) {
+	for (int i = 0, l = namesToIntern.length; i < l; i++) {
+		char[] name = namesToIntern[i];
+		if (!internedNames.containsKey(name)) { // remember the names have been interned
+			internedNames.put(name, new Integer(names.size()));
+			names.add(name);
+		}
+	}
 }
 
 private void writeName(char[] name, DataOutputStream out) throws IOException {
@@ -668,6 +784,11 @@ private void writeNames(char[][] names, DataOutputStream out) throws IOException
 		writeName(names[i], out);
 }
 
+private static void writeNameIds(char[][] names, HashtableOfObject internedNames, OutputStream out) throws IOException {
+	for (int i = 0, l = names.length; i < l; i++)
+		EncodedReferences.writeInt(out, ((Integer) internedNames.get(names[i])).intValue());
+}
+
 private void writeRestriction(AccessRuleSet accessRuleSet, DataOutputStream out) throws IOException {
 	if (accessRuleSet == null) {
 		out.writeInt(0);
@@ -738,7 +859,8 @@ void dump() {
 		for (int i = 0, l = keyTable.length; i < l; i++) {
 			if (keyTable[i] != null) {
 				System.out.print("\n\t\t" + keyTable[i].toString());
-				ReferenceCollection c = (ReferenceCollection) valueTable[i];
+				ReferenceCollection collection = (ReferenceCollection) valueTable[i];
+				ReferenceCollection c = collection.getDecodedReferences(); // the references of a collection read from a saved state may not be decoded yet
 				char[][][] qRefs = c.qualifiedNameReferences;
 				System.out.print("\n\t\t\tqualified:");
 				if (qRefs.length == 0)
@@ -751,8 +873,8 @@ void dump() {
 					System.out.print(" <empty>");
 				else for (int j = 0, m = sRefs.length; j < m; j++)
 						System.out.print("  " + new String(sRefs[j]));
-				if (c instanceof AdditionalTypeCollection) {
-					char[][] names = ((AdditionalTypeCollection) c).definedTypeNames;
+				if (collection instanceof AdditionalTypeCollection) {
+					char[][] names = ((AdditionalTypeCollection) collection).definedTypeNames;
 					System.out.print("\n\t\t\tadditional type names:");
 					for (int j = 0, m = names.length; j < m; j++)
 						System.out.print("  " + new String(names[j]));
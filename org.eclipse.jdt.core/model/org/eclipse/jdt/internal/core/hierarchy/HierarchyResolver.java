@@ -63,6 +63,12 @@ import org.eclipse.jdt.internal.core.util.HandleFactory;
 
 public class HierarchyResolver implements ITypeRequestor {
 
+	/**
+	 * Number of workers used to diet parse the compilation units that are not open (see ParallelDietParser).
+	 * The units are parsed in the calling thread if this is 1 (the default).
+	 */
+	public static final String PARALLELISM_PROPERTY = "jdt.core.hierarchy.parallelism"; //$NON-NLS-1$
+
 	private ReferenceBinding focusType;
 	private boolean superTypesOnly;
 	private boolean hasMissingSuperClass;
@@ -611,6 +617,7 @@ public void resolve(IGenericType suppliedType) {
  * @param monitor
  */
 public void resolve(Openable[] openables, HashSet localTypes, IProgressMonitor monitor) {
+	ParallelDietParser dietParser = null;
 	try {
 		int openablesLength = openables.length;
 		CompilationUnitDeclaration[] parsedUnits = new CompilationUnitDeclaration[openablesLength];
@@ -630,6 +637,26 @@ public void resolve(Openable[] openables, HashSet localTypes, IProgressMonitor m
 			}
 		}
 
+		// diet parse the units that are not open concurrently if requested
+		ICompilationUnit[] sourceUnits = null;
+		int parallelism = Math.max(Integer.getInteger(PARALLELISM_PROPERTY, 1).intValue(), 1);
+		if (parallelism > 1) {
+			sourceUnits = new ICompilationUnit[openablesLength];
+			int sourceUnitsCount = 0;
+			for (int i = 0; i < openablesLength; i++) {
+				Openable openable = openables[i];
+				if (openable instanceof org.eclipse.jdt.core.ICompilationUnit && !openable.isOpen()) {
+					sourceUnits[i] = this.builder.createCompilationUnitFromPath(openable, (IFile) openable.getResource());
+					sourceUnitsCount++;
+				}
+			}
+			if (sourceUnitsCount > 1) {
+				dietParser = new ParallelDietParser(sourceUnits, this.options, this.lookupEnvironment.problemReporter.problemFactory, monitor, Math.min(parallelism, sourceUnitsCount));
+				if (!dietParser.start())
+					dietParser = null; // the worker pool is busy: parse in this thread
+			}
+		}
+
 		// build type bindings
 		Parser parser = new Parser(this.lookupEnvironment.problemReporter, true);
 		for (int i = 0; i < openablesLength; i++) {
@@ -678,6 +705,9 @@ public void resolve(Openable[] openables, HashSet localTypes, IProgressMonitor m
 					// to parse the method bodies. Parser.getMethodBodies, which is called latter in this function, 
 					// will not parse the method statements if ASTNode.HasAllMethodBodies is set. 
 					if (containsLocalType) 	parsedUnit.bits |= ASTNode.HasAllMethodBodies;
+				} else if (dietParser != null && sourceUnits[i] != null) {
+					// parsed unit was created from file by a worker
+					parsedUnit = dietParser.getParsedUnit(i);
 				} else {
 					// create parsed unit from file
 					IFile file = (IFile) cu.getResource();
@@ -814,6 +844,8 @@ public void resolve(Openable[] openables, HashSet localTypes, IProgressMonitor m
 		if (TypeHierarchy.DEBUG)
 			e.printStackTrace();
 	} finally {
+		if (dietParser != null)
+			dietParser.stop();
 		reset();
 	}
 }
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.hierarchy;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.IProblemFactory;
+import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.parser.Parser;
+import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+import org.eclipse.jdt.internal.core.util.Messages;
+import org.eclipse.jdt.internal.core.util.WorkerPool;
+
+/**
+ * Diet parses the source units of a {@link HierarchyResolver} using workers of the shared {@link WorkerPool}.
+ * <p>
+ * The units are parsed in the order of their index, ahead of the resolver which connects their
+ * type bindings in the calling thread: the lookup environment is never accessed by the workers.
+ * Each worker has its own parser and problem reporter.
+ * </p>
+ */
+class ParallelDietParser {
+
+private static final Object NO_UNIT = new Object();
+
+ICompilationUnit[] sourceUnits; // the units to parse, null for the openables that are not parsed here
+CompilerOptions options;
+IProblemFactory problemFactory;
+IProgressMonitor monitor;
+int parallelism;
+
+Object[] results; // for each unit, its CompilationUnitDeclaration, or a Throwable if the parse failed, or null if not done yet
+int nextUnit;
+boolean canceled;
+
+class Worker implements Runnable {
+	public void run() {
+		ProblemReporter problemReporter = new ProblemReporter(
+			DefaultErrorHandlingPolicies.exitAfterAllProblems(),
+			ParallelDietParser.this.options,
+			ParallelDietParser.this.problemFactory);
+		Parser parser = new Parser(problemReporter, true);
+		int length = ParallelDietParser.this.sourceUnits.length;
+		int maxProblems = ParallelDietParser.this.options.maxProblemsPerUnit;
+		int unit;
+		while ((unit = nextUnit()) != -1) {
+			ICompilationUnit sourceUnit = ParallelDietParser.this.sourceUnits[unit];
+			try {
+				CompilationResult unitResult = new CompilationResult(sourceUnit, unit, length, maxProblems);
+				CompilationUnitDeclaration parsedUnit = parser.dietParse(sourceUnit, unitResult);
+				unitDone(unit, parsedUnit == null ? NO_UNIT : parsedUnit);
+			} catch (RuntimeException e) {
+				unitDone(unit, e);
+			} catch (Error e) {
+				unitDone(unit, e);
+			}
+		}
+	}
+}
+
+ParallelDietParser(ICompilationUnit[] sourceUnits, CompilerOptions options, IProblemFactory problemFactory, IProgressMonitor monitor, int parallelism) {
+	this.sourceUnits = sourceUnits;
+	this.options = options;
+	this.problemFactory = problemFactory;
+	this.monitor = monitor;
+	this.parallelism = parallelism;
+}
+/*
+ * Answers the parsed unit of the source unit at the given index, waiting for a worker to parse it.
+ */
+CompilationUnitDeclaration getParsedUnit(int unit) {
+	Object result = waitForUnit(unit);
+	this.results[unit] = null; // the resolver keeps its own reference
+	if (result instanceof RuntimeException)
+		throw (RuntimeException) result;
+	if (result instanceof Error)
+		throw (Error) result;
+	return result == NO_UNIT ? null : (CompilationUnitDeclaration) result;
+}
+synchronized boolean isCanceled() {
+	if (this.canceled) return true;
+	return this.canceled = this.monitor != null && this.monitor.isCanceled();
+}
+synchronized int nextUnit() {
+	while (!this.canceled && this.nextUnit < this.sourceUnits.length) {
+		int unit = this.nextUnit++;
+		if (this.sourceUnits[unit] != null)
+			return unit;
+	}
+	return -1;
+}
+/*
+ * Starts parsing the units in the background.
+ * Answers false if the worker pool is busy, in which case the units must be parsed by the caller.
+ */
+boolean start() {
+	this.results = new Object[this.sourceUnits.length];
+	this.nextUnit = 0;
+	return WorkerPool.start(Messages.hierarchy_parser_jobName, new Worker(), this.parallelism) != null;
+}
+/*
+ * Stops the workers once they are done with their current unit.
+ */
+synchronized void stop() {
+	this.canceled = true;
+}
+synchronized void unitDone(int unit, Object result) {
+	this.results[unit] = result;
+	notifyAll();
+}
+private synchronized Object waitForUnit(int unit) {
+	while (this.results[unit] == null) {
+		if (isCanceled())
+			throw new OperationCanceledException();
+		try {
+			wait(100);
+		} catch (InterruptedException e) {
+			// ignore
+		}
+	}
+	return this.results[unit];
+}
+}
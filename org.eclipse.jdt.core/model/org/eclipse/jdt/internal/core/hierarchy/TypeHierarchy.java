@@ -133,6 +133,12 @@ public class TypeHierarchy implements ITypeHierarchy, IElementChangedListener {
 	 */
 	protected ChangeCollector changeCollector;
 
+	/*
+	 * Whether this hierarchy is affected by changes that are not collected by the change collector
+	 * (e.g. classpath changes), so that it must be recomputed on refresh
+	 */
+	protected boolean needsFullRefresh = true;
+
 /**
  * Creates an empty TypeHierarchy
  */
@@ -193,6 +199,84 @@ private void addAllCheckingDuplicates(ArrayList list, IType[] collection) {
 		}
 	}
 }
+/*
+ * Applies the changes of super types collected by the given collector to this hierarchy, re-resolving
+ * only the super types of the changed types.
+ * Returns false if the changes cannot be applied in place, in which case this hierarchy is left unchanged.
+ * Only the changes of the super types of the subtypes of the focus type are applied: the other changes
+ * (added or removed types, changes of visibility or of the super types of the focus type and its super types)
+ * can change how type names are resolved or require a search for new subtypes.
+ */
+protected boolean applyChanges(ChangeCollector collector) {
+	if (this.focusType == null || !this.computeSubtypes) return false;
+	int length = collector.changes.size();
+	if (length == 0) return true;
+
+	// check that the changed types stay subtypes of the focus type
+	IType[] changedTypes = new IType[length];
+	Iterator iterator = collector.changes.entrySet().iterator();
+	for (int i = 0; iterator.hasNext(); i++) {
+		Map.Entry entry = (Map.Entry) iterator.next();
+		SimpleDelta delta = (SimpleDelta) entry.getValue();
+		if (delta.getKind() != IJavaElementDelta.CHANGED || delta.getFlags() != IJavaElementDelta.F_SUPER_TYPES)
+			return false;
+		changedTypes[i] = (IType) entry.getKey();
+	}
+	TypeVector stableTypes = new TypeVector(getAllSubtypes(this.focusType));
+	stableTypes.add(this.focusType);
+	for (int i = 0; i < length; i++) {
+		IType type = changedTypes[i];
+		if (!stableTypes.contains(type) || type.equals(this.focusType)) return false; // not a subtype of the focus type
+	}
+	for (int i = 0; i < length; i++) {
+		IType type = changedTypes[i];
+		stableTypes.remove(type);
+		IType[] subtypes = getAllSubtypes(type);
+		for (int j = 0, subtypesLength = subtypes.length; j < subtypesLength; j++)
+			stableTypes.remove(subtypes[j]);
+	}
+	ITypeHierarchy[] supertypeHierarchies = new ITypeHierarchy[length];
+	int[] flags = new int[length];
+	try {
+		for (int i = 0; i < length; i++) {
+			checkCanceled();
+			IType type = changedTypes[i];
+			flags[i] = type.getFlags();
+			boolean isInterface = Flags.isInterface(flags[i]);
+			if (isInterface != isInterface(type)) return false;
+			ITypeHierarchy supertypeHierarchy = type.newSupertypeHierarchy(this.workingCopies, null);
+			IType superclass = supertypeHierarchy.getSuperclass(type);
+			if (superclass == null && !isInterface) return false; // the type would become a root class
+			boolean isSubtype = superclass != null && stableTypes.contains(superclass);
+			IType[] superInterfaces = supertypeHierarchy.getSuperInterfaces(type);
+			for (int j = 0, interfacesLength = superInterfaces.length; !isSubtype && j < interfacesLength; j++)
+				isSubtype = stableTypes.contains(superInterfaces[j]);
+			if (!isSubtype) return false;
+			supertypeHierarchies[i] = supertypeHierarchy;
+		}
+	} catch (JavaModelException e) {
+		// the type doesn't exist any longer
+		return false;
+	}
+
+	// replace the super types of the changed types
+	for (int i = 0; i < length; i++) {
+		IType type = changedTypes[i];
+		ITypeHierarchy supertypeHierarchy = supertypeHierarchies[i];
+		IType superclass = (IType) this.classToSuperclass.remove(type);
+		if (superclass != null)
+			removeSubtype(superclass, type);
+		else
+			this.rootClasses.remove(type); // no-op for an interface
+		IType[] superInterfaces = getSuperInterfaces(type);
+		for (int j = 0, interfacesLength = superInterfaces.length; j < interfacesLength; j++)
+			removeSubtype(superInterfaces[j], type);
+		cacheSuperclass(type, supertypeHierarchy.getSuperclass(type));
+		cacheSuperInterfaces(type, supertypeHierarchy.getSuperInterfaces(type));
+		cacheFlags(type, flags[i]);
+	}
+	return true;
+}
 /**
  * Adds the type to the collection of interfaces.
  */
@@ -323,7 +407,12 @@ public boolean contains(IType type) {
  */
 public void elementChanged(ElementChangedEvent event) {
 	// type hierarchy change has already been fired
-	if (this.needsRefresh) return;
+	if (this.needsRefresh) {
+		// keep collecting the changes that can be applied in place on refresh
+		if (!this.needsFullRefresh)
+			isAffected(event.getDelta(), event.getType());
+		return;
+	}
 
 	if (isAffected(event.getDelta(), event.getType())) {
 		this.needsRefresh = true;
@@ -854,7 +943,7 @@ private boolean isAffectedByJavaModel(IJavaElementDelta delta, IJavaElement elem
 	switch (delta.getKind()) {
 		case IJavaElementDelta.ADDED :
 		case IJavaElementDelta.REMOVED :
-			return element.equals(javaProject().getJavaModel());
+			return needsFullRefresh(element.equals(javaProject().getJavaModel()));
 		case IJavaElementDelta.CHANGED :
 			return isAffectedByChildren(delta, eventType);
 	}
@@ -881,7 +970,7 @@ private boolean isAffectedByJavaProject(IJavaElementDelta delta, IJavaElement el
 				for (int i = 0; i < classpath.length; i++) {
 					if (classpath[i].getEntryKind() == IClasspathEntry.CPE_PROJECT
 							&& classpath[i].getPath().equals(element.getPath())) {
-						return true;
+						return needsFullRefresh(true);
 					}
 				}
 				if (this.focusType != null) {
@@ -891,7 +980,7 @@ private boolean isAffectedByJavaProject(IJavaElementDelta delta, IJavaElement el
 					for (int i = 0; i < classpath.length; i++) {
 						if (classpath[i].getEntryKind() == IClasspathEntry.CPE_PROJECT
 								&& classpath[i].getPath().equals(hierarchyProject)) {
-							return true;
+							return needsFullRefresh(true);
 						}
 					}
 				}
@@ -906,7 +995,7 @@ private boolean isAffectedByJavaProject(IJavaElementDelta delta, IJavaElement el
 			for (int i = 0; i < pkgs.length; i++) {
 				IJavaProject javaProject = pkgs[i].getJavaProject();
 				if (javaProject != null && javaProject.equals(element)) {
-					return true;
+					return needsFullRefresh(true);
 				}
 			}
 			return false;
@@ -924,10 +1013,10 @@ private boolean isAffectedByPackageFragment(IJavaElementDelta delta, PackageFrag
 		case IJavaElementDelta.ADDED :
 			// if the package fragment is in the projects being considered, this could
 			// introduce new types, changing the hierarchy
-			return this.projectRegion.contains(element);
+			return needsFullRefresh(this.projectRegion.contains(element));
 		case IJavaElementDelta.REMOVED :
 			// is a change if the package fragment contains types in this hierarchy
-			return packageRegionContainsSamePackageFragment(element);
+			return needsFullRefresh(packageRegionContainsSamePackageFragment(element));
 		case IJavaElementDelta.CHANGED :
 			// look at the files in the package fragment
 			return isAffectedByChildren(delta, eventType);
@@ -941,7 +1030,7 @@ private boolean isAffectedByPackageFragment(IJavaElementDelta delta, PackageFrag
 private boolean isAffectedByPackageFragmentRoot(IJavaElementDelta delta, IJavaElement element, int eventType) {
 	switch (delta.getKind()) {
 		case IJavaElementDelta.ADDED :
-			return this.projectRegion.contains(element);
+			return needsFullRefresh(this.projectRegion.contains(element));
 		case IJavaElementDelta.REMOVED :
 		case IJavaElementDelta.CHANGED :
 			int flags = delta.getFlags();
@@ -956,7 +1045,7 @@ private boolean isAffectedByPackageFragmentRoot(IJavaElementDelta delta, IJavaEl
 						try {
 							IClasspathEntry entry = javaProject.getClasspathEntryFor(rootPath);
 							if (entry != null) {
-								return true;
+								return needsFullRefresh(true);
 							}
 						} catch (JavaModelException e) {
 							// igmore this project
@@ -972,7 +1061,7 @@ private boolean isAffectedByPackageFragmentRoot(IJavaElementDelta delta, IJavaEl
 				IJavaElement[] pkgs = this.packageRegion.getElements();
 				for (int i = 0; i < pkgs.length; i++) {
 					if (pkgs[i].getParent().equals(element)) {
-						return true;
+						return needsFullRefresh(true);
 					}
 				}
 				return false;
@@ -1006,9 +1095,10 @@ protected boolean isAffectedByOpenable(IJavaElementDelta delta, IJavaElement ele
 			if (DEBUG)
 				e.printStackTrace();
 		}
+		// keep the changes so that they can be applied in place on refresh
+		this.changeCollector = collector;
 		if (cu.isWorkingCopy() && eventType == ElementChangedEvent.POST_RECONCILE) {
 			// changes to working copies are batched
-			this.changeCollector = collector;
 			return false;
 		} else {
 			return collector.needsRefresh();
@@ -1016,7 +1106,7 @@ protected boolean isAffectedByOpenable(IJavaElementDelta delta, IJavaElement ele
 	} else if (element instanceof ClassFile) {
 		switch (delta.getKind()) {
 			case IJavaElementDelta.REMOVED:
-				return this.files.get(element) != null;
+				return needsFullRefresh(this.files.get(element) != null);
 			case IJavaElementDelta.ADDED:
 				IType type = ((ClassFile)element).getType();
 				String typeName = type.getElementName();
@@ -1024,7 +1114,7 @@ protected boolean isAffectedByOpenable(IJavaElementDelta delta, IJavaElement ele
 					|| subtypesIncludeSupertypeOf(type)
 					|| this.missingTypes.contains(typeName)) {
 
-					return true;
+					return needsFullRefresh(true);
 				}
 				break;
 			case IJavaElementDelta.CHANGED:
@@ -1038,7 +1128,7 @@ protected boolean isAffectedByOpenable(IJavaElementDelta delta, IJavaElement ele
 						boolean hasSupertypeChange = (delta.getFlags() & IJavaElementDelta.F_SUPER_TYPES) > 0;
 						if ((hasVisibilityChange && hasSupertype(type.getElementName()))
 								|| (hasSupertypeChange && includesTypeOrSupertype(type))) {
-							return true;
+							return needsFullRefresh(true);
 						}
 					}
 				}
@@ -1047,6 +1137,15 @@ protected boolean isAffectedByOpenable(IJavaElementDelta delta, IJavaElement ele
 	}
 	return false;
 }
+/*
+ * Records that this hierarchy must be recomputed on refresh if it is affected by a change
+ * that is not collected by the change collector.
+ */
+private boolean needsFullRefresh(boolean affected) {
+	if (affected)
+		this.needsFullRefresh = true;
+	return affected;
+}
 private boolean isInterface(IType type) {
 	int flags = getCachedFlags(type);
 	if (flags == -1) {
@@ -1264,9 +1363,15 @@ public synchronized void refresh(IProgressMonitor monitor) throws JavaModelExcep
 			}
 		}
 
-		compute();
-		initializeRegions();
+		ChangeCollector collector = this.changeCollector;
+		if (!this.needsRefresh || this.needsFullRefresh || collector == null || !applyChanges(collector)) {
+			compute();
+			initializeRegions();
+		} else if (DEBUG) {
+			System.out.println("  applied changes in place:\n" + collector); //$NON-NLS-1$
+		}
 		this.needsRefresh = false;
+		this.needsFullRefresh = false;
 		this.changeCollector = null;
 
 		if (DEBUG) {
@@ -1289,6 +1394,16 @@ public synchronized void refresh(IProgressMonitor monitor) throws JavaModelExcep
 	}
 }
 
+/*
+ * Removes the given subtype from the subtypes of the given type.
+ */
+private void removeSubtype(IType type, IType subtype) {
+	TypeVector subtypes = (TypeVector)this.typeToSubtypes.get(type);
+	if (subtypes == null) return;
+	subtypes.remove(subtype);
+	if (subtypes.size == 0)
+		this.typeToSubtypes.remove(type);
+}
 /**
  * @see ITypeHierarchy
  */
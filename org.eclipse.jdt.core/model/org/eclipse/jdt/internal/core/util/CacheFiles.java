@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Helpers shared by the caches which store their entries as files of a directory, such as the compiled units
+ * of the builder, the jar entry listings and the index store.
+ * <p>
+ * An entry is stored in a file named after the hexadecimal form of its key, in a sub-directory named after
+ * the version of the cache format and the first two characters of the key, so that no directory holds too
+ * many files. An entry is written to a temporary file which is then renamed, so that the processes sharing
+ * the directory never read a partially written entry.
+ * </p>
+ */
+public class CacheFiles {
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	/**
+	 * The contents of an entry, written to its file by {@link CacheFiles#write(File, Contents)}.
+	 */
+	public interface Contents {
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	private CacheFiles() {
+		// not instantiable
+	}
+
+	/**
+	 * Returns the file of the entry with the given key in the given cache directory. The file may not exist.
+	 */
+	public static File getFile(File root, String version, String key, String suffix) {
+		File directory = new File(new File(root, version), key.substring(0, 2));
+		return new File(directory, key + suffix);
+	}
+
+	/**
+	 * Returns a new SHA-1 digest.
+	 */
+	public static MessageDigest newDigest() throws IOException {
+		try {
+			return MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	public static String toHexString(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0, l = bytes.length; i < l; i++) {
+			chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+			chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+	public static String toHexString(long value) {
+		char[] chars = new char[16];
+		for (int i = 15; i >= 0; i--) {
+			chars[i] = HEX_DIGITS[(int) value & 0xF];
+			value >>>= 4;
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Writes the given contents to the given file, replacing it if it exists.
+	 * The contents are first written to a temporary file of the same directory, which is then renamed.
+	 */
+	public static void write(File file, Contents contents) throws IOException {
+		File directory = file.getParentFile();
+		directory.mkdirs();
+		File temporaryFile = File.createTempFile(file.getName(), null, directory);
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+			try {
+				contents.write(out);
+			} finally {
+				out.close();
+			}
+			file.delete(); // renaming fails on some platforms if the file exists
+			if (!temporaryFile.renameTo(file) && !file.exists()) // another process may have written the same entry meanwhile
+				throw new IOException("Failed to rename " + temporaryFile + " to " + file); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			if (temporaryFile.exists())
+				temporaryFile.delete();
+		}
+	}
+}
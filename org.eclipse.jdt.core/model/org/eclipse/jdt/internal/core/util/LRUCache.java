@@ -268,6 +268,21 @@ public class LRUCache implements Cloneable {
 	 */
 	protected LRUCacheEntry entryQueueTail;
 
+	/**
+	 * Number of calls to <code>get</code> which found their key
+	 */
+	protected int hitCount;
+
+	/**
+	 * Number of calls to <code>get</code> which did not find their key
+	 */
+	protected int missCount;
+
+	/**
+	 * Number of entries removed to make space for new entries
+	 */
+	protected int evictionCount;
+
 	/**
 	 * Default amount of space in the cache
 	 */
@@ -364,9 +379,11 @@ public class LRUCache implements Cloneable {
 
 		LRUCacheEntry entry = (LRUCacheEntry) this.entryTable.get(key);
 		if (entry == null) {
+			this.missCount++;
 			return null;
 		}
 
+		this.hitCount++;
 		updateTimestamp (entry);
 		return entry.value;
 	}
@@ -376,6 +393,24 @@ public class LRUCache implements Cloneable {
 	public int getCurrentSpace() {
 		return this.currentSpace;
 	}
+	/**
+	 * Returns the number of entries removed to make space for new entries since the cache was created.
+	 */
+	public int getEvictionCount() {
+		return this.evictionCount;
+	}
+	/**
+	 * Returns the number of calls to <code>get</code> which found their key since the cache was created.
+	 */
+	public int getHitCount() {
+		return this.hitCount;
+	}
+	/**
+	 * Returns the number of calls to <code>get</code> which did not find their key since the cache was created.
+	 */
+	public int getMissCount() {
+		return this.missCount;
+	}
 	/**
 	 * Returns the timestamps of the most recently used element in the cache.
 	 */
@@ -461,6 +496,7 @@ public class LRUCache implements Cloneable {
 		/* Free up space by removing oldest entries */
 		while (this.currentSpace + space > limit && this.entryQueueTail != null) {
 			privateRemoveEntry (this.entryQueueTail, false);
+			this.evictionCount++;
 		}
 		return true;
 	}
@@ -680,6 +716,18 @@ public class LRUCache implements Cloneable {
 		return buffer.toString();
 	}
 
+	public String toStringStatistics(String cacheName) {
+		StringBuffer buffer = new StringBuffer(cacheName);
+		buffer.append(": "); //$NON-NLS-1$
+		buffer.append(this.hitCount);
+		buffer.append(" hits, "); //$NON-NLS-1$
+		buffer.append(this.missCount);
+		buffer.append(" misses, "); //$NON-NLS-1$
+		buffer.append(this.evictionCount);
+		buffer.append(" evictions"); //$NON-NLS-1$
+		return buffer.toString();
+	}
+
 	/**
 	 * Updates the timestamp for the given entry, ensuring that the queue is
 	 * kept in correct order.  The entry must exist
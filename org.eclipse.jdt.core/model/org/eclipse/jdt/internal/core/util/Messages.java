@@ -189,6 +189,11 @@ public final class Messages extends NLS {
 	public static String savedState_jobName;
 	public static String refreshing_external_folders;
 	public static String updating_external_archives_jobName;
+	public static String coalesced_deltas_jobName;
+	public static String classpath_resolution_jobName;
+	public static String search_matches_jobName;
+	public static String hierarchy_parser_jobName;
+	public static String watching_external_archives_jobName;
 	public static String convention_unit_nullName;
 	public static String convention_unit_notJavaName;
 	public static String convention_classFile_nullName;
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.util;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.IJobChangeListener;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+
+/**
+ * A pool of system jobs shared by the operations which split their work between several workers,
+ * such as the search match locators and the type hierarchy parsers.
+ * <p>
+ * At most {@link #SIZE} workers run at once, whatever the number of operations in progress:
+ * an operation which asks for workers while the pool is busy is given fewer of them, possibly none,
+ * and is expected to do its work in the calling thread in that case.
+ * The workers of an operation run the same task, which takes the units of work from the operation
+ * until there are none left or the operation is canceled.
+ * </p>
+ */
+public class WorkerPool {
+
+	/**
+	 * Maximum number of workers running at once, the number of available processors by default.
+	 */
+	public static final String SIZE_PROPERTY = "jdt.core.workerPool.size"; //$NON-NLS-1$
+	public static final int SIZE = Math.max(Integer.getInteger(SIZE_PROPERTY, Runtime.getRuntime().availableProcessors()).intValue(), 1);
+
+	/**
+	 * The family of the jobs of the pool.
+	 */
+	public static final Object FAMILY = new Object();
+
+	private static int runningWorkers = 0;
+
+	private Job[] jobs;
+
+	private WorkerPool(Job[] jobs) {
+		this.jobs = jobs;
+	}
+
+	/**
+	 * Returns the number of workers of the operation.
+	 */
+	public int getWorkerCount() {
+		return this.jobs.length;
+	}
+
+	/**
+	 * Waits until all the workers of the operation are done.
+	 */
+	public void join() {
+		for (int i = 0, length = this.jobs.length; i < length; i++) {
+			try {
+				this.jobs[i].join();
+			} catch (InterruptedException e) {
+				// ignore
+			}
+		}
+	}
+
+	private static synchronized void release() {
+		runningWorkers--;
+	}
+
+	private static synchronized int reserve(int count) {
+		int reserved = Math.min(count, SIZE - runningWorkers);
+		if (reserved <= 0) return 0;
+		runningWorkers += reserved;
+		return reserved;
+	}
+
+	/**
+	 * Starts at most the given number of workers running the given task, in jobs with the given name.
+	 * Returns the started workers, or null if the pool is busy and no worker was started.
+	 */
+	public static WorkerPool start(String name, final Runnable task, int count) {
+		int reserved = reserve(count);
+		if (reserved == 0) return null;
+		Job[] jobs = new Job[reserved];
+		IJobChangeListener releaser = new JobChangeAdapter() {
+			public void done(IJobChangeEvent event) {
+				// also called if the job is canceled before it runs
+				release();
+			}
+		};
+		for (int i = 0; i < reserved; i++) {
+			jobs[i] = new Job(name) {
+				protected IStatus run(IProgressMonitor monitor) {
+					task.run();
+					return Status.OK_STATUS;
+				}
+				public boolean belongsTo(Object family) {
+					return family == FAMILY;
+				}
+			};
+			jobs[i].setSystem(true);
+			jobs[i].addJobChangeListener(releaser);
+		}
+		for (int i = 0; i < reserved; i++)
+			jobs[i].schedule();
+		return new WorkerPool(jobs);
+	}
+}
@@ -39,4 +39,23 @@ public final class JavaIndexer {
 		new DefaultJavaIndexer().generateIndexForJar(pathToJar, pathToIndexFile);
 	}
 
+	/**
+	 * Generates the index file for the specified jar in the specified index store, unless the store
+	 * already contains it.
+	 * <p>
+	 * An index store is a directory in which the index of a jar is stored under the SHA-1 digest of
+	 * the content of this jar. When the system property <code>jdt.core.sharedIndexStore</code> is set
+	 * to the path of an index store, the search engine uses the indexes of this store instead of indexing
+	 * the corresponding jars.
+	 * </p>
+	 * @param pathToJar The full path to the jar that needs to be indexed
+	 * @param pathToStore The full path to the directory of the index store
+	 * @return the full path to the index file of the jar in the store
+	 * @throws IOException if the jar is not found or could not write into the index store
+	 * @since 3.9
+	 */
+	public static String generateIndexInStore(String pathToJar, String pathToStore) throws IOException {
+		return new DefaultJavaIndexer().generateIndexInStore(pathToJar, pathToStore);
+	}
+
 }
@@ -47,6 +47,10 @@ public class JavaIndexerApplication implements IApplication {
 		public static String CommandLineIndexFileNotSpecified;
 		public static String CaughtException;
 		public static String CommandLineJarFileNotExist;
+		public static String CommandLineOnlyOneStoreError;
+		public static String CommandLineStoreTakesArgs;
+		public static String CommandLineOutputAndStoreError;
+		public static String CommandLineStoring;
 
 		static {
 			NLS.initializeMessages(MESSAGES_NAME, Messages.class);
@@ -70,12 +74,15 @@ public class JavaIndexerApplication implements IApplication {
 	}
 
 	private String jarToIndex;
+	private ArrayList otherJarsToIndex = new ArrayList(); // only valid with -store
 	private String indexFile;
+	private String indexStore;
 	private boolean verbose = false;
 	private static final String PDE_LAUNCH = "-pdelaunch"; //$NON-NLS-1$
 	private static final String ARG_HELP = "-help"; //$NON-NLS-1$
 	private static final String ARG_VERBOSE = "-verbose"; //$NON-NLS-1$
 	private static final String ARG_OUTPUT = "-output"; //$NON-NLS-1$
+	private static final String ARG_STORE = "-store"; //$NON-NLS-1$
 
 	private void displayHelp() {
 		System.out.println(Messages.bind(Messages.CommandLineUsage));
@@ -114,21 +121,58 @@ public class JavaIndexerApplication implements IApplication {
 					return false;
 				}
 				this.indexFile = argsArray[index++];
+			} else if (ARG_STORE.equals(currentArg)) {
+				if (this.indexStore != null) {
+					displayError(Messages.bind(Messages.CommandLineOnlyOneStoreError));
+					return false;
+				} else if (index == argCount) {
+					displayError(Messages.bind(Messages.CommandLineStoreTakesArgs));
+					return false;
+				}
+				this.indexStore = argsArray[index++];
 			} else {
 				if (this.jarToIndex != null) {
-					displayError(Messages.bind(Messages.CommandLineOnlyOneJarError));
-					return false;
+					this.otherJarsToIndex.add(currentArg);
+				} else {
+					this.jarToIndex = currentArg;
 				}
-				this.jarToIndex = currentArg;
 			}
 		}
+		if (this.indexFile != null && this.indexStore != null) {
+			displayError(Messages.bind(Messages.CommandLineOutputAndStoreError));
+			return false;
+		}
+		if (this.indexStore == null && this.otherJarsToIndex.size() > 0) {
+			displayError(Messages.bind(Messages.CommandLineOnlyOneJarError));
+			return false;
+		}
 		return true;
 	}
 
+	private void storeIndex(String jar) {
+		if (!new File(jar).exists()) {
+			System.out.println(Messages.bind(Messages.CommandLineJarFileNotExist, jar));
+			return;
+		}
+		try {
+			String storedFile = JavaIndexer.generateIndexInStore(jar, this.indexStore);
+			if (this.verbose) {
+				System.out.println(Messages.bind(Messages.CommandLineStoring, storedFile, jar));
+			}
+		} catch (IOException e) {
+			System.out.println(Messages.bind(Messages.CaughtException, "IOException", e.getLocalizedMessage())); //$NON-NLS-1$
+		}
+	}
+
 	public Object start(IApplicationContext context) throws Exception {
 		boolean execute = processCommandLine((String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS));
 		if (execute) {
-			if (this.jarToIndex != null && this.indexFile != null) {
+			if (this.jarToIndex != null && this.indexStore != null) {
+				storeIndex(this.jarToIndex);
+				for (int i = 0, size = this.otherJarsToIndex.size(); i < size; i++) {
+					storeIndex((String) this.otherJarsToIndex.get(i));
+				}
+			} else if (this.jarToIndex != null && this.indexFile != null) {
 				File f = new File(this.jarToIndex);
 				if (f.exists()) {
 					if (this.verbose) {
@@ -584,6 +584,57 @@ public class SearchEngine {
 		this.basicEngine.search(pattern, participants, scope, requestor, monitor);
 	}
 
+	/**
+	 * Searches for the first matches of a given search pattern. Search patterns can be created using helper
+	 * methods (from a String pattern or a Java element) and encapsulate the description of what is
+	 * being searched (for example, search method declarations in a case sensitive way).
+	 * <p>
+	 * At most <code>maxMatches</code> matches are reported to the requestor. As soon as they have been
+	 * reported, the search stops: the indexes that were not queried yet are skipped and the documents
+	 * that were not located yet are not parsed. The search then completes normally, i.e.
+	 * {@link SearchRequestor#endReporting()} is called and no {@link OperationCanceledException} is thrown.
+	 * A <code>maxMatches</code> lower or equal to <code>0</code> means that all the matches are reported.
+	 * </p><p>
+	 * Note that the matches that are reported are not necessarily the first ones that an unlimited
+	 * search would report.
+	 * </p>
+	 *
+	 * @param pattern the pattern to search
+	 * @param participants the participants in the search
+	 * @param scope the search scope
+	 * @param requestor the requestor to report the matches to
+	 * @param maxMatches the maximum number of matches to report
+	 * @param monitor the progress monitor used to report progress
+	 * @exception CoreException if the search failed. Reasons include:
+	 *	<ul>
+	 *		<li>the classpath is incorrectly set</li>
+	 *	</ul>
+	 * @since 3.9
+	 */
+	public void search(SearchPattern pattern, SearchParticipant[] participants, IJavaSearchScope scope, SearchRequestor requestor, int maxMatches, IProgressMonitor monitor) throws CoreException {
+		this.basicEngine.search(pattern, participants, scope, requestor, maxMatches, monitor);
+	}
+
+	/**
+	 * Returns whether the given search pattern has at least one match in the given scope.
+	 * The search stops as soon as a match has been found.
+	 *
+	 * @param pattern the pattern to search
+	 * @param participants the participants in the search
+	 * @param scope the search scope
+	 * @param monitor the progress monitor used to report progress
+	 * @return whether the given search pattern has at least one match
+	 * @exception CoreException if the search failed. Reasons include:
+	 *	<ul>
+	 *		<li>the classpath is incorrectly set</li>
+	 *	</ul>
+	 * @see #search(SearchPattern, SearchParticipant[], IJavaSearchScope, SearchRequestor, int, IProgressMonitor)
+	 * @since 3.9
+	 */
+	public boolean hasMatch(SearchPattern pattern, SearchParticipant[] participants, IJavaSearchScope scope, IProgressMonitor monitor) throws CoreException {
+		return this.basicEngine.hasMatch(pattern, participants, scope, monitor);
+	}
+
 	/**
 	 * Searches for all top-level types and member types in the given scope.
 	 * The search can be selecting specific types (given a package exact full name or
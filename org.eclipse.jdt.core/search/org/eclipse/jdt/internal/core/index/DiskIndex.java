@@ -32,6 +32,7 @@ private int[] chunkOffsets;
 private int documentReferenceSize; // 1, 2 or more bytes... depends on # of document names
 private int startOfCategoryTables;
 private HashtableOfIntValues categoryOffsets, categoryEnds;
+private HashtableOfObject categoryFilters; // category name -> WordFilter of its words
 
 private int cacheUserCount;
 private String[][] cachedChunks; // decompressed chunks of document names
@@ -46,7 +47,7 @@ private int bufferIndex, bufferEnd; // used when reading from the file into the
 private int streamEnd; // used when writing data from the streamBuffer to the file
 char separator = Index.DEFAULT_SEPARATOR;
 
-public static final String SIGNATURE= "INDEX VERSION 1.126"; //$NON-NLS-1$
+public static final String SIGNATURE= "INDEX VERSION 1.127"; //$NON-NLS-1$
 private static final char[] SIGNATURE_CHARS = SIGNATURE.toCharArray();
 public static boolean DEBUG = false;
 
@@ -94,6 +95,7 @@ DiskIndex() {
 	this.cachedCategoryName = null;
 	this.categoryOffsets = null;
 	this.categoryEnds = null;
+	this.categoryFilters = null;
 }
 DiskIndex(IndexLocation location) throws IOException {
 	this();
@@ -187,6 +189,7 @@ HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule
 		switch (matchRule) {
 			case SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE:
 				for (int i = 0, l = categories.length; i < l; i++) {
+					if (!mayContain(categories[i], key, false)) continue; // skip reading the category table
 					HashtableOfObject wordsToDocNumbers = readCategoryTable(categories[i], false);
 					Object value;
 					if (wordsToDocNumbers != null && (value = wordsToDocNumbers.get(key)) != null)
@@ -196,6 +199,7 @@ HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule
 				break;
 			case SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE:
 				for (int i = 0, l = categories.length; i < l; i++) {
+					if (!mayContain(categories[i], key, true)) continue; // skip reading the category table
 					HashtableOfObject wordsToDocNumbers = readCategoryTable(categories[i], false);
 					if (wordsToDocNumbers != null) {
 						char[][] words = wordsToDocNumbers.keyTable;
@@ -438,8 +442,41 @@ private void initializeFrom(DiskIndex diskIndex, File newIndexFile) throws IOExc
 	this.categoryOffsets = new HashtableOfIntValues(size);
 	this.categoryEnds = new HashtableOfIntValues(size);
 	this.categoryTables = new HashtableOfObject(size);
+	this.categoryFilters = new HashtableOfObject(size);
 	this.separator = diskIndex.separator;
 }
+/*
+ * Returns false if the given category cannot contain the given key (or a word starting with it if isPrefix is true).
+ */
+private boolean mayContain(char[] categoryName, char[] key, boolean isPrefix) {
+	if (this.categoryFilters == null) return true;
+	WordFilter filter = (WordFilter) this.categoryFilters.get(categoryName);
+	return filter == null || filter.mayContain(key, isPrefix);
+}
+/**
+ * Returns false if none of the given categories can have a result for the given query.
+ * Answers without reading the category tables: only exact and prefix case sensitive
+ * queries can be rejected.
+ */
+boolean mayMatch(char[][] categories, char[] key, int matchRule) {
+	if (this.categoryOffsets == null) return false; // file is empty
+	if (key == null) return true;
+	boolean isPrefix;
+	switch (matchRule) {
+		case SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE:
+			isPrefix = false;
+			break;
+		case SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE:
+			isPrefix = true;
+			break;
+		default:
+			return true;
+	}
+	for (int i = 0, l = categories.length; i < l; i++)
+		if (this.categoryOffsets.containsKey(categories[i]) && mayContain(categories[i], key, isPrefix))
+			return true;
+	return false;
+}
 private void mergeCategories(DiskIndex onDisk, int[] positions, FileOutputStream stream) throws IOException {
 	// at this point, this.categoryTables contains the names -> wordsToDocs added in copyQueryResults()
 	char[][] oldNames = onDisk.categoryOffsets.keyTable;
@@ -704,6 +741,29 @@ private synchronized HashtableOfObject readCategoryTable(char[] categoryName, bo
 	this.streamBuffer = null;
 	return categoryTable;
 }
+synchronized ResidentCategoryTable readResidentCategoryTable(char[] categoryName) throws IOException {
+	ResidentCategoryTable.Collector collector = new ResidentCategoryTable.Collector();
+	if (this.categoryOffsets != null) { // file is not empty
+		HashtableOfObject wordsToDocNumbers = readCategoryTable(categoryName, true);
+		if (wordsToDocNumbers != null) {
+			String[] docNames = readAllDocumentNames();
+			char[][] words = wordsToDocNumbers.keyTable;
+			Object[] values = wordsToDocNumbers.valueTable;
+			for (int i = 0, l = words.length; i < l; i++) {
+				if (words[i] != null) {
+					int[] docNumbers = readDocumentNumbers(values[i]);
+					for (int j = 0, m = docNumbers.length; j < m; j++)
+						collector.add(words[i], docNames[docNumbers[j]]);
+				}
+			}
+			// the resident table replaces the cached table, do not hold the category twice
+			this.categoryTables.put(categoryName, null);
+			if (CharOperation.equals(categoryName, this.cachedCategoryName))
+				this.cachedCategoryName = null;
+		}
+	}
+	return collector.toTable(INTERNED_CATEGORY_NAMES.get(categoryName));
+}
 private void readChunk(String[] docNames, InputStream stream, int index, int size) throws IOException {
 	String current = new String(readStreamChars(stream));
 	docNames[index++] = current;
@@ -827,6 +887,23 @@ private void readHeaderInfo(InputStream stream) throws IOException {
 	if (previousCategory != null) {
 		this.categoryEnds.put(previousCategory, this.headerInfoOffset); // cache end of the category table
 	}
+
+	// word filters of the categories... # of name -> filter pairs, followed by each name & its filter
+	int filterCount = readStreamInt(stream);
+	this.categoryFilters = new HashtableOfObject(filterCount);
+	for (int i = 0; i < filterCount; i++) {
+		char[] categoryName = INTERNED_CATEGORY_NAMES.get(readStreamChars(stream));
+		int filterSize = readStreamInt(stream);
+		if (length != -1 && filterSize > length) {
+			if (DEBUG)
+				System.out.println("Index file is corrupted " + this.indexLocation); //$NON-NLS-1$
+			throw new IOException("Index file is corrupted " + this.indexLocation); //$NON-NLS-1$
+		}
+		int[] bits = new int[filterSize];
+		for (int j = 0; j < filterSize; j++)
+			bits[j] = readStreamInt(stream);
+		this.categoryFilters.put(categoryName, new WordFilter(bits));
+	}
 	this.categoryTables = new HashtableOfObject(3);
 }
 synchronized void startQuery() {
@@ -1091,6 +1168,7 @@ private void writeCategoryTable(char[] categoryName, HashtableOfObject wordsToDo
 
 	this.categoryOffsets.put(categoryName, this.streamEnd); // remember the offset to the start of the table
 	this.categoryTables.put(categoryName, null); // flush cached table
+	this.categoryFilters.put(categoryName, WordFilter.forWords(wordsToDocs.keyTable));
 	writeStreamInt(stream, wordsToDocs.elementSize);
 	char[][] words = wordsToDocs.keyTable;
 	for (int i = 0, l = words.length; i < l; i++) {
@@ -1184,6 +1262,20 @@ private void writeHeaderInfo(FileOutputStream stream) throws IOException {
 			writeStreamInt(stream, offsets[i]);
 		}
 	}
+
+	// append the file with the word filters of the categories... # of name -> filter pairs, followed by each name & its filter
+	writeStreamInt(stream, this.categoryFilters.elementSize);
+	categoryNames = this.categoryFilters.keyTable;
+	Object[] filters = this.categoryFilters.valueTable;
+	for (int i = 0, l = categoryNames.length; i < l; i++) {
+		if (categoryNames[i] != null) {
+			writeStreamChars(stream, categoryNames[i]);
+			int[] bits = ((WordFilter) filters[i]).bits;
+			writeStreamInt(stream, bits.length);
+			for (int j = 0, m = bits.length; j < m; j++)
+				writeStreamInt(stream, bits[j]);
+		}
+	}
 	// ensure buffer is written to the stream
 	if (this.bufferIndex > 0) {
 		stream.write(this.streamBuffer, 0, this.bufferIndex);
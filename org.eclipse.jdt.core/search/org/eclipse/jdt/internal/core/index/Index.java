@@ -16,6 +16,7 @@ import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.core.search.*;
 import org.eclipse.jdt.internal.compiler.util.HashtableOfObject;
 import org.eclipse.jdt.internal.compiler.util.SimpleSet;
+import org.eclipse.jdt.internal.core.search.indexing.IIndexConstants;
 import org.eclipse.jdt.internal.core.search.indexing.ReadWriteMonitor;
 
 /**
@@ -38,6 +39,12 @@ static final char JAR_SEPARATOR = IJavaSearchScope.JAR_FILE_ENTRY_SEPARATOR.char
 protected DiskIndex diskIndex;
 protected MemoryIndex memoryIndex;
 
+// categories of the disk index which can be kept resident, see ResidentCategoryTable:
+// the type declarations, and the super type references which map each super type name to its subtypes
+static final char[][] RESIDENT_CATEGORIES = { IIndexConstants.TYPE_DECL, IIndexConstants.SUPER_REF };
+private ResidentCategoryTable[] residentTables = new ResidentCategoryTable[RESIDENT_CATEGORIES.length];
+private boolean[] residentTablesRejected = new boolean[RESIDENT_CATEGORIES.length]; // true if a table did not fit in the resident tables memory limit
+
 /**
  * Mask used on match rule for indexing.
  */
@@ -108,18 +115,78 @@ public String containerRelativePath(String documentPath) {
 	}
 	return documentPath.substring(index + 1);
 }
+/**
+ * Releases the resident tables of this index, if any.
+ * Must be called when the index is discarded so that the memory they used can be reused by other indexes.
+ */
+public synchronized void discardResidentTables() {
+	for (int i = 0, l = RESIDENT_CATEGORIES.length; i < l; i++) {
+		if (this.residentTables[i] != null) {
+			ResidentCategoryTable.release(this.residentTables[i].footprint());
+			this.residentTables[i] = null;
+		}
+		this.residentTablesRejected[i] = false;
+	}
+}
 public File getIndexFile() {
 	return this.diskIndex == null ? null : this.diskIndex.indexLocation.getIndexFile();
 }
 public IndexLocation getIndexLocation() {
 	return this.diskIndex == null ? null : this.diskIndex.indexLocation;
 }
+/**
+ * Returns the memory used by the resident tables of this index, in bytes.
+ */
+public synchronized long getResidentTablesFootprint() {
+	long footprint = 0;
+	for (int i = 0, l = RESIDENT_CATEGORIES.length; i < l; i++)
+		if (this.residentTables[i] != null)
+			footprint += this.residentTables[i].footprint();
+	return footprint;
+}
+/*
+ * Returns the resident copy of the given category, reading it from the disk index if needed,
+ * or null if the category is not kept resident.
+ */
+private synchronized ResidentCategoryTable getResidentTable(char[] category) {
+	int i = residentCategoryIndex(category);
+	if (i < 0) return null;
+	if (this.residentTables[i] != null)
+		return this.residentTables[i];
+	if (this.residentTablesRejected[i] || ResidentCategoryTable.getFootprintLimit() == 0)
+		return null;
+
+	ResidentCategoryTable table;
+	try {
+		table = this.diskIndex.readResidentCategoryTable(category);
+	} catch (IOException e) {
+		// will fall back to querying the disk index
+		this.residentTablesRejected[i] = true;
+		return null;
+	}
+	if (!ResidentCategoryTable.reserve(table.footprint())) {
+		if (DiskIndex.DEBUG)
+			System.out.println("-> resident tables memory limit reached, cannot keep " + table + " of " + this); //$NON-NLS-1$ //$NON-NLS-2$
+		this.residentTablesRejected[i] = true;
+		return null;
+	}
+	if (DiskIndex.DEBUG)
+		System.out.println("-> read " + table + " of " + this); //$NON-NLS-1$ //$NON-NLS-2$
+	return this.residentTables[i] = table;
+}
 public long getIndexLastModified() {
 	return this.diskIndex == null? -1 : this.diskIndex.indexLocation.lastModified();
 }
 public boolean hasChanged() {
 	return this.memoryIndex.hasChanged();
 }
+/**
+ * Returns false if the index on disk cannot have a result for the given query according to the word filters
+ * of its header, without reading its categories. The changes which are still in memory are not considered.
+ */
+public boolean mayMatchOnDisk(char[][] categories, char[] key, int matchRule) {
+	return this.diskIndex.mayMatch(categories, key, matchRule & MATCH_RULE_INDEX_MASK);
+}
 /**
  * Returns the entries containing the given key in a group of categories, or null if no matches are found.
  * The matchRule dictates whether its an exact, prefix or pattern match, as well as case sensitive or insensitive.
@@ -136,10 +203,21 @@ public EntryResult[] query(char[][] categories, char[] key, int matchRule) throw
 
 	HashtableOfObject results;
 	int rule = matchRule & MATCH_RULE_INDEX_MASK;
-	if (this.memoryIndex.hasChanged()) {
-		results = this.diskIndex.addQueryResults(categories, key, rule, this.memoryIndex);
+	ResidentCategoryTable residentTable = categories.length == 1 ? getResidentTable(categories[0]) : null;
+	if (residentTable != null) {
+		if (this.memoryIndex.hasChanged()) {
+			results = residentTable.addQueryResults(key, rule, this.memoryIndex, null);
+			results = this.memoryIndex.addQueryResults(categories, key, rule, results);
+		} else {
+			results = residentTable.addQueryResults(key, rule, null, null);
+		}
+	} else if (this.memoryIndex.hasChanged()) {
+		results = this.diskIndex.mayMatch(categories, key, rule)
+			? this.diskIndex.addQueryResults(categories, key, rule, this.memoryIndex)
+			: null;
 		results = this.memoryIndex.addQueryResults(categories, key, rule, results);
 	} else {
+		if (!this.diskIndex.mayMatch(categories, key, rule)) return null; // rejected by the word filters of the index header
 		results = this.diskIndex.addQueryResults(categories, key, rule, null);
 	}
 	if (results == null) return null;
@@ -184,6 +262,7 @@ public void remove(String containerRelativePath) {
  * @throws IOException
  */
 public void reset() throws IOException {
+	discardResidentTables();
 	this.memoryIndex = new MemoryIndex();
 	this.diskIndex = new DiskIndex(this.diskIndex.indexLocation);
 	this.diskIndex.initialize(false/*do not reuse the index file*/);
@@ -195,10 +274,40 @@ public void save() throws IOException {
 	int numberOfChanges = this.memoryIndex.docsToReferences.elementSize;
 	this.diskIndex.separator = this.separator;
 	this.diskIndex = this.diskIndex.mergeWith(this.memoryIndex);
+	updateResidentTables();
 	this.memoryIndex = new MemoryIndex();
 	if (numberOfChanges > 1000)
 		System.gc(); // reclaim space if the MemoryIndex was very BIG
 }
+/*
+ * Merges the changes of the memory index into the resident tables, instead of reading them again from the new disk index.
+ */
+private synchronized void updateResidentTables() {
+	for (int i = 0, l = RESIDENT_CATEGORIES.length; i < l; i++) {
+		ResidentCategoryTable oldTable = this.residentTables[i];
+		if (oldTable == null) {
+			this.residentTablesRejected[i] = false; // the new disk index may fit
+			continue;
+		}
+		ResidentCategoryTable table = oldTable.mergeWith(this.memoryIndex);
+		ResidentCategoryTable.release(oldTable.footprint());
+		if (ResidentCategoryTable.reserve(table.footprint())) {
+			this.residentTables[i] = table;
+		} else {
+			this.residentTables[i] = null;
+			this.residentTablesRejected[i] = true;
+		}
+	}
+}
+/*
+ * Returns the position of the given category in RESIDENT_CATEGORIES, or -1 if it is never kept resident.
+ */
+private static int residentCategoryIndex(char[] category) {
+	for (int i = 0, l = RESIDENT_CATEGORIES.length; i < l; i++)
+		if (CharOperation.equals(category, RESIDENT_CATEGORIES[i]))
+			return i;
+	return -1;
+}
 public void startQuery() {
 	if (this.diskIndex != null)
 		this.diskIndex.startQuery();
@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.index;
+
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.internal.compiler.util.HashtableOfObject;
+import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
+import org.eclipse.jdt.internal.core.util.SimpleWordSet;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * A compact, read-only copy of one category of an index (the type declarations, or the super type references
+ * which map the simple name of each super type to its subtypes),
+ * kept resident in memory so that queries on this category never read the index file.
+ * <p>
+ * All words are pooled in a single sorted char array and all document references are
+ * stored in int arrays, so that exact and prefix case sensitive queries are answered by
+ * a binary search.
+ * </p>
+ * <p>
+ * The tables are kept per index rather than in one table for the whole workspace, and they are still queried
+ * through {@link org.eclipse.jdt.internal.core.search.indexing.IndexManager#getIndexes(IndexLocation[], org.eclipse.core.runtime.IProgressMonitor) IndexManager.getIndexes}
+ * under the read lock of their index: the uncommitted changes of the memory index are overlaid on a table
+ * when it is queried, and the memory index is only consistent while the read lock is held. Queries on a resident
+ * category save the reading and decoding of the index file, not the lookup of the indexes.
+ * </p>
+ * The total memory used by all the resident tables is bounded by the value (in KB) of the
+ * {@link #LIMIT_PROPERTY} system property. Resident tables are disabled if it is not set.
+ */
+public class ResidentCategoryTable {
+
+public static final String LIMIT_PROPERTY = "jdt.core.residentIndexCategoriesLimit"; //$NON-NLS-1$
+private static long FootprintLimit = Long.getLong(LIMIT_PROPERTY, 0).longValue() * 1024;
+private static long TotalFootprint = 0;
+
+char[] category;
+private char[] chars; // all words, concatenated in sorted order
+private int[] wordStarts; // word i is chars[wordStarts[i]] to chars[wordStarts[i+1]-1]
+private int[] documentStarts; // documents of word i are documentNumbers[documentStarts[i]] to documentNumbers[documentStarts[i+1]-1]
+private int[] documentNumbers; // positions in documentNames
+private String[] documentNames;
+private long footprint;
+
+/*
+ * Accumulates (word, document name) pairs before they are packed into a table.
+ */
+static class Collector {
+
+HashtableOfObject wordsToDocuments = new HashtableOfObject(13); // word -> IntList of document positions
+SimpleLookupTable documentPositions = new SimpleLookupTable(13); // document name -> Integer position
+String[] documentNames = new String[13];
+int documentCount = 0;
+int referenceCount = 0;
+
+void add(char[] word, String documentName) {
+	Object position = this.documentPositions.get(documentName);
+	if (position == null) {
+		if (this.documentCount == this.documentNames.length)
+			System.arraycopy(this.documentNames, 0, this.documentNames = new String[this.documentCount * 2], 0, this.documentCount);
+		this.documentNames[this.documentCount] = documentName;
+		this.documentPositions.put(documentName, position = new Integer(this.documentCount++));
+	}
+	int documentPosition = ((Integer) position).intValue();
+	DiskIndex.IntList documents = (DiskIndex.IntList) this.wordsToDocuments.get(word);
+	if (documents == null)
+		this.wordsToDocuments.put(word, new DiskIndex.IntList(new int[] {documentPosition}));
+	else
+		documents.add(documentPosition);
+	this.referenceCount++;
+}
+ResidentCategoryTable toTable(char[] categoryName) {
+	int wordCount = this.wordsToDocuments.elementSize;
+	char[][] words = new char[wordCount][];
+	int count = 0;
+	int charCount = 0;
+	char[][] keys = this.wordsToDocuments.keyTable;
+	for (int i = 0, l = keys.length; i < l; i++) {
+		if (keys[i] != null) {
+			words[count++] = keys[i];
+			charCount += keys[i].length;
+		}
+	}
+	Util.sort(words);
+
+	ResidentCategoryTable table = new ResidentCategoryTable(categoryName);
+	table.chars = new char[charCount];
+	table.wordStarts = new int[wordCount + 1];
+	table.documentStarts = new int[wordCount + 1];
+	table.documentNumbers = new int[this.referenceCount];
+	int charPosition = 0;
+	int documentPosition = 0;
+	for (int i = 0; i < wordCount; i++) {
+		char[] word = words[i];
+		table.wordStarts[i] = charPosition;
+		System.arraycopy(word, 0, table.chars, charPosition, word.length);
+		charPosition += word.length;
+
+		DiskIndex.IntList documents = (DiskIndex.IntList) this.wordsToDocuments.get(word);
+		table.documentStarts[i] = documentPosition;
+		System.arraycopy(documents.elements, 0, table.documentNumbers, documentPosition, documents.size);
+		documentPosition += documents.size;
+	}
+	table.wordStarts[wordCount] = charPosition;
+	table.documentStarts[wordCount] = documentPosition;
+	System.arraycopy(this.documentNames, 0, table.documentNames = new String[this.documentCount], 0, this.documentCount);
+	table.computeFootprint();
+	return table;
+}
+}
+
+/**
+ * Returns the memory currently used by all the resident tables, in bytes.
+ */
+public static synchronized long getTotalFootprint() {
+	return TotalFootprint;
+}
+/**
+ * Returns the maximum memory that the resident tables may use, in bytes.
+ * A limit of <code>0</code> means that resident tables are disabled.
+ */
+public static synchronized long getFootprintLimit() {
+	return FootprintLimit;
+}
+public static synchronized void setFootprintLimit(long limit) {
+	FootprintLimit = limit;
+}
+static synchronized boolean reserve(long size) {
+	if (TotalFootprint + size > FootprintLimit) return false;
+	TotalFootprint += size;
+	return true;
+}
+static synchronized void release(long size) {
+	TotalFootprint -= size;
+	if (TotalFootprint < 0)
+		TotalFootprint = 0;
+}
+
+ResidentCategoryTable(char[] category) {
+	this.category = category;
+	this.chars = CharOperation.NO_CHAR;
+	this.wordStarts = new int[1];
+	this.documentStarts = new int[1];
+	this.documentNumbers = new int[0];
+	this.documentNames = CharOperation.NO_STRINGS;
+}
+HashtableOfObject addQueryResults(char[] key, int matchRule, MemoryIndex memoryIndex, HashtableOfObject results) {
+	// must skip over documents which have been added/changed/deleted in the memory index
+	int wordCount = this.wordStarts.length - 1;
+	if (wordCount == 0) return results;
+
+	if (key == null) {
+		for (int i = 0; i < wordCount; i++)
+			results = addQueryResult(i, memoryIndex, results);
+		return results;
+	}
+	switch (matchRule) {
+		case SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE :
+			int index = indexOf(key, false);
+			if (index >= 0)
+				results = addQueryResult(index, memoryIndex, results);
+			break;
+		case SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE :
+			for (int i = indexOf(key, true); i < wordCount && startsWith(i, key); i++)
+				results = addQueryResult(i, memoryIndex, results);
+			break;
+		default :
+			for (int i = 0; i < wordCount; i++)
+				if (Index.isMatch(key, wordAt(i), matchRule))
+					results = addQueryResult(i, memoryIndex, results);
+	}
+	return results;
+}
+private HashtableOfObject addQueryResult(int wordIndex, MemoryIndex memoryIndex, HashtableOfObject results) {
+	char[] word = wordAt(wordIndex);
+	EntryResult result = results == null ? null : (EntryResult) results.get(word);
+	boolean isNew = result == null;
+	if (isNew)
+		result = new EntryResult(word, null);
+	SimpleLookupTable docsToRefs = memoryIndex == null ? null : memoryIndex.docsToReferences;
+	for (int i = this.documentStarts[wordIndex], l = this.documentStarts[wordIndex + 1]; i < l; i++) {
+		String documentName = this.documentNames[this.documentNumbers[i]];
+		if (docsToRefs == null || !docsToRefs.containsKey(documentName))
+			result.addDocumentName(documentName);
+	}
+	if (isNew && !result.isEmpty()) {
+		if (results == null)
+			results = new HashtableOfObject(13);
+		results.put(word, result);
+	}
+	return results;
+}
+/*
+ * Returns the position of the given word, or -1 if not found.
+ * If insertionPoint is true, then answers the position of the first word greater or equal to the given one.
+ */
+private int indexOf(char[] word, boolean insertionPoint) {
+	int low = 0;
+	int high = this.wordStarts.length - 2;
+	while (low <= high) {
+		int mid = (low + high) >>> 1;
+		int comparison = compareTo(mid, word);
+		if (comparison < 0)
+			low = mid + 1;
+		else if (comparison > 0)
+			high = mid - 1;
+		else
+			return mid;
+	}
+	return insertionPoint ? low : -1;
+}
+private int compareTo(int wordIndex, char[] word) {
+	// must be consistent with Util.compare(char[], char[]) which was used to sort the words
+	int start = this.wordStarts[wordIndex];
+	int length = this.wordStarts[wordIndex + 1] - start;
+	int max = Math.min(length, word.length);
+	for (int i = 0; i < max; i++) {
+		char c = this.chars[start + i];
+		if (c != word[i])
+			return c - word[i];
+	}
+	return length - word.length;
+}
+private boolean startsWith(int wordIndex, char[] prefix) {
+	int start = this.wordStarts[wordIndex];
+	if (this.wordStarts[wordIndex + 1] - start < prefix.length) return false;
+	for (int i = 0, l = prefix.length; i < l; i++)
+		if (this.chars[start + i] != prefix[i])
+			return false;
+	return true;
+}
+private char[] wordAt(int wordIndex) {
+	int start = this.wordStarts[wordIndex];
+	return CharOperation.subarray(this.chars, start, this.wordStarts[wordIndex + 1]);
+}
+private void computeFootprint() {
+	// rough estimate of the heap used: 2 bytes per char, 4 bytes per int, plus object headers
+	long size = 16 * 7 + this.chars.length * 2;
+	size += (this.wordStarts.length + this.documentStarts.length + this.documentNumbers.length) * 4;
+	for (int i = 0, l = this.documentNames.length; i < l; i++)
+		size += 4 + 40 + this.documentNames[i].length() * 2;
+	this.footprint = size;
+}
+public long footprint() {
+	return this.footprint;
+}
+/*
+ * Returns a new table with the content of this table updated by the documents of the given memory index.
+ */
+ResidentCategoryTable mergeWith(MemoryIndex memoryIndex) {
+	Collector collector = new Collector();
+	SimpleLookupTable docsToRefs = memoryIndex.docsToReferences;
+	for (int i = 0, l = this.wordStarts.length - 1; i < l; i++) {
+		char[] word = null;
+		for (int j = this.documentStarts[i], m = this.documentStarts[i + 1]; j < m; j++) {
+			String documentName = this.documentNames[this.documentNumbers[j]];
+			if (!docsToRefs.containsKey(documentName)) {
+				if (word == null)
+					word = wordAt(i);
+				collector.add(word, documentName);
+			}
+		}
+	}
+	Object[] documentNamesInMemory = docsToRefs.keyTable;
+	Object[] referenceTables = docsToRefs.valueTable;
+	for (int i = 0, l = referenceTables.length; i < l; i++) {
+		HashtableOfObject categoryToWords = (HashtableOfObject) referenceTables[i];
+		if (categoryToWords == null) continue; // deleted document
+		SimpleWordSet wordSet = (SimpleWordSet) categoryToWords.get(this.category);
+		if (wordSet == null) continue;
+		char[][] words = wordSet.words;
+		for (int j = 0, m = words.length; j < m; j++)
+			if (words[j] != null)
+				collector.add(words[j], (String) documentNamesInMemory[i]);
+	}
+	return collector.toTable(this.category);
+}
+public int size() {
+	return this.wordStarts.length - 1;
+}
+public String toString() {
+	return "Resident table for " + new String(this.category) + ": " + size() + " words in " + this.documentNames.length + " documents (" + (this.footprint / 1024) + "KB)"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+}
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.index;
+
+/**
+ * A Bloom filter over the words of a category table, stored in the header of an index file.
+ * <p>
+ * Each word is added along with its first {@link #PREFIX_LENGTH} prefixes, so that both exact and
+ * prefix case sensitive queries can be rejected without reading the category table.
+ * A filter may answer that it contains a word that was never added, but never the opposite.
+ * </p>
+ */
+class WordFilter {
+
+static final int PREFIX_LENGTH = 3;
+private static final int BITS_PER_WORD = 12;
+private static final int HASH_COUNT = 3;
+private static final int MIN_SIZE = 2; // in ints
+private static final int MAX_SIZE = 1 << 15; // in ints, i.e. 128KB
+
+int[] bits;
+private int mask;
+
+WordFilter(int[] bits) {
+	this.bits = bits;
+	this.mask = (bits.length << 5) - 1;
+}
+static WordFilter forWords(char[][] words) {
+	int wordCount = 0;
+	for (int i = 0, l = words.length; i < l; i++)
+		if (words[i] != null)
+			wordCount++;
+	int size = MIN_SIZE;
+	while (size < MAX_SIZE && (size << 5) < wordCount * BITS_PER_WORD)
+		size <<= 1; // must be a power of 2
+	WordFilter filter = new WordFilter(new int[size]);
+	for (int i = 0, l = words.length; i < l; i++) {
+		char[] word = words[i];
+		if (word != null) {
+			filter.add(word, word.length);
+			for (int j = 1, max = Math.min(word.length - 1, PREFIX_LENGTH); j <= max; j++)
+				filter.add(word, j);
+		}
+	}
+	return filter;
+}
+private void add(char[] word, int length) {
+	int hash1 = hash1(word, length);
+	int hash2 = hash2(word, length);
+	for (int i = 0; i < HASH_COUNT; i++) {
+		int bit = (hash1 + i * hash2) & this.mask;
+		this.bits[bit >>> 5] |= 1 << (bit & 31);
+	}
+}
+private boolean contains(char[] word, int length) {
+	int hash1 = hash1(word, length);
+	int hash2 = hash2(word, length);
+	for (int i = 0; i < HASH_COUNT; i++) {
+		int bit = (hash1 + i * hash2) & this.mask;
+		if ((this.bits[bit >>> 5] & (1 << (bit & 31))) == 0)
+			return false;
+	}
+	return true;
+}
+/*
+ * Returns false if no word of the filter is equal to the given key (or starts with it if isPrefix is true).
+ */
+boolean mayContain(char[] key, boolean isPrefix) {
+	int length = key.length;
+	if (isPrefix) {
+		if (length == 0) return true;
+		if (length > PREFIX_LENGTH) {
+			// a word starting with the key is longer than PREFIX_LENGTH, thus its prefix was added
+			length = PREFIX_LENGTH;
+		}
+	}
+	return contains(key, length);
+}
+private static int hash1(char[] word, int length) {
+	int hash = 0;
+	for (int i = 0; i < length; i++)
+		hash = hash * 31 + word[i];
+	return hash;
+}
+private static int hash2(char[] word, int length) {
+	int hash = 0x811C9DC5; // FNV-1a
+	for (int i = 0; i < length; i++) {
+		hash ^= word[i];
+		hash *= 0x01000193;
+	}
+	return hash | 1; // odd, so that the probes of a word are distinct
+}
+}
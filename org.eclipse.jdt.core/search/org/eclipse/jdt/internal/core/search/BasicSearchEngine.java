@@ -210,6 +210,18 @@ public class BasicSearchEngine {
 					if (monitor != null) monitor.subTask(Messages.bind(Messages.engine_searching_indexing, new String[] {participant.getDescription()}));
 					participant.beginSearching();
 					requestor.enterParticipant(participant);
+					if (requestor instanceof LimitedSearchRequestor) {
+						// only the first matches are needed: locate the matches of each index as soon as it has been queried
+						LimitedSearchRequestor limitedRequestor = (LimitedSearchRequestor) requestor;
+						IncrementalPatternSearchJob job = new IncrementalPatternSearchJob(pattern, participant, scope, getWorkingCopies(), limitedRequestor);
+						indexManager.performConcurrentJob(
+							job,
+							IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH,
+							monitor==null ? null : new SubProgressMonitor(monitor, 100));
+						if (job.getException() != null) throw job.getException();
+						if (limitedRequestor.isLimitReached()) break;
+						continue;
+					}
 					PathCollector pathCollector = new PathCollector();
 					indexManager.performConcurrentJob(
 						new PatternSearchJob(pattern, participant, scope, pathCollector),
@@ -514,6 +526,50 @@ public class BasicSearchEngine {
 		}
 		findMatches(pattern, participants, scope, requestor, monitor);
 	}
+
+	/**
+	 * Searches for the first matches of a given search pattern.
+	 *
+	 * @see SearchEngine#search(SearchPattern, SearchParticipant[], IJavaSearchScope, SearchRequestor, int, IProgressMonitor)
+	 * 	for detailed comment
+	 */
+	public void search(SearchPattern pattern, SearchParticipant[] participants, IJavaSearchScope scope, SearchRequestor requestor, int maxMatches, IProgressMonitor monitor) throws CoreException {
+		if (VERBOSE) {
+			Util.verbose("BasicSearchEngine.search(SearchPattern, SearchParticipant[], IJavaSearchScope, SearchRequestor, int, IProgressMonitor)"); //$NON-NLS-1$
+		}
+		if (maxMatches <= 0) {
+			findMatches(pattern, participants, scope, requestor, monitor);
+			return;
+		}
+		LimitedSearchRequestor limitedRequestor = new LimitedSearchRequestor(requestor, maxMatches);
+		try {
+			findMatches(pattern, participants, scope, limitedRequestor, limitedRequestor.getProgressMonitor(monitor));
+		} catch (OperationCanceledException e) {
+			if (!limitedRequestor.isLimitReached())
+				throw e;
+			// enough matches were found: the search was stopped on purpose
+		}
+		if (VERBOSE) {
+			Util.verbose("-> " + limitedRequestor.getMatchCount() + " match(es) reported"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Returns whether the given search pattern has at least one match.
+	 *
+	 * @see SearchEngine#hasMatch(SearchPattern, SearchParticipant[], IJavaSearchScope, IProgressMonitor)
+	 * 	for detailed comment
+	 */
+	public boolean hasMatch(SearchPattern pattern, SearchParticipant[] participants, IJavaSearchScope scope, IProgressMonitor monitor) throws CoreException {
+		final boolean[] found = new boolean[1];
+		SearchRequestor requestor = new SearchRequestor() {
+			public void acceptSearchMatch(SearchMatch match) {
+				found[0] = true;
+			}
+		};
+		search(pattern, participants, scope, requestor, 1, monitor);
+		return found[0];
+	}
 	
 	public void searchAllConstructorDeclarations(
 		final char[] packageName,
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.search;
+
+import java.util.HashSet;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchDocument;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.internal.core.index.Index;
+import org.eclipse.jdt.internal.core.search.matching.MatchLocator;
+import org.eclipse.jdt.internal.core.search.matching.MatchLocator.WorkingCopyDocument;
+import org.eclipse.jdt.internal.core.search.processing.JobManager;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * A pattern search job that locates the matches of each index as soon as this index has been
+ * queried, instead of querying all the indexes first.
+ * <p>
+ * Used when only the first matches of a search are needed: the working copies are located first,
+ * then the documents of the indexes one index after the other, until the requestor has received
+ * enough matches. The remaining indexes are then neither queried nor located.
+ * </p><p>
+ * The documents of the Java search participant are all located by the same {@link MatchLocator},
+ * which is given the working copies up front: they take precedence over their compilation units
+ * when the matches of the other documents are resolved, as in a search that is not incremental.
+ * </p>
+ */
+public class IncrementalPatternSearchJob extends PatternSearchJob {
+
+	LimitedSearchRequestor searchRequestor;
+	ICompilationUnit[] workingCopies;
+	HashSet locatedPaths = new HashSet(5);
+	MatchLocator locator; // null if the participant is not the Java search participant
+	CoreException exception;
+
+public IncrementalPatternSearchJob(SearchPattern pattern, SearchParticipant participant, IJavaSearchScope scope, ICompilationUnit[] workingCopies, LimitedSearchRequestor searchRequestor) {
+	super(pattern, participant, scope, null);
+	this.workingCopies = workingCopies;
+	this.searchRequestor = searchRequestor;
+}
+public boolean execute(IProgressMonitor progressMonitor) {
+	if (progressMonitor != null && progressMonitor.isCanceled()) throw new OperationCanceledException();
+
+	boolean isComplete = COMPLETE;
+	this.executionTime = 0;
+	Index[] indexes = getIndexes(progressMonitor);
+	try {
+		int max = indexes.length;
+		if (progressMonitor != null)
+			progressMonitor.beginTask("", 2 * max + 1); //$NON-NLS-1$
+
+		// working copies take precedence over their original compilation units
+		SearchDocument[] copies = MatchLocator.addWorkingCopies(this.pattern, new SearchDocument[0], this.workingCopies, this.participant);
+		if (this.participant instanceof JavaSearchParticipant) {
+			this.locator = new MatchLocator(this.pattern, this.searchRequestor, this.scope, null);
+			this.locator.isIncrementalLocator = true;
+			this.locator.workingCopies = new ICompilationUnit[copies.length];
+			for (int i = 0, length = copies.length; i < length; i++)
+				this.locator.workingCopies[i] = ((WorkingCopyDocument) copies[i]).workingCopy;
+		}
+		if (!locateMatches(copies, progressMonitor == null ? null : new SubProgressMonitor(progressMonitor, 1)))
+			return isComplete;
+
+		for (int i = 0; i < max; i++) {
+			PathCollector pathCollector = new PathCollector();
+			this.requestor = pathCollector;
+			isComplete &= search(indexes[i], progressMonitor);
+			if (progressMonitor != null) {
+				if (progressMonitor.isCanceled()) throw new OperationCanceledException();
+				progressMonitor.worked(1);
+			}
+			String[] paths = pathCollector.getPaths();
+			int length = paths.length;
+			SearchDocument[] documents = new SearchDocument[length];
+			int count = 0;
+			for (int j = 0; j < length; j++) {
+				if (!this.locatedPaths.contains(paths[j]))
+					documents[count++] = this.participant.getDocument(paths[j]);
+			}
+			if (count < length)
+				System.arraycopy(documents, 0, documents = new SearchDocument[count], 0, count);
+			if (!locateMatches(documents, progressMonitor == null ? null : new SubProgressMonitor(progressMonitor, 1)))
+				break;
+		}
+		if (JobManager.VERBOSE)
+			Util.verbose("-> execution time: " + this.executionTime + "ms - " + this);//$NON-NLS-1$//$NON-NLS-2$
+		return isComplete;
+	} finally {
+		this.requestor = null;
+		if (progressMonitor != null)
+			progressMonitor.done();
+	}
+}
+/**
+ * Returns the exception raised while locating the matches, if any.
+ */
+public CoreException getException() {
+	return this.exception;
+}
+/*
+ * Locates the matches in the given documents.
+ * Returns whether the matches of other documents are still needed.
+ */
+private boolean locateMatches(SearchDocument[] documents, IProgressMonitor progressMonitor) {
+	int length = documents.length;
+	if (length > 0) {
+		for (int i = 0; i < length; i++)
+			this.locatedPaths.add(documents[i].getPath());
+		try {
+			if (this.locator != null) {
+				if (progressMonitor != null && progressMonitor.isCanceled()) throw new OperationCanceledException();
+				this.locator.progressMonitor = progressMonitor;
+				this.locator.locateMatches(documents);
+			} else {
+				this.participant.locateMatches(documents, this.pattern, this.scope, this.searchRequestor, progressMonitor);
+			}
+		} catch (CoreException e) {
+			this.exception = e;
+			return false;
+		}
+	} else if (progressMonitor != null) {
+		progressMonitor.done();
+	}
+	return !this.searchRequestor.isLimitReached();
+}
+public String toString() {
+	return "searching first " + this.searchRequestor.maxMatches + " matches of " + this.pattern.toString(); //$NON-NLS-1$ //$NON-NLS-2$
+}
+}
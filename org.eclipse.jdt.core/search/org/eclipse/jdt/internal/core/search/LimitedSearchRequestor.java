@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.search;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+/**
+ * Forwards the first matches of a search to a client requestor and ignores the following ones.
+ * <p>
+ * Once the maximum number of matches has been reported, the progress monitor returned by
+ * {@link #getProgressMonitor(IProgressMonitor)} answers that the search is canceled. This stops
+ * the index queries and the match locators at their next cancellation check, and releases
+ * the index read locks they hold.
+ * </p>
+ */
+public class LimitedSearchRequestor extends SearchRequestor {
+
+	SearchRequestor requestor;
+	int maxMatches;
+	volatile int matchCount = 0; // also read by the threads of a parallel match locator
+
+	class LimitMonitor extends ProgressMonitorWrapper {
+		LimitMonitor(IProgressMonitor monitor) {
+			super(monitor);
+		}
+		public boolean isCanceled() {
+			return isLimitReached() || super.isCanceled();
+		}
+	}
+
+	public LimitedSearchRequestor(SearchRequestor requestor, int maxMatches) {
+		this.requestor = requestor;
+		this.maxMatches = maxMatches;
+	}
+	public void acceptSearchMatch(SearchMatch match) throws CoreException {
+		if (this.matchCount >= this.maxMatches) return;
+		this.matchCount++;
+		this.requestor.acceptSearchMatch(match);
+	}
+	public void beginReporting() {
+		this.requestor.beginReporting();
+	}
+	public void endReporting() {
+		this.requestor.endReporting();
+	}
+	public void enterParticipant(SearchParticipant participant) {
+		this.requestor.enterParticipant(participant);
+	}
+	public void exitParticipant(SearchParticipant participant) {
+		this.requestor.exitParticipant(participant);
+	}
+	/**
+	 * Returns the number of matches that were forwarded to the client requestor.
+	 */
+	public int getMatchCount() {
+		return this.matchCount;
+	}
+	/**
+	 * Returns a progress monitor that is canceled either by the client or when the maximum
+	 * number of matches has been reported.
+	 */
+	public IProgressMonitor getProgressMonitor(IProgressMonitor monitor) {
+		return new LimitMonitor(monitor == null ? new NullProgressMonitor() : monitor);
+	}
+	public boolean isLimitReached() {
+		return this.matchCount >= this.maxMatches;
+	}
+	public String toString() {
+		return "Limited requestor (" + this.matchCount + '/' + this.maxMatches + ") on " + this.requestor; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -84,6 +84,10 @@ class AddJarFileToIndex extends IndexRequest {
 
 		if (this.isCancelled || progressMonitor != null && progressMonitor.isCanceled()) return true;
 
+		if (this.indexFileURL == null && !this.forceIndexUpdate) {
+			// reuse the index of the same jar in the shared index store if any
+			this.indexFileURL = this.manager.getStoredIndexLocation(this.containerPath, this.resource);
+		}
 		if (hasPreBuiltIndex()) {
 			boolean added = this.manager.addIndex(this.containerPath, this.indexFileURL);
 			if (added) return true;	
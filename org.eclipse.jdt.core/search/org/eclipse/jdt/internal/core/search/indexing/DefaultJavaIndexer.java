@@ -58,4 +58,35 @@ public class DefaultJavaIndexer {
 		}
 		return;
 	}
+
+	/**
+	 * Generates the index of the given jar in the given index store, unless the store already contains it.
+	 * Returns the path to the index file in the store.
+	 */
+	public String generateIndexInStore(String pathToJar, String pathToStore) throws IOException {
+		File f = new File(pathToJar);
+		if (!f.exists()) {
+			throw new FileNotFoundException(pathToJar + " not found"); //$NON-NLS-1$
+		}
+		File indexFile = new IndexStore(new File(pathToStore)).getIndexFile(IndexStore.computeDigest(f));
+		if (indexFile.exists())
+			return indexFile.getPath();
+
+		// generate the index beside its final location, then rename it so that readers never see a partial index
+		File directory = indexFile.getParentFile();
+		if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+			throw new IOException("Failed to create " + directory); //$NON-NLS-1$
+		}
+		File tempFile = new File(directory, indexFile.getName() + '.' + System.currentTimeMillis() + ".tmp"); //$NON-NLS-1$
+		try {
+			generateIndexForJar(pathToJar, tempFile.getPath());
+			if (!tempFile.renameTo(indexFile) && !indexFile.exists()) { // another generator may have stored the same jar meanwhile
+				throw new IOException("Failed to rename " + tempFile + " to " + indexFile); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		} finally {
+			if (tempFile.exists())
+				tempFile.delete();
+		}
+		return indexFile.getPath();
+	}
 }
@@ -71,6 +71,13 @@ public class IndexManager extends JobManager implements IIndexConstants {
 	public static final String MANAGE_PRODUCT_INDEXES_PROPERTY = "jdt.core.manageProductIndexes"; //$NON-NLS-1$
 	private static final boolean IS_MANAGING_PRODUCT_INDEXES_PROPERTY = Boolean.getBoolean(MANAGE_PRODUCT_INDEXES_PROPERTY);
 
+	// should the resident categories of the indexes (type declarations & super type references) be kept in memory, and up to which size (in KB) ?
+	public static final String RESIDENT_CATEGORIES_LIMIT_PROPERTY = ResidentCategoryTable.LIMIT_PROPERTY;
+
+	// directory of indexes of jars shared between workspaces, see JavaIndexer#generateIndexInStore(String, String)
+	public static final String SHARED_INDEX_STORE_PROPERTY = "jdt.core.sharedIndexStore"; //$NON-NLS-1$
+	private volatile IndexStore indexStore = IndexStore.create(System.getProperty(SHARED_INDEX_STORE_PROPERTY));
+
 	// Debug
 	public static boolean DEBUG = false;
 
@@ -209,6 +216,20 @@ private void deleteIndexFiles(SimpleSet pathsToKeep) {
 		}
 	}
 }
+/**
+ * Returns the memory used by the resident type declarations and super type references of the in-memory indexes, in bytes.
+ * They are kept resident only if the {@link #RESIDENT_CATEGORIES_LIMIT_PROPERTY} system property is set.
+ */
+public synchronized long getResidentCategoriesFootprint() {
+	long footprint = 0;
+	Object[] valueTable = this.indexes.valueTable;
+	for (int i = 0, l = valueTable.length; i < l; i++) {
+		Index index = (Index) valueTable[i];
+		if (index != null)
+			footprint += index.getResidentTablesFootprint();
+	}
+	return footprint;
+}
 /*
  * Creates an empty index at the given location, for the given container path, if none exist.
  */
@@ -372,6 +393,7 @@ public Index[] getIndexes(IndexLocation[] locations, IProgressMonitor progressMo
 						indexFile.delete();
 					}
 					this.indexes.put(indexLocation, null);
+					index.discardResidentTables();
 					rebuildIndex(indexLocation, containerPath);
 					index = null;
 				}
@@ -567,6 +589,49 @@ public void indexLibrary(IPath path, IProject requestingProject, URL indexURL, f
 		request(request);
 }
 
+/**
+ * Returns the location of the index of the given jar in the shared index store, or null if the store
+ * is not set or doesn't contain this index.
+ * The store is not consulted if the jar was already indexed locally.
+ */
+IndexLocation getStoredIndexLocation(IPath containerPath, IFile resource) {
+	if (this.indexStore == null) return null;
+	synchronized (this) {
+		IndexLocation indexLocation = computeIndexLocation(containerPath);
+		File indexFile = indexLocation.getIndexFile();
+		if (indexFile != null && this.indexStore.contains(indexFile))
+			return indexLocation.exists() ? indexLocation : null; // already using the stored index
+		if (indexLocation.exists())
+			return null; // a local index exists, avoid computing the digest of the jar
+	}
+	File jar;
+	if (resource != null) {
+		IPath location = resource.getLocation();
+		if (location == null) return null;
+		jar = location.toFile();
+	} else {
+		jar = containerPath.toFile();
+	}
+	try {
+		long start = VERBOSE ? System.currentTimeMillis() : 0;
+		File storedIndex = this.indexStore.lookup(jar);
+		if (VERBOSE)
+			Util.verbose("-> " + (storedIndex == null ? "no stored index for " : "found stored index for ") + containerPath + " in " + this.indexStore + " (" + (System.currentTimeMillis() - start) + "ms)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		return storedIndex == null ? null : new FileIndexLocation(storedIndex);
+	} catch (IOException e) {
+		if (VERBOSE) {
+			Util.verbose("-> failed to look up the index of " + containerPath + " in " + this.indexStore); //$NON-NLS-1$ //$NON-NLS-2$
+			e.printStackTrace();
+		}
+		return null;
+	}
+}
+/**
+ * Sets the directory of the shared index store, or disables the store if null.
+ */
+public void setIndexStore(String directory) {
+	this.indexStore = IndexStore.create(directory);
+}
 synchronized boolean addIndex(IPath containerPath, IndexLocation indexFile) {
 	getIndexStates().put(indexFile, REUSE_STATE);
 	this.indexLocations.put(containerPath, indexFile);
@@ -598,6 +663,7 @@ public synchronized void jobWasCancelled(IPath containerPath) {
 	Index index = getIndex(indexLocation);
 	if (index != null) {
 		index.monitor = null;
+		index.discardResidentTables();
 		this.indexes.removeKey(indexLocation);
 	}
 	updateIndexState(indexLocation, UNKNOWN_STATE);
@@ -676,6 +742,8 @@ public synchronized Index recreateIndex(IPath containerPath) {
 		IndexLocation indexLocation = computeIndexLocation(containerPath);
 		Index index = getIndex(indexLocation);
 		ReadWriteMonitor monitor = index == null ? null : index.monitor;
+		if (index != null)
+			index.discardResidentTables();
 
 		if (VERBOSE)
 			Util.verbose("-> recreating index: "+indexLocation+" for path: "+containerPathString); //$NON-NLS-1$ //$NON-NLS-2$
@@ -711,6 +779,7 @@ public synchronized void removeIndex(IPath containerPath) {
 	File indexFile = null;
 	if (index != null) {
 		index.monitor = null;
+		index.discardResidentTables();
 		indexFile = index.getIndexFile();
 	}
 	if (indexFile == null)
@@ -747,6 +816,7 @@ public synchronized void removeIndexPath(IPath path) {
 		if (indexLocation.startsWith(path)) {
 			Index index = (Index) valueTable[i];
 			index.monitor = null;
+			index.discardResidentTables();
 			if (locations == null)
 				locations = new IndexLocation[max];
 			locations[count++] = indexLocation;
@@ -816,6 +886,12 @@ public void removeSourceFolderFromIndex(JavaProject javaProject, IPath sourceFol
 public synchronized void reset() {
 	super.reset();
 	if (this.indexes != null) {
+		Object[] valueTable = this.indexes.valueTable;
+		for (int i = 0, l = valueTable.length; i < l; i++) {
+			Index index = (Index) valueTable[i];
+			if (index != null)
+				index.discardResidentTables();
+		}
 		this.indexes = new SimpleLookupTable();
 		this.indexStates = null;
 	}
@@ -950,6 +1026,9 @@ public void scheduleDocumentIndexing(final SearchDocument searchDocument, IPath
 public String toString() {
 	StringBuffer buffer = new StringBuffer(10);
 	buffer.append(super.toString());
+	buffer.append("Resident index categories: ") //$NON-NLS-1$
+		.append(getResidentCategoriesFootprint() / 1024).append("KB of ") //$NON-NLS-1$
+		.append(ResidentCategoryTable.getFootprintLimit() / 1024).append("KB\n"); //$NON-NLS-1$
 	buffer.append("In-memory indexes:\n"); //$NON-NLS-1$
 	int count = 0;
 	Object[] valueTable = this.indexes.valueTable;
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.search.indexing;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+import org.eclipse.jdt.internal.core.index.DiskIndex;
+import org.eclipse.jdt.internal.core.util.CacheFiles;
+
+/**
+ * A directory of index files of jars, shared between workspaces and machines.
+ * <p>
+ * The index of a jar is stored under the SHA-1 digest of the content of the jar, so that
+ * the same jar (a JDK library or an artifact from a repository) is indexed once whatever its location.
+ * The index files are grouped by index format: an index file is used only by the version of
+ * the search engine that generated it.
+ * </p><p>
+ * Index files are added to the store by {@link DefaultJavaIndexer#generateIndexInStore(String, String)}.
+ * The {@link IndexManager} only reads them: they are never modified nor deleted once stored.
+ * </p>
+ */
+public class IndexStore {
+
+	private static final String INDEX_SUFFIX = ".index"; //$NON-NLS-1$
+
+	File root;
+
+	public IndexStore(File root) {
+		this.root = root;
+	}
+
+	/**
+	 * Returns the store located in the given directory, or <code>null</code> if no directory is given.
+	 */
+	public static IndexStore create(String directory) {
+		if (directory == null || directory.length() == 0) return null;
+		return new IndexStore(new File(directory));
+	}
+
+	/**
+	 * Returns the hexadecimal SHA-1 digest of the content of the given file.
+	 */
+	public static String computeDigest(File file) throws IOException {
+		MessageDigest digest = CacheFiles.newDigest();
+		InputStream stream = new BufferedInputStream(new FileInputStream(file));
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = stream.read(buffer)) != -1)
+				digest.update(buffer, 0, read);
+		} finally {
+			stream.close();
+		}
+		return CacheFiles.toHexString(digest.digest());
+	}
+
+	/**
+	 * Returns the location in this store of the index of the jar with the given digest.
+	 * The file may not exist.
+	 */
+	public File getIndexFile(String digest) {
+		String version = DiskIndex.SIGNATURE.substring(DiskIndex.SIGNATURE.lastIndexOf(' ') + 1);
+		return CacheFiles.getFile(this.root, version, digest, INDEX_SUFFIX);
+	}
+
+	/**
+	 * Returns the stored index of the given jar, or <code>null</code> if none.
+	 */
+	public File lookup(File jar) throws IOException {
+		File indexFile = getIndexFile(computeDigest(jar));
+		return indexFile.isFile() ? indexFile : null;
+	}
+
+	/**
+	 * Returns whether the given index file belongs to this store.
+	 */
+	public boolean contains(File indexFile) {
+		String rootPath = this.root.getAbsolutePath();
+		String path = indexFile.getAbsolutePath();
+		return path.length() > rootPath.length() && path.startsWith(rootPath)
+			&& path.charAt(rootPath.length()) == File.separatorChar;
+	}
+
+	public String toString() {
+		return "Index store " + this.root; //$NON-NLS-1$
+	}
+}
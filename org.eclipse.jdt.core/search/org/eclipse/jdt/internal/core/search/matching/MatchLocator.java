@@ -102,6 +102,13 @@ static {
 	}
 }
 
+/*
+ * Number of workers used to locate matches in different projects concurrently (see ParallelMatchLocator).
+ * Matches are located in the calling thread if this is 1 (the default).
+ * The property is read when a search starts.
+ */
+public static final String PARALLELISM_PROPERTY = "jdt.core.search.parallelism"; //$NON-NLS-1$
+
 // permanent state
 public SearchPattern pattern;
 public PatternLocator patternLocator;
@@ -148,6 +155,14 @@ SimpleLookupTable bindings;
 HashSet methodHandles;
 
 private final boolean searchPackageDeclaration;
+
+// true if this locator only handles a batch of the documents of a ParallelMatchLocator
+boolean isBatchLocator = false;
+
+// true if this locator is given the working copies of the search up front and is then asked to locate
+// the documents of the indexes one index after the other (see IncrementalPatternSearchJob)
+public boolean isIncrementalLocator = false;
+private boolean packageDeclarationsLocated = false;
 private int sourceStartOfMethodToRetain;
 private int sourceEndOfMethodToRetain;
 
@@ -1074,6 +1089,9 @@ protected void locateMatches(JavaProject javaProject, PossibleMatch[] possibleMa
 	boolean bindingsWereCreated = mustResolve;
 	try {
 		for (int i = start, maxUnits = start + length; i < maxUnits; i++) {
+			// an incremental search is canceled as soon as enough matches were reported
+			if (this.isIncrementalLocator && this.progressMonitor != null && this.progressMonitor.isCanceled())
+				throw new OperationCanceledException();
 			PossibleMatch possibleMatch = possibleMatches[i];
 			try {
 				if (!parseAndBuildBindings(possibleMatch, mustResolvePattern)) continue;
@@ -1200,7 +1218,8 @@ public void locateMatches(SearchDocument[] searchDocuments) throws CoreException
 		System.out.println("]"); //$NON-NLS-1$
 	}
 	IJavaProject[] javaModelProjects = null;
-	if (this.searchPackageDeclaration) {
+	boolean locatePackageDeclarations = this.searchPackageDeclaration && !this.isBatchLocator && !this.packageDeclarationsLocated;
+	if (locatePackageDeclarations) {
 		javaModelProjects = JavaModelManager.getJavaModelManager().getJavaModel().getJavaProjects();
 		progressLength += javaModelProjects.length;
 	}
@@ -1210,17 +1229,19 @@ public void locateMatches(SearchDocument[] searchDocuments) throws CoreException
 	this.progressStep = progressLength < n ? 1 : progressLength / n; // step should not be 0
 	this.progressWorked = 0;
 
-	// extract working copies
-	ArrayList copies = new ArrayList();
-	for (int i = 0; i < docsLength; i++) {
-		SearchDocument document = searchDocuments[i];
-		if (document instanceof WorkingCopyDocument) {
-			copies.add(((WorkingCopyDocument)document).workingCopy);
+	// extract working copies (a batch or incremental locator is given the working copies of all the documents)
+	if (!this.isBatchLocator && !this.isIncrementalLocator) {
+		ArrayList copies = new ArrayList();
+		for (int i = 0; i < docsLength; i++) {
+			SearchDocument document = searchDocuments[i];
+			if (document instanceof WorkingCopyDocument) {
+				copies.add(((WorkingCopyDocument)document).workingCopy);
+			}
 		}
+		int copiesLength = copies.size();
+		this.workingCopies = new org.eclipse.jdt.core.ICompilationUnit[copiesLength];
+		copies.toArray(this.workingCopies);
 	}
-	int copiesLength = copies.size();
-	this.workingCopies = new org.eclipse.jdt.core.ICompilationUnit[copiesLength];
-	copies.toArray(this.workingCopies);
 
 	JavaModelManager manager = JavaModelManager.getJavaModelManager();
 	this.bindings = new SimpleLookupTable();
@@ -1246,6 +1267,18 @@ public void locateMatches(SearchDocument[] searchDocuments) throws CoreException
 				return ((SearchDocument)a).getPath().compareTo(((SearchDocument)b).getPath());
 			}
 		});
+
+		// locate matches of different projects concurrently if requested
+		int parallelism = this.isBatchLocator ? 1 : Math.max(Integer.getInteger(PARALLELISM_PROPERTY, 1).intValue(), 1);
+		if (parallelism > 1 && docsLength > 1
+				&& new ParallelMatchLocator(this, parallelism).locateMatches(searchDocuments)) {
+			if (locatePackageDeclarations) {
+				locatePackageDeclarations(searchDocuments[0].getParticipant(), javaModelProjects);
+				this.packageDeclarationsLocated = this.isIncrementalLocator;
+			}
+			return;
+		}
+
 		int displayed = 0; // progress worked displayed
 		String previousPath = null;
 		SearchParticipant searchParticipant = null;
@@ -1319,8 +1352,9 @@ public void locateMatches(SearchDocument[] searchDocuments) throws CoreException
 			}
 		}
 
-		if (this.searchPackageDeclaration) {
+		if (locatePackageDeclarations) {
 			locatePackageDeclarations(searchParticipant, javaModelProjects);
+			this.packageDeclarationsLocated = this.isIncrementalLocator;
 		}
 
 	} finally {
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.search.matching;
+
+import java.util.ArrayList;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.search.SearchDocument;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchRequestor;
+import org.eclipse.jdt.internal.core.Openable;
+import org.eclipse.jdt.internal.core.search.BasicSearchEngine;
+import org.eclipse.jdt.internal.core.search.matching.MatchLocator.WorkingCopyDocument;
+import org.eclipse.jdt.internal.core.util.Messages;
+import org.eclipse.jdt.internal.core.util.WorkerPool;
+
+/**
+ * Locates the matches of a {@link MatchLocator} using several threads.
+ * <p>
+ * The documents are split into batches that the sequential locator would process with different
+ * lookup environments: one batch per project, further split so that the units resolved at the
+ * same time by all the threads do not exceed {@link MatchLocator#MAX_AT_ONCE}.
+ * Each batch is located by its own {@link MatchLocator} by a worker of the shared {@link WorkerPool}.
+ * The matches are located in the calling thread if the pool has no worker available.
+ * </p><p>
+ * The matches found in a batch are reported to the requestor of the original locator, in the
+ * calling thread, once all the previous batches have been reported. The order in which the
+ * matches are reported is thus the same from one search to the next.
+ * </p>
+ */
+class ParallelMatchLocator {
+
+MatchLocator locator;
+int parallelism;
+
+SearchDocument[][] batches;
+Object[] results; // for each batch, an ArrayList of SearchMatch, or a Throwable if the batch failed, or null if not done yet
+int nextBatch;
+boolean canceled;
+
+/*
+ * Collects the matches found by the locator of a batch.
+ */
+static class MatchCollector extends SearchRequestor {
+	ArrayList matches = new ArrayList();
+	public void acceptSearchMatch(SearchMatch match) {
+		this.matches.add(match);
+	}
+}
+
+/*
+ * Progress monitor given to the locators of the batches: only reports cancellation.
+ */
+class CancelMonitor extends NullProgressMonitor {
+	public boolean isCanceled() {
+		return ParallelMatchLocator.this.isCanceled();
+	}
+}
+
+class Worker implements Runnable {
+	public void run() {
+		int batch;
+		while ((batch = nextBatch()) != -1) {
+			MatchCollector collector = new MatchCollector();
+			MatchLocator batchLocator = new MatchLocator(
+				ParallelMatchLocator.this.locator.pattern,
+				collector,
+				ParallelMatchLocator.this.locator.scope,
+				new CancelMonitor());
+			batchLocator.isBatchLocator = true;
+			batchLocator.workingCopies = ParallelMatchLocator.this.locator.workingCopies;
+			try {
+				batchLocator.locateMatches(ParallelMatchLocator.this.batches[batch]);
+				batchDone(batch, collector.matches);
+			} catch (CoreException e) {
+				batchDone(batch, e);
+			} catch (RuntimeException e) {
+				batchDone(batch, e);
+			} catch (Error e) {
+				batchDone(batch, e);
+			}
+		}
+	}
+}
+
+ParallelMatchLocator(MatchLocator locator, int parallelism) {
+	this.locator = locator;
+	this.parallelism = parallelism;
+}
+synchronized void batchDone(int batch, Object result) {
+	this.results[batch] = result;
+	notifyAll();
+}
+/*
+ * Splits the given sorted documents into batches of documents of the same project.
+ */
+private void computeBatches(SearchDocument[] searchDocuments) {
+	int batchSize = Math.max(MatchLocator.MAX_AT_ONCE / this.parallelism, 1);
+	ArrayList allBatches = new ArrayList();
+	ArrayList currentBatch = new ArrayList();
+	IJavaProject previousProject = null;
+	String previousPath = null;
+	for (int i = 0, length = searchDocuments.length; i < length; i++) {
+		SearchDocument searchDocument = searchDocuments[i];
+		String pathString = searchDocument.getPath();
+		if (pathString.equals(previousPath)) continue; // skip duplicate paths
+		previousPath = pathString;
+
+		Openable openable;
+		if (searchDocument instanceof WorkingCopyDocument)
+			openable = (Openable) ((WorkingCopyDocument) searchDocument).workingCopy;
+		else
+			openable = this.locator.handleFactory.createOpenable(pathString, this.locator.scope);
+		if (openable == null) continue; // match is outside classpath
+
+		IJavaProject javaProject = openable.getJavaProject();
+		if (!javaProject.equals(previousProject) || currentBatch.size() == batchSize) {
+			if (currentBatch.size() > 0) {
+				allBatches.add(currentBatch.toArray(new SearchDocument[currentBatch.size()]));
+				currentBatch = new ArrayList();
+			}
+			previousProject = javaProject;
+		}
+		currentBatch.add(searchDocument);
+	}
+	if (currentBatch.size() > 0)
+		allBatches.add(currentBatch.toArray(new SearchDocument[currentBatch.size()]));
+	this.batches = new SearchDocument[allBatches.size()][];
+	allBatches.toArray(this.batches);
+}
+synchronized boolean isCanceled() {
+	if (this.canceled) return true;
+	IProgressMonitor monitor = this.locator.progressMonitor;
+	return this.canceled = monitor != null && monitor.isCanceled();
+}
+/*
+ * Locates the matches in the given documents, sorted by path.
+ * Returns false if the documents are in a single batch or if no worker is available:
+ * the documents should then rather be located sequentially.
+ */
+boolean locateMatches(SearchDocument[] searchDocuments) throws CoreException {
+	computeBatches(searchDocuments);
+	int length = this.batches.length;
+	if (length < 2) return false;
+
+	this.results = new Object[length];
+	this.nextBatch = 0;
+	WorkerPool workers = WorkerPool.start(Messages.search_matches_jobName, new Worker(), Math.min(this.parallelism, length));
+	if (workers == null) return false;
+	if (BasicSearchEngine.VERBOSE)
+		System.out.println("Locating matches in " + length + " batches using " + workers.getWorkerCount() + " workers"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	IProgressMonitor monitor = this.locator.progressMonitor;
+	boolean completed = false;
+	try {
+		for (int i = 0; i < length; i++) {
+			Object result = waitForBatch(i);
+			if (result instanceof CoreException)
+				throw (CoreException) result;
+			if (result instanceof RuntimeException)
+				throw (RuntimeException) result;
+			if (result instanceof Error)
+				throw (Error) result;
+			ArrayList matches = (ArrayList) result;
+			for (int j = 0, size = matches.size(); j < size; j++) {
+				long start = BasicSearchEngine.VERBOSE ? System.currentTimeMillis() : 0;
+				this.locator.requestor.acceptSearchMatch((SearchMatch) matches.get(j));
+				if (BasicSearchEngine.VERBOSE)
+					this.locator.resultCollectorTime += System.currentTimeMillis()-start;
+			}
+			this.results[i] = null; // release the reported matches
+			if (monitor != null)
+				monitor.worked(this.batches[i].length);
+		}
+		completed = true;
+	} finally {
+		if (!completed) {
+			synchronized (this) {
+				this.canceled = true; // stop the workers
+			}
+		}
+	}
+	return true;
+}
+synchronized int nextBatch() {
+	if (this.canceled || this.nextBatch == this.batches.length)
+		return -1;
+	return this.nextBatch++;
+}
+private synchronized Object waitForBatch(int batch) {
+	while (this.results[batch] == null) {
+		if (isCanceled())
+			throw new OperationCanceledException();
+		try {
+			wait(100);
+		} catch (InterruptedException e) {
+			// ignore
+		}
+	}
+	return this.results[batch];
+}
+}